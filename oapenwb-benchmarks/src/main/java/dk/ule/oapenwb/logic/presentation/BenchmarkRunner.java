@@ -0,0 +1,29 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.presentation;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Main class of the benchmarks JAR. It accepts the usual JMH command line options and always adds the GC
+ * profiler so that the allocation rate is reported next to the throughput. If no benchmarks are selected
+ * all benchmarks of this module are run.</p>
+ */
+public class BenchmarkRunner
+{
+	public static void main(String[] args) throws Exception
+	{
+		final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		final ChainedOptionsBuilder builder = new OptionsBuilder()
+			.parent(commandLineOptions)
+			.addProfiler(GCProfiler.class);
+		if (commandLineOptions.getIncludes().isEmpty()) {
+			builder.include(BenchmarkRunner.class.getPackageName() + ".*Benchmark");
+		}
+		new Runner(builder.build()).run();
+	}
+}
@@ -0,0 +1,174 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.presentation;
+
+import dk.ule.oapenwb.logic.admin.LanguagesController;
+import dk.ule.oapenwb.logic.admin.generic.CEntityController;
+import dk.ule.oapenwb.persistency.entity.content.basedata.Category;
+import dk.ule.oapenwb.persistency.entity.content.basedata.Language;
+import dk.ule.oapenwb.persistency.entity.content.basedata.Level;
+import dk.ule.oapenwb.persistency.entity.content.basedata.Orthography;
+import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Sememe;
+import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Variant;
+
+import java.util.*;
+
+/**
+ * <p>Synthetic data for the lemma and presentation benchmarks. The entities are created via the
+ * {@link EntitiesUtil} of the tests.</p>
+ * <ul>
+ *   <li>Base data: three orthographies, the Saxon language with a number of dialects, two categories and
+ *     two levels. They are served by controllers that only hold them in maps, so no database is needed.</li>
+ *   <li>Content: sememes with a configurable number of variants. The variants are spread over the orthographies
+ *     and dialects, and every third variant repeats the lemma of another one so that
+ *     {@link WholeLemmaBuilder} has to merge variants.</li>
+ * </ul>
+ */
+public class LemmaFixtures
+{
+	public static final int DIALECT_COUNT = 12;
+
+	private final Map<Integer, Orthography> orthographies = new HashMap<>();
+	private final Map<Integer, Language> languages = new HashMap<>();
+	private final Map<Integer, Category> categories = new HashMap<>();
+	private final Map<Integer, Level> levels = new HashMap<>();
+
+	private final IControllerSet controllers;
+
+	private final List<Sememe> sememes = new ArrayList<>();
+	private final List<Variant> variants = new ArrayList<>();
+	private final Map<Long, Variant> variantsMap = new HashMap<>();
+
+	/**
+	 * @param sememeCount number of sememes to create
+	 * @param variantsPerSememe number of variants per sememe
+	 */
+	public LemmaFixtures(int sememeCount, int variantsPerSememe)
+	{
+		createBaseData();
+		this.controllers = createControllers();
+
+		long variantID = 1L;
+		for (int s = 0; s < sememeCount; s++) {
+			final Set<Long> variantIDs = new LinkedHashSet<>();
+			for (int v = 0; v < variantsPerSememe; v++) {
+				// Every third variant gets the lemma of its predecessor
+				final int lemmaIndex = v % 3 == 2 ? v - 1 : v;
+				final Variant variant = EntitiesUtil.createVariant(variantID++, 1 + v % orthographies.size(),
+					dialectsOf(v), EntitiesUtil.createLemma(null, "word" + s + "-" + lemmaIndex, null, null), true);
+				variants.add(variant);
+				variantsMap.put(variant.getId(), variant);
+				variantIDs.add(variant.getId());
+			}
+			final Sememe sememe = EntitiesUtil.createSememe(variantIDs, new HashSet<>(categories.keySet()),
+				new HashSet<>(levels.keySet()));
+			sememe.setId((long) s + 1);
+			sememe.setDialectIDs(dialectsOfAll());
+			sememes.add(sememe);
+		}
+	}
+
+	public IControllerSet getControllers()
+	{
+		return controllers;
+	}
+
+	public List<Sememe> getSememes()
+	{
+		return sememes;
+	}
+
+	public List<Variant> getVariants()
+	{
+		return variants;
+	}
+
+	public Map<Long, Variant> getVariantsMap()
+	{
+		return variantsMap;
+	}
+
+	private void createBaseData()
+	{
+		orthographies.put(1, new Orthography(1, null, "o:nss", Orthography.ABBR_SAXON_NYSASSISKE_SKRYVWYSE,
+			"Nysassiske Skryvwyse", true));
+		orthographies.put(2, new Orthography(2, null, "o:dbo", Orthography.ABBR_SAXON_GERMAN_BASED,
+			"Düütschbaseerde Schriefwies", true));
+		orthographies.put(3, new Orthography(3, null, "o:nbo", Orthography.ABBR_SAXON_DUTCH_BASED,
+			"Nederlands gebaseerde orthografie", true));
+
+		languages.put(1, new Language(1, null, "nds", "Neddersassisk", "l:nds", "l:nds_a", 1));
+		for (int i = 0; i < DIALECT_COUNT; i++) {
+			final int id = 2 + i;
+			languages.put(id, new Language(id, 1, "nds-d" + i, "Dialect " + i, "l:nds-d" + i, "l:nds-d" + i + "_a", 1));
+		}
+
+		categories.put(1, new Category(1, null, null, "c:flora", "c:flora_a", "Botanic lexemes"));
+		categories.put(2, new Category(2, null, null, "c:fauna", "c:fauna_a", "Lexemes of the animal kingdom"));
+
+		levels.put(1, new Level(1, null, "sl:colloq", "sl:colloq_a", "Colloquial words"));
+		levels.put(2, new Level(2, null, "sl:exalted", "sl:exalted_a", "Exalted words"));
+	}
+
+	// The sets must be mutable since WholeLemmaBuilder.merge() adds to them
+	private Set<Integer> dialectsOf(int variantIndex)
+	{
+		final Set<Integer> dialectIDs = new HashSet<>();
+		dialectIDs.add(2 + variantIndex % DIALECT_COUNT);
+		dialectIDs.add(2 + (variantIndex + 5) % DIALECT_COUNT);
+		return dialectIDs;
+	}
+
+	private Set<Integer> dialectsOfAll()
+	{
+		final Set<Integer> dialectIDs = new HashSet<>();
+		for (int i = 0; i < DIALECT_COUNT; i++) {
+			dialectIDs.add(2 + i);
+		}
+		return dialectIDs;
+	}
+
+	private IControllerSet createControllers()
+	{
+		final CEntityController<Orthography, Integer> orthographiesController = new CEntityController<>(
+			Orthography::new, Orthography.class, ids -> Integer.parseInt(ids[0]))
+		{
+			@Override
+			public Orthography get(Integer id)
+			{
+				return orthographies.get(id);
+			}
+		};
+		final LanguagesController languagesController = new LanguagesController()
+		{
+			@Override
+			public Language get(Integer id)
+			{
+				return languages.get(id);
+			}
+		};
+		final CEntityController<Category, Integer> categoriesController = new CEntityController<>(
+			Category::new, Category.class, ids -> Integer.parseInt(ids[0]))
+		{
+			@Override
+			public Category get(Integer id)
+			{
+				return categories.get(id);
+			}
+		};
+		final CEntityController<Level, Integer> levelsController = new CEntityController<>(
+			Level::new, Level.class, ids -> Integer.parseInt(ids[0]))
+		{
+			@Override
+			public Level get(Integer id)
+			{
+				return levels.get(id);
+			}
+		};
+
+		final ControllerSet controllerSet = new ControllerSet();
+		controllerSet.setControllers(orthographiesController, languagesController, categoriesController,
+			levelsController, null);
+		return controllerSet;
+	}
+}
@@ -0,0 +1,52 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.presentation;
+
+import dk.ule.oapenwb.base.error.CodeException;
+import dk.ule.oapenwb.logic.presentation.options.PresentationOptions;
+import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Sememe;
+import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Variant;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Benchmarks for class {@link PresentationBuilder}. One invocation builds the presentation of a SynGroup
+ * consisting of all sememes of the fixtures.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PresentationBuilderBenchmark
+{
+	@Param({"2", "8"})
+	public int sememeCount;
+
+	@Param({"1", "4", "16"})
+	public int variantsPerSememe;
+
+	private final PresentationBuilder builder = new PresentationBuilder();
+
+	private IControllerSet controllers;
+	private List<Sememe> sememes;
+	private List<Variant> variants;
+
+	@Setup
+	public void setup()
+	{
+		final LemmaFixtures fixtures = new LemmaFixtures(sememeCount, variantsPerSememe);
+		this.controllers = fixtures.getControllers();
+		this.sememes = fixtures.getSememes();
+		this.variants = fixtures.getVariants();
+	}
+
+	@Benchmark
+	public String build() throws CodeException
+	{
+		return builder.build(PresentationOptions.DEFAULT_PRESENTATION_OPTIONS, controllers, sememes, variants);
+	}
+}
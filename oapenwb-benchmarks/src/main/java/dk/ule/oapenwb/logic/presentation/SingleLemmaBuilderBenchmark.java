@@ -0,0 +1,60 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.presentation;
+
+import dk.ule.oapenwb.base.error.CodeException;
+import dk.ule.oapenwb.logic.presentation.options.PresentationOptions;
+import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Variant;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Benchmarks for class {@link SingleLemmaBuilder}.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SingleLemmaBuilderBenchmark
+{
+	private final SingleLemmaBuilder builder = new SingleLemmaBuilder();
+
+	private IControllerSet controllers;
+	private Variant[] variants;
+	private Set<Integer> sememeDialects;
+	private int index = 0;
+
+	@Setup
+	public void setup()
+	{
+		final LemmaFixtures fixtures = new LemmaFixtures(64, 4);
+		this.controllers = fixtures.getControllers();
+		this.variants = fixtures.getVariants().toArray(new Variant[0]);
+		this.sememeDialects = fixtures.getSememes().getFirst().getDialectIDs();
+	}
+
+	@Benchmark
+	public String build() throws CodeException
+	{
+		return builder.build(PresentationOptions.DEFAULT_PRESENTATION_OPTIONS, controllers, nextVariant(),
+			sememeDialects);
+	}
+
+	@Benchmark
+	public String buildLemmaWithOrthographyOnly() throws CodeException
+	{
+		return builder.buildLemmaWithOrthographyOnly(PresentationOptions.DEFAULT_PRESENTATION_OPTIONS, controllers,
+			nextVariant());
+	}
+
+	private Variant nextVariant()
+	{
+		final Variant variant = variants[index];
+		index = (index + 1) % variants.length;
+		return variant;
+	}
+}
@@ -0,0 +1,61 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.presentation;
+
+import dk.ule.oapenwb.base.error.CodeException;
+import dk.ule.oapenwb.logic.presentation.options.PresentationOptions;
+import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Sememe;
+import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Variant;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Benchmarks for class {@link WholeLemmaBuilder}, including the merging of variants with the same lemma.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WholeLemmaBuilderBenchmark
+{
+	@Param({"1", "4", "16"})
+	public int variantsPerSememe;
+
+	private final WholeLemmaBuilder builder = new WholeLemmaBuilder();
+
+	private IControllerSet controllers;
+	private Sememe[] sememes;
+	private Map<Long, Variant> variantsMap;
+	private Variant[] variants;
+	private int index = 0;
+
+	@Setup
+	public void setup()
+	{
+		final LemmaFixtures fixtures = new LemmaFixtures(64, variantsPerSememe);
+		this.controllers = fixtures.getControllers();
+		this.sememes = fixtures.getSememes().toArray(new Sememe[0]);
+		this.variantsMap = fixtures.getVariantsMap();
+		this.variants = fixtures.getVariants().toArray(new Variant[0]);
+	}
+
+	@Benchmark
+	public String build() throws CodeException
+	{
+		final Sememe sememe = sememes[index];
+		index = (index + 1) % sememes.length;
+		return builder.build(PresentationOptions.DEFAULT_PRESENTATION_OPTIONS, controllers, sememe, variantsMap);
+	}
+
+	@Benchmark
+	public Variant merge() throws CloneNotSupportedException
+	{
+		final Variant v1 = variants[index];
+		index = (index + 1) % variants.length;
+		return builder.merge(v1, variants[index]);
+	}
+}
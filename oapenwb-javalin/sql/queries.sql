@@ -55,15 +55,17 @@ from Sememes S inner join Lexemes L on S.lexemeID = L.id
 where S.id = :sememeID
 
 
--- Q500
+-- Q500 (replaced by Q502, kept for reference: the search no longer matches LexemeForms.searchableText but the
+-- folded search keys of the SearchEntries projection)
 -- Search query for both directions. Part before union is for left-to-right
 -- while part after union is for right-to-left search.
 select sememeOneID, sememeTwoID, weight
 from Mappings m
 where m.langPair in (:langPairs) and sememeOneID in (
-	select s.id from Sememes s inner join Lexemes l on s.lexemeID = l.id,
-		jsonb_array_elements(s.variantIDs) va(variantID)
-	where l.active = true and s.active = true and l.langID in (:langOneIDs) and variantID::int in ( -- escape the :: (!)
+	select s.id from Sememes s inner join Lexemes l on s.lexemeID = l.id
+		inner join SememeVariants sv on sv.sememeID = s.id
+	where l.active = true and s.active = true and l.langID in (:langOneIDs)
+		and sv.variantID in (
 		select variantID from LexemeForms
 			where searchableText @@ websearch_to_tsquery('simple', :term)
 	)
@@ -72,15 +74,34 @@ union
 select sememeOneID, sememeTwoID, weight
 from Mappings m
 where m.langPair in (:langPairs) and sememeTwoID in (
-	select s.id from Sememes s inner join Lexemes l on s.lexemeID = l.id,
-		jsonb_array_elements(s.variantIDs) va(variantID)
-	where l.active = true and s.active = true and l.langID in (:langTwoIDs) and variantID::int in ( -- escape the :: (!)
+	select s.id from Sememes s inner join Lexemes l on s.lexemeID = l.id
+		inner join SememeVariants sv on sv.sememeID = s.id
+	where l.active = true and s.active = true and l.langID in (:langTwoIDs)
+		and sv.variantID in (
 		select variantID from LexemeForms
 			where searchableText @@ websearch_to_tsquery('simple', :term)
 	)
 )
 order by weight desc
 
+-- Q502
+-- Replaces Q500: the same search answered from the SearchEntries projection without joins. The term is folded
+-- just as the search keys of the entries. The SearchController builds this query dynamically:
+-- * each distinct character equivalence of the searched languages adds a tsquery, e.g.
+--   e.searchKey @@ (websearch_to_tsquery('simple', fold_search_text(:term, :foldFrom0, :foldTo0))
+--     || websearch_to_tsquery('simple', fold_search_text(:term, :foldFrom1, :foldTo1)))
+-- * once an orthography of the searched languages has transliteration rules the translitKey is probed instead:
+--   e.translitKey @@ (websearch_to_tsquery('simple',
+--     fold_search_text(transliterate_search_text(lower(:term), :rules0), :foldFrom0, :foldTo0)) || ...)
+-- * the variants found by a phonetic search are probed directly: e.variantID = any(cast(:variantIDs as bigint[]))
+-- * the side condition is narrowed to side 1 (Right) or side 2 (Left) by the direction
+-- The result is paged per result category by the enclosing query (see Q501).
+select distinct e.mappingID as id, e.langPair, e.sememeOneID, e.sememeTwoID, e.weight, e.oneTypeID
+from SearchEntries e
+where e.active = true and e.langPair in (:langPairs)
+	and e.searchKey @@ (websearch_to_tsquery('simple', fold_search_text(:term, :foldFrom0, :foldTo0)))
+	and ((e.side = 1 and e.langID in (:langOneIDs)) or (e.side = 2 and e.langID in (:langTwoIDs)))
+
 -- Q550
 -- Autocomplete query
 select V.id as id, L.typeID as typeID, L.langID as langID, S.id as sememeID
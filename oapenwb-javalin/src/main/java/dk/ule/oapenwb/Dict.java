@@ -22,12 +22,19 @@ import dk.ule.oapenwb.data.importer.csv.CsvImporterConfig;
 import dk.ule.oapenwb.data.importer.csv.CsvRowBasedImporter;
 import dk.ule.oapenwb.data.importer.csv.setting.SaxonFirstImportSetting;
 import dk.ule.oapenwb.entity.basis.RoleType;
+import dk.ule.oapenwb.logic.admin.generic.CEntityController;
+import dk.ule.oapenwb.logic.admin.generic.CacheStatistics;
+import dk.ule.oapenwb.logic.search.SearchResultCache;
+import dk.ule.oapenwb.logic.search.index.LexemeIndex;
 import dk.ule.oapenwb.logic.users.LoginToken;
 import dk.ule.oapenwb.persistency.entity.Views;
 import dk.ule.oapenwb.rpc.DictSpring;
 import dk.ule.oapenwb.util.CurrentUser;
 import dk.ule.oapenwb.util.EmailUtil;
 import dk.ule.oapenwb.util.HibernateUtil;
+import dk.ule.oapenwb.util.concurrent.SingleFlight;
+import dk.ule.oapenwb.util.metrics.Metrics;
+import dk.ule.oapenwb.util.sql.SlowQueryLog;
 import io.javalin.Javalin;
 import io.javalin.http.Context;
 import io.javalin.http.Handler;
@@ -48,6 +55,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Supplier;
 
 import static io.javalin.apibuilder.ApiBuilder.*;
 
@@ -221,6 +229,12 @@ public class Dict
 			// Pass the customly configured object mapper over to Javalin, and enable use of virtual threads
 			config.jsonMapper(new JavalinJackson(objMapper, true));
 
+			if (appConfig.isExposeMetrics()) {
+				// The JSON is streamed after the handler is done, so the latency includes the serialization
+				config.requestLogger.http((ctx, ms) -> Metrics.INSTANCE.route(ctx.method().name(),
+					getRoutePath(ctx), ctx.statusCode()).record((long) (ms * 1_000_000)));
+			}
+
 			// Configure the routes, connect the Javalin faces
 			config.router.apiBuilder(() -> {
 				get("alive", (@NotNull Context ctx) -> {
@@ -229,6 +243,11 @@ public class Dict
 					}
 				}, allRoles);
 
+				if (appConfig.isExposeMetrics()) {
+					get("metrics", ctx -> ctx.contentType("text/plain; version=0.0.4; charset=utf-8")
+						.result(Metrics.INSTANCE.scrape()), adminRole);
+				}
+
 				post("searchResults", faces.getSearch()::executeQuery, allRoles);
 
 				post("autocompletions", faces.getAutocomplete()::executeQuery, allRoles);
@@ -496,6 +515,21 @@ public class Dict
 
 						}, adminRole));
 					});
+
+					// Rebuilds the search projection, e.g. after data was changed directly on the database
+					path("__searchEntries", () -> post(
+						ctx -> ctx.json(dictControllers.getSearchEntriesProjection().rebuild()), adminRole));
+					// Rebuilds the stored lemmas in the background, e.g. after orthographies or dialects were changed
+					path("__sememeLemmas", () -> post(
+						ctx -> ctx.json(dictControllers.getSememeLemmaStore().rebuild()), adminRole));
+					// Statistics of the slow query log, and the query plan of the sample of a statement
+					path("__slowQueries", () -> {
+						get(ctx -> ctx.json(SlowQueryLog.INSTANCE.report(
+							ctx.queryParamAsClass("limit", Integer.class).getOrDefault(20))), adminRole);
+						delete(ctx -> SlowQueryLog.INSTANCE.reset(), adminRole);
+						post("{id}/explain", ctx -> ctx.json(SlowQueryLog.INSTANCE.explain(ctx.pathParam("id"))),
+							adminRole);
+					});
 				});
 
 				after("*", (ctx) -> {
@@ -505,8 +539,12 @@ public class Dict
 			});
 		});
 
+		if (appConfig.isExposeMetrics()) {
+			registerGauges(dictControllers, adminControllers);
+		}
+
 		// Set a shutdown hook to know when the application was terminated
-		Thread shutdownHook = new Thread(() -> shutdownHook(app, dictSpring));
+		Thread shutdownHook = new Thread(() -> shutdownHook(app, dictSpring, dictControllers));
 		Runtime.getRuntime().addShutdownHook(shutdownHook);
 
 		// Set the JWTAccessManager
@@ -531,19 +569,127 @@ public class Dict
 		} finally {
 			HibernateUtil.closeSession();
 		}
+
+		for (LexemeIndex<?, ?> index : dictControllers.getLexemeIndexes()) {
+			if (!index.isEnabled()) {
+				continue;
+			}
+			try {
+				index.build();
+			} catch (Exception e) {
+				LOG.error("Could not build the " + index.getName() + ", " + index.getFallback(), e);
+			} finally {
+				HibernateUtil.closeSession();
+			}
+		}
+
+		dictControllers.getSememeLemmaStore().start();
+
+		if (appConfig.isLogSearchRuns()) {
+			dictControllers.getSearchRunRecorder().start();
+			dictControllers.getSearchRunCondenser().start();
+		}
 		LOG.debug("End of run()");
 	}
 
+	/**
+	 * @return the path of the matched route, e.g. <i>admin/lexemes/{id}</i>, so that the number of latency histograms
+	 *   is bounded
+	 */
+	private static String getRoutePath(final Context ctx)
+	{
+		if (ctx.statusCode() == 404) {
+			return "unmatched";
+		}
+		try {
+			return ctx.endpointHandlerPath();
+		} catch (IllegalStateException e) {
+			// No endpoint handler was matched
+			return "unmatched";
+		}
+	}
+
+	/**
+	 * Registers the gauges of the caches, the coalesced searches and the connection pool for the metrics route.
+	 */
+	private static void registerGauges(final DictControllers dictControllers, final AdminControllers adminControllers)
+	{
+		final Metrics metrics = Metrics.INSTANCE;
+
+		final Map<String, CEntityController<?, ?>> caches = new LinkedHashMap<>();
+		caches.put("Orthography", adminControllers.getOrthographiesController());
+		caches.put("Language", adminControllers.getLanguagesController());
+		caches.put("LexemeType", adminControllers.getLexemeTypesController());
+		caches.put("Category", adminControllers.getCategoriesController());
+		caches.put("Level", adminControllers.getUnitLevelsController());
+		caches.put("LinkType", adminControllers.getLinkTypesController());
+		caches.put("UiResultCategory", adminControllers.getUiResultCategoriesController());
+		caches.forEach((entity, controller) -> registerCacheGauges(metrics, entity, controller::getCacheStatistics));
+		registerCacheGauges(metrics, "LexemeFormType",
+			adminControllers.getLexemeFormTypesController()::getCacheStatistics);
+		registerCacheGauges(metrics, "TypeLanguageConfig", adminControllers.getTlConfigsController()::getCacheStatistics);
+		registerCacheGauges(metrics, "LemmaTemplate",
+			adminControllers.getLemmaTemplatesController()::getCacheStatistics);
+
+		final SearchResultCache resultCache = dictControllers.getSearchResultCache();
+		metrics.gauge("oapenwb_search_result_cache_size", "Number of cached search results", resultCache::size);
+		metrics.gauge("oapenwb_search_result_cache_requests", "Lookups in the search result cache",
+			resultCache::getHits, "result", "hit");
+		metrics.gauge("oapenwb_search_result_cache_requests", "Lookups in the search result cache",
+			resultCache::getMisses, "result", "miss");
+
+		final Map<String, Supplier<SingleFlight.Statistics>> flights = Map.of(
+			"search", dictControllers.getSearch()::getSingleFlightStatistics,
+			"autocomplete", dictControllers.getAutocomplete()::getSingleFlightStatistics);
+		final String flightHelp = "Executions of concurrent identical requests per role";
+		flights.forEach((name, statistics) -> {
+			metrics.gauge("oapenwb_single_flight_requests", flightHelp, () -> statistics.get().leaders(),
+				"flight", name, "role", "leader");
+			metrics.gauge("oapenwb_single_flight_requests", flightHelp, () -> statistics.get().followers(),
+				"flight", name, "role", "follower");
+			metrics.gauge("oapenwb_single_flight_requests", flightHelp, () -> statistics.get().timeouts(),
+				"flight", name, "role", "timeout");
+		});
+
+		final String poolHelp = "Connections of the database connection pool per state";
+		metrics.gauge("oapenwb_db_pool_connections", poolHelp,
+			() -> HibernateUtil.getPoolMXBean().getActiveConnections(), "state", "active");
+		metrics.gauge("oapenwb_db_pool_connections", poolHelp,
+			() -> HibernateUtil.getPoolMXBean().getIdleConnections(), "state", "idle");
+		metrics.gauge("oapenwb_db_pool_connections", poolHelp,
+			() -> HibernateUtil.getPoolMXBean().getTotalConnections(), "state", "total");
+		metrics.gauge("oapenwb_db_pool_pending_threads", "Threads waiting for a database connection",
+			() -> HibernateUtil.getPoolMXBean().getThreadsAwaitingConnection());
+	}
+
+	private static void registerCacheGauges(final Metrics metrics, final String entity,
+		final Supplier<CacheStatistics> statistics)
+	{
+		metrics.gauge("oapenwb_entity_cache_size", "Number of cached base data entities",
+			() -> statistics.get().size(), "entity", entity);
+		final String help = "Lookups and loads of the base data caches";
+		metrics.gauge("oapenwb_entity_cache_requests", help, () -> statistics.get().hits(),
+			"entity", entity, "result", "hit");
+		metrics.gauge("oapenwb_entity_cache_requests", help, () -> statistics.get().misses(),
+			"entity", entity, "result", "miss");
+		metrics.gauge("oapenwb_entity_cache_requests", help, () -> statistics.get().loads(),
+			"entity", entity, "result", "load");
+	}
+
 	/**
 	 * Shutdown hook to know (e.g. on log files) when the app was shut down.
 	 * 
 	 * @param app the Javalin app instance
 	 */
-	private void shutdownHook(final Javalin app, final DictSpring dictSpring)
+	private void shutdownHook(final Javalin app, final DictSpring dictSpring, final DictControllers dictControllers)
 	{
 		try {
 			LOG.info("Shutting down application…");
 			app.stop();
+			dictControllers.getSememeLemmaStore().shutdown();
+			dictControllers.getSearchRunCondenser().shutdown();
+			// Persist the search runs that are still buffered
+			dictControllers.getSearchRunRecorder().shutdown();
 			Thread.sleep(250);
 			dictSpring.shutdown();
 			Thread.sleep(1750);
@@ -7,10 +7,24 @@ import com.google.inject.Singleton;
 import dk.ule.oapenwb.logic.config.ConfigController;
 import dk.ule.oapenwb.logic.l10n.L10nController;
 import dk.ule.oapenwb.logic.search.SearchController;
+import dk.ule.oapenwb.logic.search.SearchEntriesProjection;
+import dk.ule.oapenwb.logic.search.SearchResultCache;
+import dk.ule.oapenwb.logic.search.SememeLemmaStore;
+import dk.ule.oapenwb.logic.search.autocomplete.AutocompleteController;
+import dk.ule.oapenwb.logic.search.autocomplete.AutocompleteIndex;
+import dk.ule.oapenwb.logic.search.index.LexemeIndex;
+import dk.ule.oapenwb.logic.search.index.TranslationIndex;
+import dk.ule.oapenwb.logic.search.infix.InfixIndex;
+import dk.ule.oapenwb.logic.search.phonetic.PhoneticIndex;
+import dk.ule.oapenwb.logic.search.spelling.SpellingIndex;
+import dk.ule.oapenwb.logic.statistics.SearchRunCondenser;
+import dk.ule.oapenwb.logic.statistics.SearchRunRecorder;
 import dk.ule.oapenwb.logic.users.UserController;
 import dk.ule.oapenwb.logic.users.ViolationController;
 import lombok.Getter;
 
+import java.util.List;
+
 /**
  * <p>This class creates the controllers for the standard dictionary's interface and connects them to each other if
  * necessary.</p>
@@ -37,4 +51,56 @@ class DictControllers
 	@Getter
 	@Inject
 	private UserController users;
-}
\ No newline at end of file
+
+	@Getter
+	@Inject
+	private SearchResultCache searchResultCache;
+
+	@Getter
+	@Inject
+	private AutocompleteController autocomplete;
+
+	@Getter
+	@Inject
+	private SearchEntriesProjection searchEntriesProjection;
+
+	@Getter
+	@Inject
+	private SememeLemmaStore sememeLemmaStore;
+
+	@Getter
+	@Inject
+	private TranslationIndex translationIndex;
+
+	@Getter
+	@Inject
+	private AutocompleteIndex autocompleteIndex;
+
+	@Getter
+	@Inject
+	private SpellingIndex spellingIndex;
+
+	@Getter
+	@Inject
+	private InfixIndex infixIndex;
+
+	@Getter
+	@Inject
+	private PhoneticIndex phoneticIndex;
+
+	@Getter
+	@Inject
+	private SearchRunRecorder searchRunRecorder;
+
+	@Getter
+	@Inject
+	private SearchRunCondenser searchRunCondenser;
+
+	/**
+	 * @return the in-memory indexes in the order they are built on startup
+	 */
+	public List<LexemeIndex<?, ?>> getLexemeIndexes()
+	{
+		return List.of(translationIndex, autocompleteIndex, spellingIndex, infixIndex, phoneticIndex);
+	}
+}
@@ -13,6 +13,7 @@ import dk.ule.oapenwb.logic.admin.*;
 import dk.ule.oapenwb.logic.admin.generic.CEntityController;
 import dk.ule.oapenwb.logic.admin.generic.CGEntityController;
 import dk.ule.oapenwb.logic.admin.generic.EntityController;
+import dk.ule.oapenwb.logic.admin.lexeme.BaseDataCaches;
 import dk.ule.oapenwb.logic.admin.lexeme.LexemesController;
 import dk.ule.oapenwb.logic.admin.lexeme.sememe.SememesController;
 import dk.ule.oapenwb.logic.admin.locking.LockController;
@@ -21,6 +22,16 @@ import dk.ule.oapenwb.logic.config.ConfigController;
 import dk.ule.oapenwb.logic.l10n.L10nController;
 import dk.ule.oapenwb.logic.presentation.ControllerSet;
 import dk.ule.oapenwb.logic.search.SearchController;
+import dk.ule.oapenwb.logic.search.SearchEntriesProjection;
+import dk.ule.oapenwb.logic.search.SearchResultCache;
+import dk.ule.oapenwb.logic.search.SememeLemmaStore;
+import dk.ule.oapenwb.logic.search.autocomplete.AutocompleteIndex;
+import dk.ule.oapenwb.logic.search.index.TranslationIndex;
+import dk.ule.oapenwb.logic.search.infix.InfixIndex;
+import dk.ule.oapenwb.logic.search.phonetic.PhoneticIndex;
+import dk.ule.oapenwb.logic.search.spelling.SpellingIndex;
+import dk.ule.oapenwb.logic.statistics.SearchRunCondenser;
+import dk.ule.oapenwb.logic.statistics.SearchRunRecorder;
 import dk.ule.oapenwb.logic.users.UserController;
 import dk.ule.oapenwb.logic.users.ViolationController;
 import dk.ule.oapenwb.persistency.entity.content.basedata.*;
@@ -55,6 +66,16 @@ public class DictModule extends AbstractModule
 		bind(ViolationController.class);
 		bind(ConfigController.class);
 		bind(L10nController.class);
+		bind(TranslationIndex.class);
+		bind(AutocompleteIndex.class);
+		bind(SpellingIndex.class);
+		bind(InfixIndex.class);
+		bind(PhoneticIndex.class);
+		bind(SearchRunRecorder.class);
+		bind(SearchRunCondenser.class);
+		bind(SearchResultCache.class);
+		bind(SearchEntriesProjection.class);
+		bind(SememeLemmaStore.class);
 		bind(SearchController.class);
 		bind(UserController.class);
 		bind(DictControllers.class);
@@ -221,6 +242,7 @@ public class DictModule extends AbstractModule
 		bind(TagsController.class);
 		bind(SynGroupsController.class);
 		bind(SememesController.class);
+		bind(BaseDataCaches.class);
 		bind(LexemesController.class);
 		bind(LockController.class);
 		bind(ControllerSet.class);
@@ -36,6 +36,86 @@ public class AppConfig
 	@Getter
 	private boolean logSearchRuns = false;
 
+	/**
+	 * How search runs are recorded and condensed if logSearchRuns is enabled.
+	 */
+	@Getter
+	private SearchStatisticsConfig searchStatisticsConfig = new SearchStatisticsConfig();
+
+	/**
+	 * Shall the search be answered by the in-memory translation index instead of the database? The index is built
+	 * on startup and needs some memory and time depending on the amount of lexemes.
+	 */
+	@Getter
+	private boolean useTranslationIndex = false;
+
+	/**
+	 * Shall autocompletions be answered by the in-memory autocomplete index instead of the database?
+	 */
+	@Getter
+	private boolean useAutocompleteIndex = false;
+
+	/**
+	 * Shall searches without results be repeated with a spelling correction of the term? The corrections are found
+	 * in an in-memory index of the lexeme forms that is built on startup.
+	 */
+	@Getter
+	private boolean useSpellingSuggestions = false;
+
+	/**
+	 * Shall wildcard searches of lexemes with less than three literal characters (e.g. *hu*) be answered by an
+	 * in-memory suffix array instead of scanning the lexeme forms? It is built on startup.
+	 */
+	@Getter
+	private boolean useInfixIndex = false;
+
+	/**
+	 * Shall searches for sound-alike lexeme forms be possible (option phonetic of the search request)? The phonetic
+	 * keys of the lexeme forms are held in an in-memory index that is built on startup.
+	 */
+	@Getter
+	private boolean usePhoneticIndex = false;
+
+	/**
+	 * Maximum number of search results held in the cache for frequently searched terms. 0 disables the cache.
+	 */
+	@Getter
+	private int searchResultCacheSize = 10_000;
+
+	/**
+	 * Concurrent identical searches and autocompletions are executed only once. This is the maximum number of
+	 * miliseconds the waiting requests wait for the executing one before they execute the query themselves.
+	 */
+	@Getter
+	private int singleFlightTimeoutMillis = 5_000;
+
+	/**
+	 * Maximum number of LangPairs searched in parallel for one search request on multiple LangPairs ("nds-*").
+	 * It is also limited by dbConfig.maxPoolSize.
+	 */
+	@Getter
+	private int searchFanOutParallelism = 4;
+
+	/**
+	 * Shall the lemmas of the sememes be prebuilt and persisted, so that the search only reads them? They are built
+	 * in the background on startup and rebuilt for each saved lexeme.
+	 */
+	@Getter
+	private boolean useSememeLemmaStore = false;
+
+	/**
+	 * Shall the latencies of the routes and search stages, the cache statistics and the connection pool be exposed
+	 * in the Prometheus text format on the route <i>metrics</i>? The route is only accessible for admins.
+	 */
+	@Getter
+	private boolean exposeMetrics = false;
+
+	/**
+	 * How the execution times of the SQL statements are collected if the slow query log is enabled.
+	 */
+	@Getter
+	private SlowQueryConfig slowQueryConfig = new SlowQueryConfig();
+
 	/**
 	 * Shall emails be sent when a user registers, for notifications, etc.?
 	 */
@@ -111,4 +191,53 @@ public class AppConfig
 		@Getter
 		private String outputDir;
 	}
-}
\ No newline at end of file
+
+	public static class SearchStatisticsConfig
+	{
+		/**
+		 * Maximum number of search runs waiting to be persisted. Further runs are dropped until there is space again.
+		 */
+		@Getter
+		private int bufferSize = 4096;
+
+		/**
+		 * Maximum number of search runs persisted in one transaction.
+		 */
+		@Getter
+		private int batchSize = 200;
+
+		/**
+		 * Number of miliseconds between two flushes of the buffer.
+		 */
+		@Getter
+		private int flushIntervalMillis = 5_000;
+
+		/**
+		 * Number of minutes between two runs of the job condensing the search runs of past days.
+		 */
+		@Getter
+		private int condenseIntervalMinutes = 60;
+	}
+
+	public static class SlowQueryConfig
+	{
+		/**
+		 * Shall the execution time of each SQL statement be measured? The statistics can be retrieved via the admin
+		 * route <i>__slowQueries</i>.
+		 */
+		@Getter
+		private boolean enabled = false;
+
+		/**
+		 * Executions that take at least this number of miliseconds are logged together with their bind parameters.
+		 */
+		@Getter
+		private int thresholdMillis = 250;
+
+		/**
+		 * Maximum number of distinct statements (fingerprints) whose statistics are kept.
+		 */
+		@Getter
+		private int maxFingerprints = 1000;
+	}
+}
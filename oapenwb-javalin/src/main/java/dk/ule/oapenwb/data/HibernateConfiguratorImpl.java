@@ -20,6 +20,8 @@ import dk.ule.oapenwb.persistency.entity.ui.UiResultCategory;
 import dk.ule.oapenwb.persistency.entity.ui.UiTranslation;
 import dk.ule.oapenwb.persistency.entity.ui.UiTranslationScope;
 import dk.ule.oapenwb.util.HibernateConfigurator;
+import dk.ule.oapenwb.util.sql.ProfilingConnectionProvider;
+import dk.ule.oapenwb.util.sql.SlowQueryLog;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.cfg.AvailableSettings;
@@ -85,6 +87,13 @@ public class HibernateConfiguratorImpl implements HibernateConfigurator
 		// Maximum number of miliseconds to wait for a connection from the pool. Else SQLException will be thrown.
 		configuration.setProperty("hibernate.hikari.connectionTimeout", "20000");
 
+		// Measure the SQL statements for the slow query log
+		final AppConfig.SlowQueryConfig slowQueryConfig = this.appConfig.getSlowQueryConfig();
+		if (slowQueryConfig.isEnabled()) {
+			SlowQueryLog.INSTANCE.configure(slowQueryConfig.getThresholdMillis(), slowQueryConfig.getMaxFingerprints());
+			configuration.setProperty(AvailableSettings.CONNECTION_PROVIDER, ProfilingConnectionProvider.class.getName());
+		}
+
 		// Add the entities
 		configuration.addAnnotatedClass(Ban.class);
 		configuration.addAnnotatedClass(Permission.class);
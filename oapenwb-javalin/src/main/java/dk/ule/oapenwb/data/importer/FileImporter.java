@@ -6,6 +6,7 @@ import dk.ule.oapenwb.AdminControllers;
 import dk.ule.oapenwb.base.error.CodeException;
 import dk.ule.oapenwb.logic.admin.common.FilterCriterion;
 import dk.ule.oapenwb.logic.admin.lexeme.LexemeDetailedDTO;
+import dk.ule.oapenwb.logic.admin.lexeme.LexemeSlimDTO;
 import dk.ule.oapenwb.logic.context.Context;
 import dk.ule.oapenwb.logic.context.ITransaction;
 import dk.ule.oapenwb.persistency.entity.ApiAction;
@@ -17,8 +18,8 @@ import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Lemma;
 import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Lexeme;
 import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Sememe;
 import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Variant;
-import dk.ule.oapenwb.util.HibernateUtil;
 import dk.ule.oapenwb.util.Pair;
+import dk.ule.oapenwb.util.jfr.ImportBatchEvent;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -112,9 +113,6 @@ public class FileImporter
 	public ImportResult run() {
 		ImportResult result = new ImportResult();
 		try {
-			// De ID-prövings uutstellen
-			HibernateUtil.setDisableJsonIdChecks(true);
-
 			// Inleasen
 			LOG.info("Lease in");
 			List<ImportDirective> directives = readData(result);
@@ -205,6 +203,8 @@ public class FileImporter
 		int transactionNumber = 0;
 		long counter = 0L;
 		ImportDirective directive = null;
+		// IDs of the lexemes created within the current transaction
+		List<Long> createdLexemeIDs = new LinkedList<>();
 
 		// Utilise the transaction skip count
 		if (config.getTransactionSkipCount().isPresent()) {
@@ -219,7 +219,8 @@ public class FileImporter
 				if (!config.isSimulate() && counter % TRANSACTION_SIZE == 0) {
 					if (t != null) {
 						// Commit the active transaction
-						t.commit();
+						commitTransaction(t, transactionNumber - 1, createdLexemeIDs);
+						createdLexemeIDs = new LinkedList<>();
 					}
 					// Start a new transaction
 					t = c.beginTransaction();
@@ -247,7 +248,9 @@ public class FileImporter
 				if (!config.isSimulate()) {
 					if (!checker.lexemeExists(directive.lemma, lexeme.getTypeID(), lexeme.getLangID())) {
 						//LOG.debug("Creating lexeme for lemma '{}'", directive.lemma);
-						this.adminControllers.getLexemesController().create(detailedDTO, Context.USE_OUTER_TRANSACTION_CONTEXT);
+						LexemeSlimDTO slimDTO = this.adminControllers.getLexemesController().create(detailedDTO,
+							Context.USE_OUTER_TRANSACTION_CONTEXT);
+						createdLexemeIDs.add(slimDTO.getId());
 						result.incSaveCount();
 					} else {
 						//LOG.debug("Skipping to create lexeme for lemma '{}'", directive.lemma);
@@ -256,7 +259,7 @@ public class FileImporter
 				counter++;
 			}
 			if (!config.isSimulate() && t != null) {
-				t.commit();
+				commitTransaction(t, transactionNumber - 1, createdLexemeIDs);
 			}
 		} catch (Exception e) {
 			String lemma = directive != null ? directive.lemma : null;
@@ -270,6 +273,22 @@ public class FileImporter
 		}
 	}
 
+	private void commitTransaction(final ITransaction t, final int transactionNumber,
+		final List<Long> createdLexemeIDs)
+	{
+		final ImportBatchEvent event = new ImportBatchEvent();
+		event.begin();
+		t.commit();
+		adminControllers.getLexemesController().fireLexemesChanged(createdLexemeIDs);
+		event.end();
+		if (event.shouldCommit()) {
+			event.importer = FileImporter.class.getSimpleName();
+			event.transactionNumber = transactionNumber;
+			event.lexemeCount = createdLexemeIDs.size();
+			event.commit();
+		}
+	}
+
 	private LexemeDetailedDTO createDetailedLexeme(String lemmaText, String pos, int frequency)
 	{
 		Pair<LexemeType, LexemeFormType> baseTypePair = this.typeBaseFormMap.get(pos);
@@ -69,6 +69,17 @@ public class CsvImporterConfig
 	 */
 	private int transactionSize = 50;
 
+	/**
+	 * Number of worker threads that build the lexemes from the rows read. The lexemes are persisted by a single
+	 * thread in the order of the rows nonetheless.
+	 */
+	private int workerCount = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+	/**
+	 * Maximum number of rows that are read but not yet persisted. Limits the memory needed by an import.
+	 */
+	private int queueSize = 256;
+
 	/**
 	 * List of tag names that all created lexemes will be tagged with.
 	 */
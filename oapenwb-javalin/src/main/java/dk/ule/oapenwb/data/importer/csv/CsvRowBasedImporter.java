@@ -29,6 +29,7 @@ import dk.ule.oapenwb.persistency.entity.content.lexemes.Mapping;
 import dk.ule.oapenwb.util.HibernateUtil;
 import dk.ule.oapenwb.util.Pair;
 import dk.ule.oapenwb.util.functional.TriCheckFunction;
+import dk.ule.oapenwb.util.jfr.ImportBatchEvent;
 import lombok.Data;
 import org.hibernate.Session;
 import org.slf4j.Logger;
@@ -41,6 +42,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * <p>The CsvRowBasedImporter was written to import the initial data for the Low Saxon dictionary that was
@@ -64,6 +66,22 @@ public class CsvRowBasedImporter
 
 	private static final Logger LOG = LoggerFactory.getLogger(CsvRowBasedImporter.class);
 
+	// Marks the end of the rows in the pipeline
+	private static final Future<BuiltRow> END_OF_ROWS = CompletableFuture.completedFuture(null);
+
+	/**
+	 * The lexemes built by the LexemeProviders and MultiLexemeProviders for one row. They were not yet looked up
+	 * in the database. Either skipMessage or error is set if the row cannot be imported.
+	 */
+	private record BuiltRow(RowData row, Map<String, LexemeDetailedDTO> providerResults,
+		Map<String, List<LexemeDetailedDTO>> multiProviderResults, String skipMessage, Exception error) {}
+
+	@FunctionalInterface
+	private interface RowConsumer
+	{
+		void accept(RowData row) throws InterruptedException;
+	}
+
 	private final CsvImporterContext importerContext;
 
 	private final AppConfig appConfig;
@@ -75,6 +93,10 @@ public class CsvRowBasedImporter
 	// <Lexeme Type Name, <LexemeType, TypeFormPair (LexemeType, LimkedMap<Name, FormType)>>
 	private final TypeFormMap typeFormMap = new TypeFormMap();
 
+	// IDs of the lexemes created within the current transaction. They are reported to the LexemesController's
+	// listeners once the transaction was committed.
+	private final List<Long> uncommittedLexemeIDs = new LinkedList<>();
+
 
 	public CsvRowBasedImporter(
 		AppConfig appConfig,
@@ -133,11 +155,13 @@ public class CsvRowBasedImporter
 	{
 		// Fill the typeBaseFormMap
 		for (LexemeType type : this.adminControllers.getLexemeTypesController().list()) {
-			List<LexemeFormType> formTypes = this.adminControllers.getLexemeFormTypesController()
+			List<LexemeFormType> cachedFormTypes = this.adminControllers.getLexemeFormTypesController()
 				.getEntitiesByGroupKey(type.getId());
 			// Only when formTypes are already created for the lexeme type
-			if (formTypes != null && !formTypes.isEmpty()) {
-				// Sort the list by position so that the base type will be on first position
+			if (cachedFormTypes != null && !cachedFormTypes.isEmpty()) {
+				// Sort a copy of the list (the cached one is immutable) by position so that the base type will be
+				// on first position
+				List<LexemeFormType> formTypes = new ArrayList<>(cachedFormTypes);
 				formTypes.sort(Comparator.comparingInt(LexemeFormType::getPosition));
 				// Find the base form type = the one with the smallest positional index
 				LexemeFormType baseFormType = formTypes.getFirst();
@@ -179,19 +203,17 @@ public class CsvRowBasedImporter
 	public CrbiResult run() {
 		importerContext.setResult(new CrbiResult());
 		try {
-			// De ID-prövings uutstellen
-			HibernateUtil.setDisableJsonIdChecks(true);
-
 			// Inleasen un echte strukturen upbouwen
-			buildAndPersistStructures(readData());
+			runPipeline();
 
 			importerContext.getResult().setSuccessful(true);
 		} catch (IOException /*| CodeException */ e) {
 			LOG.error("Import was aborted");
+		} catch (InterruptedException e) {
+			LOG.error("Import was interrupted");
+			Thread.currentThread().interrupt();
 		}
 
-		HibernateUtil.setDisableJsonIdChecks(false);
-
 		// Save the recorded messages to file system
 		dk.ule.oapenwb.util.io.Logger msgLogger = null;
 		try {
@@ -218,10 +240,53 @@ public class CsvRowBasedImporter
 		return result;
 	}
 
-	private List<RowData> readData() throws IOException
+	/**
+	 * <p>Runs the import as a pipeline of three stages that are connected by a bounded queue:</p>
+	 * <ol>
+	 *   <li>A reader thread streams the file and hands over each row to the workers.</li>
+	 *   <li>The worker threads build the lexemes of the rows via the LexemeProviders and MultiLexemeProviders.
+	 *     This is the CPU bound part and it does not access the database.</li>
+	 *   <li>The calling thread looks up, checks and persists the built lexemes in the order of the rows and commits
+	 *     them in transactions of {@link CsvImporterConfig#getTransactionSize()} rows.</li>
+	 * </ol>
+	 * <p>Not more than {@link CsvImporterConfig#getQueueSize()} rows are held in the pipeline at any time, so the
+	 * memory needed does not depend on the size of the file.</p>
+	 */
+	private void runPipeline() throws IOException, InterruptedException
+	{
+		final BlockingQueue<Future<BuiltRow>> pipeline = new ArrayBlockingQueue<>(Math.max(1, config.getQueueSize()));
+		final ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, config.getWorkerCount()));
+		final ExecutorService reader = Executors.newSingleThreadExecutor();
+		try {
+			final Future<Void> reading = reader.submit(() -> {
+				try {
+					readData(row -> pipeline.put(workers.submit(() -> buildRow(row))));
+				} finally {
+					pipeline.put(END_OF_ROWS);
+				}
+				return null;
+			});
+
+			persistRows(pipeline);
+
+			try {
+				reading.get();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException ioException) {
+					throw ioException;
+				}
+				throw new RuntimeException(e.getCause());
+			}
+		} finally {
+			// Stops the reader and the workers if the persisting stage failed
+			reader.shutdownNow();
+			workers.shutdownNow();
+		}
+	}
+
+	private void readData(final RowConsumer consumer) throws IOException, InterruptedException
 	{
 		LOG.info("Reading file");
-		List<RowData> result = new LinkedList<>();
 		Set<Integer> skipRows = config.getSkipRows();
 		int lineNumber = 0;
 
@@ -245,8 +310,9 @@ public class CsvRowBasedImporter
 					continue;
 				}
 
+				RowData row = null;
 				try {
-					// Split to an array of n parts, create a RowData instance and add it to the result list
+					// Split to an array of n parts and create a RowData instance
 					String[] parts = splitLineToFixedParts(line, lineNumber);
 
 					// Get the LexemeType only for checking its existance.
@@ -264,20 +330,27 @@ public class CsvRowBasedImporter
 					}
 
 					// Create the RowData instance
-					RowData row = new RowData(lineNumber, parts);
+					row = new RowData(lineNumber, parts);
 
 					if (config.getImportCondition() == null || config.getImportCondition().meetsCondition(row)) {
-						result.add(row);
 						importerContext.getResult().incReadCount();
 					} else {
 						importerContext.getMessages().add(CONTEXT_READ_DATA, MessageType.Info, "Skipped row by import condition",
 							lineNumber, -1);
 						importerContext.getResult().incSkipCount();
+						row = null;
 					}
 				} catch (Exception e) {
 					importerContext.getMessages().add(CONTEXT_READ_DATA, MessageType.Error, e.getMessage(), lineNumber, -1);
 				}
+
+				// Hand over the row to the next stage (blocks while the pipeline is full)
+				if (row != null) {
+					consumer.accept(row);
+				}
 			}
+		} catch (InterruptedException e) {
+			throw e;
 		} catch (Exception e) {
 			LOG.error(String.format("Some mysterious error in line# %d stopped the import", lineNumber), e);
 			importerContext.getMessages().add(CONTEXT_READ_DATA, MessageType.Error,
@@ -285,7 +358,6 @@ public class CsvRowBasedImporter
 				lineNumber, -1);
 			throw e;
 		}
-		return result;
 	}
 
 	private String[] splitLineToFixedParts(String line, int lineNumber)
@@ -319,7 +391,74 @@ public class CsvRowBasedImporter
 		return parts;
 	}
 
-	private void buildAndPersistStructures(List<RowData> rowDataList)
+	/**
+	 * <p>Builds the lexemes of one row. This is done by the worker threads and must therefore not access the
+	 * database. Exceptions are not thrown but returned within the BuiltRow.</p>
+	 */
+	private BuiltRow buildRow(final RowData row)
+	{
+		try {
+			// Get the LexemeType
+			String PoS = row.getParts()[config.getPosColIndex() - 1];
+			TypeFormPair typeFormPair = this.typeFormMap.get(PoS);
+
+			if (typeFormPair == null) {
+				String message = String.format("Entry in line %d utilises unknown PoS '%s' and is skipped",
+					row.getLineNumber(), PoS);
+				throw new RuntimeException(message);
+			}
+
+			// Structure for all results of the LexemeProvider instances
+			Map<String, LexemeDetailedDTO> providerResults = new HashMap<>();
+
+			for (var provider : config.getLexemeProviders().values()) {
+				LexemeDetailedDTO dto;
+				try {
+					dto = provider.build(importerContext, typeFormPair, row);
+				} catch (Exception e) {
+					String message = String.format("Row was skipped since %s reported a problem: %s",
+						provider.getMessageContext(), e.getMessage());
+					throw new RuntimeException(message);
+				}
+				if (provider.isMustProvide() && dto == null) {
+					// If an empty lexeme is provided we will skip this row
+					return new BuiltRow(row, null, null, String.format(
+						"Row was skipped since %s returned no lexeme but should have", provider.getMessageContext()), null);
+				}
+				providerResults.put(provider.getLang(), dto);
+			}
+
+			// Structure for all results of the MultiLexemeProvider instances
+			Map<String, List<LexemeDetailedDTO>> multiProviderResults = new HashMap<>();
+
+			for (var provider : config.getMultiLexemeProviders().values()) {
+				List<LexemeDetailedDTO> dtoList;
+				try {
+					dtoList = provider.build(importerContext, typeFormPair, row);
+				} catch (Exception e) {
+					String message = String.format("Row was skipped since %s reported a problem: %s",
+						provider.getMessageContext(), e.getMessage());
+					throw new RuntimeException(message);
+				}
+				if (provider.isMustProvide() && (dtoList == null || dtoList.isEmpty())) {
+					// If no or an empty list is provided we will skip this row
+					return new BuiltRow(row, null, null, String.format(
+						"Row was skipped since %s returned no lexemes but should have", provider.getMessageContext()), null);
+				}
+				multiProviderResults.put(provider.getLang(), dtoList);
+			}
+
+			return new BuiltRow(row, providerResults, multiProviderResults, null, null);
+		} catch (Exception e) {
+			return new BuiltRow(row, null, null, null, e);
+		}
+	}
+
+	/**
+	 * <p>The persisting stage of the pipeline. It takes the built rows in the order they were read, looks up
+	 * their lexemes in the database, performs the duplicate checking and persists them.</p>
+	 */
+	private void persistRows(final BlockingQueue<Future<BuiltRow>> pipeline) throws InterruptedException
 	{
 		LOG.info("Building and persisting structures");
 
@@ -330,14 +469,23 @@ public class CsvRowBasedImporter
 		ITransaction t = null;
 		int transactionNumber = 0;
 		int counter = 0;
+		int lastLineNumber = 0;
 
 		// Duplicate checking
-		var dcKeyBuilder = config.getDuplicateCheckKeyBuilder();
-		var dcLangs = config.getLangsForDuplicateCheck();
 		// <language, <part of speech, <DC key, DC entry>>>
 		Map<String, Map<String, Map<String, DCEntry>>> dcKeyMap = new HashMap<>();
 
-		rowLoop: for (RowData row : rowDataList) {
+		for (Future<BuiltRow> future; (future = pipeline.take()) != END_OF_ROWS; ) {
+			final BuiltRow built;
+			try {
+				built = future.get();
+			} catch (ExecutionException e) {
+				// buildRow() does not throw
+				throw new RuntimeException(e.getCause());
+			}
+			final RowData row = built.row();
+			lastLineNumber = row.getLineNumber();
+
 			// Transaction handling: Do a commit every N handled rows
 			if (!config.isSimulate() && counter % config.getTransactionSize() == 0) {
 				// Commit and start a new transaction
@@ -352,108 +500,17 @@ public class CsvRowBasedImporter
 			}
 
 			try {
-				// Get the LexemeType
-				String PoS = row.getParts()[config.getPosColIndex() - 1];
-				TypeFormPair typeFormPair = this.typeFormMap.get(PoS);
-
-				//CreationConfig config = new CreationConfig(row.getLineNumber(), );
-
-				if (typeFormPair == null) {
-					String message = String.format("Entry in line %d utilises unknown PoS '%s' and is skipped",
-						row.getLineNumber(), PoS);
-					throw new RuntimeException(message);
-				}
-
-				// Structure for all results of the LexemeProvider instances
-				Map<String, LexemeDetailedDTO> providerResults = new HashMap<>();
-
-				for (var provider : config.getLexemeProviders().values()) {
-					try {
-						LexemeDetailedDTO dto = provider.provide(importerContext, typeFormPair, row);
-						if (provider.isMustProvide() && dto == null) {
-							// If an empty lexeme is provided we will skip this row
-							String message = String.format("Row was skipped since %s returned no lexeme but should have",
-								provider.getMessageContext());
-							importerContext.getMessages().add(CONTEXT_BUILD_STRUCTURES, MessageType.Warning, message,
-								row.getLineNumber(), -1);
-							continue rowLoop;
-						}
-
-						// Perform duplicate checking in the import list
-						if (dcKeyBuilder != null && dto != null && dcLangs.contains(provider.getLang())) {
-							DCEntry dcEntry = null;
-							boolean isDuplicate = false;
-							// Build the keys
-							Set<String> dcKeys = config.getDuplicateCheckKeyBuilder().buildKeys(dto);
-							if (dcKeys != null && !dcKeys.isEmpty()) {
-								// <part of speech, <DC key, DC entry>>
-								Map<String, Map<String, DCEntry>> posMap = dcKeyMap.computeIfAbsent(provider.getLang(), k -> new HashMap<>());
-								// <DC key, DC entry>
-								Map<String, DCEntry> entryMap = posMap.computeIfAbsent(PoS, k -> new HashMap<>());
-								// First loop: for each key check if it already exists
-								for (String dcKey : dcKeys) {
-									if (entryMap.containsKey(dcKey)) {
-										if (dcEntry == null) {
-											dcEntry = entryMap.get(dcKey);
-										} else {
-											// We got two DC entries for the same word (as it looks) and will merge
-											// them now and remove the old instance.
-											dcEntry.getRows().addAll(entryMap.get(dcKey).getRows());
-											entryMap.remove(dcKey);
-										}
-										// A duplicate was found
-										isDuplicate = true;
-										LOG.warn(String.format("Duplicate found for key: %s", dcKey)); // TODO hwa remove later
-									}
-								}
-								// If no DCEntry was found previously then create one now
-								dcEntry = dcEntry == null
-									? new DCEntry(provider.getLang(), row)
-									: dcEntry.addRow(row);
-								// Second loop: for each key now insert the same DCEntry instance into the entryMap
-								for (String dcKey : dcKeys) {
-									entryMap.put(dcKey, dcEntry);
-								}
-							}
-							if (isDuplicate) {
-								throw new RuntimeException(String.format("duplicates - %s", dcEntry));
-							}
-						} // -- end of duplicate checking
-
-						// Add the DTO to the providerResults
-						providerResults.put(provider.getLang(), dto);
-					} catch (Exception e) {
-						String message = String.format("Row was skipped since %s reported a problem: %s",
-							provider.getMessageContext(), e.getMessage());
-						throw new RuntimeException(message);
-					}
+				if (built.error() != null) {
+					throw built.error();
 				}
-
-				// Structure for all results of the MultiLexemeProvider instances
-				Map<String, List<LexemeDetailedDTO>> multiProviderResults = new HashMap<>();
-
-				for (var provider : config.getMultiLexemeProviders().values()) {
-					try {
-						List<LexemeDetailedDTO> dtoList = provider.provide(importerContext, typeFormPair, row);
-						if (provider.isMustProvide() && (dtoList == null || dtoList.isEmpty())) {
-							// If no or an empty list is provided we will skip this row
-							String message = String.format("Row was skipped since %s returned no lexemes but should have",
-								provider.getMessageContext());
-							importerContext.getMessages().add(CONTEXT_BUILD_STRUCTURES, MessageType.Warning, message,
-								row.getLineNumber(), -1);
-							continue rowLoop;
-						}
-						// Add the DTO to the multiProviderResults
-						multiProviderResults.put(provider.getLang(), dtoList);
-					} catch (Exception e) {
-						String message = String.format("Row was skipped since %s reported a problem: %s",
-							provider.getMessageContext(), e.getMessage());
-						throw new RuntimeException(message);
-					}
+				if (built.skipMessage() != null) {
+					importerContext.getMessages().add(CONTEXT_BUILD_STRUCTURES, MessageType.Warning,
+						built.skipMessage(), row.getLineNumber(), -1);
+					continue;
 				}
 
 				// Another row was successfully handled
-				providerDataList.add(new ProviderData(row, providerResults, multiProviderResults));
+				providerDataList.add(resolveProviderData(built, dcKeyMap));
 				counter++;
 
 				// Before committing the transaction in the next loop… do this:
@@ -468,7 +525,7 @@ public class CsvRowBasedImporter
 					row.getLineNumber(), -1);
 				LOG.warn(message.toString(), e);
 			}
-		} // -- rowLoop
+		}
 
 		if (!config.isSimulate() && !providerDataList.isEmpty()) {
 			try {
@@ -476,12 +533,115 @@ public class CsvRowBasedImporter
 				commitTransaction(t, transactionNumber, -1, providerDataList);
 			} catch (Exception e) {
 				Message message = importerContext.getMessages()
-					.add(CONTEXT_PERSIST_PROVIDER_DATA, MessageType.Error, e.getMessage(), rowDataList.size() + 1, -1);
+					.add(CONTEXT_PERSIST_PROVIDER_DATA, MessageType.Error, e.getMessage(), lastLineNumber + 1, -1);
 				LOG.error(message.toString(), e);
 			}
 		}
 	}
 
+	/**
+	 * <p>Replaces the built lexemes of the row by the already existing ones from the database and performs the
+	 * duplicate checking. Must be called in the order of the rows since both depend on the rows handled
+	 * before.</p>
+	 */
+	private ProviderData resolveProviderData(
+		final BuiltRow built,
+		final Map<String, Map<String, Map<String, DCEntry>>> dcKeyMap)
+	{
+		final RowData row = built.row();
+		final String PoS = row.getParts()[config.getPosColIndex() - 1];
+
+		Map<String, LexemeDetailedDTO> providerResults = new HashMap<>();
+		for (var provider : config.getLexemeProviders().values()) {
+			try {
+				LexemeDetailedDTO dto = built.providerResults().get(provider.getLang());
+				if (dto != null) {
+					dto = provider.resolve(importerContext, row.getLineNumber(), dto);
+					checkForDuplicates(provider.getLang(), PoS, row, dto, dcKeyMap);
+				}
+				// Add the DTO to the providerResults
+				providerResults.put(provider.getLang(), dto);
+			} catch (Exception e) {
+				String message = String.format("Row was skipped since %s reported a problem: %s",
+					provider.getMessageContext(), e.getMessage());
+				throw new RuntimeException(message);
+			}
+		}
+
+		Map<String, List<LexemeDetailedDTO>> multiProviderResults = new HashMap<>();
+		for (var provider : config.getMultiLexemeProviders().values()) {
+			try {
+				List<LexemeDetailedDTO> dtoList = built.multiProviderResults().get(provider.getLang());
+				if (dtoList != null) {
+					dtoList.replaceAll(dto -> provider.resolve(importerContext, row.getLineNumber(), dto));
+				}
+				// Add the DTOs to the multiProviderResults
+				multiProviderResults.put(provider.getLang(), dtoList);
+			} catch (Exception e) {
+				String message = String.format("Row was skipped since %s reported a problem: %s",
+					provider.getMessageContext(), e.getMessage());
+				throw new RuntimeException(message);
+			}
+		}
+
+		return new ProviderData(row, providerResults, multiProviderResults);
+	}
+
+	/**
+	 * <p>Performs the duplicate checking within the import file.</p>
+	 *
+	 * @throws RuntimeException if the lexeme is a duplicate of a lexeme of a previous row
+	 */
+	private void checkForDuplicates(
+		final String lang,
+		final String PoS,
+		final RowData row,
+		final LexemeDetailedDTO dto,
+		final Map<String, Map<String, Map<String, DCEntry>>> dcKeyMap)
+	{
+		var dcKeyBuilder = config.getDuplicateCheckKeyBuilder();
+		if (dcKeyBuilder == null || !config.getLangsForDuplicateCheck().contains(lang)) {
+			return;
+		}
+		DCEntry dcEntry = null;
+		boolean isDuplicate = false;
+		// Build the keys
+		Set<String> dcKeys = dcKeyBuilder.buildKeys(dto);
+		if (dcKeys != null && !dcKeys.isEmpty()) {
+			// <part of speech, <DC key, DC entry>>
+			Map<String, Map<String, DCEntry>> posMap = dcKeyMap.computeIfAbsent(lang, k -> new HashMap<>());
+			// <DC key, DC entry>
+			Map<String, DCEntry> entryMap = posMap.computeIfAbsent(PoS, k -> new HashMap<>());
+			// First loop: for each key check if it already exists
+			for (String dcKey : dcKeys) {
+				if (entryMap.containsKey(dcKey)) {
+					if (dcEntry == null) {
+						dcEntry = entryMap.get(dcKey);
+					} else {
+						// We got two DC entries for the same word (as it looks) and will merge
+						// them now and remove the old instance.
+						dcEntry.getRows().addAll(entryMap.get(dcKey).getRows());
+						entryMap.remove(dcKey);
+					}
+					// A duplicate was found
+					isDuplicate = true;
+					LOG.warn(String.format("Duplicate found for key: %s", dcKey)); // TODO hwa remove later
+				}
+			}
+			// If no DCEntry was found previously then create one now
+			dcEntry = dcEntry == null
+				? new DCEntry(lang, row)
+				: dcEntry.addRow(row);
+			// Second loop: for each key now insert the same DCEntry instance into the entryMap
+			for (String dcKey : dcKeys) {
+				entryMap.put(dcKey, dcEntry);
+			}
+		}
+		if (isDuplicate) {
+			throw new RuntimeException(String.format("duplicates - %s", dcEntry));
+		}
+	}
+
 	private void persistProviderDataAndMakeMappingsAndLinks(List<ProviderData> providerDataList)
 	{
 		if (providerDataList == null || providerDataList.isEmpty()) {
@@ -607,6 +767,7 @@ public class CsvRowBasedImporter
 			LexemeSlimDTO slimDTO = this.adminControllers.getLexemesController().create(detailedDTO,
 				Context.USE_OUTER_TRANSACTION_CONTEXT);
 			importerContext.getResult().incSaveCount();
+			uncommittedLexemeIDs.add(slimDTO.getId());
 			sememeID = slimDTO.getFirstSememeID();
 		}
 
@@ -629,7 +790,17 @@ public class CsvRowBasedImporter
 		if (t != null) {
 			try {
 				// Commit the active transaction
+				final ImportBatchEvent event = new ImportBatchEvent();
+				event.begin();
 				t.commit();
+				adminControllers.getLexemesController().fireLexemesChanged(new ArrayList<>(uncommittedLexemeIDs));
+				event.end();
+				if (event.shouldCommit()) {
+					event.importer = CsvRowBasedImporter.class.getSimpleName();
+					event.transactionNumber = transactionNumber;
+					event.lexemeCount = uncommittedLexemeIDs.size();
+					event.commit();
+				}
 			} catch (Exception e) {
 				String failureMessage = String.format("Transaction handling failed in transaction# %d",
 					transactionNumber);
@@ -652,6 +823,8 @@ public class CsvRowBasedImporter
 				if (!config.isSimulate()) {
 					t.rollback();
 				}
+			} finally {
+				uncommittedLexemeIDs.clear();
 			}
 		}
 	}
@@ -127,6 +127,28 @@ public class AbstractLexemeProvider
 		return result;
 	}
 
+	/**
+	 * <p>Replaces the given, freshly built lexeme by the lexeme from the database if at least one of its variants
+	 * already exists there. This method must be called on the thread that persists the imported lexemes, so that
+	 * lexemes persisted within the running transaction are found, too.</p>
+	 *
+	 * @param context the importer context of current run
+	 * @param lineNumber line number the lexeme was read from
+	 * @param detailedDTO the freshly built lexeme
+	 * @return the lexeme from the database or the given lexeme if none was found
+	 */
+	public LexemeDetailedDTO resolve(CsvImporterContext context, int lineNumber, LexemeDetailedDTO detailedDTO)
+	{
+		LexemeDetailedDTO otherDetailedDTO;
+		if ((otherDetailedDTO = lookup(context, lineNumber, detailedDTO)) != null) {
+			// At least one variant already exists
+			context.getMessages().add(messageContext, MessageType.Debug,
+				"Lexeme from database is being used", lineNumber, -1);
+			return otherDetailedDTO;
+		}
+		return detailedDTO;
+	}
+
 	/**
 	 * Kikt of dat mind. eyn van de bouwden varianten al geaven deit in de databank.
 	 *
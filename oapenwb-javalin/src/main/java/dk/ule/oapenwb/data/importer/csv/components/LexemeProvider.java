@@ -6,7 +6,6 @@ import dk.ule.oapenwb.AdminControllers;
 import dk.ule.oapenwb.data.importer.csv.CsvImporterContext;
 import dk.ule.oapenwb.data.importer.csv.CsvRowBasedImporter;
 import dk.ule.oapenwb.data.importer.csv.data.RowData;
-import dk.ule.oapenwb.data.importer.messages.MessageType;
 import dk.ule.oapenwb.logic.admin.lexeme.LexemeDetailedDTO;
 import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Variant;
 
@@ -28,6 +27,23 @@ public class LexemeProvider extends AbstractLexemeProvider
 		CsvImporterContext context,
 		CsvRowBasedImporter.TypeFormPair typeFormPair,
 		RowData rowData)
+	{
+		LexemeDetailedDTO detailedDTO = build(context, typeFormPair, rowData);
+		return detailedDTO == null ? null : resolve(context, rowData.getLineNumber(), detailedDTO);
+	}
+
+	/**
+	 * <p>Builds the lexeme for the given row without looking it up in the database. This method does not access
+	 * the database and can thus be called for different rows in parallel. Use
+	 * {@link #resolve(CsvImporterContext, int, LexemeDetailedDTO)} afterwards to replace it with an already
+	 * existing lexeme.</p>
+	 *
+	 * @return the built lexeme or null if no variants were built
+	 */
+	public LexemeDetailedDTO build(
+		CsvImporterContext context,
+		CsvRowBasedImporter.TypeFormPair typeFormPair,
+		RowData rowData)
 	{
 		LexemeDetailedDTO detailedDTO = createDTO(context, typeFormPair,
 			buildVariants(context, typeFormPair, rowData), rowData);
@@ -37,14 +53,6 @@ public class LexemeProvider extends AbstractLexemeProvider
 			return null;
 		}
 
-		LexemeDetailedDTO otherDetailedDTO;
-		if ((otherDetailedDTO = lookup(context, rowData.getLineNumber(), detailedDTO)) !=  null) {
-			// At least one variant already exists
-			context.getMessages().add(messageContext, MessageType.Debug,
-				"Lexeme from database is being used", rowData.getLineNumber(), -1);
-			detailedDTO = otherDetailedDTO;
-		}
-
 		return detailedDTO;
 	}
 
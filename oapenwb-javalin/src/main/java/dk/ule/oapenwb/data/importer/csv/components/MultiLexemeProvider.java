@@ -6,7 +6,6 @@ import dk.ule.oapenwb.AdminControllers;
 import dk.ule.oapenwb.data.importer.csv.CsvImporterContext;
 import dk.ule.oapenwb.data.importer.csv.CsvRowBasedImporter;
 import dk.ule.oapenwb.data.importer.csv.data.RowData;
-import dk.ule.oapenwb.data.importer.messages.MessageType;
 import dk.ule.oapenwb.logic.admin.lexeme.LexemeDetailedDTO;
 import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Variant;
 
@@ -65,6 +64,26 @@ public class MultiLexemeProvider extends AbstractLexemeProvider
 		CsvImporterContext context,
 		CsvRowBasedImporter.TypeFormPair typeFormPair,
 		RowData rowData)
+	{
+		List<LexemeDetailedDTO> result = build(context, typeFormPair, rowData);
+		if (result != null) {
+			result.replaceAll(detailedDTO -> resolve(context, rowData.getLineNumber(), detailedDTO));
+		}
+		return result;
+	}
+
+	/**
+	 * <p>Builds the lexemes for the given row without looking them up in the database. This method does not access
+	 * the database and can thus be called for different rows in parallel. Use
+	 * {@link #resolve(CsvImporterContext, int, LexemeDetailedDTO)} afterwards on each lexeme to replace it with
+	 * an already existing one.</p>
+	 *
+	 * @return the built lexemes or null if no lexemes were built
+	 */
+	public List<LexemeDetailedDTO> build(
+		CsvImporterContext context,
+		CsvRowBasedImporter.TypeFormPair typeFormPair,
+		RowData rowData)
 	{
 		String columnContent = rowData.getParts()[columnIndex - 1];
 		if (columnContent.isEmpty()) {
@@ -84,14 +103,6 @@ public class MultiLexemeProvider extends AbstractLexemeProvider
 				continue;
 			}
 
-			LexemeDetailedDTO otherDetailedDTO;
-			if ((otherDetailedDTO = lookup(context, rowData.getLineNumber(), detailedDTO)) != null) {
-				// At least one variant already exists
-				context.getMessages().add(messageContext, MessageType.Debug,
-					"Lexeme from database is being used", rowData.getLineNumber(), -1);
-				detailedDTO = otherDetailedDTO;
-			}
-
 			result.add(detailedDTO);
 		}
 
@@ -4,20 +4,19 @@ package dk.ule.oapenwb.data.importer.messages;
 
 import dk.ule.oapenwb.util.io.Logger;
 
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 /**
  * <p>An instance of this class can gather messages organized by a context. It can print all messages to
  * a {@link Logger}.</p>
+ * <p>Messages can be added from multiple threads. Within each context they are printed ordered by their line
+ * number, so the output does not depend on the order in which parallel import workers added them.</p>
  */
 public class MessageContainer
 {
 	private LinkedHashMap<String, List<Message>> messages = new LinkedHashMap<>();
 
-	public Message add(String context, MessageType type, String text, int lineNumber, int colNumber)
+	public synchronized Message add(String context, MessageType type, String text, int lineNumber, int colNumber)
 	{
 		Message message = new Message(type, text, lineNumber, colNumber);
 		messages.computeIfAbsent(context, k -> new LinkedList<>()).add(message);
@@ -29,11 +28,13 @@ public class MessageContainer
 		return add(context, type, text, lineNumber, -1);
 	}
 
-	public void printToLogger(Logger logger, MessageType minType)
+	public synchronized void printToLogger(Logger logger, MessageType minType)
 	{
 		for (Map.Entry<String, List<Message>> entry : messages.entrySet()) {
 			String context = entry.getKey();
-			List<Message> messageList = entry.getValue();
+			// The sort is stable, i.e. messages of the same line keep their order
+			List<Message> messageList = new ArrayList<>(entry.getValue());
+			messageList.sort(Comparator.comparingInt(Message::getLineNumber));
 
 			// Log messages of current contextual section
 			logger.log("Context '%s':", context);
@@ -46,7 +47,7 @@ public class MessageContainer
 		}
 	}
 
-	public void reset()
+	public synchronized void reset()
 	{
 		messages = new LinkedHashMap<>();
 	}
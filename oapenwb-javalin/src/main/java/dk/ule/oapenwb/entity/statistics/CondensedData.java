@@ -14,11 +14,11 @@ import lombok.NoArgsConstructor;
 public class CondensedData
 {
 	/*
-	 * An ID contains the year and month and a "-" in between.
-	 * Example: 2020-07
+	 * An ID contains the period the data was condensed for, depending on the conType.
+	 * Examples: 2020-07-15 (Day), 2020-07 (Month)
 	 */
 	@Id
-	@Column(length = 7)
+	@Column(length = 16)
 	private String id;
 
 	private CondenseType conType;
@@ -34,8 +34,21 @@ public class CondensedData
 	 * each row containing something like:
 	 * [search string]:[search count]
 	 */
-	@Column(nullable = false)
+	@Column(nullable = false, columnDefinition = "text")
 	private String topTenSearches;
 
-	// TODO Add: millisMin, millisMax, millisAvg, millisMedian
+	@Column(nullable = false)
+	private int millisMin;
+
+	@Column(nullable = false)
+	private int millisMax;
+
+	@Column(nullable = false)
+	private int millisAvg;
+
+	@Column(nullable = false)
+	private int millisMedian;
+
+	@Column(nullable = false)
+	private int millisP95;
 }
\ No newline at end of file
@@ -19,11 +19,21 @@ import java.time.Instant;
 @AllArgsConstructor
 public class SearchRun
 {
+	public static final int SEARCH_TEXT_LENGTH = 255;
+
+	/*
+	 * The ID is taken from a sequence. Search runs happening at the same instant would collide if the timestamp was
+	 * used as the ID. The allocationSize must match the increment of the sequence.
+	 */
 	@Id
-	@Basic
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "searchrun_seq")
+	@SequenceGenerator(name = "searchrun_seq", sequenceName = "searchrun_seq", allocationSize = 50)
+	private Long id;
+
+	@Column(nullable = false)
 	private Instant whenTS;
 
-	@Column(nullable = false, length = 255)
+	@Column(nullable = false, length = SEARCH_TEXT_LENGTH)
 	private String searchText;
 
 	@Column(nullable = false, length = LangPair.ID_LENGTH)
@@ -43,4 +53,19 @@ public class SearchRun
 	private int millis;
 
 	// Add a JSON field?
+
+	/**
+	 * @return the text cut to {@link #SEARCH_TEXT_LENGTH} characters, so that a run with an overlong search term does
+	 *   not fail the batch it is persisted with
+	 */
+	public static String truncateSearchText(final String text)
+	{
+		if (text == null || text.length() <= SEARCH_TEXT_LENGTH) {
+			return text;
+		}
+		// Don't split a surrogate pair
+		final int end = Character.isHighSurrogate(text.charAt(SEARCH_TEXT_LENGTH - 1))
+			? SEARCH_TEXT_LENGTH - 1 : SEARCH_TEXT_LENGTH;
+		return text.substring(0, end);
+	}
 }
@@ -6,6 +6,7 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import dk.ule.oapenwb.base.error.CodeException;
 import dk.ule.oapenwb.logic.config.ConfigController;
+import dk.ule.oapenwb.util.json.PrecompressedPayload;
 import dk.ule.oapenwb.util.json.RawDataRepsonse;
 import dk.ule.oapenwb.util.json.Response;
 import dk.ule.oapenwb.util.json.ResponseStatus;
@@ -31,14 +32,14 @@ public class ConfigFace
 
 	public void getBaseConfig(@NotNull Context ctx)
 	{
-		RawDataRepsonse res = new RawDataRepsonse();
 		try {
-			res.setData(this.controller.getBaseConfig());
+			this.controller.getBaseConfigPayload().send(ctx, PrecompressedPayload.CONTENT_TYPE_JSON);
 		} catch (CodeException ee) {
+			RawDataRepsonse res = new RawDataRepsonse();
 			res.setMessage(ee);
 			res.setStatus(ResponseStatus.Error);
+			ctx.json(res);
 		}
-		ctx.json(res);
 	}
 
 	public void reloadConfig(@NotNull Context ctx)
@@ -6,6 +6,7 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import dk.ule.oapenwb.base.error.CodeException;
 import dk.ule.oapenwb.logic.l10n.L10nController;
+import dk.ule.oapenwb.util.json.PrecompressedPayload;
 import dk.ule.oapenwb.util.json.Response;
 import io.javalin.http.Context;
 import org.jetbrains.annotations.NotNull;
@@ -29,29 +30,27 @@ public class L10nFace
 
 	public void getTranslations(@NotNull Context ctx)
 	{
-		String result;
+		PrecompressedPayload result;
 		try {
 			final String locale = ctx.pathParam("locale");
-			result = controller.getTranslations("", locale);
+			result = controller.getTranslationsPayload("", locale);
 		} catch (CodeException e) {
-			result = "{}";
+			result = controller.getEmptyTranslationsPayload();
 		}
-		ctx.contentType("application/json");
-		ctx.result(result);
+		result.send(ctx, PrecompressedPayload.CONTENT_TYPE_JSON);
 	}
 
 	public void getTranslationsByScope(@NotNull Context ctx)
 	{
-		String result;
+		PrecompressedPayload result;
 		try {
 			final String scope = ctx.pathParam("scope");
 			final String locale = ctx.pathParam("locale");
-			result = controller.getTranslations(scope, locale);
+			result = controller.getTranslationsPayload(scope, locale);
 		} catch (CodeException e) {
-			result = "{}";
+			result = controller.getEmptyTranslationsPayload();
 		}
-		ctx.contentType("application/json");
-		ctx.result(result);
+		result.send(ctx, PrecompressedPayload.CONTENT_TYPE_JSON);
 	}
 
 	public void reloadTranslations(@NotNull Context ctx) throws Exception
@@ -6,17 +6,16 @@ import com.google.inject.Singleton;
 import dk.ule.oapenwb.base.error.CodeException;
 import dk.ule.oapenwb.logic.context.Context;
 import dk.ule.oapenwb.persistency.entity.IEntity;
+import dk.ule.oapenwb.util.jfr.CacheReloadEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -25,6 +24,10 @@ import java.util.function.Supplier;
  * for fast retrieval. It's best to be used when there do not exist too many entities of its type T (like maybe some
  * hundreds, maybe a few thousands, as they will all be kept in memory – so in the end it depends on the actual size
  * of the entities).</p>
+ * <p>The entities are held in an immutable {@link EntitySnapshot} that is replaced on each write. Reads are
+ * therefore lock-free and the lists returned by {@link #list()} are immutable.</p>
+ * <p>Other components that depend on the entities can register an {@link IEntityChangeListener} to be informed
+ * about each change.</p>
  *
  * @param <T> Entity type
  * @param <S> ID type of entity
@@ -35,14 +38,19 @@ public class CEntityController<T extends IEntity<S>, S extends Serializable> ext
 {
 	private static final Logger LOG = LoggerFactory.getLogger(CEntityController.class);
 
-	// Caches that may only be accessed if readLock or writeLock are getting locked for read/write access
-	private final Map<S, T> directCache = new LinkedHashMap<>();
-	private boolean initialized = false;
+	// The immutable snapshot of all cached entities, or null if not yet initialized
+	private volatile EntitySnapshot<T, S, Void> snapshot = null;
 
-	// The locks
-	private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-	private final Lock readLock = readWriteLock.readLock();
-	private final Lock writeLock = readWriteLock.writeLock();
+	// Writers must hold this lock so that no concurrent change of the snapshot gets lost
+	private final Lock writeLock = new ReentrantLock();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder loads = new LongAdder();
+
+	private final List<IEntityChangeListener<T>> changeListeners = new CopyOnWriteArrayList<>();
+	// Informed after the listeners above
+	private final List<IEntityChangeListener<T>> lastChangeListeners = new CopyOnWriteArrayList<>();
 
 	public CEntityController(Supplier<T> supplier, Class<T> clazz, Function<String[], S> convertFn,
 		boolean resetIdOnCreate)
@@ -55,85 +63,140 @@ public class CEntityController<T extends IEntity<S>, S extends Serializable> ext
 		this(supplier, clazz, convertFn, true);
 	}
 
+	public void addChangeListener(final IEntityChangeListener<T> listener)
+	{
+		changeListeners.add(listener);
+	}
+
+	/**
+	 * <p>Registers a listener that is informed after all listeners registered via
+	 * {@link #addChangeListener(IEntityChangeListener)}, e.g. a cache of results that were computed from the data of
+	 * the other listeners.</p>
+	 */
+	public void addLastChangeListener(final IEntityChangeListener<T> listener)
+	{
+		lastChangeListeners.add(listener);
+	}
+
 	@Override
 	public T get(S id) throws CodeException {
-		if (!initialized) {
-			initialize();
-		}
-		readLock.lock();
-		T entity = directCache.get(id);
-		readLock.unlock();
+		final T entity = getSnapshot().get(id);
+		(entity != null ? hits : misses).increment();
 		return entity;
 	}
 
+	/**
+	 * @return an immutable list of all entities
+	 */
 	@Override
 	public List<T> list() throws CodeException {
-		if (!initialized) {
-			initialize();
-		}
-		List<T> result;
-		readLock.lock();
-		result = new LinkedList<>(directCache.values());
-		readLock.unlock();
-		return result;
+		return getSnapshot().list();
 	}
 
 	@Override
 	public Object create(T entity, final Context context) throws CodeException {
-		if (!initialized) {
-			initialize();
-		}
+		getSnapshot();
 		S id = (S) super.create(entity, context);
 		// Hyr mut de cäche wegsmeaten un allens ny laden warden sodännig dat allens richtig sorteerd is.
-		initialize();
+		final EntitySnapshot<T, S, Void> current = initialize();
+		fireEntityChanged(null, current.get(id));
 
 		return id;
 	}
 
 	@Override
 	public void update(S id, T entity, final Context context) throws CodeException {
-		if (!initialized) {
-			initialize();
-		}
+		final T oldEntity = getSnapshot().get(id);
 		super.update(id, entity, context);
 		// Reload the entity and cache it
 		T reloaded = super.get(id);
 		writeLock.lock();
-		directCache.put(reloaded.getEntityID(), reloaded);
-		writeLock.unlock();
+		try {
+			snapshot = snapshot.with(reloaded, null);
+		} finally {
+			writeLock.unlock();
+		}
+		fireEntityChanged(oldEntity, reloaded);
 	}
 
 	@Override
 	public void delete(S id, T entity, final Context context) throws CodeException {
-		if (!initialized) {
-			initialize();
-		}
+		final T oldEntity = getSnapshot().get(id);
 		super.delete(id, entity, context);
-		// Remove the entity from the caches
+		// Remove the entity from the cache
 		writeLock.lock();
-		entity = directCache.remove(id);
-		writeLock.unlock();
+		try {
+			snapshot = snapshot.without(id, null);
+		} finally {
+			writeLock.unlock();
+		}
+		fireEntityChanged(oldEntity != null ? oldEntity : entity, null);
+	}
+
+	public CacheStatistics getCacheStatistics()
+	{
+		final EntitySnapshot<T, S, Void> current = snapshot;
+		return new CacheStatistics(current == null ? 0 : current.list().size(), hits.sum(), misses.sum(),
+			loads.sum());
+	}
+
+	private void fireEntityChanged(final T oldEntity, final T newEntity)
+	{
+		fireEntityChanged(changeListeners, oldEntity, newEntity);
+		fireEntityChanged(lastChangeListeners, oldEntity, newEntity);
+	}
+
+	private void fireEntityChanged(final List<IEntityChangeListener<T>> listeners, final T oldEntity,
+		final T newEntity)
+	{
+		for (IEntityChangeListener<T> listener : listeners) {
+			try {
+				listener.entityChanged(oldEntity, newEntity);
+			} catch (Exception e) {
+				LOG.error("Entity change listener of type " + listener.getClass().getSimpleName() + " failed", e);
+			}
+		}
+	}
+
+	private EntitySnapshot<T, S, Void> getSnapshot() throws CodeException {
+		EntitySnapshot<T, S, Void> current = snapshot;
+		if (current == null) {
+			writeLock.lock();
+			try {
+				current = snapshot;
+				if (current == null) {
+					current = initialize();
+				}
+			} finally {
+				writeLock.unlock();
+			}
+		}
+		return current;
 	}
 
-	private void initialize() throws CodeException {
+	private EntitySnapshot<T, S, Void> initialize() throws CodeException {
 		try {
+			final CacheReloadEvent event = new CacheReloadEvent();
+			event.begin();
 			// Lade alle entities öäver de basisklasse
 			List<T> allEntities = super.list();
-
+			loads.increment();
 			writeLock.lock();
-			// Make den cache leddig
-			directCache.clear();
-			// Iterere öäver alle entiteten un sortere se in'n cache in
-			for (T entity : allEntities) {
-				// do't entity in'n directCache
-				directCache.put(entity.getEntityID(), entity);
+			try {
+				snapshot = EntitySnapshot.of(allEntities);
+				event.end();
+				if (event.shouldCommit()) {
+					event.cache = getClazz().getSimpleName();
+					event.entryCount = allEntities.size();
+					event.commit();
+				}
+				return snapshot;
+			} finally {
+				writeLock.unlock();
 			}
-			initialized = true;
 		} catch (Exception e) {
 			LOG.error("Could not initialize this controller (entity: " + this.getClazz().getSimpleName() + "): ", e);
 			throw e;
-		} finally {
-			writeLock.unlock();
 		}
 	}
 }
\ No newline at end of file
@@ -6,14 +6,15 @@ import com.google.inject.Singleton;
 import dk.ule.oapenwb.base.error.CodeException;
 import dk.ule.oapenwb.logic.context.Context;
 import dk.ule.oapenwb.persistency.entity.IEntity;
+import dk.ule.oapenwb.util.jfr.CacheReloadEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
-import java.util.*;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -21,6 +22,8 @@ import java.util.function.Supplier;
  * <p>CGEntityControler stands for Cached Grouped Entity Controller and it implements an EntityController that caches its
  * entities grouped by a grouping key. Just like {@link CEntityController} it's best to be used when there do not exist
  * too many entities of its type T.</p>
+ * <p>As in {@link CEntityController} the entities are held in an immutable {@link EntitySnapshot}. Here the
+ * snapshot also contains the precomputed groups.</p>
  *
  * @param <T> Entity type
  * @param <S> Type of the entity IDs
@@ -33,14 +36,15 @@ public class CGEntityController<T extends IEntity<S>, S extends Serializable, R>
 {
 	private static final Logger LOG = LoggerFactory.getLogger(CGEntityController.class);
 
-	// Caches that may only be accessed if readLock or writeLock are getting locked for read/write access
-	private Map<R, Map<S, T>> groupedCache = new LinkedHashMap<>();
-	private Map<S, T> directCache = new LinkedHashMap<>();
-	private boolean initialized = false;
-	// The locks
-	private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-	private final Lock readLock = readWriteLock.readLock();
-	private final Lock writeLock = readWriteLock.writeLock();
+	// The immutable and grouped snapshot of all cached entities, or null if not yet initialized
+	private volatile EntitySnapshot<T, S, R> snapshot = null;
+
+	// Writers must hold this lock so that no concurrent change of the snapshot gets lost
+	private final Lock writeLock = new ReentrantLock();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder loads = new LongAdder();
 
 	// Function to get the grouping key from the entity
 	private final Function<T, R> groupKeyFn;
@@ -60,32 +64,22 @@ public class CGEntityController<T extends IEntity<S>, S extends Serializable, R>
 
 	@Override
 	public T get(S id) throws CodeException {
-		if (!initialized) {
-			initialize();
-		}
-		readLock.lock();
-		T entity = directCache.get(id);
-		readLock.unlock();
+		final T entity = getSnapshot().get(id);
+		(entity != null ? hits : misses).increment();
 		return entity;
 	}
 
+	/**
+	 * @return an immutable list of all entities
+	 */
 	@Override
 	public List<T> list() throws CodeException {
-		if (!initialized) {
-			initialize();
-		}
-		List<T> result;
-		readLock.lock();
-		result = new LinkedList<>(directCache.values());
-		readLock.unlock();
-		return result;
+		return getSnapshot().list();
 	}
 
 	@Override
 	public Object create(T entity, final Context context) throws CodeException {
-		if (!initialized) {
-			initialize();
-		}
+		getSnapshot();
 		S id = (S) super.create(entity, context);
 		// Hyr mut de cäche wegsmeaten un allens ny laden warden sodännig dat allens richtig sorteerd is.
 		initialize();
@@ -95,69 +89,38 @@ public class CGEntityController<T extends IEntity<S>, S extends Serializable, R>
 
 	@Override
 	public void update(S id, T entity, final Context context) throws CodeException {
-		if (!initialized) {
-			initialize();
-		}
+		getSnapshot();
 		super.update(id, entity, context);
-		// Reload the entity and cache it
+		// Reload the entity and cache it. The groups are rebuilt in the new snapshot, so a changed grouping key
+		// is taken into account, too.
 		T reloaded = super.get(id);
 		writeLock.lock();
-		directCache.put(reloaded.getEntityID(), reloaded);
-		R groupKey = getGroupKey(entity);
-		// do't entity in'n groupCache
-		insertIntoGroupedCache(entity, groupKey);
-		writeLock.unlock();
+		try {
+			snapshot = snapshot.with(reloaded, this::getGroupKey);
+		} finally {
+			writeLock.unlock();
+		}
 	}
 
 	@Override
 	public void delete(S id, T entity, final Context context) throws CodeException {
-		if (!initialized) {
-			initialize();
-		}
+		getSnapshot();
 		super.delete(id, entity, context);
 		// Remove the entity from the caches
 		writeLock.lock();
-		entity = directCache.remove(id);
-		if (entity != null) {
-			R groupKey = getGroupKey(entity);
-			Map<S, T> groupCache = groupedCache.get(groupKey);
-			if (groupCache != null) {
-				groupCache.remove(entity.getEntityID());
-			}
+		try {
+			snapshot = snapshot.without(id, this::getGroupKey);
+		} finally {
+			writeLock.unlock();
 		}
-		writeLock.unlock();
 	}
 
-	/*
-	@Override
-	public T getEntityByGroupKeyAndID(R groupKey, S id) throws CodeException {
-		if (!initialized) {
-			initialize();
-		}
-		T result = null;
-		readLock.lock();
-		Map<S, T> groupCache = groupedCache.get(groupKey);
-		if (groupCache != null) {
-			result = groupCache.get(id);
-		}
-		readLock.unlock();
-		return result;
-	}
+	/**
+	 * @return an immutable list of the group's entities in the default order, or null if there is no such group
 	 */
-
 	@Override
 	public List<T> getEntitiesByGroupKey(R groupKey) throws CodeException {
-		if (!initialized) {
-			initialize();
-		}
-		List<T> result = null;
-		readLock.lock();
-		Map<S, T> groupCache = groupedCache.get(groupKey);
-		if (groupCache != null) {
-			result = new LinkedList<>(groupCache.values());
-		}
-		readLock.unlock();
-		return result;
+		return getSnapshot().group(groupKey);
 	}
 
 	protected R getGroupKey(T entity)
@@ -165,38 +128,52 @@ public class CGEntityController<T extends IEntity<S>, S extends Serializable, R>
 		return groupKeyFn.apply(entity);
 	}
 
-	private void initialize() throws CodeException {
+	public CacheStatistics getCacheStatistics()
+	{
+		final EntitySnapshot<T, S, R> current = snapshot;
+		return new CacheStatistics(current == null ? 0 : current.list().size(), hits.sum(), misses.sum(),
+			loads.sum());
+	}
+
+	private EntitySnapshot<T, S, R> getSnapshot() throws CodeException {
+		EntitySnapshot<T, S, R> current = snapshot;
+		if (current == null) {
+			writeLock.lock();
+			try {
+				current = snapshot;
+				if (current == null) {
+					current = initialize();
+				}
+			} finally {
+				writeLock.unlock();
+			}
+		}
+		return current;
+	}
+
+	private EntitySnapshot<T, S, R> initialize() throws CodeException {
 		try {
+			final CacheReloadEvent event = new CacheReloadEvent();
+			event.begin();
 			// Lade alle entities öäver de basisklasse
 			List<T> allEntities = super.list();
-
+			loads.increment();
 			writeLock.lock();
-			// Make de caches leddig
-			directCache.clear();
-			groupedCache.clear();
-			// Iterere öäver alle entiteten un sortere se in'n cache in
-			for (T entity : allEntities) {
-				// do't entity in'n directCache
-				directCache.put(entity.getEntityID(), entity);
-				R groupKey = getGroupKey(entity);
-				// do't entity in'n groupCache
-				insertIntoGroupedCache(entity, groupKey);
+			try {
+				snapshot = EntitySnapshot.of(allEntities, this::getGroupKey);
+				event.end();
+				if (event.shouldCommit()) {
+					event.cache = getClazz().getSimpleName();
+					event.entryCount = allEntities.size();
+					event.commit();
+				}
+				return snapshot;
+			} finally {
+				writeLock.unlock();
 			}
-			initialized = true;
 		} catch (Exception e) {
 			LOG.error("Could not initialize this controller (entity: " + this.getClazz().getSimpleName() + "): ", e);
 			throw e;
-		} finally {
-			writeLock.unlock();
 		}
 	}
-
-	/**
-	 * Only call this method in other methods when you first had the writeLock locked
- 	 */
-	private void insertIntoGroupedCache(T entity, R groupKey)
-	{
-		Map<S, T> groupCache = groupedCache.computeIfAbsent(groupKey, k -> new HashMap<>());
-		groupCache.put(entity.getEntityID(), entity);
-	}
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.admin.generic;
+
+/**
+ * <p>Statistics of the cache of a {@link CEntityController} or {@link CGEntityController}.</p>
+ *
+ * @param size number of cached entities
+ * @param hits number of get() calls that found the entity
+ * @param misses number of get() calls that did not find the entity
+ * @param loads number of times all entities were loaded from the database
+ */
+public record CacheStatistics(int size, long hits, long misses, long loads) {}
@@ -0,0 +1,150 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.admin.generic;
+
+import dk.ule.oapenwb.persistency.entity.IEntity;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * <p>An immutable snapshot of all cached entities of a {@link CEntityController} or {@link CGEntityController}.
+ * A snapshot is never changed once it was created. Writes create a new snapshot which is then published via a
+ * volatile reference, i.e. reads need neither locking nor copying.</p>
+ * <p>Integer IDs are usually small since they come from a sequence. If all IDs of a snapshot are in range
+ * [0, {@link #MAX_DENSE_ID}) the entities are stored in an array indexed by their ID instead of a hash map.</p>
+ *
+ * @param <T> Entity type
+ * @param <S> ID type of entity
+ * @param <R> Type of the grouping key (if the snapshot is grouped)
+ */
+final class EntitySnapshot<T extends IEntity<S>, S extends Serializable, R>
+{
+	static final int MAX_DENSE_ID = 1 << 16;
+
+	// Entities in the order of the controller's default order clause
+	private final List<T> list;
+	// Either denseByID or byID is set
+	private final Object[] denseByID;
+	private final Map<S, T> byID;
+	// Precomputed groups, or null if the snapshot is not grouped
+	private final Map<R, List<T>> groups;
+
+	private EntitySnapshot(List<T> entities, Function<T, R> groupKeyFn)
+	{
+		this.list = List.copyOf(entities);
+
+		int maxID = -1;
+		boolean dense = true;
+		for (T entity : entities) {
+			if (entity.getEntityID() instanceof Integer id && id >= 0 && id < MAX_DENSE_ID) {
+				maxID = Math.max(maxID, id);
+			} else {
+				dense = false;
+				break;
+			}
+		}
+		if (dense) {
+			this.denseByID = new Object[maxID + 1];
+			for (T entity : entities) {
+				this.denseByID[(Integer) entity.getEntityID()] = entity;
+			}
+			this.byID = null;
+		} else {
+			final Map<S, T> map = new HashMap<>(entities.size() * 2);
+			for (T entity : entities) {
+				map.put(entity.getEntityID(), entity);
+			}
+			this.denseByID = null;
+			this.byID = Collections.unmodifiableMap(map);
+		}
+
+		if (groupKeyFn != null) {
+			final Map<R, List<T>> grouping = new HashMap<>();
+			for (T entity : entities) {
+				grouping.computeIfAbsent(groupKeyFn.apply(entity), k -> new ArrayList<>()).add(entity);
+			}
+			final Map<R, List<T>> immutableGroups = new HashMap<>(grouping.size() * 2);
+			grouping.forEach((key, value) -> immutableGroups.put(key, List.copyOf(value)));
+			this.groups = Collections.unmodifiableMap(immutableGroups);
+		} else {
+			this.groups = null;
+		}
+	}
+
+	static <T extends IEntity<S>, S extends Serializable, R> EntitySnapshot<T, S, R> of(List<T> entities)
+	{
+		return new EntitySnapshot<>(entities, null);
+	}
+
+	static <T extends IEntity<S>, S extends Serializable, R> EntitySnapshot<T, S, R> of(List<T> entities,
+		Function<T, R> groupKeyFn)
+	{
+		return new EntitySnapshot<>(entities, groupKeyFn);
+	}
+
+	@SuppressWarnings("unchecked")
+	T get(S id)
+	{
+		if (denseByID != null) {
+			if (id instanceof Integer intID && intID >= 0 && intID < denseByID.length) {
+				return (T) denseByID[intID];
+			}
+			return null;
+		}
+		return byID.get(id);
+	}
+
+	/**
+	 * @return immutable list of all entities
+	 */
+	List<T> list()
+	{
+		return list;
+	}
+
+	/**
+	 * @return immutable list of the entities of the group, or null if there is no such group
+	 */
+	List<T> group(R groupKey)
+	{
+		return groups == null ? null : groups.get(groupKey);
+	}
+
+	/**
+	 * @return a new snapshot in which the entity with the same ID is replaced by the given one, or the given entity
+	 *   is appended if it was not contained yet
+	 */
+	EntitySnapshot<T, S, R> with(T entity, Function<T, R> groupKeyFn)
+	{
+		final List<T> entities = new ArrayList<>(list.size() + 1);
+		boolean replaced = false;
+		for (T existing : list) {
+			if (existing.getEntityID().equals(entity.getEntityID())) {
+				entities.add(entity);
+				replaced = true;
+			} else {
+				entities.add(existing);
+			}
+		}
+		if (!replaced) {
+			entities.add(entity);
+		}
+		return new EntitySnapshot<>(entities, groupKeyFn);
+	}
+
+	/**
+	 * @return a new snapshot without the entity of the given ID
+	 */
+	EntitySnapshot<T, S, R> without(S id, Function<T, R> groupKeyFn)
+	{
+		final List<T> entities = new ArrayList<>(list.size());
+		for (T existing : list) {
+			if (!existing.getEntityID().equals(id)) {
+				entities.add(existing);
+			}
+		}
+		return new EntitySnapshot<>(entities, groupKeyFn);
+	}
+}
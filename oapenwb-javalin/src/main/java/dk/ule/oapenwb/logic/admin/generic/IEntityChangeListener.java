@@ -0,0 +1,21 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.admin.generic;
+
+/**
+ * <p>Listeners of this type can be registered at a {@link CEntityController} to be informed about entities that
+ * were created, updated or deleted. They will only be called after the transaction containing the change was
+ * committed and the cache of the controller was updated.</p>
+ * <p>Implementations must not throw exceptions and should be quick since they are called from within the
+ * request handling thread.</p>
+ *
+ * @param <T> Entity type
+ */
+public interface IEntityChangeListener<T>
+{
+	/**
+	 * @param oldEntity the entity before the change, null if it was created
+	 * @param newEntity the entity after the change, null if it was deleted
+	 */
+	void entityChanged(T oldEntity, T newEntity);
+}
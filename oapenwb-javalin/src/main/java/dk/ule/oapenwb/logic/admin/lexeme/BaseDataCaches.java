@@ -0,0 +1,55 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.admin.lexeme;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import dk.ule.oapenwb.AdminControllers;
+import dk.ule.oapenwb.logic.admin.LanguagesController;
+import dk.ule.oapenwb.logic.admin.LexemeTypesController;
+import dk.ule.oapenwb.logic.admin.LinkTypesController;
+import dk.ule.oapenwb.logic.admin.generic.CEntityController;
+import dk.ule.oapenwb.persistency.entity.content.basedata.*;
+
+import java.util.Map;
+
+/**
+ * <p>Gives access to the cached controllers of the base data entities that are referenced by lexemes and their
+ * substructures, so that the {@link LexemeDetailDTOChecker} can check the existence of those entities without
+ * querying the database.</p>
+ */
+@Singleton
+public class BaseDataCaches
+{
+	private final Map<Class<?>, CEntityController<?, Integer>> controllers;
+
+	@Inject
+	public BaseDataCaches(
+		final LexemeTypesController lexemeTypesController,
+		final LanguagesController languagesController,
+		@Named(AdminControllers.CONTROLLER_ORTHOGRAPHIES)
+			final CEntityController<Orthography, Integer> orthographiesController,
+		@Named(AdminControllers.CONTROLLER_CATEGORIES)
+			final CEntityController<Category, Integer> categoriesController,
+		@Named(AdminControllers.CONTROLLER_UNIT_LEVELS)
+			final CEntityController<Level, Integer> levelsController,
+		final LinkTypesController linkTypesController)
+	{
+		this.controllers = Map.of(
+			LexemeType.class, lexemeTypesController,
+			Language.class, languagesController,
+			Orthography.class, orthographiesController,
+			Category.class, categoriesController,
+			Level.class, levelsController,
+			LinkType.class, linkTypesController);
+	}
+
+	/**
+	 * @return the cached controller for the given entity class, or null if the entities of the class are not cached
+	 */
+	public CEntityController<?, Integer> getController(final Class<?> clazz)
+	{
+		return controllers.get(clazz);
+	}
+}
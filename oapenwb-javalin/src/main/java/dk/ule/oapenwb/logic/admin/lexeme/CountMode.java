@@ -0,0 +1,24 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.admin.lexeme;
+
+/**
+ * For specifying how the total number of lexemes is determined when listing lexemes in the administration
+ * interface. CountMode is part of the {@link LSearchRequest}.
+ */
+public enum CountMode
+{
+	/**
+	 * The lexemes are counted on each request.
+	 */
+	Exact,
+	/**
+	 * Without a filter the count is taken from the planner statistics of the database, with a filter a cached count
+	 * is used. A cached count can be outdated for a short time.
+	 */
+	Estimated,
+	/**
+	 * The lexemes are not counted at all, the total will be -1.
+	 */
+	None
+}
@@ -0,0 +1,20 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.admin.lexeme;
+
+import java.util.Collection;
+
+/**
+ * <p>Listeners of this type can be registered at the {@link LexemesController} to be informed about lexemes
+ * that were created or updated. They will only be called after the transaction containing the changes was
+ * committed.</p>
+ * <p>Implementations must not throw exceptions and should be quick since they are called from within the
+ * request handling thread.</p>
+ */
+public interface ILexemeChangeListener
+{
+	/**
+	 * @param lexemeIDs IDs of the lexemes that were created or updated
+	 */
+	void lexemesChanged(Collection<Long> lexemeIDs);
+}
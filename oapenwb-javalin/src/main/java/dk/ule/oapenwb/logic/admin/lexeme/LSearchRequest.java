@@ -28,6 +28,16 @@ public class LSearchRequest
 	@JsonView(Views.REST.class)
 	private Integer limit;
 
+	/**
+	 * Continuation token of the previous page (see {@link dk.ule.oapenwb.util.json.Pagination#getNext()}). If it is
+	 * set the next page is loaded by keyset paging and the offset is ignored.
+	 */
+	@JsonView(Views.REST.class)
+	private String after;
+
+	@JsonView(Views.REST.class)
+	private CountMode countMode = CountMode.Exact;
+
 	@JsonView(Views.REST.class)
 	private FilterOptions options;
 }
\ No newline at end of file
@@ -28,6 +28,7 @@ import dk.ule.oapenwb.util.CurrentUser;
 import dk.ule.oapenwb.util.HibernateUtil;
 import dk.ule.oapenwb.util.Pair;
 import dk.ule.oapenwb.util.ValidationUtil;
+import dk.ule.oapenwb.util.metrics.Metrics;
 import org.hibernate.Session;
 import org.hibernate.query.Query;
 
@@ -49,6 +50,7 @@ public class LexemeCreator
 	private final LexemesController lexemesController;
 	private final SememesController sememesController;
 	private final LinkTypesController linkTypesController;
+	private final BaseDataCaches baseDataCaches;
 
 	// Maps to map the internal, negative IDs to the real given IDs after persisting
 	private final Map<Long, Long> variantIdMapping = new HashMap<>();
@@ -62,7 +64,8 @@ public class LexemeCreator
 		final CGEntityController<LemmaTemplate, Integer, Integer> lemmaTemplatesController,
 		final TagsController tagsController, final SynGroupsController synGroupsController,
 		final LangPairsController langPairsController, final LexemesController lexemesController,
-		final SememesController sememesController, LinkTypesController linkTypesController)
+		final SememesController sememesController, LinkTypesController linkTypesController,
+		final BaseDataCaches baseDataCaches)
 	{
 		this.lexemeFormTypesController = lexemeFormTypesController;
 		this.lexemeTypesController = lexemeTypesController;
@@ -73,6 +76,7 @@ public class LexemeCreator
 		this.lexemesController = lexemesController;
 		this.sememesController = sememesController;
 		this.linkTypesController = linkTypesController;
+		this.baseDataCaches = baseDataCaches;
 	}
 
 	public LexemeSlimDTO create(final Session session, final LexemeDetailedDTO lexemeDTO) throws CodeException, MultiCodeException
@@ -87,7 +91,8 @@ public class LexemeCreator
 		}
 
 		// Check the lexeme's content, substructures (and do some auto-correction)
-		new LexemeDetailDTOChecker(lexemeFormTypesController, lexemeDTO, LexemeDetailDTOChecker.Operation.Create).check();
+		new LexemeDetailDTOChecker(lexemeFormTypesController, baseDataCaches, lexemeDTO,
+			LexemeDetailDTOChecker.Operation.Create).check();
 
 		// Persist the lexeme and retrieve the ID of it
 		Lexeme lexeme = lexemeDTO.getLexeme();
@@ -106,19 +111,27 @@ public class LexemeCreator
 		handleTags(session, lexeme.getTags());
 
 		// Persist the variants including their lexeme forms
+		long start = System.nanoTime();
 		persistVariants(session, lexemeDTO);
+		Metrics.INSTANCE.stage("lexeme.create.variants").recordSince(start);
 
 		// The LemmaTemplateProcessor will build the lemmas for all variants and also save the variants again
 		LemmaTemplateProcessor lemmaTemplateProcessor = new LemmaTemplateProcessor(session, lexemeDTO,
 			lemmaTemplatesController,
 			lexemeTypesController, lexemeFormTypesController);
+		start = System.nanoTime();
 		lemmaTemplateProcessor.buildLemmata();
+		Metrics.INSTANCE.stage("lexeme.create.lemmas").recordSince(start);
 
 		// Persist the sememes
+		start = System.nanoTime();
 		persistSememes(session, lexemeDTO);
+		Metrics.INSTANCE.stage("lexeme.create.sememes").recordSince(start);
 
 		// Persist the mappings
+		start = System.nanoTime();
 		persistMappings(session, lexemeDTO);
+		Metrics.INSTANCE.stage("lexeme.create.mappings").recordSince(start);
 
 		// Persist the links
 		persistLinks(session, lexemeDTO);
@@ -273,9 +286,14 @@ public class LexemeCreator
 		}
 
 		// Save the sememes once more...
+		final List<Long> sememeIDs = new LinkedList<>();
 		for (final Sememe sememe : lexemeDTO.getSememes()) {
 			session.save(sememe);
+			if (sememe.getId() != null && sememe.getId() > 0) {
+				sememeIDs.add(sememe.getId());
+			}
 		}
+		sememesController.syncVariants(session, sememeIDs);
 	}
 
 	// persist a SynGroup that is set on a sememe. It will also set the synGroupID on that sememe.
@@ -6,6 +6,7 @@ import dk.ule.oapenwb.base.ErrorCode;
 import dk.ule.oapenwb.base.error.IMessage;
 import dk.ule.oapenwb.base.error.Message;
 import dk.ule.oapenwb.base.error.MultiCodeException;
+import dk.ule.oapenwb.logic.admin.generic.CEntityController;
 import dk.ule.oapenwb.logic.admin.generic.IGroupedEntitySupplier;
 import dk.ule.oapenwb.persistency.entity.content.basedata.*;
 import dk.ule.oapenwb.persistency.entity.content.lexemes.Link;
@@ -15,13 +16,10 @@ import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Sememe;
 import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Variant;
 import dk.ule.oapenwb.util.HibernateUtil;
 import dk.ule.oapenwb.util.Pair;
-import jakarta.persistence.NoResultException;
 import org.hibernate.Session;
 import org.hibernate.query.NativeQuery;
-import org.hibernate.type.StandardBasicTypes;
 
 import java.util.*;
-import java.util.stream.Stream;
 
 /**
  * <p>The LexemeDetailDTOChecker performs several checks and some smaller auto-corrections on a
@@ -36,9 +34,12 @@ import java.util.stream.Stream;
 public class LexemeDetailDTOChecker
 {
 	private final IGroupedEntitySupplier<LexemeFormType, Integer, Integer> lftSupplier;
+	private final BaseDataCaches baseDataCaches;
 	private final LexemeDetailedDTO lexemeDTO;
 	private final Operation op;
 	private final List<IMessage> messages = new LinkedList<>();
+	// The IDs of the referenced entities per entity class, they are checked all at once at the end
+	private final Map<Class<?>, Set<Object>> referencedIDs = new LinkedHashMap<>();
 
 	public enum Operation
 	{
@@ -47,10 +48,15 @@ public class LexemeDetailDTOChecker
 		Delete
 	}
 
+	/**
+	 * @param baseDataCaches used to check the existence of base data entities without querying the database. If it
+	 *   is null all entities will be checked on the database.
+	 */
 	public LexemeDetailDTOChecker(IGroupedEntitySupplier<LexemeFormType, Integer, Integer> lftSupplier,
-		LexemeDetailedDTO lexemeDTO, Operation op)
+		BaseDataCaches baseDataCaches, LexemeDetailedDTO lexemeDTO, Operation op)
 	{
 		this.lftSupplier = lftSupplier;
+		this.baseDataCaches = baseDataCaches;
 		this.lexemeDTO = lexemeDTO;
 		this.op = op;
 	}
@@ -63,6 +69,7 @@ public class LexemeDetailDTOChecker
 				checkSememes(lexemeDTO.getSememes());
 				checkLinks(lexemeDTO.getLinks());
 				checkMappings(lexemeDTO.getMappings());
+				checkReferencedEntitiesExist();
 			}
 		}
 
@@ -192,41 +199,97 @@ public class LexemeDetailDTOChecker
 		// TODO
 	}
 
-	// Only works for entites with a single type ID field called "id"
+	/**
+	 * <p>Only registers the IDs. The existence of the entities is checked in
+	 * {@link #checkReferencedEntitiesExist()}.</p>
+	 */
 	private <S, T> void checkIfEntitiesExist(final Collection<S> entities, final Class<T> clazz)
+	{
+		if (entities != null && !entities.isEmpty()) {
+			referencedIDs.computeIfAbsent(clazz, k -> new LinkedHashSet<>()).addAll(entities);
+		}
+	}
+
+	/**
+	 * <p>Checks the existence of all registered entities with one lookup per entity class. Base data entities are
+	 * looked up in the caches of their controllers, all other entities with one query per class.</p>
+	 */
+	private void checkReferencedEntitiesExist()
 	{
 		if (HibernateUtil.isDisableJsonIdChecks()) {
-			// The checks will be disabled e.g. for mass inserts (FileImporter)
+			// The checks can still be disabled per thread, see HibernateUtil
 			return;
 		}
+		referencedIDs.forEach((clazz, ids) -> {
+			final CEntityController<?, Integer> controller = baseDataCaches == null ? null
+				: baseDataCaches.getController(clazz);
+			if (controller != null) {
+				checkIfCachedEntitiesExist(ids, clazz, controller);
+			} else {
+				checkIfStoredEntitiesExist(ids, clazz);
+			}
+		});
+	}
 
-		if (entities != null && !entities.isEmpty()) {
-			final String tableName = HibernateUtil.getTableName(clazz);
-			// This idea was from https://stackoverflow.com/a/30118121 which also offers a more advanced one
-			entities.stream().flatMap(id -> {
-					try {
-						final Session session = HibernateUtil.getSession();
-						final String queryString = "SELECT 1 as col from "+ tableName + " E where E.id= :id";
-						final NativeQuery<Object> query = session.createNativeQuery(queryString, Object.class)
-							.addScalar("col", StandardBasicTypes.INTEGER);
-						query.setParameter("id", id);
-
-						/*
-						 * Call will throw an exception in both cases (no result and more than one / non-unique)
-						 * (while query.uniqueResult() will only throw in non-unique case)
-						 */
-						query.getSingleResult();
-
-						return null;
-					} catch (NoResultException e) {
-						return Stream.of(new Message(ErrorCode.Admin_EntityNotFound,
-							Arrays.asList(new Pair<>("type", clazz.getSimpleName()), new Pair<>("id", id))));
-					} catch (Exception e) {
-						return Stream.of(new Message(ErrorCode.Admin_EntityUnknownError,
-							Arrays.asList(new Pair<>("type", clazz.getSimpleName()), new Pair<>("id", id),
-								new Pair<>("msg", e.getMessage()))));
-					}
-				}).forEach(this.messages::add);
-		}
-	}
-}
\ No newline at end of file
+	private void checkIfCachedEntitiesExist(final Set<Object> ids, final Class<?> clazz,
+		final CEntityController<?, Integer> controller)
+	{
+		for (Object id : ids) {
+			try {
+				if (!(id instanceof Integer intID) || controller.get(intID) == null) {
+					addNotFoundMessage(clazz, id);
+				}
+			} catch (Exception e) {
+				addUnknownErrorMessage(clazz, id, e);
+			}
+		}
+	}
+
+	// Only works for entites with a single type ID field called "id"
+	private void checkIfStoredEntitiesExist(final Set<Object> ids, final Class<?> clazz)
+	{
+		final Set<Object> remaining = new LinkedHashSet<>(ids);
+		if (remaining.remove(null)) {
+			addNotFoundMessage(clazz, null);
+		}
+		if (remaining.isEmpty()) {
+			return;
+		}
+		try {
+			// One query for all IDs, the IDs not returned are the missing ones
+			final Session session = HibernateUtil.getSession();
+			final String queryString = "SELECT E.id as id from " + HibernateUtil.getTableName(clazz)
+				+ " E where E.id in (:ids)";
+			final NativeQuery<Object> query = session.createNativeQuery(queryString, Object.class)
+				.addScalar("id");
+			query.setParameterList("ids", remaining);
+			final Set<String> found = new HashSet<>();
+			for (Object id : query.list()) {
+				found.add(String.valueOf(id));
+			}
+			// The IDs are compared as strings since the JDBC type might differ from the type in the DTO
+			for (Object id : remaining) {
+				if (!found.contains(String.valueOf(id))) {
+					addNotFoundMessage(clazz, id);
+				}
+			}
+		} catch (Exception e) {
+			for (Object id : remaining) {
+				addUnknownErrorMessage(clazz, id, e);
+			}
+		}
+	}
+
+	private void addNotFoundMessage(final Class<?> clazz, final Object id)
+	{
+		messages.add(new Message(ErrorCode.Admin_EntityNotFound,
+			Arrays.asList(new Pair<>("type", clazz.getSimpleName()), new Pair<>("id", id))));
+	}
+
+	private void addUnknownErrorMessage(final Class<?> clazz, final Object id, final Exception e)
+	{
+		messages.add(new Message(ErrorCode.Admin_EntityUnknownError,
+			Arrays.asList(new Pair<>("type", clazz.getSimpleName()), new Pair<>("id", id),
+				new Pair<>("msg", e.getMessage()))));
+	}
+}
@@ -0,0 +1,36 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.admin.lexeme;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * <p>Position of the last lexeme of a page when listing lexemes with keyset paging. The lexemes are ordered by the
+ * main part of their main variant's lemma and their ID. Lexemes without a main variant (main is null) come last.</p>
+ * <p>The cursor is handed to the client as an opaque continuation token.</p>
+ */
+record LexemeListCursor(String main, long id)
+{
+	String encode()
+	{
+		final String plain = main == null ? Long.toString(id) : id + "\n" + main;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the token is not valid
+	 */
+	static LexemeListCursor decode(final String token)
+	{
+		final String plain = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+		final int index = plain.indexOf('\n');
+		try {
+			return index < 0
+				? new LexemeListCursor(null, Long.parseLong(plain))
+				: new LexemeListCursor(plain.substring(index + 1), Long.parseLong(plain.substring(0, index)));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid continuation token", e);
+		}
+	}
+}
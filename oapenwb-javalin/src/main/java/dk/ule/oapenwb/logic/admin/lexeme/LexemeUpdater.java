@@ -29,6 +29,7 @@ import dk.ule.oapenwb.util.CurrentUser;
 import dk.ule.oapenwb.util.HibernateUtil;
 import dk.ule.oapenwb.util.Pair;
 import dk.ule.oapenwb.util.ValidationUtil;
+import dk.ule.oapenwb.util.metrics.Metrics;
 import org.hibernate.Session;
 import org.hibernate.query.Query;
 
@@ -50,6 +51,7 @@ public class LexemeUpdater
 	private final LangPairsController langPairsController;
 	private final LexemesController lexemesController;
 	private final SememesController sememesController;
+	private final BaseDataCaches baseDataCaches;
 
 	// Maps to map the internal, negative IDs to the real given IDs after persisting
 	private final Map<Long, Long> variantIdMapping = new HashMap<>();
@@ -64,7 +66,7 @@ public class LexemeUpdater
 		final CGEntityController<LemmaTemplate, Integer, Integer> lemmaTemplatesController,
 		final TagsController tagsController, final SynGroupsController synGroupsController,
 		final LangPairsController langPairsController, final LexemesController lexemesController,
-		final SememesController sememesController)
+		final SememesController sememesController, final BaseDataCaches baseDataCaches)
 	{
 		//this.context = context;
 		this.lexemeFormTypesController = lexemeFormTypesController;
@@ -75,6 +77,7 @@ public class LexemeUpdater
 		this.langPairsController = langPairsController;
 		this.lexemesController = lexemesController;
 		this.sememesController = sememesController;
+		this.baseDataCaches = baseDataCaches;
 	}
 
 	public LexemeSlimDTO update(final Session session, final Long id, final LexemeDetailedDTO lexemeDTO,
@@ -91,7 +94,8 @@ public class LexemeUpdater
 		}
 
 		// Check the lexeme's content, substructures (and do some auto-correction)
-		new LexemeDetailDTOChecker(lexemeFormTypesController, lexemeDTO, LexemeDetailDTOChecker.Operation.Update).check();
+		new LexemeDetailDTOChecker(lexemeFormTypesController, baseDataCaches, lexemeDTO,
+			LexemeDetailDTOChecker.Operation.Update).check();
 
 		// ID check
 		Lexeme lexeme = lexemeDTO.getLexeme();
@@ -129,19 +133,27 @@ public class LexemeUpdater
 		handleTags(session, lexeme.getTags(), oldLexeme.getTags());
 
 		// Persist the variants including their lexeme forms
+		long start = System.nanoTime();
 		persistVariants(session, lexemeDTO, oldLexemeDTO);
+		Metrics.INSTANCE.stage("lexeme.update.variants").recordSince(start);
 
 		// The LemmaTemplateProcessor will build the lemmas for all variants and also save them again
 		LemmaTemplateProcessor lemmaTemplateProcessor = new LemmaTemplateProcessor(session, lexemeDTO,
 			lemmaTemplatesController,
 			lexemeTypesController, lexemeFormTypesController);
+		start = System.nanoTime();
 		lemmaTemplateProcessor.buildLemmata();
+		Metrics.INSTANCE.stage("lexeme.update.lemmas").recordSince(start);
 
 		// Persist the sememes
+		start = System.nanoTime();
 		persistSememes(session, lexemeDTO, oldLexemeDTO);
+		Metrics.INSTANCE.stage("lexeme.update.sememes").recordSince(start);
 
 		// Persist the mappings
+		start = System.nanoTime();
 		persistMappings(session, lexemeDTO, oldLexemeDTO);
+		Metrics.INSTANCE.stage("lexeme.update.mappings").recordSince(start);
 
 		// Persist the links
 		// TODO persistLinks(session, lexemeDTO);
@@ -406,14 +418,19 @@ public class LexemeUpdater
 		}
 
 		// One last run to persist the sememes again
+		final List<Long> sememeIDs = new LinkedList<>();
 		for (final Sememe sememe : lexemeDTO.getSememes()) {
 			if (ApiAction.Insert.equals(sememe.getApiAction())) {
 				session.save(sememe);
+				sememeIDs.add(sememe.getId());
 			} else if (ApiAction.Update.equals(sememe.getApiAction())) {
 				session.update(sememe);
+				sememeIDs.add(sememe.getId());
 			}
 			// ApiAction.None: Nothing to do with these ones
 		}
+		// Deleted sememes are removed from SememeVariants by the database
+		sememesController.syncVariants(session, sememeIDs);
 	}
 
 	private Sememe getSememeByID(final List<Sememe> list, final Long id) {
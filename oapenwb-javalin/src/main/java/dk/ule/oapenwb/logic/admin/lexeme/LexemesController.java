@@ -19,6 +19,10 @@ import dk.ule.oapenwb.logic.admin.lexeme.sememe.SememesController;
 import dk.ule.oapenwb.logic.admin.syngroup.SynGroupsController;
 import dk.ule.oapenwb.logic.context.Context;
 import dk.ule.oapenwb.logic.context.ITransaction;
+import dk.ule.oapenwb.logic.search.SearchEntriesProjection;
+import dk.ule.oapenwb.logic.search.infix.InfixIndex;
+import dk.ule.oapenwb.logic.search.infix.WildcardPattern;
+import dk.ule.oapenwb.persistency.dto.SememeSlim;
 import dk.ule.oapenwb.persistency.entity.content.basedata.LemmaTemplate;
 import dk.ule.oapenwb.persistency.entity.content.basedata.LexemeFormType;
 import dk.ule.oapenwb.persistency.entity.content.lexemes.LexemeForm;
@@ -32,7 +36,9 @@ import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Variant;
 import dk.ule.oapenwb.util.HibernateUtil;
 import dk.ule.oapenwb.util.JsonUtil;
 import dk.ule.oapenwb.util.Pair;
+import dk.ule.oapenwb.util.jfr.LexemeSaveEvent;
 import dk.ule.oapenwb.util.json.Pagination;
+import dk.ule.oapenwb.util.metrics.Metrics;
 import jakarta.persistence.OptimisticLockException;
 import org.hibernate.Session;
 import org.hibernate.StaleObjectStateException;
@@ -43,6 +49,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 /**
@@ -71,9 +79,20 @@ public class LexemesController
 	private final LangPairsController langPairsController;
 	private final SememesController sememesController;
 	private final LinkTypesController linkTypesController;
+	private final BaseDataCaches baseDataCaches;
+	private final SearchEntriesProjection searchEntriesProjection;
+	private final InfixIndex infixIndex;
 
 	private final Context _context;
 
+	private final List<ILexemeChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+	// Informed after the listeners above
+	private final List<ILexemeChangeListener> lastChangeListeners = new CopyOnWriteArrayList<>();
+
+	private static final int COUNT_CACHE_SIZE = 256;
+	// Counts of filtered lexeme lists for CountMode.Estimated: <filter key, count>. Cleared when lexemes change.
+	private final Map<String, Integer> countCache = new ConcurrentHashMap<>();
+
 	@Inject
 	public LexemesController(
 		@Named(AdminControllers.CONTROLLER_LEXEME_FORM_TYPES)
@@ -85,7 +104,10 @@ public class LexemesController
 		final SynGroupsController synGroupsController,
 		LangPairsController langPairsController,
 		final SememesController sememesController,
-		LinkTypesController linkTypesController)
+		LinkTypesController linkTypesController,
+		final BaseDataCaches baseDataCaches,
+		final SearchEntriesProjection searchEntriesProjection,
+		final InfixIndex infixIndex)
 	{
 		this.lexemeFormTypesController = lexemeFormTypesController;
 		this.lexemeTypesController = lexemeTypesController;
@@ -95,7 +117,11 @@ public class LexemesController
 		this.langPairsController = langPairsController;
 		this.sememesController = sememesController;
 		this.linkTypesController = linkTypesController;
+		this.baseDataCaches = baseDataCaches;
+		this.searchEntriesProjection = searchEntriesProjection;
+		this.infixIndex = infixIndex;
 		this._context = new Context(true);
+		addChangeListener(infixIndex);
 	}
 
 	public Context getContext()
@@ -103,19 +129,66 @@ public class LexemesController
 		return _context;
 	}
 
+	public void addChangeListener(final ILexemeChangeListener listener)
+	{
+		changeListeners.add(listener);
+	}
+
+	/**
+	 * <p>Registers a listener that is informed after all listeners registered via
+	 * {@link #addChangeListener(ILexemeChangeListener)}, e.g. a cache of results that were computed from the data of
+	 * the other listeners.</p>
+	 */
+	public void addLastChangeListener(final ILexemeChangeListener listener)
+	{
+		lastChangeListeners.add(listener);
+	}
+
+	/**
+	 * <p>Informs the registered {@link ILexemeChangeListener}s about created or updated lexemes. This is done
+	 * automatically by {@link #create(LexemeDetailedDTO, Context)} and {@link #update(Long, LexemeDetailedDTO, Context)}
+	 * when they manage the transaction themselves. Callers that use
+	 * {@link Context#USE_OUTER_TRANSACTION_CONTEXT} (e.g. the importers) must call this method after they
+	 * committed their transaction.</p>
+	 *
+	 * @param lexemeIDs IDs of the created or updated lexemes
+	 */
+	public void fireLexemesChanged(final Collection<Long> lexemeIDs)
+	{
+		if (lexemeIDs == null || lexemeIDs.isEmpty()) {
+			return;
+		}
+		countCache.clear();
+		fireLexemesChanged(changeListeners, lexemeIDs);
+		fireLexemesChanged(lastChangeListeners, lexemeIDs);
+	}
+
+	private void fireLexemesChanged(final List<ILexemeChangeListener> listeners, final Collection<Long> lexemeIDs)
+	{
+		for (ILexemeChangeListener listener : listeners) {
+			try {
+				listener.lexemesChanged(lexemeIDs);
+			} catch (Exception e) {
+				LOG.error("Lexeme change listener of type " + listener.getClass().getSimpleName() + " failed", e);
+			}
+		}
+	}
+
 	public List<LexemeSlimDTO> list(
 		final Pagination pagination,
 		final LSearchRequest request) throws CodeException
 	{
 		List<LexemeSlimDTO> lexemes = new LinkedList<>();
 		try {
-			checkParameters(request, pagination);
+			final LexemeListCursor after = checkParameters(request, pagination);
 
 			if (request.getFilter() == null && request.getOptions() == null) {
-				loadLexemesWithoutFilter(lexemes, pagination);
+				loadLexemesWithoutFilter(lexemes, request, after, pagination);
 			} else {
-				loadLexemesWithFilter(lexemes, request, pagination);
+				loadLexemesWithFilter(lexemes, request, after, pagination);
 			}
+		} catch (CodeException e) {
+			throw e;
 		} catch (Exception e) {
 			LOG.error("Error fetching instances of type " + Lexeme.class.getSimpleName(), e);
 			throw new CodeException(ErrorCode.Admin_EntityOperation,
@@ -124,21 +197,39 @@ public class LexemesController
 		return lexemes;
 	}
 
-	private void checkParameters(final LSearchRequest request, final Pagination pagination)
+	/**
+	 * @return the decoded continuation token, or null if the offset is to be used
+	 */
+	private LexemeListCursor checkParameters(final LSearchRequest request, final Pagination pagination)
+		throws CodeException
 	{
 		String filter = request.getFilter() == null || request.getFilter().isEmpty()
 							? null : request.getFilter();
 		int offset = request.getOffset() == null ? 0 : request.getOffset();
 		int limit = request.getLimit() == null ? 50 : request.getLimit();
 		if (limit > 100) limit = 100; // maximum 100
+		CountMode countMode = request.getCountMode() == null ? CountMode.Exact : request.getCountMode();
 
+		LexemeListCursor after = null;
+		if (request.getAfter() != null && !request.getAfter().isEmpty()) {
+			try {
+				after = LexemeListCursor.decode(request.getAfter());
+			} catch (IllegalArgumentException e) {
+				throw new CodeException(ErrorCode.Search_QueryParameterInvalid,
+					Arrays.asList(new Pair<>("param", "after"), new Pair<>("value", request.getAfter())));
+			}
+			// The offset is meaningless with a continuation token
+			offset = 0;
+		}
 
 		request.setFilter(filter);
 		request.setOffset(offset);
 		request.setLimit(limit);
+		request.setCountMode(countMode);
 
 		pagination.setOffset(offset);
 		pagination.setLimit(limit);
+		return after;
 	}
 
 	public LexemeDetailedDTO get(Long id) throws CodeException {
@@ -216,6 +307,9 @@ public class LexemesController
 	public LexemeSlimDTO create(final LexemeDetailedDTO lexemeDTO, final Context context)
 		throws CodeException, MultiCodeException
 	{
+		final LexemeSaveEvent event = new LexemeSaveEvent();
+		event.begin();
+		final long start = System.nanoTime();
 		LexemeSlimDTO result;
 		Session session = HibernateUtil.getSession();
 		// The whole storing of the detailed lexeme including its variations etc. shall be done within one transaction
@@ -223,7 +317,10 @@ public class LexemesController
 		try {
 			result = new LexemeCreator(lexemeFormTypesController, lexemeTypesController, lemmaTemplatesController,
 				tagsController, synGroupsController, langPairsController, this, sememesController,
-				linkTypesController).create(session, lexemeDTO);
+				linkTypesController, baseDataCaches).create(session, lexemeDTO);
+			final long projectionStart = System.nanoTime();
+			searchEntriesProjection.refresh(session, List.of(result.getId()));
+			Metrics.INSTANCE.stage("lexeme.create.projection").recordSince(projectionStart);
 			// If everything went fine, commit the transaction
 			context.setRevisionComment("Created lexeme with ID " + result.getId());
 			transaction.commit();
@@ -231,6 +328,11 @@ public class LexemesController
 			transaction.rollback();
 			throw e;
 		}
+		if (context.isTransactional()) {
+			fireLexemesChanged(List.of(result.getId()));
+		}
+		Metrics.INSTANCE.stage("lexeme.create").recordSince(start);
+		commitEvent(event, "CREATE", result.getId(), context);
 		return result;
 	}
 
@@ -246,6 +348,9 @@ public class LexemesController
 	public LexemeSlimDTO update(Long id, LexemeDetailedDTO lexemeDTO, final Context context)
 		throws CodeException, MultiCodeException
 	{
+		final LexemeSaveEvent event = new LexemeSaveEvent();
+		event.begin();
+		final long start = System.nanoTime();
 		LexemeSlimDTO result;
 		Session session = HibernateUtil.getSession();
 		ITransaction transaction = context.beginTransaction();
@@ -255,8 +360,11 @@ public class LexemesController
 			// to store the updated lexeme objects
 			session.clear();
 			result = new LexemeUpdater(lexemeFormTypesController, lexemeTypesController, lemmaTemplatesController,
-				tagsController, synGroupsController, langPairsController, this, sememesController)
+				tagsController, synGroupsController, langPairsController, this, sememesController, baseDataCaches)
 				.update(session, id, lexemeDTO, oldLexemeDTO);
+			final long projectionStart = System.nanoTime();
+			searchEntriesProjection.refresh(session, List.of(id));
+			Metrics.INSTANCE.stage("lexeme.update.projection").recordSince(projectionStart);
 			// If everything went fine, commit the transaction
 			context.setRevisionComment("Updated lexeme with ID " + id);
 			transaction.commit();
@@ -278,9 +386,26 @@ public class LexemesController
 			transaction.rollback();
 			throw e;
 		}
+		if (context.isTransactional()) {
+			fireLexemesChanged(List.of(id));
+		}
+		Metrics.INSTANCE.stage("lexeme.update").recordSince(start);
+		commitEvent(event, "UPDATE", id, context);
 		return result;
 	}
 
+	private static void commitEvent(final LexemeSaveEvent event, final String operation, final Long lexemeID,
+		final Context context)
+	{
+		event.end();
+		if (event.shouldCommit()) {
+			event.operation = operation;
+			event.lexemeID = lexemeID;
+			event.transactional = context.isTransactional();
+			event.commit();
+		}
+	}
+
 	public void delete(Long id) throws CodeException
 	{
 		delete(id, getContext());
@@ -316,34 +441,31 @@ public class LexemesController
 		return entities;
 	}
 
-	private void loadLexemesWithoutFilter(List<LexemeSlimDTO> resultList, final Pagination pagination)
-		throws JsonProcessingException
+	private void loadLexemesWithoutFilter(List<LexemeSlimDTO> resultList, final LSearchRequest request,
+		final LexemeListCursor after, final Pagination pagination) throws JsonProcessingException
 	{
 		final Session session = HibernateUtil.getSession();
 
 		// Get the count
-		final Long total = (Long) session.createQuery("SELECT count(*) FROM "+ Lexeme.class.getSimpleName(), Object.class).uniqueResult();
-		pagination.setTotal(total.intValue());
+		switch (request.getCountMode()) {
+			case Exact -> pagination.setTotal(countAllLexemes(session));
+			case Estimated -> {
+				final int estimation = estimateAllLexemes(session);
+				if (estimation >= 0) {
+					pagination.setTotal(estimation);
+					pagination.setEstimated(true);
+				} else {
+					// The table was not analyzed yet
+					pagination.setTotal(countAllLexemes(session));
+				}
+			}
+			case None -> pagination.setTotal(-1);
+		}
 
 		try {
 			// Get the lexemes
-			final NativeQuery<Object[]> query = this.createQuery(pagination);
-			final List<Object[]> rows = query.list();
-			for (final Object[] row : rows) {
-				resultList.add(new LexemeSlimDTO(
-					(Long) row[0],		// id
-					(String) row[1],	// parserID
-					(Integer) row[2],	// typeID
-					(Integer) row[3],	// langID
-					(String) row[4],	// pre
-					(String) row[5],	// main
-					(String) row[6],	// post
-					(Boolean) row[7],	// active
-					(Integer) row[8],	// condition
-					JsonUtil.convertJsonbStringToLinkedHashSet((String) row[9]), // tags
-					(Long) row[10]		// sememeID
-				));
-			}
+			final NativeQuery<Object[]> query = this.createQuery(request, after);
+			readSlimRows(session, query.list(), resultList, request, pagination);
 		} catch (Exception e) {
 			LOG.error("Runetime error occured. Error is: {}", e.getMessage());
 			throw e;
@@ -371,20 +493,39 @@ public class LexemesController
 		 */
 	}
 
-	private NativeQuery<Object[]> createQuery(final Pagination pagination)
+	private int countAllLexemes(final Session session)
+	{
+		final Long total = session.createQuery("SELECT count(*) FROM " + Lexeme.class.getSimpleName(), Long.class)
+			.uniqueResult();
+		return total.intValue();
+	}
+
+	/**
+	 * @return the number of lexemes according to the planner statistics, or -1 if there are no statistics yet
+	 */
+	private int estimateAllLexemes(final Session session)
+	{
+		// Q013
+		final Long estimation = session.createNativeQuery(
+				"select cast(reltuples as int8) as total from pg_class where oid = to_regclass('lexemes')", Long.class)
+			.addScalar("total", StandardBasicTypes.LONG)
+			.uniqueResult();
+		return estimation == null || estimation < 0 ? -1 : estimation.intValue();
+	}
+
+	private NativeQuery<Object[]> createQuery(final LSearchRequest request, final LexemeListCursor after)
 	{
 		final StringBuilder sb = new StringBuilder();
 
 		// Basis query (related to Q011)
 		sb.append("select L.id as id, L.parserID as parserID, L.typeID as typeID, L.langID as langID,\n");
 		sb.append("  V.pre as pre, V.main as main, V.post as post, L.active as active, 5 as condition,\n");
-		sb.append("  L.tags as tags, S.id as sememeID\n");
+		sb.append("  L.tags as tags\n");
 		sb.append("from Lexemes L left join Variants V on (L.id = V.lexemeID and V.mainVariant=true)\n");
-		sb.append("  left join Sememes S on (L.id = S.lexemeID AND S.id = (SELECT MIN(lexemeID) FROM Sememes WHERE lexemeID = L.id))\n");
+		sb.append("where 1 = 1\n");
 
 		// Add the order clause and the paging data
-		sb.append("order by V.main\n");
-		sb.append("limit :limit offset :offset");
+		appendPaging(sb, after);
 
 		// Create the query
 		final Session session = HibernateUtil.getSession();
@@ -398,44 +539,45 @@ public class LexemesController
 			.addScalar("post", StandardBasicTypes.STRING)
 			.addScalar("active", StandardBasicTypes.BOOLEAN)
 			.addScalar("condition", StandardBasicTypes.INTEGER)
-			.addScalar("tags", StandardBasicTypes.STRING)
-			.addScalar("sememeID", StandardBasicTypes.LONG);
-
-		query.setParameter("offset", pagination.getOffset());
-		query.setParameter("limit", pagination.getLimit());
+			.addScalar("tags", StandardBasicTypes.STRING);
+		setPagingParameters(query, request, after);
 
 		return query;
 	}
 
 	private void loadLexemesWithFilter(List<LexemeSlimDTO> resultList, final LSearchRequest request,
-		final Pagination pagination) throws JsonProcessingException
+		final LexemeListCursor after, final Pagination pagination) throws JsonProcessingException
 	{
 		// Get the count
 		NativeQuery<Object> countQuery = null;
 		NativeQuery<Object[]> query = null;
 		try {
-			countQuery = createFilteredCountQuery(request);
-			Integer total = (Integer) countQuery.uniqueResult();
-			pagination.setTotal(total);
+			switch (request.getCountMode()) {
+				case Exact -> {
+					countQuery = createFilteredCountQuery(request);
+					pagination.setTotal((Integer) countQuery.uniqueResult());
+				}
+				case Estimated -> {
+					final String countKey = createCountKey(request);
+					Integer total = countCache.get(countKey);
+					if (total == null) {
+						countQuery = createFilteredCountQuery(request);
+						total = (Integer) countQuery.uniqueResult();
+						if (countCache.size() >= COUNT_CACHE_SIZE) {
+							countCache.clear();
+						}
+						countCache.put(countKey, total);
+					} else {
+						pagination.setEstimated(true);
+					}
+					pagination.setTotal(total);
+				}
+				case None -> pagination.setTotal(-1);
+			}
 
 			// Get the lexemes
-			query = createFilteredQuery(request);
-			List<Object[]> rows = query.list();
-			for (Object[] row : rows) {
-				resultList.add(new LexemeSlimDTO(
-					(Long) row[0],		// id
-					(String) row[1],	// parserID
-					(Integer) row[2],	// typeID
-					(Integer) row[3],	// langID
-					(String) row[4],	// pre
-					(String) row[5],	// main
-					(String) row[6],	// post
-					(Boolean) row[7],	// active
-					(Integer) row[8],	// condition
-					JsonUtil.convertJsonbStringToLinkedHashSet((String) row[9]), // tags
-					(Long) row[10]		// sememeID
-				));
-			}
+			query = createFilteredQuery(request, after);
+			readSlimRows(HibernateUtil.getSession(), query.list(), resultList, request, pagination);
 		} catch (Exception e) {
 			final StringBuilder paramString = new StringBuilder();
 			if (countQuery != null) {
@@ -445,13 +587,106 @@ public class LexemesController
 				});
 			}
 			LOG.error("Runetime error occured. Error is: {}", e.getMessage());
-			LOG.error("SQL query: {}", countQuery != null ? countQuery.getQueryString() : "(null)");
+			LOG.error("SQL query: {}", countQuery != null ? countQuery.getQueryString()
+				: (query != null ? query.getQueryString() : "(null)"));
 			LOG.error("SQL query parameters: {}", paramString.toString());
 			throw e;
 		}
 	}
 
-	//
+	/**
+	 * <p>Reads the rows of the Q011 related queries into LexemeSlimDTOs. The queries load one more lexeme than
+	 * requested to determine if there is a next page. In that case the continuation token is set.</p>
+	 */
+	private void readSlimRows(final Session session, final List<Object[]> rows, final List<LexemeSlimDTO> resultList,
+		final LSearchRequest request, final Pagination pagination) throws JsonProcessingException
+	{
+		final int limit = request.getLimit();
+		for (final Object[] row : rows) {
+			if (resultList.size() == limit) {
+				final LexemeSlimDTO last = resultList.get(resultList.size() - 1);
+				pagination.setNext(new LexemeListCursor(last.getMain(), last.getId()).encode());
+				break;
+			}
+			resultList.add(new LexemeSlimDTO(
+				(Long) row[0],		// id
+				(String) row[1],	// parserID
+				(Integer) row[2],	// typeID
+				(Integer) row[3],	// langID
+				(String) row[4],	// pre
+				(String) row[5],	// main
+				(String) row[6],	// post
+				(Boolean) row[7],	// active
+				(Integer) row[8],	// condition
+				JsonUtil.convertJsonbStringToLinkedHashSet((String) row[9]), // tags
+				null				// sememeID, see below
+			));
+		}
+		fillFirstSememeIDs(session, resultList);
+	}
+
+	/**
+	 * <p>Sets the ID of the first sememe for the lexemes of a page in one query instead of a correlated subquery per
+	 * row.</p>
+	 */
+	private void fillFirstSememeIDs(final Session session, final List<LexemeSlimDTO> lexemes)
+	{
+		if (lexemes.isEmpty()) {
+			return;
+		}
+		final Map<Long, LexemeSlimDTO> lexemesByID = new HashMap<>();
+		for (final LexemeSlimDTO lexeme : lexemes) {
+			lexemesByID.put(lexeme.getId(), lexeme);
+		}
+		// Q012
+		final NativeQuery<Object[]> query = session.createNativeQuery(
+				"select lexemeID, min(id) as sememeID from Sememes where lexemeID in (:lexemeIDs) group by lexemeID",
+				Object[].class)
+			.addScalar("lexemeID", StandardBasicTypes.LONG)
+			.addScalar("sememeID", StandardBasicTypes.LONG);
+		query.setParameterList("lexemeIDs", lexemesByID.keySet());
+		for (final Object[] row : query.list()) {
+			lexemesByID.get((Long) row[0]).setFirstSememeID((Long) row[1]);
+		}
+	}
+
+	/**
+	 * <p>Appends the keyset condition (if a continuation token was given), the order clause and the limit/offset.
+	 * The lexemes are ordered by (main, id), lexemes without a main variant come last.</p>
+	 */
+	private static void appendPaging(final StringBuilder sb, final LexemeListCursor after)
+	{
+		if (after != null) {
+			if (after.main() == null) {
+				sb.append("  and V.main is null and L.id > :afterID\n");
+			} else {
+				sb.append("  and ((V.main, L.id) > (:afterMain, :afterID) or V.main is null)\n");
+			}
+		}
+		sb.append("order by V.main, L.id\n");
+		sb.append(after == null ? "limit :limit offset :offset" : "limit :limit");
+	}
+
+	private static void setPagingParameters(final NativeQuery<Object[]> query, final LSearchRequest request,
+		final LexemeListCursor after)
+	{
+		if (after == null) {
+			query.setParameter("offset", request.getOffset());
+		} else {
+			query.setParameter("afterID", after.id());
+			if (after.main() != null) {
+				query.setParameter("afterMain", after.main());
+			}
+		}
+		// One more lexeme than requested to know if there is a next page
+		query.setParameter("limit", request.getLimit() + 1);
+	}
+
+	private static String createCountKey(final LSearchRequest request)
+	{
+		return request.getFilter() + "|" + request.getTextSearchType().orElse(TextSearchType.PostgreWeb) + "|"
+			+ request.getOptions();
+	}
 
 	private NativeQuery<Object> createFilteredCountQuery(final LSearchRequest request)
 	{
@@ -461,7 +696,7 @@ public class LexemesController
 		String filterText = request.getFilter();
 		if (filterText != null && !filterText.isEmpty()) {
 			final Pair<String, String> filterResult = buildFilterStatementAndText(request.getFilter(),
-				request.getTextSearchType());
+				request.getTextSearchType(), infixIndex);
 			final String filterStatement = filterResult.getLeft();
 			filterText = filterResult.getRight();
 			// Add the text filtering part if it's set
@@ -517,22 +752,21 @@ public class LexemesController
 		return countQuery;
 	}
 
-	private NativeQuery<Object[]> createFilteredQuery(final LSearchRequest request)
+	private NativeQuery<Object[]> createFilteredQuery(final LSearchRequest request, final LexemeListCursor after)
 	{
 		final StringBuilder sb = new StringBuilder();
 
 		// Basis query (related to Q011)
 		sb.append("select L.id as id, L.parserID as parserID, L.typeID as typeID, L.langID as langID,\n");
 		sb.append("  V.pre as pre, V.main as main, V.post as post, L.active as active,\n");
-		sb.append("  5 as condition, L.tags as tags, S.id as sememeID\n");
+		sb.append("  5 as condition, L.tags as tags\n");
 		sb.append("from Lexemes L left join Variants V on (L.id = V.lexemeID and V.mainVariant=true)\n");
-		sb.append("  left join Sememes S on (L.id = S.lexemeID AND S.id = (SELECT MIN(lexemeID) FROM Sememes WHERE lexemeID = L.id))\n");
 		sb.append("where 1 = 1\n");
 
 		String filterText = request.getFilter();
 		if (filterText != null && !filterText.isEmpty()) {
 			final Pair<String, String> filterResult = buildFilterStatementAndText(request.getFilter(),
-				request.getTextSearchType());
+				request.getTextSearchType(), infixIndex);
 			final String filterStatement = filterResult.getLeft();
 			filterText = filterResult.getRight();
 			// Add the text filtering part if it's set
@@ -560,8 +794,7 @@ public class LexemesController
 			}
 		}
 		// Add the order clause and the paging data
-		sb.append("order by V.main\n");
-		sb.append("limit :limit offset :offset");
+		appendPaging(sb, after);
 
 		// Create the query
 		final Session session = HibernateUtil.getSession();
@@ -575,11 +808,8 @@ public class LexemesController
 			.addScalar("post", StandardBasicTypes.STRING)
 			.addScalar("active", StandardBasicTypes.BOOLEAN)
 			.addScalar("condition", StandardBasicTypes.INTEGER)
-			.addScalar("tags", StandardBasicTypes.STRING)
-			.addScalar("sememeID", StandardBasicTypes.LONG);
-
-		query.setParameter("offset", request.getOffset());
-		query.setParameter("limit", request.getLimit());
+			.addScalar("tags", StandardBasicTypes.STRING);
+		setPagingParameters(query, request, after);
 
 		// Set the parameters
 		if (filterText != null) {
@@ -611,19 +841,60 @@ public class LexemesController
 	public static Pair<String, String> buildFilterStatementAndText(
 		String filterText,
 		final Optional<TextSearchType> textSearchType)
+	{
+		return buildFilterStatementAndText(filterText, textSearchType, null);
+	}
+
+	/**
+	 * @param filterText the filter string
+	 * @param textSearchType the optional type of search
+	 * @param infixIndex the index for {@link TextSearchType#Wildcard} patterns with few literal characters, or null
+	 *   to search all patterns in the database
+	 * @return the pair will contain the FilterStatement in the first and the FilterText in the second attribute
+	 */
+	public static Pair<String, String> buildFilterStatementAndText(
+		String filterText,
+		final Optional<TextSearchType> textSearchType,
+		final InfixIndex infixIndex)
+	{
+		return buildFilterStatementAndText(filterText, textSearchType, infixIndex, false);
+	}
+
+	/**
+	 * <p>Same as {@link #buildFilterStatementAndText(String, Optional)} but the full text searches are done on the
+	 * case- and diacritic-folded column LexemeForms.searchKey, i.e. <i>dor</i> also finds <i>Dör</i>.</p>
+	 *
+	 * @param filterText the filter string
+	 * @param textSearchType the optional type of search
+	 * @return the pair will contain the FilterStatement in the first and the FilterText in the second attribute
+	 */
+	public static Pair<String, String> buildFoldedFilterStatementAndText(
+		String filterText,
+		final Optional<TextSearchType> textSearchType)
+	{
+		return buildFilterStatementAndText(filterText, textSearchType, null, true);
+	}
+
+	private static Pair<String, String> buildFilterStatementAndText(
+		String filterText,
+		final Optional<TextSearchType> textSearchType,
+		final InfixIndex infixIndex,
+		final boolean folded)
 	{
 		if (filterText == null || filterText.isEmpty()) {
 			throw new RuntimeException("Function has been called with an empty filter in the request");
 		}
 		// Build the text search part
 		final TextSearchType searchType = textSearchType.orElse(TextSearchType.PostgreWeb);
+		final String column = folded ? "searchKey" : "searchableText";
+		final String filter = folded ? "fold_search_text(:filter, null, null)" : ":filter";
 		final String filterStatement;
 		switch (searchType) {
 			case PostgreWeb -> {
-				filterStatement = "searchableText @@ websearch_to_tsquery('simple', :filter)";
+				filterStatement = column + " @@ websearch_to_tsquery('simple', " + filter + ")";
 			}
 			case Prefixed -> {
-				filterStatement = "searchableText @@ to_tsquery('simple', :filter)";
+				filterStatement = column + " @@ to_tsquery('simple', " + filter + ")";
 				if (filterText.contains(" ")) {
 					StringBuilder newFilterText = new StringBuilder();
 					final String[] parts = filterText.split(" ");
@@ -649,6 +920,21 @@ public class LexemesController
 					filterText = "";
 				}
 			}
+			case Wildcard -> {
+				final WildcardPattern pattern = WildcardPattern.parse(filterText);
+				// The trigram index cannot narrow down patterns without a literal of three characters
+				final long[] variantIDs = infixIndex != null
+					&& pattern.getLongestLiteral().length() < InfixIndex.MIN_TRIGRAM_LITERAL
+					? infixIndex.findVariants(pattern) : null;
+				if (variantIDs != null) {
+					filterStatement = "variantID = any(cast(:filter as bigint[]))";
+					filterText = HibernateUtil.toArrayLiteral(variantIDs);
+				} else {
+					// Answered via the trigram index IDX_LexemeForms_text_trgm
+					filterStatement = "text ilike :filter";
+					filterText = pattern.toLikePattern();
+				}
+			}
 			default -> {
 				throw new RuntimeException("Unsupported text search type was used.");
 			}
@@ -694,6 +980,10 @@ public class LexemesController
 		return sb.toString();
 	}
 
+	/**
+	 * <p>Loads all substructures of the lexeme into the given DTO. Each kind of entity is loaded with a single query
+	 * for all IDs of the level above, so the number of queries does not depend on the size of the lexeme.</p>
+	 */
 	private void fillDetailedDto(final LexemeDetailedDTO lexemeDTO) throws CodeException {
 		if (lexemeDTO == null || lexemeDTO.getLexeme() == null) {
 			throw new RuntimeException("This should not have happened. No lexeme was supplied.");
@@ -707,7 +997,7 @@ public class LexemesController
 		lexemeDTO.setVariants(qVariations.list());
 
 		// Load LexemeForms for all variations
-		lexemeDTO.getVariants().forEach(var -> loadLexemeForms(session, var));
+		loadLexemeForms(session, lexemeDTO.getVariants());
 
 		// Load sememes
 		Query<Sememe> qSememes = session.createQuery(
@@ -715,54 +1005,83 @@ public class LexemesController
 		qSememes.setParameter("lexemeID", lexemeDTO.getLexeme().getId());
 		lexemeDTO.setSememes(qSememes.list());
 
-		// Load the SynGroup for each sememe
-		lexemeDTO.getSememes().forEach(sem -> loadSynGroup(session, sem));
+		final List<Long> sememeIDs = lexemeDTO.getSememes().stream().map(Sememe::getId).collect(Collectors.toList());
+		if (sememeIDs.isEmpty()) {
+			lexemeDTO.setLinks(new LinkedList<>());
+			lexemeDTO.setMappings(new LinkedList<>());
+			return;
+		}
 
+		// Load the SynGroups of all sememes
+		loadSynGroups(session, lexemeDTO.getSememes());
 
-		// Load links for each sememe
-		List<Link> linkList = new LinkedList<>();
-		lexemeDTO.getSememes().forEach(sem -> {
-			Query<Link> qLinks = session.createQuery(
-				"FROM Link L WHERE (L.startSememeID = :sememeID or L.endSememeID = :sememeID)" +
-					"order by L.typeID, L.startSememeID, L.endSememeID", Link.class);
-			qLinks.setParameter("sememeID", sem.getId());
-			linkList.addAll(qLinks.list());
-		});
-		lexemeDTO.setLinks(linkList);
+		// Load the links of all sememes
+		Query<Link> qLinks = session.createQuery(
+			"FROM Link L WHERE L.startSememeID in (:sememeIDs) or L.endSememeID in (:sememeIDs)" +
+				" order by L.typeID, L.startSememeID, L.endSememeID", Link.class);
+		qLinks.setParameterList("sememeIDs", sememeIDs);
+		lexemeDTO.setLinks(qLinks.list());
 
 		// Load mappings
 		Query<Mapping> qMappings = session.createQuery(
 			"FROM Mapping M WHERE M.sememeOneID in (:sememeIDs) or M.sememeTwoID in (:sememeIDs)" +
 			" ORDER by M.weight", Mapping.class);
-		qMappings.setParameterList("sememeIDs",
-			lexemeDTO.getSememes().stream().map(Sememe::getId).collect(Collectors.toList()));
+		qMappings.setParameterList("sememeIDs", sememeIDs);
 		lexemeDTO.setMappings(qMappings.list());
 
-		// Load the slim sememes for each mapping
+		// Load the slim sememes of both ends of all mappings
+		final Set<Long> mappedSememeIDs = new HashSet<>();
+		for (Mapping mapping : lexemeDTO.getMappings()) {
+			mappedSememeIDs.add(mapping.getSememeOneID());
+			mappedSememeIDs.add(mapping.getSememeTwoID());
+		}
+		final Map<Long, SememeSlim> slims = sememesController.getSlimsByIDs(mappedSememeIDs);
 		for (Mapping mapping : lexemeDTO.getMappings()) {
-			mapping.setSememeOne(sememesController.getOneSlim(mapping.getSememeOneID()));
-			mapping.setSememeTwo(sememesController.getOneSlim(mapping.getSememeTwoID()));
+			mapping.setSememeOne(slims.get(mapping.getSememeOneID()));
+			mapping.setSememeTwo(slims.get(mapping.getSememeTwoID()));
 		}
 	}
 
-	private void loadLexemeForms(final Session session, final Variant variant)
+	private void loadLexemeForms(final Session session, final List<Variant> variants)
 	{
+		if (variants.isEmpty()) {
+			return;
+		}
 		Query<LexemeForm> query = session.createQuery(
-			"FROM LexemeForm E WHERE E.variantID = :id order by E.formTypeID", LexemeForm.class);
-		query.setParameter("id", variant.getId());
-		variant.setLexemeForms(query.list());
+			"FROM LexemeForm E WHERE E.variantID in (:ids) order by E.variantID, E.formTypeID", LexemeForm.class);
+		query.setParameterList("ids", variants.stream().map(Variant::getId).collect(Collectors.toList()));
+		final Map<Long, List<LexemeForm>> formsByVariant = new HashMap<>();
+		for (LexemeForm form : query.list()) {
+			formsByVariant.computeIfAbsent(form.getVariantID(), k -> new LinkedList<>()).add(form);
+		}
+		for (Variant variant : variants) {
+			variant.setLexemeForms(formsByVariant.getOrDefault(variant.getId(), new LinkedList<>()));
+		}
 	}
 
-	private void loadSynGroup(final Session session, final Sememe sememe)
+	private void loadSynGroups(final Session session, final List<Sememe> sememes)
 	{
-		if (sememe.getSynGroupID() != null) {
-			try {
-				sememe.setSynGroup(this.synGroupsController.get(sememe.getSynGroupID()));
-			} catch (CodeException e) {
-				LOG.error("This should not have happened. The SynGroup with ID {} was there and then not.",
-					sememe.getSynGroupID());
-				LOG.error("  Exception thrown when loading SynGroup:", e);
+		final Set<Integer> synGroupIDs = sememes.stream().map(Sememe::getSynGroupID).filter(Objects::nonNull)
+			.collect(Collectors.toSet());
+		if (synGroupIDs.isEmpty()) {
+			return;
+		}
+		Query<SynGroup> query = session.createQuery(
+			"FROM SynGroup G WHERE G.id in (:ids)", SynGroup.class);
+		query.setParameterList("ids", synGroupIDs);
+		final Map<Integer, SynGroup> synGroups = new HashMap<>();
+		for (SynGroup synGroup : query.list()) {
+			synGroups.put(synGroup.getId(), synGroup);
+		}
+		for (Sememe sememe : sememes) {
+			if (sememe.getSynGroupID() != null) {
+				final SynGroup synGroup = synGroups.get(sememe.getSynGroupID());
+				if (synGroup == null) {
+					LOG.error("This should not have happened. The SynGroup with ID {} was there and then not.",
+						sememe.getSynGroupID());
+				}
+				sememe.setSynGroup(synGroup);
 			}
 		}
 	}
-}
\ No newline at end of file
+}
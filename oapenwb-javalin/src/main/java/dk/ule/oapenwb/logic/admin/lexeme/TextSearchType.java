@@ -9,5 +9,9 @@ package dk.ule.oapenwb.logic.admin.lexeme;
 public enum TextSearchType
 {
 	PostgreWeb,
-	Prefixed
+	Prefixed,
+	/**
+	 * Infix and wildcard search, see {@link dk.ule.oapenwb.logic.search.infix.WildcardPattern}.
+	 */
+	Wildcard
 }
\ No newline at end of file
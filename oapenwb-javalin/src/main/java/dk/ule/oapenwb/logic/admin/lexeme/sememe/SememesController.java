@@ -2,11 +2,13 @@
 // SPDX-License-Identifier: AGPL-3.0-only
 package dk.ule.oapenwb.logic.admin.lexeme.sememe;
 
+import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import dk.ule.oapenwb.base.ErrorCode;
 import dk.ule.oapenwb.base.error.CodeException;
 import dk.ule.oapenwb.logic.admin.generic.EntityController;
 import dk.ule.oapenwb.logic.admin.lexeme.LexemesController;
+import dk.ule.oapenwb.logic.search.infix.InfixIndex;
 import dk.ule.oapenwb.persistency.dto.SememeSlim;
 import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Lexeme;
 import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Sememe;
@@ -20,10 +22,7 @@ import org.hibernate.type.StandardBasicTypes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * <p>This controller for now only has some special methods regarding the loading of sememes.</p>
@@ -40,6 +39,9 @@ public class SememesController extends EntityController<Sememe, Long>
 
 	private static final int MAX_LEXEMES = 10;
 
+	@Inject
+	private InfixIndex infixIndex;
+
 	public SememesController()
 	{
 		super(Sememe::new, Sememe.class, ids -> Long.parseLong(ids[0]), true);
@@ -61,6 +63,42 @@ public class SememesController extends EntityController<Sememe, Long>
 		return entities;
 	}
 
+	/**
+	 * <p>Rebuilds the rows of the given sememes in table SememeVariants from their variantIDs. The table is the
+	 * normalized form of Sememes.variantIDs that the search queries join via btree indexes. It must thus be synced
+	 * within the same transaction whenever a sememe is inserted or updated. Deleted sememes and variants are removed
+	 * from it by the database itself (on delete cascade).</p>
+	 *
+	 * @param session the session of the running transaction
+	 * @param sememeIDs IDs of the inserted or updated sememes
+	 */
+	public void syncVariants(final Session session, final Collection<Long> sememeIDs) throws CodeException
+	{
+		if (sememeIDs.isEmpty()) {
+			return;
+		}
+		try {
+			// The variantIDs must be written before they are read by the insert statement
+			session.flush();
+			session.createNativeMutationQuery("delete from SememeVariants where sememeID in (:sememeIDs)")
+				.setParameterList("sememeIDs", sememeIDs)
+				.executeUpdate();
+			// Variants that don't exist (anymore) are skipped (Q014)
+			session.createNativeMutationQuery(
+					"insert into SememeVariants (sememeID, variantID)\n"
+						+ "select distinct s.id, v.id\n"
+						+ "from Sememes s cross join lateral jsonb_array_elements_text(s.variantIDs) va(variantID)\n"
+						+ "\tinner join Variants v on v.id = cast(va.variantID as int8)\n"
+						+ "where s.id in (:sememeIDs)")
+				.setParameterList("sememeIDs", sememeIDs)
+				.executeUpdate();
+		} catch (Exception e) {
+			LOG.error("Error syncing the variants of sememes", e);
+			throw new CodeException(ErrorCode.Admin_EntityOperation,
+				Arrays.asList(new Pair<>("operation", "SYNC-VARIANTS"), new Pair<>("entity", Sememe.class.getSimpleName())));
+		}
+	}
+
 	public SSearchResult find(
 		final SSearchRequest request) throws CodeException
 	{
@@ -117,7 +155,7 @@ public class SememesController extends EntityController<Sememe, Long>
 		String filterText = request.getFilter();
 		if (filterText != null && !filterText.isEmpty()) {
 			final Pair<String, String> filterResult = LexemesController.buildFilterStatementAndText(request.getFilter(),
-				request.getTextSearchType());
+				request.getTextSearchType(), infixIndex);
 			final String filterStatement = filterResult.getLeft();
 			filterText = filterResult.getRight();
 			// Add the text filtering part if it's set
@@ -189,21 +227,56 @@ public class SememesController extends EntityController<Sememe, Long>
 		return slim;
 	}
 
+	/**
+	 * <p>Loads the slim sememes of all given IDs with a single query.</p>
+	 *
+	 * @param sememeIDs IDs of the sememes to load
+	 * @return map of the found slim sememes by their ID
+	 */
+	public Map<Long, SememeSlim> getSlimsByIDs(final Collection<Long> sememeIDs) throws CodeException
+	{
+		final Map<Long, SememeSlim> result = new HashMap<>();
+		if (sememeIDs.isEmpty()) {
+			return result;
+		}
+		try {
+			// Query (Q031)
+			final NativeQuery<SememeSlim> query = createLSememeSlimQuery("where S.id in (:sememeIDs)");
+			query.setParameterList("sememeIDs", sememeIDs);
+			for (SememeSlim slim : query.list()) {
+				result.put(slim.getId(), slim);
+			}
+		} catch (Exception e) {
+			LOG.error("Error fetching instances of type " + SememeSlim.class.getSimpleName(), e);
+			throw new CodeException(ErrorCode.Admin_EntityOperation,
+				Arrays.asList(new Pair<>("operation", "GET-SLIMS-BY-IDS"), new Pair<>("entity", SememeSlim.class.getSimpleName())));
+		}
+		return result;
+	}
+
 	private NativeQuery<SememeSlim> createLSememeSlimQuery(long sememeID)
+	{
+		// Query (Q030)
+		final NativeQuery<SememeSlim> query = createLSememeSlimQuery("where S.id = :sememeID");
+		query.setParameter("sememeID", sememeID);
+		return query;
+	}
+
+	private NativeQuery<SememeSlim> createLSememeSlimQuery(final String whereClause)
 	{
 		final StringBuilder sb = new StringBuilder();
 
-		// Query (Q030)
+		// Query (Q030 / Q031)
 		sb.append("select S.id as id, S.internalName as internalName, S.active as active, S.spec as spec,\n");
 		sb.append("  S.lexemeID as lexemeID, L.typeID as typeID, L.langID as langID, L.active as lexActive,\n");
 		sb.append("  V.pre as pre, V.main as main, V.post as post\n");
 		sb.append("from Sememes S inner join Lexemes L on S.lexemeID = L.id\n");
 		sb.append("  inner join Variants V on (L.id = V.lexemeID and V.mainVariant)\n");
-		sb.append("where S.id = :sememeID");
+		sb.append(whereClause);
 
 		// Create the query
 		final Session session = HibernateUtil.getSession();
-		final NativeQuery<SememeSlim> query = session.createNativeQuery(sb.toString(), SememeSlim.class)
+		return session.createNativeQuery(sb.toString(), SememeSlim.class)
 			.addScalar("id", StandardBasicTypes.LONG)
 			.addScalar("internalName", StandardBasicTypes.STRING)
 			.addScalar("active", StandardBasicTypes.BOOLEAN)
@@ -215,9 +288,5 @@ public class SememesController extends EntityController<Sememe, Long>
 			.addScalar("pre", StandardBasicTypes.STRING)
 			.addScalar("main", StandardBasicTypes.STRING)
 			.addScalar("post", StandardBasicTypes.STRING);
-
-		query.setParameter("sememeID", sememeID);
-
-		return query;
 	}
-}
\ No newline at end of file
+}
@@ -14,6 +14,7 @@ import dk.ule.oapenwb.logic.context.Context;
 import dk.ule.oapenwb.logic.presentation.ControllerSet;
 import dk.ule.oapenwb.logic.presentation.PresentationBuilder;
 import dk.ule.oapenwb.logic.presentation.options.PresentationOptions;
+import dk.ule.oapenwb.logic.search.infix.InfixIndex;
 import dk.ule.oapenwb.persistency.entity.ApiAction;
 import dk.ule.oapenwb.persistency.entity.content.lexemes.SynGroup;
 import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Lexeme;
@@ -44,6 +45,9 @@ public class SynGroupsController extends EntityController<SynGroup, Integer>
 	@Inject
 	private ControllerSet controllers;
 
+	@Inject
+	private InfixIndex infixIndex;
+
 	public SynGroupsController()
 	{
 		super(SynGroup::new, SynGroup.class, ids -> Integer.parseInt(ids[0]), true);
@@ -160,7 +164,7 @@ public class SynGroupsController extends EntityController<SynGroup, Integer>
 		String filterText = request.getFilter();
 		if (filterText != null && !filterText.isEmpty()) {
 			final Pair<String, String> filterResult = LexemesController.buildFilterStatementAndText(request.getFilter(),
-				request.getTextSearchType());
+				request.getTextSearchType(), infixIndex);
 			final String filterStatement = filterResult.getLeft();
 			filterText = filterResult.getRight();
 			// Add the text filtering part if it's set
@@ -208,7 +212,7 @@ public class SynGroupsController extends EntityController<SynGroup, Integer>
 		String filterText = request.getFilter();
 		if (filterText != null && !filterText.isEmpty()) {
 			final Pair<String, String> filterResult = LexemesController.buildFilterStatementAndText(request.getFilter(),
-				request.getTextSearchType());
+				request.getTextSearchType(), infixIndex);
 			final String filterStatement = filterResult.getLeft();
 			filterText = filterResult.getRight();
 			// Add the text filtering part if it's set
@@ -5,6 +5,7 @@ package dk.ule.oapenwb.logic.config;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.google.inject.Singleton;
 import dk.ule.oapenwb.base.ErrorCode;
 import dk.ule.oapenwb.base.error.CodeException;
@@ -13,6 +14,9 @@ import dk.ule.oapenwb.persistency.entity.content.basedata.*;
 import dk.ule.oapenwb.persistency.entity.ui.UiLanguage;
 import dk.ule.oapenwb.util.HibernateUtil;
 import dk.ule.oapenwb.util.TimeUtil;
+import dk.ule.oapenwb.util.jfr.CacheReloadEvent;
+import dk.ule.oapenwb.util.json.PrecompressedPayload;
+import dk.ule.oapenwb.util.json.RawDataRepsonse;
 import org.hibernate.Session;
 import org.hibernate.query.Query;
 import org.slf4j.Logger;
@@ -26,6 +30,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 /**
  * <p>This controller compiles and provides the dictionary's base configuration ({@see getBaseConfig}) and also offers
  * parts of the configuration for use in other controllers if needed ({@see getConfig}).</p>
+ * <p>The base configuration is serialized and compressed once when loaded, see {@link #getBaseConfigPayload()}.</p>
  *
  * TODO REFACT See the TODO comment in {@link BaseConfig} about splitting the base config up
  */
@@ -34,6 +39,8 @@ public class ConfigController
 {
 	private static final Logger LOG = LoggerFactory.getLogger(ConfigController.class);
 
+	private static final ObjectMapper MAPPER = new ObjectMapper().disable(MapperFeature.DEFAULT_VIEW_INCLUSION);
+
 	/**
 	 * <p>This method offers the base configuration as already converted Json string and should be used in the REST
 	 * interface.</p>
@@ -54,6 +61,26 @@ public class ConfigController
 		return jsonData;
 	}
 
+	/**
+	 * <p>This method offers the complete response of the REST interface for the base configuration (a
+	 * {@link RawDataRepsonse} containing the base configuration) as a precompressed payload.</p>
+	 *
+	 * @return The response containing the base configuration
+	 * @throws CodeException Will be thrown if the base configuration is not loaded
+	 */
+	public PrecompressedPayload getBaseConfigPayload() throws CodeException
+	{
+		readLock.lock();
+		PrecompressedPayload payload = this.baseConfigPayload;
+		readLock.unlock();
+
+		if (payload == null) {
+			throw new CodeException(ErrorCode.Config_BaseConfigNotLoaded);
+		}
+
+		return payload;
+	}
+
 	/**
 	 * Will reload the configuration. This method should be used in the REST interface.
 	 */
@@ -67,6 +94,8 @@ public class ConfigController
 	 */
 	public void loadConfig() throws CodeException
 	{
+		final CacheReloadEvent event = new CacheReloadEvent();
+		event.begin();
 		TimeUtil.startTimeMeasure();
 		Session session = HibernateUtil.getSession();
 
@@ -117,8 +146,12 @@ public class ConfigController
 		baseConfig.setLexemeTypes(lexemeTypes);
 
 		String result = null;
+		PrecompressedPayload payload = null;
 		try {
 			result = toJson(baseConfig, Views.BaseConfig.class);
+			final RawDataRepsonse response = new RawDataRepsonse();
+			response.setData(result);
+			payload = PrecompressedPayload.of(MAPPER.writeValueAsString(response));
 		} catch (JsonProcessingException e) {
 			LOG.error("Serializing BaseConfig to JSON failed.", e);
 			throw new CodeException(ErrorCode.Config_BaseConfigJsonError);
@@ -132,6 +165,7 @@ public class ConfigController
 		try {
 			writeLock.lock();
 			this.baseConfig = result;
+			this.baseConfigPayload = payload;
 			this.config = config;
 			LOG.info("Loaded config in {}ms", TimeUtil.durationInMilis());
 		} catch (Exception e) {
@@ -139,14 +173,21 @@ public class ConfigController
 		} finally {
 			writeLock.unlock();
 		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.cache = "Config";
+			event.entryCount = uiLanguages.size() + orthographies.size() + langs.size() + loMappings.size()
+				+ langPairs.size() + lexemeTypes.size();
+			event.commit();
+		}
 	}
 
 	// Serializes an object o to JSON with a given view class (see: https://www.baeldung.com/jackson-json-view-annotation)
 	private String toJson(Object o, Class view) throws JsonProcessingException
 	{
-		ObjectMapper mapper = new ObjectMapper();
-		mapper.disable(MapperFeature.DEFAULT_VIEW_INCLUSION);
-		return mapper.writerWithView(view).writeValueAsString(o);
+		// ObjectWriters are immutable and thread-safe, only the shared mapper is reused
+		ObjectWriter writer = MAPPER.writerWithView(view);
+		return writer.writeValueAsString(o);
 	}
 
 	/**
@@ -166,5 +207,6 @@ public class ConfigController
 	private final Lock writeLock = readWriteLock.writeLock();
 
 	private String baseConfig = "";
+	private PrecompressedPayload baseConfigPayload = null;
 	private Config config = null;
 }
\ No newline at end of file
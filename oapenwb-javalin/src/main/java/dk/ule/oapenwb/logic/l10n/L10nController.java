@@ -11,6 +11,8 @@ import dk.ule.oapenwb.persistency.entity.ui.UiTranslation;
 import dk.ule.oapenwb.persistency.entity.ui.UiTranslationScope;
 import dk.ule.oapenwb.util.HibernateUtil;
 import dk.ule.oapenwb.util.TimeUtil;
+import dk.ule.oapenwb.util.jfr.CacheReloadEvent;
+import dk.ule.oapenwb.util.json.PrecompressedPayload;
 import io.javalin.json.JavalinJackson;
 import org.hibernate.Session;
 import org.hibernate.query.Query;
@@ -26,8 +28,9 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 /**
  * <p>L10NController loads the localization data and exposes it.</p>
  *
- * TODO Describe how it works (caching in translations map)
- * TODO Tell about the reload mechanism
+ * <p>The translations of each scope and locale are serialized and compressed once when loaded and held as
+ * {@link PrecompressedPayload}s. A reload builds all payloads first and then swaps them in at once.</p>
+ *
  * TODO FEATURE Offer a new method for lazy loading single translations/texts for a single locale which
  *   shall be used for lazy loading long descriptive texts
  * TODO Make it work to support scopes. Edit: That was already done?
@@ -41,27 +44,40 @@ public class L10nController
 	private final Lock readLock = readWriteLock.readLock();
 	private final Lock writeLock = readWriteLock.writeLock();
 
-	// key: scope, value: (key: locale, value: all translations for that value already as a json string)
-	private Map<String, Map<String, String>> translations = new HashMap<>();
+	private static final PrecompressedPayload EMPTY_TRANSLATIONS = PrecompressedPayload.of("{}");
+
+	// key: scope, value: (key: locale, value: all translations for that value already as a json payload)
+	private Map<String, Map<String, PrecompressedPayload>> translations = new HashMap<>();
 
 	public String getTranslations(final String scope, @NotNull final String locale) throws CodeException
 	{
-		String jsonData;
+		return getTranslationsPayload(scope, locale).asString();
+	}
+
+	public PrecompressedPayload getTranslationsPayload(final String scope, @NotNull final String locale)
+		throws CodeException
+	{
+		PrecompressedPayload payload;
 
 		readLock.lock();
-		Map<String, String> scopeContent = translations.get(scope);
+		Map<String, PrecompressedPayload> scopeContent = translations.get(scope);
 		if (scopeContent != null) {
-			jsonData = scopeContent.get(locale);
+			payload = scopeContent.get(locale);
 		} else {
-			jsonData = "{}";
+			payload = EMPTY_TRANSLATIONS;
 		}
 		readLock.unlock();
 
-		if (jsonData == null) {
+		if (payload == null) {
 			throw new CodeException(ErrorCode.L10n_TranslationsNotLoaded);
 		}
 
-		return jsonData;
+		return payload;
+	}
+
+	public PrecompressedPayload getEmptyTranslationsPayload()
+	{
+		return EMPTY_TRANSLATIONS;
 	}
 
 	public void reloadTranslations() throws JsonProcessingException {
@@ -69,6 +85,8 @@ public class L10nController
 	}
 
 	public void loadTranslations() throws JsonProcessingException {
+		final CacheReloadEvent event = new CacheReloadEvent();
+		event.begin();
 		TimeUtil.startTimeMeasure();
 		Session session = HibernateUtil.getSession();
 
@@ -92,8 +110,8 @@ public class L10nController
 		}
 
 		// 4) Iterate over all scopes and query the belonging translations
-		// key: scope, value: (key: locale, value: all translations for that value already as a json string)
-		Map<String, Map<String, String>> result = new HashMap<>();
+		// key: scope, value: (key: locale, value: all translations for that value already as a json payload)
+		Map<String, Map<String, PrecompressedPayload>> result = new HashMap<>();
 		for (UiTranslationScope scope : scopes) {
 			// 4.a) Query all UiTranslations that belong to the locales put into the locales list, all this for the
 			//      current scope.
@@ -120,18 +138,18 @@ public class L10nController
 				translationsMap.put(translation.getId(), translation.getText());
 			});
 
-			// Map<locale, translations as JSON string>
-			Map<String, String> jsonStringsByLocale = new HashMap<>();
+			// Map<locale, translations as JSON payload>
+			Map<String, PrecompressedPayload> jsonPayloadsByLocale = new HashMap<>();
 			for (Map.Entry<String, Map<String, String>> entry : groupedTranslations.entrySet()) {
 				String locale = entry.getKey();
 				Map<String, String> translationsMap = entry.getValue();
-				// 4.c) Convert each TreeMap into a JSON string
+				// 4.c) Convert each TreeMap into a JSON string and compress it
 				// TODO JavalinJson should not be used here. Edit: Because...?
 				String json = JavalinJackson.Companion.defaultMapper().writeValueAsString(translationsMap);
-				jsonStringsByLocale.put(locale, json);
+				jsonPayloadsByLocale.put(locale, PrecompressedPayload.of(json));
 			}
 
-			result.put(scope.getId(), jsonStringsByLocale);
+			result.put(scope.getId(), jsonPayloadsByLocale);
 		}
 
 		// 5) Set the now (re)loaded translations in the class attribute while using a writelock (!)
@@ -144,5 +162,11 @@ public class L10nController
 		} finally {
 			writeLock.unlock();
 		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.cache = "L10n";
+			event.entryCount = result.values().stream().mapToInt(Map::size).sum();
+			event.commit();
+		}
 	}
 }
\ No newline at end of file
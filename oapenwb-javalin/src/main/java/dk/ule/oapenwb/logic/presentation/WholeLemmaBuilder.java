@@ -34,7 +34,8 @@ public class WholeLemmaBuilder
 
 	private final SingleLemmaBuilder singleLemmaBuilder = new SingleLemmaBuilder();
 
-	private Variant merge(Variant v1, Variant v2) throws CloneNotSupportedException {
+	// Package-private for the benchmarks
+	Variant merge(Variant v1, Variant v2) throws CloneNotSupportedException {
 		Variant result = (Variant) v1.clone();
 		if (result.getDialectIDs() != null && v2.getDialectIDs() != null) {
 			result.getDialectIDs().addAll(v2.getDialectIDs());
@@ -0,0 +1,42 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * <p>Position of the next page within one UiResultCategory of a search result, i.e. the number of entries of that
+ * category that were already returned. The entries of a category are ordered by weight descending and mapping ID.</p>
+ * <p>The continuation is handed to the client as an opaque token.</p>
+ */
+record SearchContinuation(int categoryID, int offset)
+{
+	String encode()
+	{
+		final String plain = categoryID + ":" + offset;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the token is not valid
+	 */
+	static SearchContinuation decode(final String token)
+	{
+		final String plain = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+		final int index = plain.indexOf(':');
+		if (index < 0) {
+			throw new IllegalArgumentException("Invalid continuation token");
+		}
+		try {
+			final SearchContinuation continuation = new SearchContinuation(
+				Integer.parseInt(plain.substring(0, index)), Integer.parseInt(plain.substring(index + 1)));
+			if (continuation.offset() < 0) {
+				throw new IllegalArgumentException("Invalid continuation token");
+			}
+			return continuation;
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid continuation token", e);
+		}
+	}
+}
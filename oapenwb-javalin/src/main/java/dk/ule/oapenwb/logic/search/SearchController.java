@@ -13,11 +13,22 @@ import dk.ule.oapenwb.logic.admin.LexemeTypesController;
 import dk.ule.oapenwb.logic.admin.UiResultCategoriesController;
 import dk.ule.oapenwb.logic.admin.lexeme.LexemesController;
 import dk.ule.oapenwb.logic.admin.lexeme.VariantController;
+import dk.ule.oapenwb.logic.config.Config;
+import dk.ule.oapenwb.logic.config.ConfigController;
 import dk.ule.oapenwb.logic.presentation.ControllerSet;
 import dk.ule.oapenwb.logic.presentation.PresentationBuilder;
 import dk.ule.oapenwb.logic.presentation.WholeLemmaBuilder;
 import dk.ule.oapenwb.logic.presentation.options.PresentationOptions;
+import dk.ule.oapenwb.logic.search.index.TranslationGraph;
+import dk.ule.oapenwb.logic.search.index.TranslationIndex;
+import dk.ule.oapenwb.logic.search.phonetic.PhoneticIndex;
+import dk.ule.oapenwb.logic.search.spelling.SpellingIndex;
+import dk.ule.oapenwb.logic.statistics.SearchRunRecorder;
+import dk.ule.oapenwb.persistency.entity.content.basedata.LangOrthoMapping;
 import dk.ule.oapenwb.persistency.entity.content.basedata.LangPair;
+import dk.ule.oapenwb.persistency.entity.content.basedata.Language;
+import dk.ule.oapenwb.persistency.entity.content.basedata.LexemeType;
+import dk.ule.oapenwb.persistency.entity.content.basedata.Orthography;
 import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Lexeme;
 import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Sememe;
 import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Variant;
@@ -25,8 +36,11 @@ import dk.ule.oapenwb.persistency.entity.ui.UiResultCategory;
 import dk.ule.oapenwb.util.HibernateUtil;
 import dk.ule.oapenwb.util.Pair;
 import dk.ule.oapenwb.util.TimeUtil;
+import dk.ule.oapenwb.util.concurrent.SingleFlight;
+import dk.ule.oapenwb.util.functional.CheckFunction;
+import dk.ule.oapenwb.util.jfr.SearchEvent;
+import dk.ule.oapenwb.util.metrics.Metrics;
 import org.hibernate.Session;
-import org.hibernate.Transaction;
 import org.hibernate.query.NativeQuery;
 import org.hibernate.query.Query;
 import org.hibernate.type.StandardBasicTypes;
@@ -35,6 +49,8 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * <p>SearchController in an early stadium.</p>
@@ -46,19 +62,75 @@ public class SearchController
 {
 	private static final Logger LOG = LoggerFactory.getLogger(SearchController.class);
 
+	public static final int DEFAULT_PAGE_SIZE = 50;
+	public static final int MAX_PAGE_SIZE = 200;
+	// Max. number of spelling corrections returned for a search without results
+	private static final int MAX_SUGGESTIONS = 5;
+	// Max. number of spelling corrections that are searched for a search without results
+	private static final int MAX_CORRECTION_SEARCHES = 2;
+
+	private static final Comparator<TranslationGraph.MappingEdge> EDGE_ORDER =
+		Comparator.comparingInt((TranslationGraph.MappingEdge edge) -> -edge.weight())
+			.thenComparingLong(TranslationGraph.MappingEdge::id);
+	private static final Comparator<MappingRow> ROW_ORDER =
+		Comparator.comparingInt((MappingRow row) -> -row.weight)
+			.thenComparingLong(MappingRow::id);
+
+	/**
+	 * A mapping of a result page together with the count and weight of all mappings of its result category.
+	 */
 	private record MappingRow(
+		Long id,
 		String langPair,
 		Long sememeOneID,
 		Long sememeTwoID,
-		Short weight
+		Short weight,
+		Integer categoryID,
+		Long categoryCount,
+		Long categoryWeight
 	) {}
 
+	/**
+	 * Character equivalences of a language, see {@link Language#getSearchFoldFrom()}.
+	 */
+	private record Folding(String from, String to) {}
+
+	private static final Folding NO_FOLDING = new Folding("", "");
+
+	/**
+	 * Transliteration rules of an orthography, see {@link Orthography#getTransliterationRules()}, together with the
+	 * character equivalences of its language.
+	 */
+	private record Transliteration(String rules, Folding folding) {}
+
+	/**
+	 * The durations of the stages of one search in nanoseconds for the {@link SearchEvent}, summed up over the
+	 * LangPairs that are searched in parallel.
+	 */
+	private record StageTimes(LongAdder mappings, LongAdder load, LongAdder lemmas)
+	{
+		StageTimes()
+		{
+			this(new LongAdder(), new LongAdder(), new LongAdder());
+		}
+	}
+
 	private final AppConfig appConfig;
 	private final LexemesController lexemesController;
 	private final LexemeTypesController lexemeTypesController;
 	private final LangPairsController langPairsController;
 	private final UiResultCategoriesController uiResultCategoriesController;
 	private final ControllerSet lemmaControllers;
+	private final TranslationIndex translationIndex;
+	private final SearchRunRecorder searchRunRecorder;
+	private final SearchResultCache searchResultCache;
+	private final SememeLemmaStore sememeLemmaStore;
+	private final SpellingIndex spellingIndex;
+	private final ConfigController configController;
+	private final PhoneticIndex phoneticIndex;
+	private final SingleFlight<SearchResultCache.Key, SearchResultCache.Entry> searchFlight;
+	// Max. number of LangPairs searched in parallel by one request
+	private final int fanOutParallelism;
 	private final VariantController variantsController = new VariantController();
 
 	@Inject
@@ -68,7 +140,14 @@ public class SearchController
 		LexemeTypesController lexemeTypesController,
 		LangPairsController langPairsController,
 		UiResultCategoriesController uiResultCategoriesController,
-		ControllerSet lemmaControllers)
+		ControllerSet lemmaControllers,
+		TranslationIndex translationIndex,
+		SearchRunRecorder searchRunRecorder,
+		SearchResultCache searchResultCache,
+		SememeLemmaStore sememeLemmaStore,
+		SpellingIndex spellingIndex,
+		ConfigController configController,
+		PhoneticIndex phoneticIndex)
 	{
 		this.appConfig = appConfig;
 		this.lexemesController = lexemesController;
@@ -76,9 +155,28 @@ public class SearchController
 		this.langPairsController = langPairsController;
 		this.uiResultCategoriesController = uiResultCategoriesController;
 		this.lemmaControllers = lemmaControllers;
+		this.translationIndex = translationIndex;
+		this.searchRunRecorder = searchRunRecorder;
+		this.searchResultCache = searchResultCache;
+		this.sememeLemmaStore = sememeLemmaStore;
+		this.spellingIndex = spellingIndex;
+		this.configController = configController;
+		this.phoneticIndex = phoneticIndex;
+		this.searchFlight = new SingleFlight<>(appConfig.getSingleFlightTimeoutMillis());
+		this.fanOutParallelism = Math.max(1, Math.min(appConfig.getSearchFanOutParallelism(),
+			appConfig.getDbConfig().getMaxPoolSize()));
+	}
+
+	public SingleFlight.Statistics getSingleFlightStatistics()
+	{
+		return searchFlight.getStatistics();
 	}
 
 	/**
+	 * <p>The result is paged per UiResultCategory: each category contains at most {@link SearchRequest#getPageSize()}
+	 * entries, ordered by weight, and carries a continuation token if there are more. A request with a
+	 * continuation token returns only the next page of that one category.</p>
+	 *
 	 * TODO Has to look at active properties of the several entities!
 	 *
 	 * @param request
@@ -87,6 +185,12 @@ public class SearchController
 	 */
 	public SearchResult find(final SearchRequest request) throws CodeException
 	{
+		final SearchEvent event = new SearchEvent();
+		event.begin();
+		final long start = System.nanoTime();
+		final int pageSize = getPageSize(request);
+		final SearchContinuation continuation = getContinuation(request);
+		final StageTimes times = new StageTimes();
 		SearchResult result = new SearchResult();
 		try {
 			if (appConfig.isVerbose()) {
@@ -96,159 +200,504 @@ public class SearchController
 
 			SearchRun run = null;
 			if (appConfig.isLogSearchRuns()) {
-				run = new SearchRun(Instant.now(), request.getTerm(), request.getPair(),
-					request.getDirection(), -1, -1);
+				run = new SearchRun(null, Instant.now(), SearchRun.truncateSearchText(request.getTerm()),
+					request.getPair(), request.getDirection(), -1, -1);
 			}
 
 			TimeUtil.startTimeMeasure();
 
-			List<LangPair> langPairs = getLangPairList(this.langPairsController, request.getPair());
+			// Frequent searches are answered from the cache
+			final SearchResultCache.Key cacheKey = SearchResultCache.createKey(request, pageSize);
+			SearchResultCache.Entry entry = searchResultCache.get(cacheKey);
+			final boolean cached = entry != null;
+			if (entry == null) {
+				entry = searchShared(cacheKey, request, continuation, pageSize, times);
+			}
+			// A phonetic search already tolerates misspellings
+			if (continuation == null && isEmpty(entry.result()) && spellingIndex.isEnabled()
+				&& !request.isPhonetic()) {
+				entry = findCorrection(request, entry, pageSize, times);
+			}
+			result = entry.result();
+			// The mappings of the correction if one was found
+			final long mappingCount = entry.mappingCount();
+			Metrics.INSTANCE.stage("search.find").recordSince(start);
+			event.end();
+			if (event.shouldCommit()) {
+				event.term = request.getTerm();
+				event.pair = request.getPair();
+				event.direction = String.valueOf(request.getDirection());
+				event.hitCount = mappingCount;
+				event.cached = cached;
+				event.mappingsDuration = times.mappings().sum();
+				event.loadDuration = times.load().sum();
+				event.lemmasDuration = times.lemmas().sum();
+				event.commit();
+			}
+
+			long duration = TimeUtil.durationInMilis();
+			if (appConfig.isVerbose()) {
+				LOG.info(String.format("Search request took %d ms", duration));
+			}
+
+			// If configured, log this searchRun (it will be persisted asynchronously)
+			if (appConfig.isLogSearchRuns() && run != null) {
+				run.setMillis((int) duration);
+				run.setResultCount((int) mappingCount);
+				searchRunRecorder.record(run);
+			}
+		} catch (Exception e) {
+			LOG.error("Error fetching instances of type " + Lexeme.class.getSimpleName(), e);
+			throw new CodeException(ErrorCode.Admin_EntityOperation,
+				Arrays.asList(new Pair<>("operation", "GET-ALL"), new Pair<>("entity", Lexeme.class.getSimpleName())));
+		}
+		return result;
+	}
 
-			// Query the Mappings
-			//List<MappingRow> mappingsList = new LinkedList<>();
-			Map<Long, Sememe> sememesMap = new HashMap<>();
+	/**
+	 * Executes the search and puts its result into the cache. Concurrent identical searches share one execution.
+	 */
+	private SearchResultCache.Entry searchShared(final SearchResultCache.Key cacheKey, final SearchRequest request,
+		final SearchContinuation continuation, final int pageSize, final StageTimes times) throws CodeException
+	{
+		return searchFlight.execute(cacheKey, () -> {
+			final SearchResultCache.Entry searched = search(request, continuation, pageSize,
+				searchResultCache.getDataVersion(), times);
+			searchResultCache.put(cacheKey, searched);
+			return searched;
+		});
+	}
 
-			final NativeQuery<MappingRow> mappingsQuery = createMappingsSearchQuery(request, langPairs);
-			final List<MappingRow> mappingsList = mappingsQuery.list();
+	private static boolean isEmpty(final SearchResult result)
+	{
+		return result.getEntries() == null || result.getEntries().isEmpty();
+	}
 
-			for (final MappingRow mappingRow : mappingsList) {
-				// Add all sememeIDs to the sememesMap for later loading of the sememes
-				sememesMap.put(mappingRow.sememeOneID, null);
-				sememesMap.put(mappingRow.sememeTwoID, null);
+	/**
+	 * <p>Searches the spelling corrections of a term that found nothing (see {@link SpellingIndex#suggest}). The
+	 * first {@link #MAX_CORRECTION_SEARCHES} corrections are searched in their order until one finds entries. The
+	 * searches go through the cache just as the one of the requested term.</p>
+	 *
+	 * @param emptyEntry the entry of the requested term
+	 * @return an entry with a new result with the suggestions and the entries of the first correction that found
+	 *   some, together with the number of mappings found for this correction. The cached (empty) result of the
+	 *   requested term stays unchanged.
+	 */
+	private SearchResultCache.Entry findCorrection(final SearchRequest request,
+		final SearchResultCache.Entry emptyEntry, final int pageSize, final StageTimes times) throws CodeException
+	{
+		final long start = System.nanoTime();
+		final List<String> suggestions = spellingIndex.suggest(
+			getLangIDs(getLangPairList(this.langPairsController, request.getPair()), request.getDirection()),
+			request.getTerm(), MAX_SUGGESTIONS);
+		final SearchResult result = new SearchResult();
+		if (suggestions.isEmpty()) {
+			return new SearchResultCache.Entry(emptyEntry.dataVersion(), result, emptyEntry.mappingCount());
+		}
+		result.setSuggestions(suggestions);
+		long mappingCount = emptyEntry.mappingCount();
+		for (String suggestion : suggestions.subList(0, Math.min(MAX_CORRECTION_SEARCHES, suggestions.size()))) {
+			final SearchRequest correctedRequest = new SearchRequest();
+			correctedRequest.setPair(request.getPair());
+			correctedRequest.setTerm(suggestion);
+			correctedRequest.setDirection(request.getDirection());
+			correctedRequest.setPageSize(request.getPageSize());
+			final SearchResultCache.Key cacheKey = SearchResultCache.createKey(correctedRequest, pageSize);
+			SearchResultCache.Entry entry = searchResultCache.get(cacheKey);
+			if (entry == null) {
+				entry = searchShared(cacheKey, correctedRequest, null, pageSize, times);
+			}
+			if (!isEmpty(entry.result())) {
+				result.setCorrectedTerm(suggestion);
+				result.setEntries(entry.result().getEntries());
+				mappingCount = entry.mappingCount();
+				break;
+			}
+		}
+		Metrics.INSTANCE.stage("search.correction").recordSince(start);
+		return new SearchResultCache.Entry(emptyEntry.dataVersion(), result, mappingCount);
+	}
 
-				if (appConfig.isVerbose()) {
-					LOG.info(String.format("Mapping with sememeOne %d, sememeTwo %d and weight %d",
-						mappingRow.sememeOneID, mappingRow.sememeTwoID, mappingRow.weight));
-				}
+	/**
+	 * @return the distinct character equivalences of the given languages
+	 */
+	private List<Folding> getFoldings(final Set<Integer> langIDs) throws CodeException
+	{
+		final Set<Folding> foldings = new LinkedHashSet<>();
+		for (Integer langID : langIDs) {
+			foldings.add(getFolding(lemmaControllers.getLanguagesController().get(langID)));
+		}
+		if (foldings.isEmpty()) {
+			foldings.add(NO_FOLDING);
+		}
+		return new ArrayList<>(foldings);
+	}
+
+	private static Folding getFolding(final Language language)
+	{
+		return language == null ? NO_FOLDING : new Folding(Objects.toString(language.getSearchFoldFrom(), ""),
+			Objects.toString(language.getSearchFoldTo(), ""));
+	}
+
+	/**
+	 * <p>The term may be typed in any orthography of the searched languages, so it is transliterated with the rules
+	 * of each of them. A language without own orthographies uses the ones of its nearest parent that has some.</p>
+	 *
+	 * @return the distinct transliterations of the given languages' orthographies, or an empty list if none of the
+	 *   orthographies has transliteration rules
+	 */
+	private List<Transliteration> getTransliterations(final Set<Integer> langIDs) throws CodeException
+	{
+		final Config config = configController.getConfig();
+		if (config == null) {
+			return new ArrayList<>(0);
+		}
+		final Set<Transliteration> transliterations = new LinkedHashSet<>();
+		boolean hasRules = false;
+		for (Integer langID : langIDs) {
+			Language language = lemmaControllers.getLanguagesController().get(langID);
+			final Folding folding = getFolding(language);
+			List<Integer> orthographyIDs = getOrthographyIDs(config, langID);
+			while (orthographyIDs.isEmpty() && language != null && language.getParentID() != null) {
+				orthographyIDs = getOrthographyIDs(config, language.getParentID());
+				language = lemmaControllers.getLanguagesController().get(language.getParentID());
+			}
+			for (Integer orthographyID : orthographyIDs) {
+				final Orthography orthography = lemmaControllers.getOrthographiesController().get(orthographyID);
+				final String rules = orthography == null ? "" : Objects.toString(orthography.getTransliterationRules(), "");
+				hasRules |= !rules.isEmpty();
+				transliterations.add(new Transliteration(rules, folding));
+			}
+		}
+		return hasRules ? new ArrayList<>(transliterations) : new ArrayList<>(0);
+	}
+
+	private static List<Integer> getOrthographyIDs(final Config config, final int langID)
+	{
+		final List<Integer> result = new ArrayList<>();
+		for (LangOrthoMapping mapping : config.getLoMappings()) {
+			if (mapping.getLangID() == langID) {
+				result.add(mapping.getOrthographyID());
 			}
-			final int mappingCount = mappingsList.size();
+		}
+		return result;
+	}
+
+	/**
+	 * @return the IDs of the languages the term is searched in, i.e. language one for direction Right
+	 */
+	private static Set<Integer> getLangIDs(final List<LangPair> langPairs, final Direction direction)
+	{
+		final Set<Integer> result = new HashSet<>();
+		for (LangPair langPair : langPairs) {
+			if (direction == Direction.Both || direction == Direction.Right) {
+				result.add(langPair.getLangOneID());
+			}
+			if (direction == Direction.Both || direction == Direction.Left) {
+				result.add(langPair.getLangTwoID());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Executes the search without the cache.
+	 *
+	 * @param dataVersion the data version of the {@link SearchResultCache} before the search started
+	 * @param times the durations of the stages are added to it
+	 */
+	private SearchResultCache.Entry search(final SearchRequest request, final SearchContinuation continuation,
+		final int pageSize, final long dataVersion, final StageTimes times) throws CodeException
+	{
+		final long start = System.nanoTime();
+		final SearchResult result = new SearchResult();
+		List<LangPair> langPairs = getLangPairList(this.langPairsController, request.getPair());
+		final boolean multiplePairs = langPairs.size() > 1;
+
+		// Query the Mappings
+		final List<MappingRow> mappingsList;
+		if (multiplePairs) {
+			// Each LangPair is searched on its own and in parallel. Each of them has to deliver all rows up to the
+			// end of the requested page since the page of the merged result may consist of rows of any LangPair.
+			final int offset = continuation == null ? 0 : continuation.offset();
+			final SearchContinuation pairContinuation = continuation == null ? null
+				: new SearchContinuation(continuation.categoryID(), 0);
+			final List<List<MappingRow>> pairMappings = fanOut(langPairs,
+				langPair -> findMappings(request, List.of(langPair), pairContinuation, offset + pageSize, times));
+			mappingsList = mergePages(pairMappings, offset, pageSize);
+		} else {
+			mappingsList = findMappings(request, langPairs, continuation, pageSize, times);
+		}
+
+		// <categoryID, number of all mappings of the category>
+		final Map<Integer, Long> categoryCounts = new HashMap<>();
+		for (final MappingRow mappingRow : mappingsList) {
+			categoryCounts.put(mappingRow.categoryID, mappingRow.categoryCount);
 
 			if (appConfig.isVerbose()) {
-				LOG.info(String.format("Number of mappings found: %d", mappingCount));
-			}
-
-			if (!mappingsList.isEmpty()) {
-				// Query the sememes
-				final Session session = HibernateUtil.getSession();
-				final Query<Sememe> sememesQuery = session.createQuery("FROM Sememe s WHERE s.id IN (:sememeIDs)",
-					Sememe.class);
-				sememesQuery.setParameterList("sememeIDs", sememesMap.keySet());
-				final List<Sememe> sememes = sememesQuery.list();
-
-				// Catch all lexemeIDs to load essential data like the language and lexemeType of each sememe
-				final Set<Long> lexemeIDs = new HashSet<>();
-				// Load all variants of the just loaded sememes
-				final Set<Long> variantIDs = new HashSet<>();
-				for (Sememe sememe : sememes) {
-					if (appConfig.isVerbose()) {
-						LOG.info(String.format("Sememe with id %d", sememe.getId()));
-					}
-					// Replace the null value in the sememesMap and collect all lexemeIDs and variantIDs
-					sememesMap.put(sememe.getId(), sememe);
-					lexemeIDs.add(sememe.getLexemeID());
-					variantIDs.addAll(sememe.getVariantIDs());
+				LOG.info(String.format("Mapping with sememeOne %d, sememeTwo %d and weight %d",
+					mappingRow.sememeOneID, mappingRow.sememeTwoID, mappingRow.weight));
+			}
+		}
+		// All found mappings, not only the ones on the returned pages
+		final long mappingCount = categoryCounts.values().stream().mapToLong(Long::longValue).sum();
+
+		if (appConfig.isVerbose()) {
+			LOG.info(String.format("Number of mappings found: %d, returned: %d", mappingCount,
+				mappingsList.size()));
+		}
+
+		if (!mappingsList.isEmpty()) {
+			// <mapping, entry> of all mappings whose data could be loaded
+			final Map<MappingRow, SearchResult.ResultEntry> entries;
+			if (multiplePairs) {
+				// Load the data and build the lemmas of each LangPair in parallel
+				final Map<String, List<MappingRow>> pairRows = new LinkedHashMap<>();
+				for (final MappingRow mappingRow : mappingsList) {
+					pairRows.computeIfAbsent(mappingRow.langPair, k -> new ArrayList<>()).add(mappingRow);
 				}
-				final HashMap<Long, Variant> allVariantsMap = PresentationBuilder.variantListToHashMap(
-					variantsController.loadByIDs(variantIDs, true));
-
-				// Load the lexemes and transfer into hashmap
-				final List<Lexeme> lexemes = lexemesController.loadByIDs(lexemeIDs);
-				final HashMap<Long, Lexeme> lexemesMap = new HashMap<>(lexemes.size());
-				for (Lexeme lexeme : lexemes) {
-					lexemesMap.put(lexeme.getId(), lexeme);
+				entries = new HashMap<>(mappingsList.size());
+				for (Map<MappingRow, SearchResult.ResultEntry> pairEntries : fanOut(new ArrayList<>(pairRows.values()),
+					rows -> buildEntries(request, rows, true, times))) {
+					entries.putAll(pairEntries);
 				}
+			} else {
+				entries = buildEntries(request, mappingsList, false, times);
+			}
 
-				// Build and fill the resultEntryList
-				final WholeLemmaBuilder lemmaBuilder = new WholeLemmaBuilder();
-				// <resultCategory ID, SearchResult.ResultCategory>
-				final Map<Integer, SearchResult.ResultCategory> resultMap = new HashMap<>();
-				for (final MappingRow mappingRow : mappingsList) {
-					Sememe sememeOne = sememesMap.get(mappingRow.sememeOneID);
-					Sememe sememeTwo = sememesMap.get(mappingRow.sememeTwoID);
-
-					if (sememeOne == null || sememeTwo == null) {
-						LOG.error(String.format("Sememe with ID %d could not be loaded",
-							sememeOne == null ? mappingRow.sememeOneID : mappingRow.sememeTwoID));
-						LOG.error(String.format("Request data: pair = %s, direction = %s, term = %s",
-							request.getPair(), request.getDirection(), request.getTerm()));
-						continue;
-					}
+			// <resultCategory ID, SearchResult.ResultCategory>
+			final Map<Integer, SearchResult.ResultCategory> resultMap = new HashMap<>();
+			for (final MappingRow mappingRow : mappingsList) {
+				final SearchResult.ResultEntry entry = entries.get(mappingRow);
+				if (entry == null) {
+					continue;
+				}
+				// Add entry to resultMap
+				UiResultCategory uiResultCategory = uiResultCategoriesController.get(mappingRow.categoryID);
+				SearchResult.ResultCategory resultCategory = resultMap.computeIfAbsent(uiResultCategory.getId(),
+					k -> createResultCategory(uiResultCategory, mappingRow, continuation, pageSize));
+				resultCategory.entries.add(entry);
+			}
 
-					final Lexeme lexemeOne = lexemesMap.get(sememeOne.getLexemeID());
-					final Lexeme lexemeTwo = lexemesMap.get(sememeTwo.getLexemeID());
+			//
+			List<SearchResult.ResultCategory> resultList = new ArrayList<>(resultMap.size());
+			resultList.addAll(resultMap.values());
+			// The uitID makes the order deterministic for categories of the same weight
+			resultList.sort(Comparator.comparingInt((SearchResult.ResultCategory category) -> -category.totalWeight)
+				.thenComparing(category -> category.uitID));
 
-					if (lexemeOne == null || lexemeTwo == null) {
-						LOG.error(String.format("Lexeme with ID %d could not be loaded",
-							lexemeOne == null ? sememeOne.getLexemeID() : sememeTwo.getLexemeID()));
-						LOG.error(String.format("Request data: pair = %s, direction = %s, term = %s",
-							request.getPair(), request.getDirection(), request.getTerm()));
-						continue;
-					}
+			result.setEntries(resultList);
+		}
 
-					LangPair langPair = null;
-					if (langPairs.size() > 1) {
-						langPair = langPairsController.get(mappingRow.langPair);
-					}
+		Metrics.INSTANCE.stage("search.execute").recordSince(start);
+		return new SearchResultCache.Entry(dataVersion, result, mappingCount);
+	}
 
-					SearchResult.ResultEntry entry = new SearchResult.ResultEntry();
-					// SememeEntry 1
-					entry.sememeOne = new SearchResult.SememeEntry();
-					entry.sememeOne.typeID = lexemeOne.getTypeID();
-					entry.sememeOne.lemma = lemmaBuilder.build(
-						PresentationOptions.DEFAULT_PRESENTATION_OPTIONS, lemmaControllers, sememeOne, allVariantsMap);
-					if (langPair != null) {
-						entry.sememeOne.locale = Optional.of(langPair.getLangOne().getLocale());
-					}
-					// SememeEntry 2
-					entry.sememeTwo = new SearchResult.SememeEntry();
-					entry.sememeTwo.typeID = lexemeTwo.getTypeID();
-					entry.sememeTwo.lemma = lemmaBuilder.build(
-						PresentationOptions.DEFAULT_PRESENTATION_OPTIONS, lemmaControllers, sememeTwo, allVariantsMap);
-					if (langPair != null) {
-						entry.sememeTwo.locale = Optional.of(langPair.getLangTwo().getLocale());
-					}
-					// Further properties
-					entry.weight = mappingRow.weight;
-
-					// Add entry to resultMap
-					UiResultCategory uiResultCategory = uiResultCategoriesController.get(
-						lexemeTypesController.get(lexemeOne.getTypeID()).getUiCategoryID());
-					SearchResult.ResultCategory resultCategory = resultMap.computeIfAbsent(uiResultCategory.getId(),
-						k -> new SearchResult.ResultCategory(uiResultCategory.getUitID()));
-					resultCategory.totalWeight += entry.weight;
-					resultCategory.entries.add(entry);
-				}
+	/**
+	 * Loads the sememes, variants and lexemes of the given mappings and builds their result entries. The lemmas are
+	 * taken from the {@link SememeLemmaStore} if possible, so only the variants of the other sememes are loaded.
+	 *
+	 * @param withLocale shall the entries contain the locales of their languages?
+	 * @return <mapping, entry> of all mappings whose data could be loaded
+	 */
+	private Map<MappingRow, SearchResult.ResultEntry> buildEntries(final SearchRequest request,
+		final List<MappingRow> mappingsList, final boolean withLocale, final StageTimes times) throws CodeException
+	{
+		final long loadStart = System.nanoTime();
+		// Add all sememeIDs to the sememesMap for later loading of the sememes
+		final Map<Long, Sememe> sememesMap = new HashMap<>();
+		for (final MappingRow mappingRow : mappingsList) {
+			sememesMap.put(mappingRow.sememeOneID, null);
+			sememesMap.put(mappingRow.sememeTwoID, null);
+		}
 
-				//
-				List<SearchResult.ResultCategory> resultList = new ArrayList<>(resultMap.size());
-				resultList.addAll(resultMap.values());
-				resultList.sort((o1, o2) -> o2.totalWeight - o1.totalWeight);
+		// Query the sememes
+		final Session session = HibernateUtil.getSession();
+		final Query<Sememe> sememesQuery = session.createQuery("FROM Sememe s WHERE s.id IN (:sememeIDs)",
+			Sememe.class);
+		sememesQuery.setParameterList("sememeIDs", sememesMap.keySet());
+		final List<Sememe> sememes = sememesQuery.list();
+		final Map<Long, String> storedLemmas = sememeLemmaStore.getLemmas(sememesMap.keySet(),
+			SememeLemmaStore.DEFAULT_PROFILE);
 
-				result.setEntries(resultList);
+		// Catch all lexemeIDs to load essential data like the language and lexemeType of each sememe
+		final Set<Long> lexemeIDs = new HashSet<>();
+		// Load all variants of the just loaded sememes whose lemmas have to be built
+		final Set<Long> variantIDs = new HashSet<>();
+		for (Sememe sememe : sememes) {
+			if (appConfig.isVerbose()) {
+				LOG.info(String.format("Sememe with id %d", sememe.getId()));
+			}
+			// Replace the null value in the sememesMap and collect all lexemeIDs and variantIDs
+			sememesMap.put(sememe.getId(), sememe);
+			lexemeIDs.add(sememe.getLexemeID());
+			if (!storedLemmas.containsKey(sememe.getId())) {
+				variantIDs.addAll(sememe.getVariantIDs());
 			}
+		}
+		final HashMap<Long, Variant> allVariantsMap = variantIDs.isEmpty() ? new HashMap<>()
+			: PresentationBuilder.variantListToHashMap(variantsController.loadByIDs(variantIDs, true));
 
-			long duration = TimeUtil.durationInMilis();
-			if (appConfig.isVerbose()) {
-				LOG.info(String.format("Search request took %d ms", duration));
+		// Load the lexemes and transfer into hashmap
+		final List<Lexeme> lexemes = lexemesController.loadByIDs(lexemeIDs);
+		final HashMap<Long, Lexeme> lexemesMap = new HashMap<>(lexemes.size());
+		for (Lexeme lexeme : lexemes) {
+			lexemesMap.put(lexeme.getId(), lexeme);
+		}
+		times.load().add(Metrics.INSTANCE.stage("search.load").recordSince(loadStart));
+
+		// Build the entries
+		final long buildStart = System.nanoTime();
+		final WholeLemmaBuilder lemmaBuilder = new WholeLemmaBuilder();
+		final Map<MappingRow, SearchResult.ResultEntry> entries = new HashMap<>(mappingsList.size());
+		for (final MappingRow mappingRow : mappingsList) {
+			Sememe sememeOne = sememesMap.get(mappingRow.sememeOneID);
+			Sememe sememeTwo = sememesMap.get(mappingRow.sememeTwoID);
+
+			if (sememeOne == null || sememeTwo == null) {
+				LOG.error(String.format("Sememe with ID %d could not be loaded",
+					sememeOne == null ? mappingRow.sememeOneID : mappingRow.sememeTwoID));
+				LOG.error(String.format("Request data: pair = %s, direction = %s, term = %s",
+					request.getPair(), request.getDirection(), request.getTerm()));
+				continue;
 			}
 
-			// If configured, log this searchRun
-			if (appConfig.isLogSearchRuns() && run != null) {
-				Session session = HibernateUtil.getSession();
-				Transaction t = session.beginTransaction();
+			final Lexeme lexemeOne = lexemesMap.get(sememeOne.getLexemeID());
+			final Lexeme lexemeTwo = lexemesMap.get(sememeTwo.getLexemeID());
 
-				run.setMillis((int) duration);
-				run.setResultCount(mappingCount);
+			if (lexemeOne == null || lexemeTwo == null) {
+				LOG.error(String.format("Lexeme with ID %d could not be loaded",
+					lexemeOne == null ? sememeOne.getLexemeID() : sememeTwo.getLexemeID()));
+				LOG.error(String.format("Request data: pair = %s, direction = %s, term = %s",
+					request.getPair(), request.getDirection(), request.getTerm()));
+				continue;
+			}
 
-				session.persist(run);
-				t.commit();
+			LangPair langPair = null;
+			if (withLocale) {
+				langPair = langPairsController.get(mappingRow.langPair);
 			}
-		} catch (Exception e) {
-			LOG.error("Error fetching instances of type " + Lexeme.class.getSimpleName(), e);
-			throw new CodeException(ErrorCode.Admin_EntityOperation,
-				Arrays.asList(new Pair<>("operation", "GET-ALL"), new Pair<>("entity", Lexeme.class.getSimpleName())));
+
+			SearchResult.ResultEntry entry = new SearchResult.ResultEntry();
+			// SememeEntry 1
+			entry.sememeOne = new SearchResult.SememeEntry();
+			entry.sememeOne.typeID = lexemeOne.getTypeID();
+			entry.sememeOne.lemma = buildLemma(lemmaBuilder, sememeOne, storedLemmas, allVariantsMap);
+			if (langPair != null) {
+				entry.sememeOne.locale = Optional.of(langPair.getLangOne().getLocale());
+			}
+			// SememeEntry 2
+			entry.sememeTwo = new SearchResult.SememeEntry();
+			entry.sememeTwo.typeID = lexemeTwo.getTypeID();
+			entry.sememeTwo.lemma = buildLemma(lemmaBuilder, sememeTwo, storedLemmas, allVariantsMap);
+			if (langPair != null) {
+				entry.sememeTwo.locale = Optional.of(langPair.getLangTwo().getLocale());
+			}
+			// Further properties
+			entry.weight = mappingRow.weight;
+
+			entries.put(mappingRow, entry);
 		}
-		return result;
+		times.lemmas().add(Metrics.INSTANCE.stage("search.lemmas").recordSince(buildStart));
+		return entries;
+	}
+
+	private String buildLemma(final WholeLemmaBuilder lemmaBuilder, final Sememe sememe,
+		final Map<Long, String> storedLemmas, final Map<Long, Variant> allVariantsMap) throws CodeException
+	{
+		final String lemma = storedLemmas.get(sememe.getId());
+		return lemma != null ? lemma : lemmaBuilder.build(
+			PresentationOptions.DEFAULT_PRESENTATION_OPTIONS, lemmaControllers, sememe, allVariantsMap);
+	}
+
+	/**
+	 * <p>Executes the task for each item on its own virtual thread and returns the results in the order of the
+	 * items. At most {@link #fanOutParallelism} tasks of a request run at the same time, so that one request can't
+	 * take more than its share of the connection pool. Each task uses and closes its own Hibernate session.</p>
+	 */
+	private <T, R> List<R> fanOut(final List<T> items, final CheckFunction<T, R> task) throws CodeException
+	{
+		final Semaphore permits = new Semaphore(fanOutParallelism);
+		final List<Future<R>> futures = new ArrayList<>(items.size());
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (final T item : items) {
+				futures.add(executor.submit(() -> {
+					try {
+						// Only a permit that was acquired is released
+						permits.acquire();
+						try {
+							return task.apply(item);
+						} finally {
+							permits.release();
+						}
+					} finally {
+						HibernateUtil.closeSession();
+					}
+				}));
+			}
+			try {
+				final List<R> results = new ArrayList<>(items.size());
+				for (Future<R> future : futures) {
+					results.add(future.get());
+				}
+				return results;
+			} catch (InterruptedException | ExecutionException e) {
+				// Don't wait for the other tasks
+				futures.forEach(future -> future.cancel(true));
+				throw e;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while waiting for the search of a LangPair");
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof CodeException codeException) {
+				throw codeException;
+			} else if (cause instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Merges the pages found for the single LangPairs: the mappings of each category are ordered as in query Q501,
+	 * and the counts and weights of a category are summed up over all LangPairs.
+	 *
+	 * @param pairPages the first offset + pageSize mappings of each category for each LangPair
+	 */
+	private static List<MappingRow> mergePages(final List<List<MappingRow>> pairPages, final int offset,
+		final int pageSize)
+	{
+		// <categoryID, mappings of the category>
+		final Map<Integer, List<MappingRow>> categories = new TreeMap<>();
+		// <categoryID, [count, weight]>
+		final Map<Integer, long[]> totals = new HashMap<>();
+		for (List<MappingRow> pairPage : pairPages) {
+			final Set<Integer> counted = new HashSet<>();
+			for (MappingRow row : pairPage) {
+				categories.computeIfAbsent(row.categoryID, k -> new ArrayList<>()).add(row);
+				if (counted.add(row.categoryID)) {
+					final long[] total = totals.computeIfAbsent(row.categoryID, k -> new long[2]);
+					total[0] += row.categoryCount;
+					total[1] += row.categoryWeight;
+				}
+			}
+		}
+
+		final List<MappingRow> mappingsList = new ArrayList<>();
+		for (Map.Entry<Integer, List<MappingRow>> entry : categories.entrySet()) {
+			final List<MappingRow> rows = entry.getValue();
+			rows.sort(ROW_ORDER);
+			final long[] total = totals.get(entry.getKey());
+			final int end = Math.min(rows.size(), offset + pageSize);
+			for (int i = offset; i < end; i++) {
+				final MappingRow row = rows.get(i);
+				mappingsList.add(new MappingRow(row.id, row.langPair, row.sememeOneID, row.sememeTwoID, row.weight,
+					row.categoryID, total[0], total[1]));
+			}
+		}
+		return mappingsList;
 	}
 
 	public static List<LangPair> getLangPairList(final LangPairsController langPairsController, final String pair) throws CodeException
@@ -275,64 +724,259 @@ public class SearchController
 		return langPairs;
 	}
 
-	private NativeQuery<MappingRow> createMappingsSearchQuery(final SearchRequest request, final List<LangPair> langPairs)
+	private static int getPageSize(final SearchRequest request) throws CodeException
 	{
-		StringBuilder sb = new StringBuilder();
+		final Integer pageSize = request.getPageSize();
+		if (pageSize == null) {
+			return DEFAULT_PAGE_SIZE;
+		}
+		if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+			throw new CodeException(ErrorCode.Search_QueryParameterInvalid,
+				Arrays.asList(new Pair<>("param", "pageSize"), new Pair<>("value", pageSize.toString())));
+		}
+		return pageSize;
+	}
 
-		// Basis query (Q500)
-		if (request.getDirection() == Direction.Both || request.getDirection() == Direction.Right) {
-			// First part of possible union for left to right search
-			sb.append("select langPair, sememeOneID, sememeTwoID, weight\n");
-			sb.append("from Mappings m\n");
-			sb.append("where m.langPair in (:langPairs) and sememeOneID in (\n");
-			sb.append("\tselect s.id from Sememes s inner join Lexemes l on s.lexemeID = l.id,\n");
-			sb.append("\t\tjsonb_array_elements(s.variantIDs) va(variantID)\n");
-			sb.append("\twhere l.active = true and s.active = true and l.langID in (:langOneIDs) and variantID");
-			sb.append(HibernateUtil.CONSTANT_INT); // escape the :: (!)
-			sb.append(" in (\n"); // escape the :: (!)
-			sb.append("\t\tselect variantID from LexemeForms\n");
-			sb.append("\t\t\twhere searchableText @@ websearch_to_tsquery('simple', :term)\n");
-			sb.append("\t)\n");
-			sb.append(")\n");
+	private static SearchContinuation getContinuation(final SearchRequest request) throws CodeException
+	{
+		final String token = request.getContinuation();
+		if (token == null || token.isBlank()) {
+			return null;
 		}
+		try {
+			return SearchContinuation.decode(token);
+		} catch (IllegalArgumentException e) {
+			throw new CodeException(ErrorCode.Search_QueryParameterInvalid,
+				Arrays.asList(new Pair<>("param", "continuation"), new Pair<>("value", token)));
+		}
+	}
 
-		// Only needed when both directions are taken into account
-		if (request.getDirection() == Direction.Both) {
-			sb.append("union\n");
+	private static SearchResult.ResultCategory createResultCategory(final UiResultCategory uiResultCategory,
+		final MappingRow row, final SearchContinuation continuation, final int pageSize)
+	{
+		final SearchResult.ResultCategory category = new SearchResult.ResultCategory(uiResultCategory.getUitID());
+		category.totalWeight = row.categoryWeight.intValue();
+		category.totalCount = row.categoryCount.intValue();
+		final int nextOffset = (continuation == null ? 0 : continuation.offset()) + pageSize;
+		if (nextOffset < category.totalCount) {
+			category.next = new SearchContinuation(uiResultCategory.getId(), nextOffset).encode();
 		}
+		return category;
+	}
 
-		if (request.getDirection() == Direction.Both || request.getDirection() == Direction.Left) {
-			// Second part of possible union for right to left search
-			sb.append("select langPair, sememeOneID, sememeTwoID, weight\n");
-			sb.append("from Mappings m\n");
-			sb.append("where m.langPair in (:langPairs) and sememeTwoID in (\n");
-			sb.append("\tselect s.id from Sememes s inner join Lexemes l on s.lexemeID = l.id,\n");
-			sb.append("\t\tjsonb_array_elements(s.variantIDs) va(variantID)\n");
-			sb.append("\twhere l.active = true and s.active = true and l.langID in (:langTwoIDs) and variantID");
-			sb.append(HibernateUtil.CONSTANT_INT); // escape the :: (!)
-			sb.append(" in (\n");
-			sb.append("\t\tselect variantID from LexemeForms\n");
-			sb.append("\t\t\twhere searchableText @@ websearch_to_tsquery('simple', :term)\n");
-			sb.append("\t)\n");
+	/**
+	 * @return <lexemeTypeID, uiResultCategoryID> of all lexeme types that are assigned to a result category
+	 */
+	private Map<Integer, Integer> getTypeToCategoryMap() throws CodeException
+	{
+		final Map<Integer, Integer> result = new TreeMap<>();
+		for (LexemeType lexemeType : lexemeTypesController.list()) {
+			if (lexemeType.getUiCategoryID() != null
+				&& uiResultCategoriesController.get(lexemeType.getUiCategoryID()) != null) {
+				result.put(lexemeType.getId(), lexemeType.getUiCategoryID());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the page of mappings of each result category (or of the category of the continuation) via the
+	 * {@link TranslationIndex} if it is enabled and able to answer the request, or else via the database.
+	 * Mappings whose first sememe's lexeme type has no result category are left out. For a phonetic search the
+	 * variants are found by the {@link PhoneticIndex}, it is done as a text search if the index is not available.
+	 */
+	private List<MappingRow> findMappings(final SearchRequest request, final List<LangPair> langPairs,
+		final SearchContinuation continuation, final int pageSize, final StageTimes times) throws CodeException
+	{
+		final Map<Integer, Integer> typeToCategory = getTypeToCategoryMap();
+		if (typeToCategory.isEmpty()) {
+			return new ArrayList<>(0);
+		}
+		final long start = System.nanoTime();
+		// The index only folds the case and the diacritics, but neither applies the character equivalences of the
+		// languages nor the transliterations of their orthographies
+		final Set<Integer> searchedLangIDs = getLangIDs(langPairs, request.getDirection());
+		final long[] variantIDs = request.isPhonetic()
+			? phoneticIndex.findVariants(searchedLangIDs, request.getTerm()) : null;
+		if (variantIDs == null && translationIndex.isEnabled()
+			&& getFoldings(searchedLangIDs).equals(List.of(NO_FOLDING))
+			&& getTransliterations(searchedLangIDs).isEmpty()) {
+			final Set<String> langPairIDs = new HashSet<>(langPairs.size());
+			final Set<Integer> langOneIDs = new HashSet<>(langPairs.size());
+			final Set<Integer> langTwoIDs = new HashSet<>(langPairs.size());
+			for (LangPair langPair : langPairs) {
+				langPairIDs.add(langPair.getId());
+				langOneIDs.add(langPair.getLangOneID());
+				langTwoIDs.add(langPair.getLangTwoID());
+			}
+			final List<TranslationGraph.MappingEdge> edges = translationIndex.find(request.getTerm(), langPairIDs,
+				langOneIDs, langTwoIDs, request.getDirection());
+			if (edges != null) {
+				final List<MappingRow> mappingsList = pageEdges(edges, typeToCategory, continuation, pageSize);
+				if (mappingsList != null) {
+					times.mappings().add(Metrics.INSTANCE.stage("search.mappings.index").recordSince(start));
+					return mappingsList;
+				}
+			}
+		}
+		final List<MappingRow> mappingsList =
+			createMappingsSearchQuery(request, langPairs, typeToCategory, continuation, pageSize, variantIDs).list();
+		times.mappings().add(Metrics.INSTANCE.stage("search.mappings.db").recordSince(start));
+		return mappingsList;
+	}
+
+	/**
+	 * Does the paging of query Q501 for the mappings found by the {@link TranslationIndex}.
+	 *
+	 * @return the pages, or null if the index does not know the type of a sememe (it only holds active sememes)
+	 */
+	private List<MappingRow> pageEdges(final List<TranslationGraph.MappingEdge> edges,
+		final Map<Integer, Integer> typeToCategory, final SearchContinuation continuation, final int pageSize)
+	{
+		final long[] sememeIDs = new long[edges.size()];
+		for (int i = 0; i < sememeIDs.length; i++) {
+			sememeIDs[i] = edges.get(i).sememeOneID();
+		}
+		final int[] typeIDs = translationIndex.getTypeIDs(sememeIDs);
+
+		// <categoryID, mappings of the category>
+		final Map<Integer, List<TranslationGraph.MappingEdge>> categories = new TreeMap<>();
+		for (int i = 0; i < typeIDs.length; i++) {
+			if (typeIDs[i] < 0) {
+				return null;
+			}
+			final Integer categoryID = typeToCategory.get(typeIDs[i]);
+			if (categoryID == null || (continuation != null && continuation.categoryID() != categoryID)) {
+				continue;
+			}
+			categories.computeIfAbsent(categoryID, k -> new ArrayList<>()).add(edges.get(i));
+		}
+
+		final int offset = continuation == null ? 0 : continuation.offset();
+		final List<MappingRow> mappingsList = new ArrayList<>();
+		for (Map.Entry<Integer, List<TranslationGraph.MappingEdge>> entry : categories.entrySet()) {
+			final List<TranslationGraph.MappingEdge> categoryEdges = entry.getValue();
+			categoryEdges.sort(EDGE_ORDER);
+			long weight = 0;
+			for (TranslationGraph.MappingEdge edge : categoryEdges) {
+				weight += edge.weight();
+			}
+			final int end = Math.min(categoryEdges.size(), offset + pageSize);
+			for (int i = offset; i < end; i++) {
+				final TranslationGraph.MappingEdge edge = categoryEdges.get(i);
+				mappingsList.add(new MappingRow(edge.id(), edge.langPair(), edge.sememeOneID(), edge.sememeTwoID(),
+					edge.weight(), entry.getKey(), (long) categoryEdges.size(), weight));
+			}
+		}
+		return mappingsList;
+	}
+
+	private NativeQuery<MappingRow> createMappingsSearchQuery(final SearchRequest request,
+		final List<LangPair> langPairs, final Map<Integer, Integer> typeToCategory,
+		final SearchContinuation continuation, final int pageSize, final long[] variantIDs) throws CodeException
+	{
+		// The term is folded just as the search keys of the entries (see SearchEntriesProjection). If the searched
+		// languages have different character equivalences the term is folded for each of them. Once an orthography
+		// of the searched languages has transliteration rules the cross-orthography keys are probed instead, and the
+		// term is transliterated with the rules of each orthography. The variants found by a phonetic search are
+		// probed directly.
+		final Set<Integer> searchedLangIDs = getLangIDs(langPairs, request.getDirection());
+		final List<Transliteration> transliterations = variantIDs == null
+			? getTransliterations(searchedLangIDs) : new ArrayList<>(0);
+		final boolean transliterated = !transliterations.isEmpty();
+		if (!transliterated && variantIDs == null) {
+			for (Folding folding : getFoldings(searchedLangIDs)) {
+				transliterations.add(new Transliteration(null, folding));
+			}
+		}
+		StringBuilder sb = new StringBuilder();
+
+		// Paging per result category (Q501): the result category of a mapping is the one of its first sememe's
+		// lexeme type. Only the top mappings by weight of each category are returned, so only those have to be
+		// loaded and presented.
+		sb.append("select id, langPair, sememeOneID, sememeTwoID, weight, categoryID, categoryCount, categoryWeight\n");
+		sb.append("from (\n");
+		sb.append("select f.id, f.langPair, f.sememeOneID, f.sememeTwoID, f.weight, tc.categoryID,\n");
+		sb.append("\trow_number() over (partition by tc.categoryID order by f.weight desc, f.id) as rn,\n");
+		sb.append("\tcount(*) over (partition by tc.categoryID) as categoryCount,\n");
+		sb.append("\tsum(f.weight) over (partition by tc.categoryID) as categoryWeight\n");
+		sb.append("from (\n");
+
+		// Basis query (Q502): the mappings with a matching lexeme form on the searched side(s). It is answered from
+		// the SearchEntries projection (see SearchEntriesProjection) instead of joining the forms, variants, sememes
+		// and lexemes, and distinct folds the rows of a mapping that matches on both sides.
+		sb.append("select distinct e.mappingID as id, e.langPair, e.sememeOneID, e.sememeTwoID, e.weight, e.oneTypeID\n");
+		sb.append("from SearchEntries e\n");
+		sb.append("where e.active = true and e.langPair in (:langPairs)\n");
+		if (variantIDs != null) {
+			sb.append("\tand e.variantID = any(cast(:variantIDs as bigint[]))\n");
+		} else {
+			sb.append(transliterated ? "\tand e.translitKey @@ (" : "\tand e.searchKey @@ (");
+			for (int i = 0; i < transliterations.size(); i++) {
+				if (i > 0) {
+					sb.append(" || ");
+				}
+				sb.append("websearch_to_tsquery('simple', fold_search_text(")
+					.append(transliterated ? "transliterate_search_text(lower(:term), :rules" + i + ")" : ":term")
+					.append(", :foldFrom").append(i).append(", :foldTo").append(i).append("))");
+			}
 			sb.append(")\n");
 		}
+		switch (request.getDirection()) {
+			case Right -> sb.append("\tand e.side = 1 and e.langID in (:langOneIDs)\n");
+			case Left -> sb.append("\tand e.side = 2 and e.langID in (:langTwoIDs)\n");
+			default -> sb.append("\tand ((e.side = 1 and e.langID in (:langOneIDs)) or (e.side = 2 and e.langID in (:langTwoIDs)))\n");
+		}
+
+		sb.append(") f\n");
+		// The IDs come from the cached lexeme types and are thus safe to be inlined
+		sb.append("\tinner join (values ");
+		boolean first = true;
+		for (Map.Entry<Integer, Integer> entry : typeToCategory.entrySet()) {
+			if (!first) {
+				sb.append(", ");
+			}
+			sb.append('(').append(entry.getKey().intValue()).append(", ").append(entry.getValue().intValue()).append(')');
+			first = false;
+		}
+		sb.append(") tc(typeID, categoryID) on f.oneTypeID = tc.typeID\n");
+		if (continuation != null) {
+			sb.append("where tc.categoryID = :categoryID\n");
+		}
+		sb.append(") r\n");
+		sb.append("where rn > :offset and rn <= :end\n");
 
-		// Ordering by weight is applied always
-		sb.append("order by weight desc");
+		// Within a category the mappings are ordered by weight
+		sb.append("order by categoryID, rn");
 
-		// TODO limit, offset
 		// TODO Also see SearchController.createSynGroupQuery() for creation of filter statement
 
 		// Create the query
 		Session session = HibernateUtil.getSession();
 		NativeQuery<MappingRow> query = session.createNativeQuery(sb.toString(), MappingRow.class)
+			.addScalar("id", StandardBasicTypes.LONG)
 			.addScalar("langPair", StandardBasicTypes.STRING)
 			.addScalar("sememeOneID", StandardBasicTypes.LONG)
 			.addScalar("sememeTwoID", StandardBasicTypes.LONG)
-			.addScalar("weight", StandardBasicTypes.SHORT);
+			.addScalar("weight", StandardBasicTypes.SHORT)
+			.addScalar("categoryID", StandardBasicTypes.INTEGER)
+			.addScalar("categoryCount", StandardBasicTypes.LONG)
+			.addScalar("categoryWeight", StandardBasicTypes.LONG);
 
 		// -- Set the parameters
-		query.setParameter("term", request.getTerm());
+		if (variantIDs != null) {
+			query.setParameter("variantIDs", HibernateUtil.toArrayLiteral(variantIDs));
+		} else {
+			query.setParameter("term", request.getTerm());
+		}
+		for (int i = 0; i < transliterations.size(); i++) {
+			final Transliteration transliteration = transliterations.get(i);
+			if (transliterated) {
+				query.setParameter("rules" + i, transliteration.rules());
+			}
+			query.setParameter("foldFrom" + i, transliteration.folding().from());
+			query.setParameter("foldTo" + i, transliteration.folding().to());
+		}
 
 		String[] langPairIDs = new String[langPairs.size()];
 		for (int i = 0; i < langPairs.size(); i++) {
@@ -355,8 +999,12 @@ public class SearchController
 			query.setParameter("langTwoIDs", langIDs);
 		}
 
-		//query.setParameter("offset", 0);
-		//query.setParameter("limit", TODO);
+		final int offset = continuation == null ? 0 : continuation.offset();
+		if (continuation != null) {
+			query.setParameter("categoryID", continuation.categoryID());
+		}
+		query.setParameter("offset", offset);
+		query.setParameter("end", offset + pageSize);
 
 		return query;
 	}
@@ -0,0 +1,244 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import dk.ule.oapenwb.AdminControllers;
+import dk.ule.oapenwb.base.ErrorCode;
+import dk.ule.oapenwb.base.error.CodeException;
+import dk.ule.oapenwb.logic.admin.LanguagesController;
+import dk.ule.oapenwb.logic.admin.generic.CEntityController;
+import dk.ule.oapenwb.persistency.entity.content.basedata.Language;
+import dk.ule.oapenwb.persistency.entity.content.basedata.Orthography;
+import dk.ule.oapenwb.util.HibernateUtil;
+import dk.ule.oapenwb.util.Pair;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.util.*;
+
+/**
+ * <p>Maintains the table SearchEntries, a flattened projection of the lexeme forms, variants, sememes, lexemes and
+ * mappings that the search query (Q502 in the {@link SearchController}) is answered from without any joins. Each
+ * row is a lexeme form of a variant of a sememe on one side of a mapping.</p>
+ * <ul>
+ *   <li>{@link #refresh(Session, Collection)} is called by the
+ *     {@link dk.ule.oapenwb.logic.admin.lexeme.LexemesController} within the transaction that saves a lexeme, so the
+ *     projection is always consistent with the committed data.</li>
+ *   <li>The rows of a language are rebuilt when its equivalence table ({@link Language#getSearchFoldFrom()}) was
+ *     changed, the rows of an orthography when its transliteration rules were changed, since the search keys depend
+ *     on them.</li>
+ *   <li>{@link #rebuild()} rebuilds the whole table, e.g. after data was changed directly on the database.</li>
+ * </ul>
+ * <p>Rows of deleted mappings, sememes and variants are removed by the database itself (on delete cascade).</p>
+ */
+@Singleton
+public class SearchEntriesProjection
+{
+	private static final Logger LOG = LoggerFactory.getLogger(SearchEntriesProjection.class);
+
+	// Projection query (Q510), the filter is appended
+	private static final String INSERT_STATEMENT =
+		"insert into SearchEntries (mappingID, langPair, sememeOneID, sememeTwoID, weight, side, sememeID, variantID,\n"
+			+ "\tformTypeID, lexemeID, langID, typeID, partnerLexemeID, oneTypeID, active, searchableText, searchKey,\n"
+			+ "\ttranslitKey)\n"
+			+ "select m.id, m.langPair, m.sememeOneID, m.sememeTwoID, m.weight, sd.side, s.id, sv.variantID,\n"
+			+ "\tlf.formTypeID, l.id, l.langID, l.typeID, pl.id, case when sd.side = 1 then l.typeID else pl.typeID end,\n"
+			+ "\t(s.active and l.active), lf.searchableText,\n"
+			+ "\tto_tsvector('simple', fold_search_text(lf.text, lg.searchFoldFrom, lg.searchFoldTo)),\n"
+			+ "\tto_tsvector('simple', fold_search_text(transliterate_search_text(lower(lf.text), o.transliterationRules),\n"
+			+ "\t\tlg.searchFoldFrom, lg.searchFoldTo))\n"
+			+ "from Mappings m\n"
+			+ "\tcross join (values (1), (2)) sd(side)\n"
+			+ "\tinner join Sememes s on s.id = case when sd.side = 1 then m.sememeOneID else m.sememeTwoID end\n"
+			+ "\tinner join Lexemes l on l.id = s.lexemeID\n"
+			+ "\tinner join Languages lg on lg.id = l.langID\n"
+			+ "\tinner join Sememes ps on ps.id = case when sd.side = 1 then m.sememeTwoID else m.sememeOneID end\n"
+			+ "\tinner join Lexemes pl on pl.id = ps.lexemeID\n"
+			+ "\tinner join SememeVariants sv on sv.sememeID = s.id\n"
+			+ "\tinner join LexemeForms lf on lf.variantID = sv.variantID\n"
+			+ "\tinner join Variants v on v.id = sv.variantID\n"
+			+ "\tinner join Orthographies o on o.id = v.orthographyID\n"
+			+ "where lf.searchableText is not null";
+
+	// A provider since the cache depends on the LexemesController which depends on this projection
+	private final Provider<SearchResultCache> searchResultCache;
+
+	@Inject
+	public SearchEntriesProjection(Provider<SearchResultCache> searchResultCache,
+		LanguagesController languagesController,
+		@Named(AdminControllers.CONTROLLER_ORTHOGRAPHIES)
+			CEntityController<Orthography, Integer> orthographiesController)
+	{
+		this.searchResultCache = searchResultCache;
+		languagesController.addChangeListener(this::languageChanged);
+		orthographiesController.addChangeListener(this::orthographyChanged);
+	}
+
+	/**
+	 * <p>Replaces the rows of the given lexemes, i.e. the rows of their own forms as well as the rows in which they
+	 * are the partner of a mapping.</p>
+	 * <p>Since the rows of a mapping belong to the lexemes on both of its sides, the lexemes and their partners are
+	 * locked first (see {@link #lockLexemes(Session, Collection)}). Otherwise two transactions saving both sides of
+	 * a mapping at the same time could both delete the rows and then both insert them again.</p>
+	 *
+	 * @param session the session of the running transaction
+	 * @param lexemeIDs IDs of the saved lexemes
+	 */
+	public void refresh(final Session session, final Collection<Long> lexemeIDs) throws CodeException
+	{
+		if (lexemeIDs.isEmpty()) {
+			return;
+		}
+		try {
+			// The projection reads the saved data from the database
+			session.flush();
+			lockLexemes(session, lexemeIDs);
+			deleteRows(session, lexemeIDs);
+			insertRows(session, lexemeIDs);
+		} catch (Exception e) {
+			LOG.error("Error refreshing the search entries", e);
+			throw new CodeException(ErrorCode.Admin_EntityOperation,
+				Arrays.asList(new Pair<>("operation", "REFRESH"), new Pair<>("entity", "SearchEntries")));
+		}
+	}
+
+	/**
+	 * <p>Takes a transaction-level advisory lock on each of the lexemes and their mapping partners in ascending
+	 * order, so that concurrent refreshes of overlapping lexemes run one after the other without deadlocks. The
+	 * locks are released on commit or rollback. A transaction waiting for a lock sees the rows committed by the
+	 * other one in its following statements.</p>
+	 */
+	void lockLexemes(final Session session, final Collection<Long> lexemeIDs)
+	{
+		final SortedSet<Long> lockIDs = new TreeSet<>(lexemeIDs);
+		lockIDs.addAll(findPartnerLexemes(session, lexemeIDs));
+		for (Long lexemeID : lockIDs) {
+			lock(session, lexemeID);
+		}
+	}
+
+	/**
+	 * @return the lexemes on the other side of the mappings of the given lexemes
+	 */
+	List<Long> findPartnerLexemes(final Session session, final Collection<Long> lexemeIDs)
+	{
+		return session.createNativeQuery(
+				"select distinct ps.lexemeID from Sememes s\n"
+					+ "\tinner join Mappings m on s.id in (m.sememeOneID, m.sememeTwoID)\n"
+					+ "\tinner join Sememes ps on ps.id in (m.sememeOneID, m.sememeTwoID)\n"
+					+ "where s.lexemeID in (:lexemeIDs)", Long.class)
+			.setParameterList("lexemeIDs", lexemeIDs)
+			.list();
+	}
+
+	void lock(final Session session, final long lexemeID)
+	{
+		session.doWork(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement("select pg_advisory_xact_lock(?)")) {
+				statement.setLong(1, lexemeID);
+				statement.execute();
+			}
+		});
+	}
+
+	void deleteRows(final Session session, final Collection<Long> lexemeIDs)
+	{
+		session.createNativeMutationQuery(
+				"delete from SearchEntries where lexemeID in (:lexemeIDs) or partnerLexemeID in (:lexemeIDs)")
+			.setParameterList("lexemeIDs", lexemeIDs)
+			.executeUpdate();
+	}
+
+	void insertRows(final Session session, final Collection<Long> lexemeIDs)
+	{
+		session.createNativeMutationQuery(INSERT_STATEMENT + "\n\tand (l.id in (:lexemeIDs) or pl.id in (:lexemeIDs))")
+			.setParameterList("lexemeIDs", lexemeIDs)
+			.executeUpdate();
+	}
+
+	/**
+	 * <p>Rebuilds the whole projection within one transaction. Concurrent searches keep seeing the old rows until
+	 * the transaction is committed.</p>
+	 *
+	 * @return number of rows in the projection
+	 */
+	public int rebuild() throws CodeException
+	{
+		final Session session = HibernateUtil.getSession();
+		final Transaction t = session.beginTransaction();
+		try {
+			session.createNativeMutationQuery("delete from SearchEntries").executeUpdate();
+			final int rows = session.createNativeMutationQuery(INSERT_STATEMENT).executeUpdate();
+			t.commit();
+			LOG.info("Rebuilt the search entries: {} rows", rows);
+			return rows;
+		} catch (Exception e) {
+			if (t.isActive()) {
+				t.rollback();
+			}
+			LOG.error("Error rebuilding the search entries", e);
+			throw new CodeException(ErrorCode.Admin_EntityOperation,
+				Arrays.asList(new Pair<>("operation", "REBUILD"), new Pair<>("entity", "SearchEntries")));
+		}
+	}
+
+	private void languageChanged(final Language oldLanguage, final Language newLanguage)
+	{
+		// New languages have no lexemes yet and languages with lexemes can't be deleted
+		if (oldLanguage == null || newLanguage == null
+			|| (Objects.equals(oldLanguage.getSearchFoldFrom(), newLanguage.getSearchFoldFrom())
+				&& Objects.equals(oldLanguage.getSearchFoldTo(), newLanguage.getSearchFoldTo()))) {
+			return;
+		}
+		rebuildPart("language " + newLanguage.getId(), "lexemeID in (select id from Lexemes where langID = :id)",
+			"l.langID = :id", newLanguage.getId());
+	}
+
+	private void orthographyChanged(final Orthography oldOrthography, final Orthography newOrthography)
+	{
+		// New orthographies have no variants yet and orthographies with variants can't be deleted
+		if (oldOrthography == null || newOrthography == null
+			|| Objects.equals(oldOrthography.getTransliterationRules(), newOrthography.getTransliterationRules())) {
+			return;
+		}
+		rebuildPart("orthography " + newOrthography.getId(),
+			"variantID in (select id from Variants where orthographyID = :id)", "v.orthographyID = :id",
+			newOrthography.getId());
+	}
+
+	/**
+	 * <p>Rebuilds the rows matching the given conditions within one transaction and drops the cached search results
+	 * afterwards. Errors are only logged since this is called after the base data was already saved.</p>
+	 */
+	private void rebuildPart(final String part, final String deleteCondition, final String insertCondition,
+		final Integer id)
+	{
+		final Session session = HibernateUtil.getSession();
+		final Transaction t = session.beginTransaction();
+		try {
+			session.createNativeMutationQuery("delete from SearchEntries where " + deleteCondition)
+				.setParameter("id", id)
+				.executeUpdate();
+			final int rows = session.createNativeMutationQuery(INSERT_STATEMENT + "\n\tand " + insertCondition)
+				.setParameter("id", id)
+				.executeUpdate();
+			t.commit();
+			LOG.info("Rebuilt the search entries of {}: {} rows", part, rows);
+		} catch (Exception e) {
+			if (t.isActive()) {
+				t.rollback();
+			}
+			LOG.error("Error rebuilding the search entries of " + part
+				+ ", the whole projection should be rebuilt", e);
+		}
+		// The cache may have been refilled with results of the old rows in the meantime
+		searchResultCache.get().invalidate();
+	}
+}
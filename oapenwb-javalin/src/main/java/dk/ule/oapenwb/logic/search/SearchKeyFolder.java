@@ -0,0 +1,89 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Folds texts for the search the same way as the database function <i>fold_search_text</i> that computes the
+ * search keys of the lexeme forms: the text is lowercased, the characters of a language's equivalence table are
+ * replaced (see {@link dk.ule.oapenwb.persistency.entity.content.basedata.Language#getSearchFoldFrom()}) and the
+ * diacritics are removed. So 'Dör', 'dör' and 'dor' have the same key 'dor'.</p>
+ * <p>It is used by the in-memory indexes. The removal of the diacritics follows the unaccent rules of PostgreSQL
+ * for the characters that are not decomposed by Unicode, e.g. 'ß' and 'ø'.</p>
+ */
+public final class SearchKeyFolder
+{
+	private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+	// Letters without a canonical decomposition as given in unaccent.rules
+	private static final Map<Character, String> LETTERS = Map.ofEntries(
+		Map.entry('ß', "ss"),
+		Map.entry('æ', "ae"),
+		Map.entry('œ', "oe"),
+		Map.entry('ø', "o"),
+		Map.entry('đ', "d"),
+		Map.entry('ð', "d"),
+		Map.entry('ħ', "h"),
+		Map.entry('ı', "i"),
+		Map.entry('ł', "l"),
+		Map.entry('þ', "th"));
+
+	private SearchKeyFolder() {}
+
+	/**
+	 * Folds the text without any language-specific equivalences.
+	 */
+	public static String fold(final String text)
+	{
+		return fold(text, null, null);
+	}
+
+	/**
+	 * @param foldFrom characters to replace, may be null
+	 * @param foldTo the replacements at the same positions as in foldFrom, characters of foldFrom without a
+	 *   replacement are removed (as by the SQL function translate()), may be null
+	 */
+	public static String fold(final String text, final String foldFrom, final String foldTo)
+	{
+		if (text == null) {
+			return null;
+		}
+		final String lowerText = translate(text.toLowerCase(Locale.ROOT), foldFrom, foldTo);
+		final String stripped = COMBINING_MARKS.matcher(Normalizer.normalize(lowerText, Normalizer.Form.NFD))
+			.replaceAll("");
+		final StringBuilder sb = new StringBuilder(stripped.length());
+		for (int i = 0; i < stripped.length(); i++) {
+			final char c = stripped.charAt(i);
+			final String replacement = LETTERS.get(c);
+			if (replacement != null) {
+				sb.append(replacement);
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static String translate(final String text, final String from, final String to)
+	{
+		if (from == null || from.isEmpty()) {
+			return text;
+		}
+		final String replacements = to == null ? "" : to;
+		final StringBuilder sb = new StringBuilder(text.length());
+		for (int i = 0; i < text.length(); i++) {
+			final char c = text.charAt(i);
+			final int index = from.indexOf(c);
+			if (index < 0) {
+				sb.append(c);
+			} else if (index < replacements.length()) {
+				sb.append(replacements.charAt(index));
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -18,6 +18,13 @@ public class SearchRequest
 	private String pair;	// the LangPair
 	private String term;	// the search term
 	private Direction direction = Direction.Both;
+	// Find the lexeme forms that sound like the term instead of the ones containing it (see PhoneticIndex)
+	private boolean phonetic;
+
+	// Max. number of entries per result category, null for the default page size
+	private Integer pageSize;
+	// Token of the next page of one result category as given in SearchResult.ResultCategory.next
+	private String continuation;
 
 	//private Integer occurrence; // 0 min one search term, 1 all search terms, 2 special syntax
 	//private Integer dialectOne; // Check if set: Is this dialect a valid dialect of lang 1?
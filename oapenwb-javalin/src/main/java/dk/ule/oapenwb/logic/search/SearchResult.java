@@ -33,8 +33,12 @@ public class SearchResult
 		}
 
 		String uitID;
+		// Weight and count of all entries of the category, not only of the ones on this page
 		int totalWeight = 0;
+		int totalCount = 0;
 		List<ResultEntry> entries = new LinkedList<>();
+		// Continuation token for the next page of this category, or null if this is the last page
+		String next;
 	}
 
 	@Data
@@ -46,4 +50,9 @@ public class SearchResult
 	}
 
 	private List<ResultCategory> entries;
+
+	// If the requested term found nothing: the corrected term whose entries are returned instead, or null
+	private String correctedTerm;
+	// If the requested term found nothing: spelling corrections of it ("did you mean"), or null
+	private List<String> suggestions;
 }
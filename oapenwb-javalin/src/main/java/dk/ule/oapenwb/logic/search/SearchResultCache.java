@@ -0,0 +1,196 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import dk.ule.oapenwb.AdminControllers;
+import dk.ule.oapenwb.base.AppConfig;
+import dk.ule.oapenwb.logic.admin.LanguagesController;
+import dk.ule.oapenwb.logic.admin.LexemeTypesController;
+import dk.ule.oapenwb.logic.admin.UiResultCategoriesController;
+import dk.ule.oapenwb.logic.admin.generic.CEntityController;
+import dk.ule.oapenwb.logic.admin.lexeme.ILexemeChangeListener;
+import dk.ule.oapenwb.logic.admin.lexeme.LexemesController;
+import dk.ule.oapenwb.persistency.entity.content.basedata.Orthography;
+import dk.ule.oapenwb.util.collections.TinyLfuCache;
+
+import java.util.Collection;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>The SearchResultCache holds the finished {@link SearchResult}s of the {@link SearchController} for the most
+ * frequently searched terms. It is enabled by the configuration property <i>searchResultCacheSize</i>.</p>
+ * <p>Each cached result is tagged with the data version that was current when its search started. The version is
+ * increased whenever the {@link LexemesController} reports created or updated lexemes (which includes all changes
+ * of mappings) or when base data the results depend on is changed, i.e. lexeme types, result categories, languages
+ * (equivalence tables of the search keys, phonetic rules) and orthographies (transliteration rules). Then all cached
+ * results are dropped. A result whose search started before a change is never put into the cache, so a stale
+ * result can't be served.</p>
+ */
+@Singleton
+public class SearchResultCache implements ILexemeChangeListener
+{
+	/**
+	 * The parameters a search result depends on. The term is normalized.
+	 */
+	public record Key(String pair, Direction direction, String term, boolean phonetic, int pageSize,
+		String continuation) {}
+
+	/**
+	 * A cached search result together with the number of all mappings found.
+	 */
+	public record Entry(long dataVersion, SearchResult result, long mappingCount) {}
+
+	private final TinyLfuCache<Key, Entry> cache;
+	private final AtomicLong dataVersion = new AtomicLong();
+	// The virtual threads of the requests must not be pinned, thus no synchronized
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	@Inject
+	public SearchResultCache(AppConfig appConfig, LexemesController lexemesController,
+		LexemeTypesController lexemeTypesController, UiResultCategoriesController uiResultCategoriesController,
+		LanguagesController languagesController,
+		@Named(AdminControllers.CONTROLLER_ORTHOGRAPHIES)
+			CEntityController<Orthography, Integer> orthographiesController)
+	{
+		final int size = appConfig.getSearchResultCacheSize();
+		this.cache = size >= 2 ? new TinyLfuCache<>(size) : null;
+		// Invalidated after the indexes were refreshed, otherwise a search in between could cache results of the old
+		// indexes under the new data version
+		lexemesController.addLastChangeListener(this);
+		lexemeTypesController.addLastChangeListener((oldEntity, newEntity) -> invalidate());
+		uiResultCategoriesController.addLastChangeListener((oldEntity, newEntity) -> invalidate());
+		languagesController.addLastChangeListener((oldEntity, newEntity) -> invalidate());
+		orthographiesController.addLastChangeListener((oldEntity, newEntity) -> invalidate());
+	}
+
+	public boolean isEnabled()
+	{
+		return cache != null;
+	}
+
+	public long getDataVersion()
+	{
+		return dataVersion.get();
+	}
+
+	public long getHits()
+	{
+		return hits.sum();
+	}
+
+	public long getMisses()
+	{
+		return misses.sum();
+	}
+
+	/**
+	 * @return number of cached results
+	 */
+	public int size()
+	{
+		if (cache == null) {
+			return 0;
+		}
+		lock.lock();
+		try {
+			return cache.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public static Key createKey(final SearchRequest request, final int pageSize)
+	{
+		final String continuation = request.getContinuation();
+		return new Key(request.getPair(), request.getDirection(), normalizeTerm(request.getTerm()),
+			request.isPhonetic(), pageSize, continuation == null || continuation.isBlank() ? null : continuation);
+	}
+
+	/**
+	 * The term is lowercased and its whitespace is collapsed. Both the database (text search configuration 'simple')
+	 * and the translation index ignore the case and the amount of whitespace.
+	 */
+	static String normalizeTerm(final String term)
+	{
+		if (term == null) {
+			return null;
+		}
+		return term.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * @return the cached entry, or null if there is none for the current data version
+	 */
+	public Entry get(final Key key)
+	{
+		if (cache == null) {
+			return null;
+		}
+		lock.lock();
+		try {
+			final Entry entry = cache.get(key);
+			if (entry != null && entry.dataVersion() != dataVersion.get()) {
+				cache.remove(key);
+				misses.increment();
+				return null;
+			}
+			(entry != null ? hits : misses).increment();
+			return entry;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param entry the entry tagged with the data version read via {@link #getDataVersion()} before the search was
+	 *   started
+	 */
+	public void put(final Key key, final Entry entry)
+	{
+		if (cache == null) {
+			return;
+		}
+		lock.lock();
+		try {
+			// The data changed while searching
+			if (entry.dataVersion() != dataVersion.get()) {
+				return;
+			}
+			cache.put(key, entry);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * <p>Drops all cached results. It is called on each change of the lexemes and of the base data the results
+	 * depend on.</p>
+	 */
+	public void invalidate()
+	{
+		lock.lock();
+		try {
+			dataVersion.incrementAndGet();
+			if (cache != null) {
+				cache.clear();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	public void lexemesChanged(Collection<Long> lexemeIDs)
+	{
+		invalidate();
+	}
+}
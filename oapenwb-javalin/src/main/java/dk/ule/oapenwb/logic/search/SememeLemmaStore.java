@@ -0,0 +1,347 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import dk.ule.oapenwb.base.AppConfig;
+import dk.ule.oapenwb.base.ErrorCode;
+import dk.ule.oapenwb.base.error.CodeException;
+import dk.ule.oapenwb.logic.admin.lexeme.ILexemeChangeListener;
+import dk.ule.oapenwb.logic.admin.lexeme.LexemesController;
+import dk.ule.oapenwb.logic.admin.lexeme.VariantController;
+import dk.ule.oapenwb.logic.presentation.ControllerSet;
+import dk.ule.oapenwb.logic.presentation.PresentationBuilder;
+import dk.ule.oapenwb.logic.presentation.WholeLemmaBuilder;
+import dk.ule.oapenwb.logic.presentation.options.PresentationOptions;
+import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Sememe;
+import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Variant;
+import dk.ule.oapenwb.util.HibernateUtil;
+import dk.ule.oapenwb.util.Pair;
+import dk.ule.oapenwb.util.TimeUtil;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.query.Query;
+import org.hibernate.type.StandardBasicTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>The SememeLemmaStore holds the rendered lemma of each sememe per presentation profile in the table
+ * SememeLemmas, so that the {@link SearchController} only reads finished strings instead of loading the variants
+ * and running the {@link WholeLemmaBuilder} for each hit. It is enabled by the configuration property
+ * <i>useSememeLemmaStore</i>.</p>
+ * <p>The lemmas are built on a background thread: all of them on startup, and those of a lexeme whenever the
+ * {@link LexemesController} reports it as changed. The lemmas of a changed lexeme are removed right away, so
+ * the search never reads outdated lemmas but builds missing ones itself until they are rebuilt. A batch of a full
+ * build that read a lexeme before it was changed skips that lexeme, it is built again by its own task.</p>
+ * <p>The lemmas also depend on the orthographies, dialects, categories and levels. After those were changed the
+ * store has to be rebuilt via {@link #rebuild()}. The {@link SearchResultCache} is cleared once all lemmas are
+ * written.</p>
+ */
+@Singleton
+public class SememeLemmaStore implements ILexemeChangeListener
+{
+	private static final Logger LOG = LoggerFactory.getLogger(SememeLemmaStore.class);
+
+	public static final String DEFAULT_PROFILE = "default";
+
+	// <profile, options> of all lemmas that are built
+	private static final Map<String, PresentationOptions> PROFILES =
+		Map.of(DEFAULT_PROFILE, PresentationOptions.DEFAULT_PRESENTATION_OPTIONS);
+
+	// Number of lexemes whose lemmas are built within one transaction on a rebuild
+	private static final int BATCH_SIZE = 500;
+
+	private record LemmaRow(Long sememeID, String lemma) {}
+
+	private record BuiltLemma(long sememeID, String profile, long lexemeID, String lemma) {}
+
+	private final AppConfig appConfig;
+	private final ControllerSet lemmaControllers;
+	private final SearchResultCache searchResultCache;
+	private final VariantController variantsController = new VariantController();
+
+	private ExecutorService executor = null;
+
+	// Each reported change gets a new number. <lexemeID, number of its last change>, only the changes a running
+	// build may have missed are kept.
+	private long changeCount = 0;
+	private final Map<Long, Long> changes = new HashMap<>();
+	// Guards the changes and the commit of the built lemmas. The virtual threads of the requests must not be
+	// pinned, thus no synchronized.
+	private final ReentrantLock changeLock = new ReentrantLock();
+
+	@Inject
+	public SememeLemmaStore(AppConfig appConfig, ControllerSet lemmaControllers, SearchResultCache searchResultCache,
+		LexemesController lexemesController)
+	{
+		this.appConfig = appConfig;
+		this.lemmaControllers = lemmaControllers;
+		this.searchResultCache = searchResultCache;
+		lexemesController.addChangeListener(this);
+	}
+
+	public boolean isEnabled()
+	{
+		return appConfig.isUseSememeLemmaStore();
+	}
+
+	/**
+	 * <p>Starts the background thread and schedules the build of all lemmas.</p>
+	 */
+	public synchronized void start()
+	{
+		if (!isEnabled() || executor != null) {
+			return;
+		}
+		executor = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "sememe-lemma-store");
+			thread.setDaemon(true);
+			return thread;
+		});
+		schedule(this::buildAll);
+	}
+
+	public synchronized void shutdown()
+	{
+		if (executor == null) {
+			return;
+		}
+		executor.shutdownNow();
+		try {
+			executor.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		executor = null;
+	}
+
+	/**
+	 * <p>Schedules the rebuild of all lemmas, e.g. after the base data of the lemmas was changed.</p>
+	 *
+	 * @return false if the store is not running
+	 */
+	public boolean rebuild()
+	{
+		return schedule(this::buildAll);
+	}
+
+	/**
+	 * <p>Returns the stored lemmas of the given sememes (Q520). Sememes whose lemmas are not built (yet) are
+	 * missing in the result.</p>
+	 *
+	 * @param sememeIDs IDs of the sememes
+	 * @param profile the presentation profile, e.g. {@link #DEFAULT_PROFILE}
+	 * @return <sememeID, lemma>
+	 */
+	public Map<Long, String> getLemmas(final Collection<Long> sememeIDs, final String profile) throws CodeException
+	{
+		final Map<Long, String> lemmas = new HashMap<>();
+		if (!isEnabled() || sememeIDs.isEmpty()) {
+			return lemmas;
+		}
+		try {
+			final NativeQuery<LemmaRow> query = HibernateUtil.getSession().createNativeQuery(
+					"select sememeID, lemma from SememeLemmas where profile = :profile and sememeID in (:sememeIDs)",
+					LemmaRow.class)
+				.addScalar("sememeID", StandardBasicTypes.LONG)
+				.addScalar("lemma", StandardBasicTypes.STRING);
+			query.setParameter("profile", profile);
+			query.setParameterList("sememeIDs", sememeIDs);
+			for (LemmaRow row : query.list()) {
+				lemmas.put(row.sememeID(), row.lemma());
+			}
+		} catch (Exception e) {
+			LOG.error("Error fetching the stored lemmas", e);
+			throw new CodeException(ErrorCode.Admin_EntityOperation,
+				Arrays.asList(new Pair<>("operation", "GET-BY-IDS"), new Pair<>("entity", "SememeLemmas")));
+		}
+		return lemmas;
+	}
+
+	@Override
+	public void lexemesChanged(Collection<Long> lexemeIDs)
+	{
+		if (!isEnabled()) {
+			return;
+		}
+		// A build that read the lexemes before must not write their lemmas
+		changeLock.lock();
+		try {
+			changeCount++;
+			for (Long lexemeID : lexemeIDs) {
+				changes.put(lexemeID, changeCount);
+			}
+		} finally {
+			changeLock.unlock();
+		}
+		// Remove the outdated lemmas right away, the search builds them itself until they are rebuilt
+		final Session session = HibernateUtil.getSession();
+		final Transaction t = session.beginTransaction();
+		try {
+			session.createNativeMutationQuery("delete from SememeLemmas where lexemeID in (:lexemeIDs)")
+				.setParameterList("lexemeIDs", lexemeIDs)
+				.executeUpdate();
+			t.commit();
+		} catch (Exception e) {
+			if (t.isActive()) {
+				t.rollback();
+			}
+			LOG.error("Removing the lemmas failed for lexemes " + lexemeIDs, e);
+			return;
+		}
+		final List<Long> ids = List.copyOf(lexemeIDs);
+		schedule(() -> build(ids));
+	}
+
+	private synchronized boolean schedule(final Runnable task)
+	{
+		if (executor == null) {
+			return false;
+		}
+		try {
+			executor.execute(() -> {
+				try {
+					task.run();
+				} finally {
+					HibernateUtil.closeSession();
+				}
+			});
+			return true;
+		} catch (RejectedExecutionException e) {
+			// shutting down
+			return false;
+		}
+	}
+
+	private void buildAll()
+	{
+		TimeUtil.startTimeMeasure();
+		final List<Long> lexemeIDs;
+		try {
+			lexemeIDs = HibernateUtil.getSession()
+				.createQuery("SELECT L.id FROM Lexeme L ORDER BY L.id", Long.class)
+				.list();
+		} catch (Exception e) {
+			LOG.error("Loading the lexemes for building the lemmas failed", e);
+			return;
+		}
+		for (int i = 0; i < lexemeIDs.size(); i += BATCH_SIZE) {
+			if (Thread.currentThread().isInterrupted()) {
+				return;
+			}
+			build(lexemeIDs.subList(i, Math.min(i + BATCH_SIZE, lexemeIDs.size())));
+			// Don't keep all the loaded entities
+			HibernateUtil.getSession().clear();
+		}
+		// Cached results may contain lemmas that were built from the old base data
+		searchResultCache.invalidate();
+		LOG.info("Lemmas of {} lexemes were built in {} ms", lexemeIDs.size(), TimeUtil.durationInMilis());
+	}
+
+	/**
+	 * <p>Builds and replaces the lemmas of all sememes of the given lexemes within one transaction. The lemmas of
+	 * lexemes that were changed after the lexemes were read are not written.</p>
+	 */
+	private void build(final List<Long> lexemeIDs)
+	{
+		// The builds run one after the other, so older changes are seen by this and all following builds
+		final long readCount;
+		changeLock.lock();
+		try {
+			readCount = changeCount;
+			changes.values().removeIf(count -> count <= readCount);
+		} finally {
+			changeLock.unlock();
+		}
+
+		final Session session = HibernateUtil.getSession();
+		final Transaction t = session.beginTransaction();
+		try {
+			final Query<Sememe> sememesQuery = session.createQuery(
+				"FROM Sememe S WHERE S.lexemeID IN (:lexemeIDs)", Sememe.class);
+			sememesQuery.setParameterList("lexemeIDs", lexemeIDs);
+			final List<Sememe> sememes = sememesQuery.list();
+
+			final Set<Long> variantIDs = new HashSet<>();
+			for (Sememe sememe : sememes) {
+				if (sememe.getVariantIDs() != null) {
+					variantIDs.addAll(sememe.getVariantIDs());
+				}
+			}
+			// The same variants as loaded by the SearchController
+			final HashMap<Long, Variant> variantsMap = variantIDs.isEmpty() ? new HashMap<>()
+				: PresentationBuilder.variantListToHashMap(variantsController.loadByIDs(variantIDs, true));
+
+			final WholeLemmaBuilder lemmaBuilder = new WholeLemmaBuilder();
+			final List<BuiltLemma> lemmas = new ArrayList<>(sememes.size() * PROFILES.size());
+			for (Sememe sememe : sememes) {
+				for (Map.Entry<String, PresentationOptions> profile : PROFILES.entrySet()) {
+					lemmas.add(new BuiltLemma(sememe.getId(), profile.getKey(), sememe.getLexemeID(),
+						lemmaBuilder.build(profile.getValue(), lemmaControllers, sememe, variantsMap)));
+				}
+			}
+
+			// The check and the commit must not interleave with a change being reported
+			changeLock.lock();
+			try {
+				final Set<Long> changed = new HashSet<>(changes.keySet());
+				changed.retainAll(lexemeIDs);
+				if (!changed.isEmpty()) {
+					// Their lemmas are removed already and will be built by the task scheduled for the change
+					lemmas.removeIf(lemma -> changed.contains(lemma.lexemeID()));
+					LOG.debug("Lemmas of the changed lexemes {} were skipped", changed);
+				}
+				write(session, lexemeIDs, changed, lemmas);
+				t.commit();
+			} finally {
+				changeLock.unlock();
+			}
+		} catch (Exception e) {
+			if (t.isActive()) {
+				t.rollback();
+			}
+			LOG.error("Building the lemmas failed for lexemes " + lexemeIDs, e);
+		}
+	}
+
+	private void write(final Session session, final List<Long> lexemeIDs, final Set<Long> skippedLexemeIDs,
+		final List<BuiltLemma> lemmas)
+	{
+		final List<Long> writtenLexemeIDs = skippedLexemeIDs.isEmpty() ? lexemeIDs
+			: lexemeIDs.stream().filter(id -> !skippedLexemeIDs.contains(id)).toList();
+		if (writtenLexemeIDs.isEmpty()) {
+			return;
+		}
+		session.createNativeMutationQuery("delete from SememeLemmas where lexemeID in (:lexemeIDs)")
+			.setParameterList("lexemeIDs", writtenLexemeIDs)
+			.executeUpdate();
+		final Timestamp builtAt = Timestamp.from(Instant.now());
+		session.doWork(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement(
+				"insert into SememeLemmas (sememeID, profile, lexemeID, lemma, builtAt) values (?, ?, ?, ?, ?)")) {
+				for (BuiltLemma lemma : lemmas) {
+					statement.setLong(1, lemma.sememeID());
+					statement.setString(2, lemma.profile());
+					statement.setLong(3, lemma.lexemeID());
+					statement.setString(4, lemma.lemma());
+					statement.setTimestamp(5, builtAt);
+					statement.addBatch();
+				}
+				statement.executeBatch();
+			}
+		});
+	}
+}
@@ -21,6 +21,9 @@ import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Variant;
 import dk.ule.oapenwb.util.HibernateUtil;
 import dk.ule.oapenwb.util.Pair;
 import dk.ule.oapenwb.util.TimeUtil;
+import dk.ule.oapenwb.util.concurrent.SingleFlight;
+import dk.ule.oapenwb.util.jfr.AutocompleteEvent;
+import dk.ule.oapenwb.util.metrics.Metrics;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.Session;
 import org.hibernate.query.NativeQuery;
@@ -38,21 +41,33 @@ public class AutocompleteController
 	private static final int MAX_RESULTS = 10;
 	private final SingleLemmaBuilder singleLemmaBuilder = new SingleLemmaBuilder();
 
+	private record CompletionKey(String pair, Direction direction, String term, int maxResults) {}
+
 	private final AppConfig appConfig;
 	//private final LexemeTypesController lexemeTypesController; // TODO Later use for resolving the lexemeTypes name?
 	private final LangPairsController langPairsController;
 	private final ControllerSet lemmaControllers;
+	private final AutocompleteIndex autocompleteIndex;
+	private final SingleFlight<CompletionKey, ACSearchResult> completionFlight;
 
 	@Inject
 	public AutocompleteController(
 		AppConfig appConfig,
 		//LexemeTypesController lexemeTypesController,
 		LangPairsController langPairsController,
-		ControllerSet lemmaControllers
+		ControllerSet lemmaControllers,
+		AutocompleteIndex autocompleteIndex
 	) {
 		this.appConfig = appConfig;
 		this.langPairsController = langPairsController;
 		this.lemmaControllers = lemmaControllers;
+		this.autocompleteIndex = autocompleteIndex;
+		this.completionFlight = new SingleFlight<>(appConfig.getSingleFlightTimeoutMillis());
+	}
+
+	public SingleFlight.Statistics getSingleFlightStatistics()
+	{
+		return completionFlight.getStatistics();
 	}
 
 	public ACSearchResult autocomplete(final ACSearchRequest request) throws CodeException
@@ -66,75 +81,126 @@ public class AutocompleteController
 		}
 
 		try {
+			final AutocompleteEvent event = new AutocompleteEvent();
+			event.begin();
+			final long start = System.nanoTime();
 			TimeUtil.startTimeMeasure();
 			checkTerm(request);
 
-			final List<LangPair> langPairs = SearchController.getLangPairList(this.langPairsController, request.getPair());
-			final Set<Integer> langIDs = getLangIDs(langPairs, request.getDirection());
-
 			final int maxResults = Math.min(MAX_RESULTS, request.getMaxResults());
-			final Set<Long> variantIDs = new HashSet<>(maxResults);
-			final List<ACSearchResult.VariantEntry> resultList = new LinkedList<>();
-
-			// 1) Query for the variants (sparse data) that match the search request
-			final NativeQuery<AutoCompleteRow> query = createQuery(request, langIDs, maxResults);
-			final List<AutoCompleteRow> autoCompleteRows = query.list();
+			// Concurrent identical autocompletions share one execution
+			result = completionFlight.execute(new CompletionKey(request.getPair(), request.getDirection(),
+				request.getTerm(), maxResults), () -> complete(request, maxResults));
+			Metrics.INSTANCE.stage("autocomplete.find").recordSince(start);
+			event.end();
+			if (event.shouldCommit()) {
+				event.term = request.getTerm();
+				event.pair = request.getPair();
+				event.direction = String.valueOf(request.getDirection());
+				event.resultCount = result.getEntries() != null ? result.getEntries().size() : 0;
+				event.commit();
+			}
 
-			for (final AutoCompleteRow autoCompleteRow : autoCompleteRows) {
-				// Catch all IDs of the variants to load
-				variantIDs.add(autoCompleteRow.variantID);
+			final long duration = TimeUtil.durationInMilis();
+			if (appConfig.isVerbose() && duration > 80) {
+				LOG.info(String.format("Auto completion request took >100 ms: %d ms", duration));
 			}
+		} catch (Exception e) {
+			LOG.error("Error building autocompletion result", e);
+			throw new CodeException(ErrorCode.Autocomplete_OperationFailed,
+				List.of(new Pair<>("error", e.getMessage())));
+		}
+		return result;
+	}
 
-			// 2) Query the variants
-			final Session session = HibernateUtil.getSession();
-			final Query<Variant> variantsQuery = session.createQuery("FROM Variant e WHERE e.id IN (:variantIDs)",
-				Variant.class);
-			variantsQuery.setParameterList("variantIDs", variantIDs);
-			final List<Variant> variants = variantsQuery.list();
+	private ACSearchResult complete(final ACSearchRequest request, final int maxResults) throws CodeException
+	{
+		final List<LangPair> langPairs = SearchController.getLangPairList(this.langPairsController, request.getPair());
+		final Set<Integer> langIDs = getLangIDs(langPairs, request.getDirection());
+
+		// 0) Try to answer the request via the index
+		final List<AutocompleteIndex.Entry> indexEntries = autocompleteIndex.find(langIDs, request.getTerm(),
+			maxResults);
+		if (indexEntries != null) {
+			final ACSearchResult result = new ACSearchResult();
+			result.setEntries(buildResultFromIndex(indexEntries));
+			return result;
+		}
 
-			final Map<Long, Variant> variantsMap = new HashMap<>(variants.size());
-			for (final Variant variant : variants) {
-				variantsMap.put(variant.getId(), variant);
-			}
+		final long start = System.nanoTime();
 
-			// 3) Build the result
-			for (final AutoCompleteRow row : autoCompleteRows) {
-				final ACSearchResult.VariantEntry entry = new ACSearchResult.VariantEntry();
+		final Set<Long> variantIDs = new HashSet<>(maxResults);
+		final List<ACSearchResult.VariantEntry> resultList = new LinkedList<>();
 
-				entry.setTypeID(row.typeID);
+		// 1) Query for the variants (sparse data) that match the search request
+		final NativeQuery<AutoCompleteRow> query = createQuery(request, langIDs, maxResults);
+		final List<AutoCompleteRow> autoCompleteRows = query.list();
 
-				final Integer langID = row.langID;
-				if (langID != null) {
-					Language language = lemmaControllers.getLanguagesController().get(langID);
-					if (language != null) {
-						entry.setLocale(language.getLocale());
-					}
-				}
+		for (final AutoCompleteRow autoCompleteRow : autoCompleteRows) {
+			// Catch all IDs of the variants to load
+			variantIDs.add(autoCompleteRow.variantID);
+		}
 
-				final Variant variant = variantsMap.get(row.variantID);
-				final String lemma = singleLemmaBuilder.buildLemmaWithOrthographyOnly(
-					PresentationOptions.DEFAULT_PRESENTATION_OPTIONS, lemmaControllers, variant);
-				entry.setLemma(lemma);
-				// TODO In a later stage (when the lemmata are seperately stored) the searchWord should – maybe –
-				//  rathrr be the whole lemma in quotes instead of just the main part.
-				entry.setSearchWord(variant.getLemma().getMain());
+		// 2) Query the variants
+		final Session session = HibernateUtil.getSession();
+		final Query<Variant> variantsQuery = session.createQuery("FROM Variant e WHERE e.id IN (:variantIDs)",
+			Variant.class);
+		variantsQuery.setParameterList("variantIDs", variantIDs);
+		final List<Variant> variants = variantsQuery.list();
+		Metrics.INSTANCE.stage("autocomplete.query").recordSince(start);
+
+		final Map<Long, Variant> variantsMap = new HashMap<>(variants.size());
+		for (final Variant variant : variants) {
+			variantsMap.put(variant.getId(), variant);
+		}
 
-				resultList.add(entry);
-			}
-			result.setEntries(resultList);
+		// 3) Build the result
+		for (final AutoCompleteRow row : autoCompleteRows) {
+			final ACSearchResult.VariantEntry entry = new ACSearchResult.VariantEntry();
 
-			final long duration = TimeUtil.durationInMilis();
-			if (appConfig.isVerbose() && duration > 80) {
-				LOG.info(String.format("Auto completion request took >100 ms: %d ms", duration));
+			entry.setTypeID(row.typeID);
+
+			final Integer langID = row.langID;
+			if (langID != null) {
+				Language language = lemmaControllers.getLanguagesController().get(langID);
+				if (language != null) {
+					entry.setLocale(language.getLocale());
+				}
 			}
-		} catch (Exception e) {
-			LOG.error("Error building autocompletion result", e);
-			throw new CodeException(ErrorCode.Autocomplete_OperationFailed,
-				List.of(new Pair<>("error", e.getMessage())));
+
+			final Variant variant = variantsMap.get(row.variantID);
+			final String lemma = singleLemmaBuilder.buildLemmaWithOrthographyOnly(
+				PresentationOptions.DEFAULT_PRESENTATION_OPTIONS, lemmaControllers, variant);
+			entry.setLemma(lemma);
+			// TODO In a later stage (when the lemmata are seperately stored) the searchWord should – maybe –
+			//  rathrr be the whole lemma in quotes instead of just the main part.
+			entry.setSearchWord(variant.getLemma().getMain());
+
+			resultList.add(entry);
 		}
+		final ACSearchResult result = new ACSearchResult();
+		result.setEntries(resultList);
 		return result;
 	}
 
+	private List<ACSearchResult.VariantEntry> buildResultFromIndex(final List<AutocompleteIndex.Entry> indexEntries)
+		throws CodeException
+	{
+		final List<ACSearchResult.VariantEntry> resultList = new LinkedList<>();
+		for (final AutocompleteIndex.Entry indexEntry : indexEntries) {
+			final ACSearchResult.VariantEntry entry = new ACSearchResult.VariantEntry();
+			entry.setTypeID(indexEntry.typeID());
+			final Language language = lemmaControllers.getLanguagesController().get(indexEntry.langID());
+			if (language != null) {
+				entry.setLocale(language.getLocale());
+			}
+			entry.setLemma(indexEntry.lemma());
+			entry.setSearchWord(indexEntry.searchWord());
+			resultList.add(entry);
+		}
+		return resultList;
+	}
+
 	private void checkTerm(final ACSearchRequest request) {
 		final int quotesCount = StringUtils.countMatches(request.getTerm(), '\'');
 		if (quotesCount % 2 == 1) {
@@ -161,7 +227,7 @@ public class AutocompleteController
 
 		String filterText = request.getTerm();
 		if (filterText != null && !filterText.isEmpty()) {
-			final Pair<String, String> filterResult = LexemesController.buildFilterStatementAndText(request.getTerm(),
+			final Pair<String, String> filterResult = LexemesController.buildFoldedFilterStatementAndText(request.getTerm(),
 				Optional.of(TextSearchType.Prefixed));
 			final String filterStatement = filterResult.getLeft();
 			filterText = filterResult.getRight();
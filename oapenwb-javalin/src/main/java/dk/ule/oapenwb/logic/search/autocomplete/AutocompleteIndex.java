@@ -0,0 +1,250 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.autocomplete;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import dk.ule.oapenwb.base.AppConfig;
+import dk.ule.oapenwb.base.error.CodeException;
+import dk.ule.oapenwb.logic.admin.lexeme.LexemesController;
+import dk.ule.oapenwb.logic.presentation.ControllerSet;
+import dk.ule.oapenwb.logic.presentation.SingleLemmaBuilder;
+import dk.ule.oapenwb.logic.presentation.options.PresentationOptions;
+import dk.ule.oapenwb.logic.search.SearchKeyFolder;
+import dk.ule.oapenwb.logic.search.index.LexemeIndex;
+import dk.ule.oapenwb.logic.search.index.LexemeVariants;
+import dk.ule.oapenwb.logic.search.index.TranslationGraph;
+import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Lemma;
+import dk.ule.oapenwb.persistency.entity.content.lexemes.lexeme.Variant;
+import dk.ule.oapenwb.util.collections.LongObjectMap;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.query.Query;
+import org.hibernate.type.StandardBasicTypes;
+
+import java.util.*;
+
+/**
+ * <p>The AutocompleteIndex answers autocompletion requests without querying the database (query Q550 in the
+ * {@link AutocompleteController}). It is enabled by the configuration property <i>useAutocompleteIndex</i>.</p>
+ * <p>For each language a {@link PrefixTree} is held that maps the tokens of all lexeme forms of a lexeme to the
+ * active variants of that lexeme. The lemma of each variant is prebuilt via
+ * {@link SingleLemmaBuilder#buildLemmaWithOrthographyOnly}. It is built and refreshed as described for the
+ * {@link LexemeIndex}.</p>
+ * <p>Other than Q550 the completions are ordered by the matching token and not by the lemma's main part.</p>
+ */
+@Singleton
+public class AutocompleteIndex extends LexemeIndex<AutocompleteIndex.Data, List<AutocompleteIndex.Entry>>
+{
+	/**
+	 * A completion of a variant.
+	 */
+	public record Entry(long variantID, long lexemeID, int typeID, int langID, String lemma, String searchWord,
+		String dedupKey, String[] keys) {}
+
+	private record FormRow(Long lexemeID, String text) {}
+
+	static class Data
+	{
+		// <langID, tree>
+		final Map<Integer, PrefixTree> trees = new HashMap<>();
+		// <variantID, entry>
+		final LongObjectMap<Entry> entries = new LongObjectMap<>();
+		final LexemeVariants lexemeVariants = new LexemeVariants();
+
+		void add(Entry entry)
+		{
+			entries.put(entry.variantID(), entry);
+			lexemeVariants.add(entry.lexemeID(), entry.variantID());
+			final PrefixTree tree = trees.computeIfAbsent(entry.langID(), k -> new PrefixTree());
+			for (String key : entry.keys()) {
+				tree.add(key, entry.variantID());
+			}
+		}
+
+		void removeLexeme(long lexemeID)
+		{
+			for (long variantID : lexemeVariants.remove(lexemeID)) {
+				final Entry entry = entries.remove(variantID);
+				final PrefixTree tree = entry == null ? null : trees.get(entry.langID());
+				if (tree != null) {
+					for (String key : entry.keys()) {
+						tree.remove(key, variantID);
+					}
+				}
+			}
+		}
+	}
+
+	private final ControllerSet lemmaControllers;
+	private final SingleLemmaBuilder singleLemmaBuilder = new SingleLemmaBuilder();
+
+	@Inject
+	public AutocompleteIndex(AppConfig appConfig, ControllerSet lemmaControllers, LexemesController lexemesController)
+	{
+		super(appConfig);
+		this.lemmaControllers = lemmaControllers;
+		lexemesController.addChangeListener(this);
+	}
+
+	@Override
+	public boolean isEnabled()
+	{
+		return appConfig.isUseAutocompleteIndex();
+	}
+
+	@Override
+	public String getName()
+	{
+		return "autocomplete index";
+	}
+
+	@Override
+	public String getFallback()
+	{
+		return "autocompletions will be done on the database";
+	}
+
+	/**
+	 * <p>Finds the completions for the given term. The term is split into tokens and all variants are returned that
+	 * contain a token starting with any of the term's tokens (i.e. the same semantics as the
+	 * {@link dk.ule.oapenwb.logic.admin.lexeme.TextSearchType#Prefixed} search). Words starting with '!' are
+	 * ignored. Variants with the same lemma are only returned once.</p>
+	 *
+	 * @param langIDs the languages to search in
+	 * @param term the search term
+	 * @param maxResults the maximum number of completions
+	 * @return the completions, or null if the index is not available
+	 */
+	public List<Entry> find(final Set<Integer> langIDs, final String term, final int maxResults)
+	{
+		if (!isEnabled() || !isReady()) {
+			return null;
+		}
+		final Set<String> prefixes = new LinkedHashSet<>();
+		for (String word : term.trim().split(" ")) {
+			if (!word.isEmpty() && !word.startsWith("!")) {
+				prefixes.addAll(TranslationGraph.tokenize(SearchKeyFolder.fold(word)));
+			}
+		}
+
+		// Collect up to maxResults completions per language and prefix, then merge them by their key
+		final List<Map.Entry<String, Entry>> candidates = new ArrayList<>();
+		lock.readLock().lock();
+		try {
+			for (Integer langID : langIDs) {
+				final PrefixTree tree = data.trees.get(langID);
+				if (tree == null) {
+					continue;
+				}
+				for (String prefix : prefixes) {
+					final Set<String> dedupKeys = new HashSet<>();
+					tree.visitPrefix(prefix, (key, variantID) -> {
+						final Entry entry = data.entries.get(variantID);
+						if (entry != null && dedupKeys.add(entry.dedupKey())) {
+							candidates.add(new AbstractMap.SimpleImmutableEntry<>(key, entry));
+						}
+						return dedupKeys.size() < maxResults;
+					});
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		candidates.sort(Map.Entry.comparingByKey());
+		final List<Entry> result = new ArrayList<>(maxResults);
+		final Set<String> dedupKeys = new HashSet<>();
+		for (Map.Entry<String, Entry> candidate : candidates) {
+			if (result.size() >= maxResults) {
+				break;
+			}
+			if (dedupKeys.add(candidate.getValue().dedupKey())) {
+				result.add(candidate.getValue());
+			}
+		}
+		return result;
+	}
+
+	@Override
+	protected Data createData(final List<Entry> entries)
+	{
+		final Data newData = new Data();
+		for (Entry entry : entries) {
+			newData.add(entry);
+		}
+		return newData;
+	}
+
+	@Override
+	protected void replaceLexemes(final Data data, final Collection<Long> lexemeIDs, final List<Entry> entries)
+	{
+		for (Long lexemeID : lexemeIDs) {
+			data.removeLexeme(lexemeID);
+		}
+		for (Entry entry : entries) {
+			data.add(entry);
+		}
+	}
+
+	@Override
+	protected String describe(final Data data)
+	{
+		return data.entries.size() + " variants";
+	}
+
+	/**
+	 * <p>Loads the entries for the active variants of active lexemes having at least one active sememe.</p>
+	 *
+	 * @param lexemeIDs the lexemes to load, or null to load all lexemes
+	 */
+	@Override
+	protected List<Entry> load(final Session session, final Collection<Long> lexemeIDs) throws CodeException
+	{
+		final boolean all = lexemeIDs == null;
+
+		// The keys of a lexeme are the tokens of all of its lexeme forms (Q610)
+		final NativeQuery<FormRow> formsQuery = session.createNativeQuery(
+				"select v.lexemeID, lf.text\n"
+					+ "from LexemeForms lf inner join Variants v on lf.variantID = v.id\n"
+					+ (all ? "" : "where v.lexemeID in (:lexemeIDs)\n"), FormRow.class)
+			.addScalar("lexemeID", StandardBasicTypes.LONG)
+			.addScalar("text", StandardBasicTypes.STRING);
+		if (!all) {
+			formsQuery.setParameterList("lexemeIDs", lexemeIDs);
+		}
+		final Map<Long, Set<String>> lexemeKeys = new HashMap<>();
+		for (FormRow row : formsQuery.list()) {
+			lexemeKeys.computeIfAbsent(row.lexemeID(), k -> new LinkedHashSet<>())
+				.addAll(TranslationGraph.tokenize(SearchKeyFolder.fold(row.text())));
+		}
+
+		// The variants plus the type and language of their lexemes (Q611)
+		final Query<Object[]> variantsQuery = session.createQuery(
+			"SELECT V, L.typeID, L.langID FROM Variant V, Lexeme L WHERE V.lexemeID = L.id"
+				+ " AND V.active = true AND L.active = true"
+				+ " AND EXISTS (SELECT 1 FROM Sememe S WHERE S.lexemeID = L.id AND S.active = true)"
+				+ (all ? "" : " AND L.id IN (:lexemeIDs)"), Object[].class);
+		if (!all) {
+			variantsQuery.setParameterList("lexemeIDs", lexemeIDs);
+		}
+
+		final List<Entry> entries = new LinkedList<>();
+		for (Object[] row : variantsQuery.list()) {
+			final Variant variant = (Variant) row[0];
+			final Integer typeID = (Integer) row[1];
+			final int langID = (Integer) row[2];
+			final Set<String> keys = lexemeKeys.get(variant.getLexemeID());
+			if (keys == null || keys.isEmpty()) {
+				continue;
+			}
+			final Lemma lemma = variant.getLemma();
+			final String lemmaString = singleLemmaBuilder.buildLemmaWithOrthographyOnly(
+				PresentationOptions.DEFAULT_PRESENTATION_OPTIONS, lemmaControllers, variant);
+			final String dedupKey = lemma.getPre() + "|" + lemma.getMain() + "|" + lemma.getPost();
+			entries.add(new Entry(variant.getId(), variant.getLexemeID(), typeID == null ? -1 : typeID, langID,
+				lemmaString, lemma.getMain(), dedupKey, keys.toArray(new String[0])));
+		}
+		return entries;
+	}
+}
@@ -0,0 +1,184 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.autocomplete;
+
+import java.util.Arrays;
+
+/**
+ * <p>A ternary search tree mapping string keys to sorted arrays of long values (the variant IDs in case of the
+ * {@link AutocompleteIndex}). The keys below a given prefix can be visited in lexicographical order which
+ * allows to stop as soon as enough completions were found.</p>
+ * <p>Nodes are not pruned when values are removed since keys are very likely to be added again. The tree is not
+ * thread-safe.</p>
+ */
+public class PrefixTree
+{
+	/**
+	 * Visitor for the values found below a prefix.
+	 */
+	@FunctionalInterface
+	public interface Visitor
+	{
+		/**
+		 * @return false to stop visiting further values
+		 */
+		boolean visit(String key, long value);
+	}
+
+	private static class Node
+	{
+		final char c;
+		Node lo, eq, hi;
+		long[] values;
+
+		Node(char c)
+		{
+			this.c = c;
+		}
+	}
+
+	private Node root;
+	private int keyCount = 0;
+
+	public int getKeyCount()
+	{
+		return keyCount;
+	}
+
+	public void add(String key, long value)
+	{
+		if (key == null || key.isEmpty()) {
+			return;
+		}
+		if (root == null) {
+			root = new Node(key.charAt(0));
+		}
+		Node node = root;
+		int i = 0;
+		while (true) {
+			final char c = key.charAt(i);
+			if (c < node.c) {
+				if (node.lo == null) {
+					node.lo = new Node(c);
+				}
+				node = node.lo;
+			} else if (c > node.c) {
+				if (node.hi == null) {
+					node.hi = new Node(c);
+				}
+				node = node.hi;
+			} else if (i < key.length() - 1) {
+				i++;
+				if (node.eq == null) {
+					node.eq = new Node(key.charAt(i));
+				}
+				node = node.eq;
+			} else {
+				break;
+			}
+		}
+		if (node.values == null) {
+			node.values = new long[] { value };
+			keyCount++;
+			return;
+		}
+		int index = Arrays.binarySearch(node.values, value);
+		if (index < 0) {
+			index = -index - 1;
+			final long[] values = new long[node.values.length + 1];
+			System.arraycopy(node.values, 0, values, 0, index);
+			values[index] = value;
+			System.arraycopy(node.values, index, values, index + 1, node.values.length - index);
+			node.values = values;
+		}
+	}
+
+	public void remove(String key, long value)
+	{
+		final Node node = find(key);
+		if (node == null || node.values == null) {
+			return;
+		}
+		final int index = Arrays.binarySearch(node.values, value);
+		if (index < 0) {
+			return;
+		}
+		if (node.values.length == 1) {
+			node.values = null;
+			keyCount--;
+		} else {
+			final long[] values = new long[node.values.length - 1];
+			System.arraycopy(node.values, 0, values, 0, index);
+			System.arraycopy(node.values, index + 1, values, index, node.values.length - index - 1);
+			node.values = values;
+		}
+	}
+
+	/**
+	 * <p>Visits all values of keys starting with the given prefix in lexicographical order of the keys.</p>
+	 */
+	public void visitPrefix(String prefix, Visitor visitor)
+	{
+		final Node node = find(prefix);
+		if (node == null) {
+			return;
+		}
+		final StringBuilder key = new StringBuilder(prefix);
+		if (visitValues(node, key, visitor)) {
+			visitInOrder(node.eq, key, visitor);
+		}
+	}
+
+	private Node find(String key)
+	{
+		if (key == null || key.isEmpty()) {
+			return null;
+		}
+		Node node = root;
+		int i = 0;
+		while (node != null) {
+			final char c = key.charAt(i);
+			if (c < node.c) {
+				node = node.lo;
+			} else if (c > node.c) {
+				node = node.hi;
+			} else if (i < key.length() - 1) {
+				i++;
+				node = node.eq;
+			} else {
+				return node;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return false if the visitor wants to stop
+	 */
+	private boolean visitInOrder(Node node, StringBuilder key, Visitor visitor)
+	{
+		if (node == null) {
+			return true;
+		}
+		if (!visitInOrder(node.lo, key, visitor)) {
+			return false;
+		}
+		key.append(node.c);
+		final boolean goOn = visitValues(node, key, visitor) && visitInOrder(node.eq, key, visitor);
+		key.setLength(key.length() - 1);
+		return goOn && visitInOrder(node.hi, key, visitor);
+	}
+
+	private boolean visitValues(Node node, StringBuilder key, Visitor visitor)
+	{
+		if (node.values != null) {
+			final String keyString = key.toString();
+			for (long value : node.values) {
+				if (!visitor.visit(keyString, value)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+}
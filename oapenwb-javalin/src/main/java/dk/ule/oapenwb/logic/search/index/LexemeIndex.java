@@ -0,0 +1,198 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.index;
+
+import dk.ule.oapenwb.base.AppConfig;
+import dk.ule.oapenwb.base.error.CodeException;
+import dk.ule.oapenwb.logic.admin.lexeme.ILexemeChangeListener;
+import dk.ule.oapenwb.util.HibernateUtil;
+import dk.ule.oapenwb.util.TimeUtil;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <p>Base class of the optional in-memory indexes that are built from the lexemes, e.g. the
+ * {@link TranslationIndex}. An index is built once on startup via {@link #build()} and after that it is refreshed
+ * lexeme by lexeme whenever the {@link dk.ule.oapenwb.logic.admin.lexeme.LexemesController} reports created or
+ * updated lexemes.</p>
+ * <p>All data of an index is held in one instance of type D. On a build the new instance is built aside and then
+ * swapped in, so searches can still be answered by the old instance in the meantime. The lexemes changed during a
+ * build are reloaded into the new instance before it is swapped in. On a change the data of the changed lexemes is
+ * loaded first and only replaced within the write lock to keep the lock short. The changes are applied one after
+ * the other, so the data loaded last is the data that stays.</p>
+ *
+ * @param <D> type of the data of the index
+ * @param <L> type of the data loaded for the lexemes
+ */
+public abstract class LexemeIndex<D, L> implements ILexemeChangeListener
+{
+	private static final Logger LOG = LoggerFactory.getLogger(LexemeIndex.class);
+
+	protected final AppConfig appConfig;
+	protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// Serializes the loading and replacing of changed lexemes
+	private final ReentrantLock refreshLock = new ReentrantLock();
+
+	protected volatile D data = null;
+	// IDs of the lexemes changed while a build is running, null if no build is running. Guarded by the write lock.
+	private Set<Long> changedDuringBuild = null;
+
+	protected LexemeIndex(final AppConfig appConfig)
+	{
+		this.appConfig = appConfig;
+	}
+
+	/**
+	 * @return true if the index is enabled in the configuration
+	 */
+	public abstract boolean isEnabled();
+
+	/**
+	 * @return the name of the index for the log, e.g. <i>translation index</i>
+	 */
+	public abstract String getName();
+
+	/**
+	 * @return what happens if the index is not available, e.g. <i>searches will be done on the database</i>
+	 */
+	public abstract String getFallback();
+
+	public boolean isReady()
+	{
+		return data != null;
+	}
+
+	/**
+	 * <p>(Re)builds the whole index.</p>
+	 */
+	public void build() throws CodeException
+	{
+		if (!isEnabled()) {
+			return;
+		}
+		TimeUtil.startTimeMeasure();
+		lock.writeLock().lock();
+		try {
+			changedDuringBuild = new HashSet<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		try {
+			final D newData = createData(load(getSession(), null));
+			// Take over the lexemes changed meanwhile until no more changes come in
+			while (true) {
+				final Set<Long> changed;
+				lock.writeLock().lock();
+				try {
+					if (changedDuringBuild.isEmpty()) {
+						this.data = newData;
+						break;
+					}
+					changed = changedDuringBuild;
+					changedDuringBuild = new HashSet<>();
+				} finally {
+					lock.writeLock().unlock();
+				}
+				final L loaded = load(getSession(), changed);
+				lock.writeLock().lock();
+				try {
+					replaceLexemes(newData, changed, loaded);
+				} finally {
+					lock.writeLock().unlock();
+				}
+			}
+			LOG.info("The {} was built with {} in {} ms", getName(), describe(newData), TimeUtil.durationInMilis());
+		} finally {
+			lock.writeLock().lock();
+			try {
+				changedDuringBuild = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	@Override
+	public void lexemesChanged(Collection<Long> lexemeIDs)
+	{
+		if (!isEnabled()) {
+			return;
+		}
+		refreshLock.lock();
+		try {
+			lock.writeLock().lock();
+			try {
+				if (changedDuringBuild != null) {
+					changedDuringBuild.addAll(lexemeIDs);
+				}
+				if (data == null) {
+					return;
+				}
+			} finally {
+				lock.writeLock().unlock();
+			}
+
+			final L loaded;
+			try {
+				loaded = load(getSession(), lexemeIDs);
+			} catch (Exception e) {
+				LOG.error("Refreshing the " + getName() + " failed for lexemes " + lexemeIDs, e);
+				return;
+			}
+
+			lock.writeLock().lock();
+			try {
+				replaceLexemes(data, lexemeIDs, loaded);
+			} finally {
+				lock.writeLock().unlock();
+			}
+		} finally {
+			refreshLock.unlock();
+		}
+		if (appConfig.isVerbose()) {
+			LOG.info("The {} was refreshed for lexemes {}", getName(), lexemeIDs);
+		}
+	}
+
+	/**
+	 * @return the session the data is loaded with
+	 */
+	protected Session getSession()
+	{
+		return HibernateUtil.getSession();
+	}
+
+	/**
+	 * @param lexemeIDs the lexemes to load, or null to load all lexemes
+	 */
+	protected abstract L load(Session session, Collection<Long> lexemeIDs) throws CodeException;
+
+	/**
+	 * @param loaded the data of all lexemes
+	 * @return a new instance of the data
+	 */
+	protected abstract D createData(L loaded);
+
+	/**
+	 * <p>Replaces the data of the given lexemes. It is called within the write lock, also for the data of a running
+	 * build before it is swapped in.</p>
+	 *
+	 * @param lexemeIDs the changed lexemes, including the ones no data was loaded for
+	 * @param loaded the data of the lexemes
+	 */
+	protected abstract void replaceLexemes(D data, Collection<Long> lexemeIDs, L loaded);
+
+	/**
+	 * @return the size of the data for the log, e.g. <i>42 variants</i>
+	 */
+	protected abstract String describe(D data);
+}
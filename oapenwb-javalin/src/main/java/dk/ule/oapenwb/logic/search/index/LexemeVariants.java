@@ -0,0 +1,81 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.index;
+
+import dk.ule.oapenwb.util.collections.LongObjectMap;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>Maps the lexemes to the IDs of their variants for the {@link LexemeIndex}es that hold their data per
+ * variant, so that the data of a changed lexeme can be found and removed.</p>
+ */
+public class LexemeVariants
+{
+	private static final long[] NO_VARIANTS = new long[0];
+
+	// <lexemeID, variantIDs>
+	private final LongObjectMap<long[]> variants;
+
+	public LexemeVariants()
+	{
+		this.variants = new LongObjectMap<>();
+	}
+
+	public LexemeVariants(final int expectedSize)
+	{
+		this.variants = new LongObjectMap<>(expectedSize);
+	}
+
+	public int size()
+	{
+		return variants.size();
+	}
+
+	/**
+	 * Adds a variant to the variants of the lexeme.
+	 */
+	public void add(final long lexemeID, final long variantID)
+	{
+		final long[] variantIDs = variants.get(lexemeID);
+		if (variantIDs == null) {
+			variants.put(lexemeID, new long[] { variantID });
+		} else {
+			final long[] newIDs = Arrays.copyOf(variantIDs, variantIDs.length + 1);
+			newIDs[variantIDs.length] = variantID;
+			variants.put(lexemeID, newIDs);
+		}
+	}
+
+	/**
+	 * Replaces the variants of the lexeme.
+	 */
+	public void put(final long lexemeID, final long[] variantIDs)
+	{
+		variants.put(lexemeID, variantIDs);
+	}
+
+	/**
+	 * @return the variants of the lexeme, empty if the lexeme is unknown
+	 */
+	public long[] get(final long lexemeID)
+	{
+		final long[] variantIDs = variants.get(lexemeID);
+		return variantIDs == null ? NO_VARIANTS : variantIDs;
+	}
+
+	/**
+	 * @return the former variants of the lexeme, empty if the lexeme was unknown
+	 */
+	public long[] remove(final long lexemeID)
+	{
+		final long[] variantIDs = variants.remove(lexemeID);
+		return variantIDs == null ? NO_VARIANTS : variantIDs;
+	}
+
+	public void forEach(final BiConsumer<Long, long[]> consumer)
+	{
+		variants.forEach(consumer);
+	}
+}
@@ -0,0 +1,370 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.index;
+
+import dk.ule.oapenwb.logic.search.Direction;
+import dk.ule.oapenwb.logic.search.SearchKeyFolder;
+import dk.ule.oapenwb.util.collections.LongObjectMap;
+
+import java.util.*;
+
+/**
+ * <p>The TranslationGraph is the in-memory read model used by the {@link TranslationIndex}. It connects the
+ * tokens of the lexeme forms with the variants they belong to, the variants with the active sememes using them,
+ * and the sememes with the mappings they are part of:</p>
+ * <pre>token → variantIDs → sememeIDs → mappings (per langPair)</pre>
+ * <p>As in the database, where each lexeme form is matched on its own, all tokens of a search term must be found
+ * in the same lexeme form of a variant.</p>
+ * <p>All adjacencies are stored as sorted primitive arrays. The graph itself is not thread-safe, the
+ * {@link TranslationIndex} takes care of that.</p>
+ */
+public class TranslationGraph
+{
+	/**
+	 * An active sememe of an active lexeme.
+	 */
+	public record SememeNode(long id, long lexemeID, int langID, int typeID, long[] variantIDs) {}
+
+	/**
+	 * A mapping between two sememes.
+	 */
+	public record MappingEdge(long id, String langPair, long sememeOneID, long sememeTwoID, short weight) {}
+
+	private static final long[] EMPTY = new long[0];
+	private static final String[] NO_TOKENS = new String[0];
+
+	// <token, sorted variantIDs>
+	private final Map<String, long[]> tokenToVariants = new HashMap<>();
+	// <variantID, tokens per lexeme form>
+	private final LongObjectMap<String[][]> variantFormTokens = new LongObjectMap<>();
+	// <variantID, sorted IDs of the active sememes using the variant>
+	private final LongObjectMap<long[]> variantToSememes = new LongObjectMap<>();
+	// <sememeID, node> of active sememes only
+	private final LongObjectMap<SememeNode> sememes = new LongObjectMap<>();
+	// <sememeID, sorted mappingIDs> for all sememes, active or not
+	private final LongObjectMap<long[]> sememeToMappings = new LongObjectMap<>();
+	// <mappingID, edge>
+	private final LongObjectMap<MappingEdge> mappings = new LongObjectMap<>();
+	// <lexemeID, sorted IDs of all its sememes>
+	private final LongObjectMap<long[]> lexemeToSememes = new LongObjectMap<>();
+	// <lexemeID, sorted IDs of all its variants>
+	private final LongObjectMap<long[]> lexemeToVariants = new LongObjectMap<>();
+
+	public int getSememeCount()
+	{
+		return sememes.size();
+	}
+
+	public int getMappingCount()
+	{
+		return mappings.size();
+	}
+
+	/**
+	 * @return the lexeme type of the given sememe, or -1 if it is not an active sememe of the graph
+	 */
+	public int getTypeID(long sememeID)
+	{
+		final SememeNode node = sememes.get(sememeID);
+		return node == null ? -1 : node.typeID();
+	}
+
+	/**
+	 * <p>Adds the structure of a lexeme to the graph. Any previously added structure of the same lexeme must have
+	 * been removed via {@link #removeLexeme(long)} before.</p>
+	 *
+	 * @param lexemeID ID of the lexeme
+	 * @param allSememeIDs IDs of all sememes of the lexeme, active or not
+	 * @param activeSememes the sememes that shall be searchable, i.e. the sememe and its lexeme are active
+	 * @param formTexts <variantID, texts of the lexeme forms> for all variants of the lexeme
+	 */
+	public void addLexeme(long lexemeID, Collection<Long> allSememeIDs, Collection<SememeNode> activeSememes,
+		Map<Long, List<String>> formTexts)
+	{
+		lexemeToSememes.put(lexemeID, toSortedArray(allSememeIDs));
+		lexemeToVariants.put(lexemeID, toSortedArray(formTexts.keySet()));
+
+		for (SememeNode node : activeSememes) {
+			sememes.put(node.id(), node);
+			for (long variantID : node.variantIDs()) {
+				variantToSememes.put(variantID, insert(variantToSememes.get(variantID), node.id()));
+			}
+		}
+
+		for (Map.Entry<Long, List<String>> entry : formTexts.entrySet()) {
+			final long variantID = entry.getKey();
+			final List<String[]> formTokens = new ArrayList<>(entry.getValue().size());
+			for (String text : entry.getValue()) {
+				final Set<String> tokens = new LinkedHashSet<>(tokenize(SearchKeyFolder.fold(text)));
+				if (tokens.isEmpty()) {
+					continue;
+				}
+				formTokens.add(tokens.toArray(NO_TOKENS));
+				for (String token : tokens) {
+					tokenToVariants.put(token, insert(tokenToVariants.get(token), variantID));
+				}
+			}
+			if (!formTokens.isEmpty()) {
+				variantFormTokens.put(variantID, formTokens.toArray(new String[0][]));
+			}
+		}
+	}
+
+	/**
+	 * <p>Adds a mapping to the graph. The mapping is connected with both of its sememes.</p>
+	 */
+	public void addMapping(MappingEdge edge)
+	{
+		mappings.put(edge.id(), edge);
+		sememeToMappings.put(edge.sememeOneID(), insert(sememeToMappings.get(edge.sememeOneID()), edge.id()));
+		sememeToMappings.put(edge.sememeTwoID(), insert(sememeToMappings.get(edge.sememeTwoID()), edge.id()));
+	}
+
+	/**
+	 * <p>Removes the lexeme with all its sememes, variants and the mappings of its sememes from the graph.</p>
+	 */
+	public void removeLexeme(long lexemeID)
+	{
+		final long[] sememeIDs = lexemeToSememes.remove(lexemeID);
+		if (sememeIDs != null) {
+			for (long sememeID : sememeIDs) {
+				sememes.remove(sememeID);
+				final long[] mappingIDs = sememeToMappings.remove(sememeID);
+				if (mappingIDs == null) {
+					continue;
+				}
+				for (long mappingID : mappingIDs) {
+					final MappingEdge edge = mappings.remove(mappingID);
+					if (edge == null) {
+						continue;
+					}
+					final long partnerID = edge.sememeOneID() == sememeID ? edge.sememeTwoID() : edge.sememeOneID();
+					final long[] partnerMappings = remove(sememeToMappings.get(partnerID), mappingID);
+					if (partnerMappings == null) {
+						sememeToMappings.remove(partnerID);
+					} else {
+						sememeToMappings.put(partnerID, partnerMappings);
+					}
+				}
+			}
+		}
+
+		final long[] variantIDs = lexemeToVariants.remove(lexemeID);
+		if (variantIDs != null) {
+			for (long variantID : variantIDs) {
+				variantToSememes.remove(variantID);
+				final String[][] formTokens = variantFormTokens.remove(variantID);
+				if (formTokens == null) {
+					continue;
+				}
+				for (String[] tokens : formTokens) {
+					for (String token : tokens) {
+						final long[] remaining = remove(tokenToVariants.get(token), variantID);
+						if (remaining == null) {
+							tokenToVariants.remove(token);
+						} else {
+							tokenToVariants.put(token, remaining);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * <p>Finds all mappings of active sememes that have a variant with a lexeme form containing all the given
+	 * tokens. This is the in-memory equivalent of query Q502 in the SearchController.</p>
+	 *
+	 * @param tokens the tokens of the search term, see {@link #tokenize(String)}
+	 * @param langPairIDs IDs of the LangPairs to search in
+	 * @param langOneIDs IDs of the languages on the left side of the LangPairs
+	 * @param langTwoIDs IDs of the languages on the right side of the LangPairs
+	 * @param direction the search direction
+	 * @return the found mappings ordered by weight descending
+	 */
+	public List<MappingEdge> find(Collection<String> tokens, Set<String> langPairIDs, Set<Integer> langOneIDs,
+		Set<Integer> langTwoIDs, Direction direction)
+	{
+		final long[] variantIDs = intersect(tokens);
+		if (variantIDs.length == 0) {
+			return new ArrayList<>(0);
+		}
+
+		final boolean right = direction == Direction.Both || direction == Direction.Right;
+		final boolean left = direction == Direction.Both || direction == Direction.Left;
+		// A LinkedHashMap deduplicates just as the distinct does in Q502
+		final Map<Long, MappingEdge> result = new LinkedHashMap<>();
+		for (long variantID : variantIDs) {
+			final long[] sememeIDs = variantToSememes.get(variantID);
+			if (sememeIDs == null || (tokens.size() > 1 && !hasFormWithAll(variantID, tokens))) {
+				continue;
+			}
+			for (long sememeID : sememeIDs) {
+				final SememeNode node = sememes.get(sememeID);
+				final long[] mappingIDs = sememeToMappings.get(sememeID);
+				if (node == null || mappingIDs == null) {
+					continue;
+				}
+				final boolean matchesOne = right && langOneIDs.contains(node.langID());
+				final boolean matchesTwo = left && langTwoIDs.contains(node.langID());
+				if (!matchesOne && !matchesTwo) {
+					continue;
+				}
+				for (long mappingID : mappingIDs) {
+					final MappingEdge edge = mappings.get(mappingID);
+					if (edge == null || !langPairIDs.contains(edge.langPair())) {
+						continue;
+					}
+					if ((matchesOne && edge.sememeOneID() == sememeID)
+						|| (matchesTwo && edge.sememeTwoID() == sememeID)) {
+						result.putIfAbsent(mappingID, edge);
+					}
+				}
+			}
+		}
+
+		final List<MappingEdge> list = new ArrayList<>(result.values());
+		list.sort((o1, o2) -> o2.weight() - o1.weight());
+		return list;
+	}
+
+	/**
+	 * <p>Splits a text into lower case tokens. This imitates the parser of PostgreSQL's 'simple' text search
+	 * configuration as used for column LexemeForms.searchableText: words are split at all characters that are
+	 * neither letters nor digits, and hyphenated words are additionally kept as a whole.</p>
+	 */
+	public static List<String> tokenize(String text)
+	{
+		final List<String> tokens = new ArrayList<>();
+		if (text == null || text.isBlank()) {
+			return tokens;
+		}
+		final String lowerText = text.toLowerCase(Locale.ROOT);
+		final StringBuilder token = new StringBuilder();
+		final StringBuilder hyphenated = new StringBuilder();
+		boolean hasHyphen = false;
+		for (int i = 0; i <= lowerText.length(); i++) {
+			final char c = i < lowerText.length() ? lowerText.charAt(i) : ' ';
+			if (Character.isLetterOrDigit(c)) {
+				token.append(c);
+				hyphenated.append(c);
+				continue;
+			}
+			if (!token.isEmpty()) {
+				tokens.add(token.toString());
+				token.setLength(0);
+			}
+			if (c == '-' && !hyphenated.isEmpty()) {
+				hyphenated.append(c);
+				hasHyphen = true;
+				continue;
+			}
+			if (hasHyphen && hyphenated.length() > 1 && hyphenated.charAt(hyphenated.length() - 1) != '-') {
+				tokens.add(hyphenated.toString());
+			}
+			hyphenated.setLength(0);
+			hasHyphen = false;
+		}
+		return tokens;
+	}
+
+	/**
+	 * @return true if one lexeme form of the variant contains all the tokens
+	 */
+	private boolean hasFormWithAll(long variantID, Collection<String> tokens)
+	{
+		final String[][] formTokens = variantFormTokens.get(variantID);
+		if (formTokens == null) {
+			return false;
+		}
+		for (String[] form : formTokens) {
+			if (Arrays.asList(form).containsAll(tokens)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the sorted IDs of the variants having all tokens, maybe in different lexeme forms
+	 */
+	private long[] intersect(Collection<String> tokens)
+	{
+		if (tokens.isEmpty()) {
+			return EMPTY;
+		}
+		// Start with the shortest list to keep the number of lookups low
+		final List<long[]> lists = new ArrayList<>(tokens.size());
+		for (String token : tokens) {
+			final long[] variantIDs = tokenToVariants.get(token);
+			if (variantIDs == null) {
+				return EMPTY;
+			}
+			lists.add(variantIDs);
+		}
+		lists.sort(Comparator.comparingInt(a -> a.length));
+
+		long[] result = lists.get(0);
+		for (int i = 1; i < lists.size() && result.length > 0; i++) {
+			final long[] other = lists.get(i);
+			final long[] next = new long[result.length];
+			int count = 0;
+			for (long variantID : result) {
+				if (Arrays.binarySearch(other, variantID) >= 0) {
+					next[count++] = variantID;
+				}
+			}
+			result = Arrays.copyOf(next, count);
+		}
+		return result;
+	}
+
+	private static long[] toSortedArray(Collection<Long> ids)
+	{
+		final long[] result = new long[ids.size()];
+		int i = 0;
+		for (Long id : ids) {
+			result[i++] = id;
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	private static long[] insert(long[] array, long value)
+	{
+		if (array == null) {
+			return new long[] { value };
+		}
+		int index = Arrays.binarySearch(array, value);
+		if (index >= 0) {
+			return array;
+		}
+		index = -index - 1;
+		final long[] result = new long[array.length + 1];
+		System.arraycopy(array, 0, result, 0, index);
+		result[index] = value;
+		System.arraycopy(array, index, result, index + 1, array.length - index);
+		return result;
+	}
+
+	/**
+	 * @return the array without the value, or null if the array would be empty
+	 */
+	private static long[] remove(long[] array, long value)
+	{
+		if (array == null) {
+			return null;
+		}
+		final int index = Arrays.binarySearch(array, value);
+		if (index < 0) {
+			return array;
+		}
+		if (array.length == 1) {
+			return null;
+		}
+		final long[] result = new long[array.length - 1];
+		System.arraycopy(array, 0, result, 0, index);
+		System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+		return result;
+	}
+}
@@ -0,0 +1,257 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.index;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import dk.ule.oapenwb.base.AppConfig;
+import dk.ule.oapenwb.logic.admin.lexeme.LexemesController;
+import dk.ule.oapenwb.logic.search.Direction;
+import dk.ule.oapenwb.logic.search.SearchKeyFolder;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
+
+import java.util.*;
+
+/**
+ * <p>The TranslationIndex is an optional in-memory read model that answers the mapping part of a search
+ * (query Q502 in the {@link dk.ule.oapenwb.logic.search.SearchController}) without querying the database.
+ * It is enabled by the configuration property <i>useTranslationIndex</i>.</p>
+ * <p>The index is built from the active Sememes, their Variants, LexemeForms and all Mappings, see
+ * {@link LexemeIndex}.</p>
+ * <p>Search terms making use of the websearch syntax (quotes, <i>or</i>, negation via '-') cannot be answered by
+ * the index. For those {@link #find(String, Set, Set, Set, Direction)} returns null and the caller must fall back
+ * to the database.</p>
+ */
+@Singleton
+public class TranslationIndex extends LexemeIndex<TranslationGraph, TranslationIndex.LoadedLexemes>
+{
+	private record SememeRow(Long sememeID, Long lexemeID, Integer langID, Integer typeID, Boolean active,
+		Long variantID) {}
+	private record FormRow(Long variantID, Long lexemeID, String text) {}
+	private record MappingRow(Long id, String langPair, Long sememeOneID, Long sememeTwoID, Short weight) {}
+
+	/**
+	 * The loaded lexemes and all mappings of their sememes.
+	 */
+	record LoadedLexemes(Map<Long, LexemeData> lexemes, Map<Long, TranslationGraph.MappingEdge> mappings) {}
+
+	@Inject
+	public TranslationIndex(AppConfig appConfig, LexemesController lexemesController)
+	{
+		super(appConfig);
+		lexemesController.addChangeListener(this);
+	}
+
+	@Override
+	public boolean isEnabled()
+	{
+		return appConfig.isUseTranslationIndex();
+	}
+
+	@Override
+	public String getName()
+	{
+		return "translation index";
+	}
+
+	@Override
+	public String getFallback()
+	{
+		return "searches will be done on the database";
+	}
+
+	/**
+	 * <p>Finds the mappings for the given term. See {@link TranslationGraph#find(Collection, Set, Set, Set, Direction)}
+	 * for a description of the parameters.</p>
+	 *
+	 * @return the found mappings ordered by weight descending, or null if the index cannot answer the request
+	 */
+	public List<TranslationGraph.MappingEdge> find(String term, Set<String> langPairIDs, Set<Integer> langOneIDs,
+		Set<Integer> langTwoIDs, Direction direction)
+	{
+		if (!isEnabled() || !isReady() || usesWebsearchSyntax(term)) {
+			return null;
+		}
+		final List<String> tokens = TranslationGraph.tokenize(SearchKeyFolder.fold(term));
+		if (tokens.isEmpty()) {
+			return null;
+		}
+		lock.readLock().lock();
+		try {
+			return data.find(tokens, langPairIDs, langOneIDs, langTwoIDs, direction);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return the lexeme types of the given sememes, -1 for each sememe that is not (or no longer) active
+	 */
+	public int[] getTypeIDs(long[] sememeIDs)
+	{
+		final int[] typeIDs = new int[sememeIDs.length];
+		Arrays.fill(typeIDs, -1);
+		if (!isReady()) {
+			return typeIDs;
+		}
+		lock.readLock().lock();
+		try {
+			for (int i = 0; i < sememeIDs.length; i++) {
+				typeIDs[i] = data.getTypeID(sememeIDs[i]);
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		return typeIDs;
+	}
+
+	@Override
+	protected TranslationGraph createData(final LoadedLexemes loaded)
+	{
+		final TranslationGraph graph = new TranslationGraph();
+		addAll(graph, loaded);
+		return graph;
+	}
+
+	@Override
+	protected void replaceLexemes(final TranslationGraph graph, final Collection<Long> lexemeIDs,
+		final LoadedLexemes loaded)
+	{
+		for (Long lexemeID : lexemeIDs) {
+			graph.removeLexeme(lexemeID);
+		}
+		addAll(graph, loaded);
+	}
+
+	@Override
+	protected String describe(final TranslationGraph graph)
+	{
+		return graph.getSememeCount() + " sememes and " + graph.getMappingCount() + " mappings";
+	}
+
+	private static void addAll(final TranslationGraph graph, final LoadedLexemes loaded)
+	{
+		for (Map.Entry<Long, LexemeData> entry : loaded.lexemes().entrySet()) {
+			final LexemeData lexeme = entry.getValue();
+			graph.addLexeme(entry.getKey(), lexeme.allSememeIDs, lexeme.activeSememes, lexeme.formTexts);
+		}
+		for (TranslationGraph.MappingEdge edge : loaded.mappings().values()) {
+			graph.addMapping(edge);
+		}
+	}
+
+	/**
+	 * The search term is given into websearch_to_tsquery() by the SQL search. Its special syntax is not supported
+	 * by the index.
+	 */
+	static boolean usesWebsearchSyntax(String term)
+	{
+		if (term == null || term.indexOf('"') >= 0) {
+			return true;
+		}
+		for (String word : term.trim().split("\\s+")) {
+			if (word.startsWith("-") || word.equalsIgnoreCase("or")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static class LexemeData
+	{
+		final Set<Long> allSememeIDs = new HashSet<>();
+		final List<TranslationGraph.SememeNode> activeSememes = new LinkedList<>();
+		final Map<Long, List<String>> formTexts = new HashMap<>();
+	}
+
+	@Override
+	protected LoadedLexemes load(final Session session, final Collection<Long> lexemeIDs)
+	{
+		final boolean all = lexemeIDs == null;
+		final Map<Long, LexemeData> lexemes = new HashMap<>();
+		final Map<Long, TranslationGraph.MappingEdge> mappings = new HashMap<>();
+		if (!all) {
+			// Lexemes without any data left must still be registered so that they will be removed
+			for (Long lexemeID : lexemeIDs) {
+				lexemes.put(lexemeID, new LexemeData());
+			}
+		}
+
+		// Sememes, including the IDs of the variants they use (Q600)
+		final NativeQuery<SememeRow> sememesQuery = session.createNativeQuery(
+				"select s.id as sememeID, s.lexemeID, l.langID, l.typeID, (s.active and l.active) as active,"
+					+ " sv.variantID\n"
+					+ "from Sememes s inner join Lexemes l on s.lexemeID = l.id\n"
+					+ "\tleft join SememeVariants sv on sv.sememeID = s.id\n"
+					+ (all ? "" : "where s.lexemeID in (:lexemeIDs)\n"), SememeRow.class)
+			.addScalar("sememeID", StandardBasicTypes.LONG)
+			.addScalar("lexemeID", StandardBasicTypes.LONG)
+			.addScalar("langID", StandardBasicTypes.INTEGER)
+			.addScalar("typeID", StandardBasicTypes.INTEGER)
+			.addScalar("active", StandardBasicTypes.BOOLEAN)
+			.addScalar("variantID", StandardBasicTypes.LONG);
+		if (!all) {
+			sememesQuery.setParameterList("lexemeIDs", lexemeIDs);
+		}
+		// <sememeID, variantIDs> of the active sememes
+		final Map<Long, List<Long>> activeVariants = new LinkedHashMap<>();
+		final Map<Long, SememeRow> activeRows = new HashMap<>();
+		for (SememeRow row : sememesQuery.list()) {
+			lexemes.computeIfAbsent(row.lexemeID(), k -> new LexemeData()).allSememeIDs.add(row.sememeID());
+			if (Boolean.TRUE.equals(row.active())) {
+				final List<Long> variantIDs = activeVariants.computeIfAbsent(row.sememeID(), k -> new LinkedList<>());
+				if (row.variantID() != null) {
+					variantIDs.add(row.variantID());
+				}
+				activeRows.putIfAbsent(row.sememeID(), row);
+			}
+		}
+		for (Map.Entry<Long, List<Long>> entry : activeVariants.entrySet()) {
+			final SememeRow row = activeRows.get(entry.getKey());
+			final long[] variantIDs = entry.getValue().stream().mapToLong(Long::longValue).toArray();
+			lexemes.get(row.lexemeID()).activeSememes.add(new TranslationGraph.SememeNode(row.sememeID(),
+				row.lexemeID(), row.langID(), row.typeID() == null ? -1 : row.typeID(), variantIDs));
+		}
+
+		// Texts of the lexeme forms (Q601)
+		final NativeQuery<FormRow> formsQuery = session.createNativeQuery(
+				"select lf.variantID, v.lexemeID, lf.text\n"
+					+ "from LexemeForms lf inner join Variants v on lf.variantID = v.id\n"
+					+ (all ? "" : "where v.lexemeID in (:lexemeIDs)\n"), FormRow.class)
+			.addScalar("variantID", StandardBasicTypes.LONG)
+			.addScalar("lexemeID", StandardBasicTypes.LONG)
+			.addScalar("text", StandardBasicTypes.STRING);
+		if (!all) {
+			formsQuery.setParameterList("lexemeIDs", lexemeIDs);
+		}
+		for (FormRow row : formsQuery.list()) {
+			final LexemeData data = lexemes.get(row.lexemeID());
+			if (data == null) {
+				// Lexeme without any sememes
+				continue;
+			}
+			data.formTexts.computeIfAbsent(row.variantID(), k -> new LinkedList<>()).add(row.text());
+		}
+
+		// Mappings (Q602)
+		final NativeQuery<MappingRow> mappingsQuery = session.createNativeQuery(
+				"select id, langPair, sememeOneID, sememeTwoID, weight from Mappings\n"
+					+ (all ? "" : "where sememeOneID in (select id from Sememes where lexemeID in (:lexemeIDs))\n"
+					+ "\tor sememeTwoID in (select id from Sememes where lexemeID in (:lexemeIDs))\n"), MappingRow.class)
+			.addScalar("id", StandardBasicTypes.LONG)
+			.addScalar("langPair", StandardBasicTypes.STRING)
+			.addScalar("sememeOneID", StandardBasicTypes.LONG)
+			.addScalar("sememeTwoID", StandardBasicTypes.LONG)
+			.addScalar("weight", StandardBasicTypes.SHORT);
+		if (!all) {
+			mappingsQuery.setParameterList("lexemeIDs", lexemeIDs);
+		}
+		for (MappingRow row : mappingsQuery.list()) {
+			mappings.put(row.id(), new TranslationGraph.MappingEdge(row.id(), row.langPair(), row.sememeOneID(),
+				row.sememeTwoID(), row.weight()));
+		}
+		return new LoadedLexemes(lexemes, mappings);
+	}
+}
@@ -0,0 +1,330 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.infix;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import dk.ule.oapenwb.base.AppConfig;
+import dk.ule.oapenwb.base.error.CodeException;
+import dk.ule.oapenwb.logic.search.index.LexemeIndex;
+import dk.ule.oapenwb.logic.search.index.LexemeVariants;
+import dk.ule.oapenwb.util.collections.LongObjectMap;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * <p>The InfixIndex answers {@link dk.ule.oapenwb.logic.admin.lexeme.TextSearchType#Wildcard} searches whose
+ * pattern has too few literal characters for the trigram index on LexemeForms.text, e.g. <i>*hu*</i>. It is enabled
+ * by the configuration property <i>useInfixIndex</i>.</p>
+ * <p>It holds a {@link SuffixArray} over the distinct (lowercased) texts of all lexeme forms. Since a suffix array
+ * cannot be changed, the forms of the lexemes changed since it was built are held aside and matched one by one.
+ * Once there are more than {@link #REBUILD_THRESHOLD} changed variants the suffix array is rebuilt from memory.
+ * The rebuild runs outside the lock, so the searches use the old suffix array meanwhile, and the changes reported
+ * during the rebuild are taken over before the new one is swapped in. The LexemesController reports the
+ * changes.</p>
+ */
+@Singleton
+public class InfixIndex extends LexemeIndex<InfixIndex.Data, List<InfixIndex.FormRow>>
+{
+	private static final Logger LOG = LoggerFactory.getLogger(InfixIndex.class);
+
+	/**
+	 * Patterns whose longest literal has fewer characters are answered by this index, longer ones by the trigram
+	 * index in the database.
+	 */
+	public static final int MIN_TRIGRAM_LITERAL = 3;
+
+	// Max. number of variants a pattern may match, the database is used for less selective patterns
+	private static final int MAX_MATCHES = 10_000;
+	private static final int REBUILD_THRESHOLD = 1_000;
+	private static final String[] NO_TEXTS = new String[0];
+
+	record FormRow(Long lexemeID, Long variantID, String text) {}
+
+	static class Data
+	{
+		final SuffixArray suffixArray;
+		// <index of the text in the suffix array, variantIDs>
+		final long[][] textVariants;
+		// <variantID, indexes of its texts in the suffix array>
+		final LongObjectMap<int[]> variantTexts;
+		final LexemeVariants lexemeVariants;
+		// <variantID, texts> of the variants changed since the suffix array was built, no texts if it was removed
+		final LongObjectMap<String[]> changedVariants = new LongObjectMap<>();
+
+		Data(final Collection<FormRow> rows)
+		{
+			final Map<String, Integer> textIndexes = new HashMap<>();
+			final List<String> texts = new ArrayList<>();
+			final List<Set<Long>> variantsOfTexts = new ArrayList<>();
+			final Map<Long, Set<Integer>> textsOfVariants = new HashMap<>();
+			final Map<Long, Set<Long>> variantsOfLexemes = new HashMap<>();
+			for (FormRow row : rows) {
+				variantsOfLexemes.computeIfAbsent(row.lexemeID(), k -> new LinkedHashSet<>()).add(row.variantID());
+				if (row.text() == null || row.text().isEmpty()) {
+					continue;
+				}
+				final int index = textIndexes.computeIfAbsent(row.text().toLowerCase(Locale.ROOT), text -> {
+					texts.add(text);
+					variantsOfTexts.add(new LinkedHashSet<>());
+					return texts.size() - 1;
+				});
+				variantsOfTexts.get(index).add(row.variantID());
+				textsOfVariants.computeIfAbsent(row.variantID(), k -> new LinkedHashSet<>()).add(index);
+			}
+
+			this.suffixArray = new SuffixArray(texts);
+			this.textVariants = new long[texts.size()][];
+			for (int i = 0; i < texts.size(); i++) {
+				textVariants[i] = variantsOfTexts.get(i).stream().mapToLong(Long::longValue).toArray();
+			}
+			this.variantTexts = new LongObjectMap<>(textsOfVariants.size());
+			textsOfVariants.forEach((variantID, indexes) -> variantTexts.put(variantID,
+				indexes.stream().mapToInt(Integer::intValue).toArray()));
+			this.lexemeVariants = new LexemeVariants(variantsOfLexemes.size());
+			variantsOfLexemes.forEach((lexemeID, variantIDs) -> lexemeVariants.put(lexemeID,
+				variantIDs.stream().mapToLong(Long::longValue).toArray()));
+		}
+
+		/**
+		 * <p>Replaces the forms of a lexeme. The forms of its former variants are removed.</p>
+		 *
+		 * @param variantForms <variantID, texts> of the lexeme, empty if the lexeme was removed
+		 */
+		void replaceLexeme(final long lexemeID, final Map<Long, String[]> variantForms)
+		{
+			for (long variantID : lexemeVariants.remove(lexemeID)) {
+				changedVariants.put(variantID, NO_TEXTS);
+			}
+			if (!variantForms.isEmpty()) {
+				lexemeVariants.put(lexemeID, variantForms.keySet().stream().mapToLong(Long::longValue).toArray());
+				variantForms.forEach((variantID, texts) -> changedVariants.put(variantID, texts));
+			}
+		}
+
+		/**
+		 * @return <variantID, texts> of the lexeme including the changed ones
+		 */
+		Map<Long, String[]> getForms(final long lexemeID)
+		{
+			final Map<Long, String[]> forms = new LinkedHashMap<>();
+			for (long variantID : lexemeVariants.get(lexemeID)) {
+				forms.put(variantID, getTexts(variantID));
+			}
+			return forms;
+		}
+
+		/**
+		 * @return the current forms including the changed ones, to build a new instance from
+		 */
+		List<FormRow> toRows()
+		{
+			final List<FormRow> rows = new ArrayList<>();
+			lexemeVariants.forEach((lexemeID, variantIDs) -> {
+				for (long variantID : variantIDs) {
+					for (String text : getTexts(variantID)) {
+						rows.add(new FormRow(lexemeID, variantID, text));
+					}
+				}
+			});
+			return rows;
+		}
+
+		private String[] getTexts(final long variantID)
+		{
+			final String[] changed = changedVariants.get(variantID);
+			if (changed != null) {
+				return changed;
+			}
+			final int[] indexes = variantTexts.get(variantID);
+			if (indexes == null) {
+				return NO_TEXTS;
+			}
+			final String[] texts = new String[indexes.length];
+			for (int i = 0; i < indexes.length; i++) {
+				texts[i] = suffixArray.getText(indexes[i]);
+			}
+			return texts;
+		}
+	}
+
+	// IDs of the lexemes changed while a new suffix array is built, null if no rebuild is running. Guarded by the
+	// write lock.
+	private Set<Long> changedDuringRebuild = null;
+
+	@Inject
+	public InfixIndex(AppConfig appConfig)
+	{
+		super(appConfig);
+	}
+
+	@Override
+	public boolean isEnabled()
+	{
+		return appConfig.isUseInfixIndex();
+	}
+
+	@Override
+	public String getName()
+	{
+		return "infix index";
+	}
+
+	@Override
+	public String getFallback()
+	{
+		return "wildcard searches will be done on the database";
+	}
+
+	/**
+	 * @param pattern the pattern to search
+	 * @return the IDs of the variants having a lexeme form that matches the pattern in ascending order, or null if
+	 *   the index is not available or the pattern matches more than {@link #MAX_MATCHES} variants
+	 */
+	public long[] findVariants(final WildcardPattern pattern)
+	{
+		if (!isEnabled() || !isReady()) {
+			return null;
+		}
+		final Set<Long> result = new TreeSet<>();
+		lock.readLock().lock();
+		try {
+			for (int index : data.suffixArray.findContaining(pattern.getLongestLiteral())) {
+				if (!pattern.matches(data.suffixArray.getText(index))) {
+					continue;
+				}
+				for (long variantID : data.textVariants[index]) {
+					if (!data.changedVariants.containsKey(variantID)) {
+						result.add(variantID);
+					}
+				}
+				if (result.size() > MAX_MATCHES) {
+					return null;
+				}
+			}
+			data.changedVariants.forEach((variantID, texts) -> {
+				for (String text : texts) {
+					if (pattern.matches(text)) {
+						result.add(variantID);
+						break;
+					}
+				}
+			});
+		} finally {
+			lock.readLock().unlock();
+		}
+		return result.size() > MAX_MATCHES ? null : result.stream().mapToLong(Long::longValue).toArray();
+	}
+
+	@Override
+	public void lexemesChanged(Collection<Long> lexemeIDs)
+	{
+		super.lexemesChanged(lexemeIDs);
+
+		final Data base;
+		final List<FormRow> allRows;
+		lock.writeLock().lock();
+		try {
+			if (data == null || changedDuringRebuild != null || data.changedVariants.size() <= REBUILD_THRESHOLD) {
+				return;
+			}
+			changedDuringRebuild = new HashSet<>();
+			base = data;
+			allRows = data.toRows();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		rebuild(base, allRows);
+	}
+
+	@Override
+	protected Data createData(final List<FormRow> rows)
+	{
+		return new Data(rows);
+	}
+
+	@Override
+	protected void replaceLexemes(final Data data, final Collection<Long> lexemeIDs, final List<FormRow> rows)
+	{
+		// <lexemeID, <variantID, texts>>
+		final Map<Long, Map<Long, List<String>>> lexemeForms = new HashMap<>();
+		for (FormRow row : rows) {
+			final List<String> texts = lexemeForms.computeIfAbsent(row.lexemeID(), k -> new LinkedHashMap<>())
+				.computeIfAbsent(row.variantID(), k -> new ArrayList<>());
+			if (row.text() != null && !row.text().isEmpty()) {
+				texts.add(row.text().toLowerCase(Locale.ROOT));
+			}
+		}
+		for (Long lexemeID : lexemeIDs) {
+			final Map<Long, String[]> variantForms = new LinkedHashMap<>();
+			lexemeForms.getOrDefault(lexemeID, Map.of()).forEach((variantID, texts) ->
+				variantForms.put(variantID, texts.toArray(NO_TEXTS)));
+			data.replaceLexeme(lexemeID, variantForms);
+		}
+		if (changedDuringRebuild != null) {
+			changedDuringRebuild.addAll(lexemeIDs);
+		}
+	}
+
+	@Override
+	protected String describe(final Data data)
+	{
+		return data.suffixArray.size() + " distinct texts";
+	}
+
+	/**
+	 * <p>Builds a new suffix array from the given forms without holding the lock and swaps it in.</p>
+	 *
+	 * @param base the data the forms were taken from
+	 */
+	private void rebuild(final Data base, final List<FormRow> rows)
+	{
+		Data newData = null;
+		try {
+			newData = new Data(rows);
+		} catch (RuntimeException e) {
+			LOG.error("Rebuilding the infix index failed", e);
+		}
+
+		lock.writeLock().lock();
+		try {
+			// A full build may have replaced the data meanwhile
+			if (newData != null && data == base) {
+				for (Long lexemeID : changedDuringRebuild) {
+					newData.replaceLexeme(lexemeID, data.getForms(lexemeID));
+				}
+				this.data = newData;
+			}
+			changedDuringRebuild = null;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * @param lexemeIDs the lexemes to load, or null to load all lexemes
+	 */
+	@Override
+	protected List<FormRow> load(final Session session, final Collection<Long> lexemeIDs) throws CodeException
+	{
+		final boolean all = lexemeIDs == null;
+
+		// Q630
+		final NativeQuery<FormRow> query = session.createNativeQuery(
+				"select v.lexemeID, lf.variantID, lf.text\n"
+					+ "from LexemeForms lf inner join Variants v on lf.variantID = v.id\n"
+					+ (all ? "" : "where v.lexemeID in (:lexemeIDs)\n"), FormRow.class)
+			.addScalar("lexemeID", StandardBasicTypes.LONG)
+			.addScalar("variantID", StandardBasicTypes.LONG)
+			.addScalar("text", StandardBasicTypes.STRING);
+		if (!all) {
+			query.setParameterList("lexemeIDs", lexemeIDs);
+		}
+		return query.list();
+	}
+}
@@ -0,0 +1,159 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.infix;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * <p>A suffix array over a list of texts for finding all texts that contain a given string, also a very short one.
+ * The texts are concatenated, separated by a character that sorts before all others, and the start positions of
+ * all suffixes are sorted. The suffixes starting with the searched string then form one range that is found by
+ * binary search.</p>
+ * <p>The array is immutable and thus thread-safe.</p>
+ */
+public class SuffixArray
+{
+	private static final char SEPARATOR = '\0';
+
+	private final List<String> texts;
+	// All texts, each one followed by the separator
+	private final char[] chars;
+	// Start position of each text in chars
+	private final int[] starts;
+	// Start positions of the suffixes in sorted order
+	private final int[] suffixes;
+
+	public SuffixArray(final List<String> texts)
+	{
+		this.texts = List.copyOf(texts);
+		this.starts = new int[texts.size()];
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < texts.size(); i++) {
+			starts[i] = sb.length();
+			sb.append(texts.get(i).replace(SEPARATOR, ' ')).append(SEPARATOR);
+		}
+		this.chars = sb.toString().toCharArray();
+		// Each text is followed by one separator
+		this.suffixes = new int[chars.length - texts.size()];
+		int count = 0;
+		for (int position = 0; position < chars.length; position++) {
+			if (chars[position] != SEPARATOR) {
+				suffixes[count++] = position;
+			}
+		}
+		sortSuffixes();
+	}
+
+	public int size()
+	{
+		return texts.size();
+	}
+
+	public String getText(final int index)
+	{
+		return texts.get(index);
+	}
+
+	/**
+	 * @param infix the string to search, the empty string is contained in every text
+	 * @return the indexes of the texts containing the infix in ascending order
+	 */
+	public int[] findContaining(final String infix)
+	{
+		if (infix.isEmpty()) {
+			return IntStream.range(0, texts.size()).toArray();
+		}
+		if (infix.indexOf(SEPARATOR) >= 0) {
+			return new int[0];
+		}
+		// First suffix that is not less than the infix
+		int low = 0, high = suffixes.length;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (comparePrefix(suffixes[middle], infix) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		final BitSet result = new BitSet(texts.size());
+		for (int i = low; i < suffixes.length && comparePrefix(suffixes[i], infix) == 0; i++) {
+			result.set(getTextIndex(suffixes[i]));
+		}
+		return result.stream().toArray();
+	}
+
+	private int getTextIndex(final int position)
+	{
+		final int index = Arrays.binarySearch(starts, position);
+		return index >= 0 ? index : -index - 2;
+	}
+
+	/**
+	 * Sorts the suffixes by a bottom-up merge sort on the primitive array, so that no Integer has to be boxed for a
+	 * comparator.
+	 */
+	private void sortSuffixes()
+	{
+		int[] source = suffixes;
+		int[] target = new int[source.length];
+		for (int width = 1; width < source.length; width *= 2) {
+			for (int low = 0; low < source.length; low += 2 * width) {
+				final int middle = Math.min(low + width, source.length);
+				final int high = Math.min(low + 2 * width, source.length);
+				int i = low, j = middle, k = low;
+				while (i < middle && j < high) {
+					target[k++] = compareSuffixes(source[i], source[j]) <= 0 ? source[i++] : source[j++];
+				}
+				while (i < middle) {
+					target[k++] = source[i++];
+				}
+				while (j < high) {
+					target[k++] = source[j++];
+				}
+			}
+			final int[] merged = target;
+			target = source;
+			source = merged;
+		}
+		if (source != suffixes) {
+			System.arraycopy(source, 0, suffixes, 0, source.length);
+		}
+	}
+
+	/**
+	 * Compares two suffixes up to the end of their texts.
+	 */
+	private int compareSuffixes(final int a, final int b)
+	{
+		int i = a, j = b;
+		while (true) {
+			final char ca = chars[i], cb = chars[j];
+			if (ca != cb) {
+				return Character.compare(ca, cb);
+			}
+			if (ca == SEPARATOR) {
+				return 0;
+			}
+			i++;
+			j++;
+		}
+	}
+
+	/**
+	 * @return 0 if the suffix starts with the infix, otherwise the order of the suffix relative to the infix
+	 */
+	private int comparePrefix(final int position, final String infix)
+	{
+		for (int k = 0; k < infix.length(); k++) {
+			final char c = chars[position + k];
+			if (c != infix.charAt(k)) {
+				return Character.compare(c, infix.charAt(k));
+			}
+		}
+		return 0;
+	}
+}
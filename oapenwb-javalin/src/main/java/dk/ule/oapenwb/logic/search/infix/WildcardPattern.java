@@ -0,0 +1,97 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.infix;
+
+import java.util.Locale;
+
+/**
+ * <p>A search pattern of the {@link dk.ule.oapenwb.logic.admin.lexeme.TextSearchType#Wildcard} search: '*' matches
+ * any number of characters and '?' exactly one character. The pattern must match the whole text, e.g. <i>hus*</i>
+ * finds the texts starting with <i>hus</i>. A pattern without any wildcard finds the texts containing it, i.e.
+ * <i>hus</i> is the same as <i>*hus*</i>. The case is ignored.</p>
+ */
+public class WildcardPattern
+{
+	private final String pattern;
+	private final String longestLiteral;
+
+	private WildcardPattern(final String pattern)
+	{
+		this.pattern = pattern;
+		String longest = "";
+		for (String literal : pattern.split("[*?]+")) {
+			if (literal.length() > longest.length()) {
+				longest = literal;
+			}
+		}
+		this.longestLiteral = longest;
+	}
+
+	public static WildcardPattern parse(final String text)
+	{
+		final String pattern = text.trim().toLowerCase(Locale.ROOT);
+		if (pattern.indexOf('*') < 0 && pattern.indexOf('?') < 0) {
+			return new WildcardPattern("*" + pattern + "*");
+		}
+		return new WildcardPattern(pattern);
+	}
+
+	public String getPattern()
+	{
+		return pattern;
+	}
+
+	/**
+	 * @return the longest run of characters without a wildcard, it determines how selective an index probe is
+	 */
+	public String getLongestLiteral()
+	{
+		return longestLiteral;
+	}
+
+	/**
+	 * @return the pattern for the SQL operators LIKE and ILIKE with backslash as the escape character
+	 */
+	public String toLikePattern()
+	{
+		final StringBuilder sb = new StringBuilder(pattern.length() + 8);
+		for (int i = 0; i < pattern.length(); i++) {
+			final char c = pattern.charAt(i);
+			switch (c) {
+				case '*' -> sb.append('%');
+				case '?' -> sb.append('_');
+				case '%', '_', '\\' -> sb.append('\\').append(c);
+				default -> sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @param text the text to match, it must already be lowercased
+	 */
+	public boolean matches(final String text)
+	{
+		// Iterative matching that backtracks only to the last '*'
+		int p = 0, t = 0;
+		int starP = -1, starT = -1;
+		while (t < text.length()) {
+			if (p < pattern.length() && (pattern.charAt(p) == '?' || pattern.charAt(p) == text.charAt(t))) {
+				p++;
+				t++;
+			} else if (p < pattern.length() && pattern.charAt(p) == '*') {
+				starP = p++;
+				starT = t;
+			} else if (starP >= 0) {
+				p = starP + 1;
+				t = ++starT;
+			} else {
+				return false;
+			}
+		}
+		while (p < pattern.length() && pattern.charAt(p) == '*') {
+			p++;
+		}
+		return p == pattern.length();
+	}
+}
@@ -0,0 +1,125 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.phonetic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * <p>Encodes a word into a phonetic key in the style of the Cologne phonetics (Kölner Phonetik), so that words that
+ * sound alike get the same key, e.g. 'Meyer' and 'Maier' both get '67'.</p>
+ * <p>The encoding is driven by rules, see {@link #COLOGNE_RULES} and {@link #parse(String)}. The word is read from
+ * left to right; at each position the first rule whose pattern matches there appends its code and the position
+ * moves behind the match. Characters without a matching rule are skipped. As in the Cologne phonetics the same
+ * digit is never appended twice in a row and the vowel code '0' is only kept at the beginning.</p>
+ * <p>The words have to be folded by {@link dk.ule.oapenwb.logic.search.SearchKeyFolder} before. Instances are
+ * immutable and thus thread-safe.</p>
+ */
+public class PhoneticEncoder
+{
+	/**
+	 * The rules of the Cologne phonetics for folded words. The lookbehinds and lookaheads see the whole word, '^'
+	 * marks its beginning.
+	 */
+	public static final String COLOGNE_RULES = String.join(";",
+		"[aeijouy]=0",
+		"h=",
+		"b=1",
+		"p(?=h)=3",
+		"p=1",
+		"[dt](?=[csz])=8",
+		"[dt]=2",
+		"[fvw]=3",
+		"[gkq]=4",
+		"^c(?=[ahkloqrux])=4",
+		"(?<![sz])c(?=[ahkoqux])=4",
+		"c=8",
+		"(?<=[ckq])x=8",
+		"x=48",
+		"l=5",
+		"[mn]=6",
+		"r=7",
+		"[sz]=8");
+
+	public static final PhoneticEncoder COLOGNE = parse(COLOGNE_RULES);
+
+	private static final char NO_CODE = ' ';
+
+	private record Rule(Pattern pattern, String code) {}
+
+	private final List<Rule> rules;
+
+	private PhoneticEncoder(final List<Rule> rules)
+	{
+		this.rules = rules;
+	}
+
+	/**
+	 * @param rules the rules as 'pattern=code' pairs separated by ';'. The pattern is a regular expression, the
+	 *   code consists of digits and may be empty to ignore the matched characters.
+	 * @return the encoder
+	 * @throws IllegalArgumentException if a rule has no '=' or its pattern is not valid
+	 */
+	public static PhoneticEncoder parse(final String rules)
+	{
+		final List<Rule> result = new ArrayList<>();
+		for (String rule : rules.split(";")) {
+			if (rule.isBlank()) {
+				continue;
+			}
+			final int index = rule.lastIndexOf('=');
+			if (index < 1) {
+				throw new IllegalArgumentException("Phonetic rule has no pattern: " + rule);
+			}
+			try {
+				result.add(new Rule(Pattern.compile(rule.substring(0, index).trim()), rule.substring(index + 1).trim()));
+			} catch (PatternSyntaxException e) {
+				throw new IllegalArgumentException("Phonetic rule has an invalid pattern: " + rule, e);
+			}
+		}
+		return new PhoneticEncoder(List.copyOf(result));
+	}
+
+	/**
+	 * @param word the folded word
+	 * @return the phonetic key, it is empty if no rule matched
+	 */
+	public String encode(final String word)
+	{
+		final Matcher[] matchers = new Matcher[rules.size()];
+		for (int i = 0; i < matchers.length; i++) {
+			matchers[i] = rules.get(i).pattern().matcher(word)
+				.useTransparentBounds(true)
+				.useAnchoringBounds(false);
+		}
+		final StringBuilder sb = new StringBuilder();
+		char last = NO_CODE;
+		int position = 0;
+		while (position < word.length()) {
+			int end = -1;
+			for (int i = 0; i < matchers.length; i++) {
+				final Matcher matcher = matchers[i].region(position, word.length());
+				if (matcher.lookingAt() && matcher.end() > position) {
+					end = matcher.end();
+					final String code = rules.get(i).code();
+					if (code.isEmpty()) {
+						last = NO_CODE;
+					}
+					for (int k = 0; k < code.length(); k++) {
+						final char c = code.charAt(k);
+						if (c != last && (c != '0' || sb.isEmpty())) {
+							sb.append(c);
+						}
+						last = c;
+					}
+					break;
+				}
+			}
+			position = end < 0 ? position + 1 : end;
+		}
+		return sb.toString();
+	}
+}
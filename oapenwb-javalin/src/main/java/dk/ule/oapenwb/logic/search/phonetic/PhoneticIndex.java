@@ -0,0 +1,361 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.phonetic;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import dk.ule.oapenwb.base.AppConfig;
+import dk.ule.oapenwb.base.error.CodeException;
+import dk.ule.oapenwb.logic.admin.LanguagesController;
+import dk.ule.oapenwb.logic.admin.lexeme.LexemesController;
+import dk.ule.oapenwb.logic.search.SearchKeyFolder;
+import dk.ule.oapenwb.logic.search.index.LexemeIndex;
+import dk.ule.oapenwb.logic.search.index.LexemeVariants;
+import dk.ule.oapenwb.logic.search.index.TranslationGraph;
+import dk.ule.oapenwb.persistency.entity.content.basedata.Language;
+import dk.ule.oapenwb.util.collections.LongObjectMap;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>The PhoneticIndex answers the searches with the option
+ * {@link dk.ule.oapenwb.logic.search.SearchRequest#isPhonetic()}, i.e. it finds the lexeme forms that sound like the
+ * search term although they are spelled differently, as it is common with dialect spellings. It is enabled by the
+ * configuration property <i>usePhoneticIndex</i>.</p>
+ * <p>For each language it maps the phonetic keys of the tokens of all lexeme forms of the active variants to these
+ * variants. The tokens are folded with the character equivalences of the lexeme's language
+ * ({@link Language#getSearchFoldFrom()}) and the keys are computed by a {@link PhoneticEncoder} with the rules of
+ * that language ({@link Language#getPhoneticRules()}, the Cologne phonetics by default). It is built and refreshed
+ * as described for the {@link LexemeIndex}; the keys of a language are recomputed when one of these properties of
+ * the language is changed.</p>
+ */
+@Singleton
+public class PhoneticIndex extends LexemeIndex<PhoneticIndex.Data, Map<Long, Map<Long, PhoneticIndex.VariantKeys>>>
+{
+	private static final Logger LOG = LoggerFactory.getLogger(PhoneticIndex.class);
+
+	// Max. number of variants a term may match, the term is searched as text for less selective terms
+	private static final int MAX_MATCHES = 10_000;
+
+	record FormRow(Long lexemeID, Long variantID, Integer langID, String text) {}
+
+	record VariantKeys(int langID, String[] keys) {}
+
+	/**
+	 * The folding and encoding of a language.
+	 */
+	private record LanguageRules(String foldFrom, String foldTo, PhoneticEncoder encoder)
+	{
+		/**
+		 * @return the phonetic keys of the tokens of the text, without empty keys
+		 */
+		List<String> encode(final String text)
+		{
+			final List<String> keys = new ArrayList<>();
+			for (String token : TranslationGraph.tokenize(SearchKeyFolder.fold(text, foldFrom, foldTo))) {
+				final String key = encoder.encode(token);
+				if (!key.isEmpty()) {
+					keys.add(key);
+				}
+			}
+			return keys;
+		}
+	}
+
+	static class Data
+	{
+		// <langID, <key, variantIDs>>
+		final Map<Integer, Map<String, Set<Long>>> keys = new HashMap<>();
+		// <variantID, keys>
+		final LongObjectMap<VariantKeys> variantKeys = new LongObjectMap<>();
+		final LexemeVariants lexemeVariants = new LexemeVariants();
+
+		void add(long lexemeID, Map<Long, VariantKeys> variants)
+		{
+			variants.forEach((variantID, variant) -> {
+				lexemeVariants.add(lexemeID, variantID);
+				variantKeys.put(variantID, variant);
+				final Map<String, Set<Long>> langKeys = keys.computeIfAbsent(variant.langID(), k -> new HashMap<>());
+				for (String key : variant.keys()) {
+					langKeys.computeIfAbsent(key, k -> new HashSet<>()).add(variantID);
+				}
+			});
+		}
+
+		void removeLexeme(long lexemeID)
+		{
+			for (long variantID : lexemeVariants.remove(lexemeID)) {
+				final VariantKeys variant = variantKeys.remove(variantID);
+				final Map<String, Set<Long>> langKeys = variant == null ? null : keys.get(variant.langID());
+				if (langKeys == null) {
+					continue;
+				}
+				for (String key : variant.keys()) {
+					final Set<Long> keyVariants = langKeys.get(key);
+					if (keyVariants != null && keyVariants.remove(variantID) && keyVariants.isEmpty()) {
+						langKeys.remove(key);
+					}
+				}
+			}
+		}
+
+		void removeLanguage(int langID)
+		{
+			final List<Long> lexemeIDs = new ArrayList<>();
+			lexemeVariants.forEach((lexemeID, variantIDs) -> {
+				final VariantKeys variant = variantIDs.length == 0 ? null : variantKeys.get(variantIDs[0]);
+				if (variant != null && variant.langID() == langID) {
+					lexemeIDs.add(lexemeID);
+				}
+			});
+			lexemeIDs.forEach(this::removeLexeme);
+			keys.remove(langID);
+		}
+	}
+
+	private final LanguagesController languagesController;
+	// <langID, rules>, the properties of a language are read once
+	private final Map<Integer, LanguageRules> languageRules = new ConcurrentHashMap<>();
+
+	@Inject
+	public PhoneticIndex(AppConfig appConfig, LanguagesController languagesController,
+		LexemesController lexemesController)
+	{
+		super(appConfig);
+		this.languagesController = languagesController;
+		lexemesController.addChangeListener(this);
+		languagesController.addChangeListener(this::languageChanged);
+	}
+
+	@Override
+	public boolean isEnabled()
+	{
+		return appConfig.isUsePhoneticIndex();
+	}
+
+	@Override
+	public String getName()
+	{
+		return "phonetic index";
+	}
+
+	@Override
+	public String getFallback()
+	{
+		return "phonetic searches will be done as text searches";
+	}
+
+	@Override
+	public void build() throws CodeException
+	{
+		// Changed properties of the languages are taken over on a rebuild
+		languageRules.clear();
+		super.build();
+	}
+
+	/**
+	 * <p>Finds the variants having lexeme forms that sound like all words of the term in one of the languages.
+	 * Words starting with '-' or '!' are ignored, just as the quotes of phrases.</p>
+	 *
+	 * @param langIDs the languages to search in
+	 * @param term the search term
+	 * @return the IDs of the found variants in ascending order, or null if the index is not available or the term
+	 *   matches more than {@link #MAX_MATCHES} variants
+	 */
+	public long[] findVariants(final Set<Integer> langIDs, final String term) throws CodeException
+	{
+		if (!isEnabled() || !isReady() || term == null) {
+			return null;
+		}
+		final StringBuilder words = new StringBuilder();
+		for (String word : term.replace('"', ' ').trim().split("\\s+")) {
+			if (!word.isEmpty() && !word.startsWith("-") && !word.startsWith("!")) {
+				words.append(word).append(' ');
+			}
+		}
+
+		final Set<Long> result = new TreeSet<>();
+		lock.readLock().lock();
+		try {
+			for (Integer langID : langIDs) {
+				final Map<String, Set<Long>> langKeys = data.keys.get(langID);
+				if (langKeys == null) {
+					continue;
+				}
+				Set<Long> langResult = null;
+				for (String key : getRules(langID).encode(words.toString())) {
+					final Set<Long> keyVariants = langKeys.getOrDefault(key, Set.of());
+					if (langResult == null) {
+						langResult = new HashSet<>(keyVariants);
+					} else {
+						langResult.retainAll(keyVariants);
+					}
+				}
+				if (langResult != null) {
+					result.addAll(langResult);
+				}
+				if (result.size() > MAX_MATCHES) {
+					return null;
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		return result.stream().mapToLong(Long::longValue).toArray();
+	}
+
+	@Override
+	protected Data createData(final Map<Long, Map<Long, VariantKeys>> keys)
+	{
+		final Data newData = new Data();
+		keys.forEach(newData::add);
+		return newData;
+	}
+
+	@Override
+	protected void replaceLexemes(final Data data, final Collection<Long> lexemeIDs,
+		final Map<Long, Map<Long, VariantKeys>> keys)
+	{
+		for (Long lexemeID : lexemeIDs) {
+			data.removeLexeme(lexemeID);
+		}
+		keys.forEach(data::add);
+	}
+
+	@Override
+	protected String describe(final Data data)
+	{
+		return data.variantKeys.size() + " variants";
+	}
+
+	private void languageChanged(final Language oldLanguage, final Language newLanguage)
+	{
+		// New languages have no lexemes yet and languages with lexemes can't be deleted
+		if (oldLanguage == null || newLanguage == null
+			|| (Objects.equals(oldLanguage.getPhoneticRules(), newLanguage.getPhoneticRules())
+				&& Objects.equals(oldLanguage.getSearchFoldFrom(), newLanguage.getSearchFoldFrom())
+				&& Objects.equals(oldLanguage.getSearchFoldTo(), newLanguage.getSearchFoldTo()))) {
+			return;
+		}
+		final int langID = newLanguage.getId();
+		languageRules.remove(langID);
+		if (!isEnabled() || !isReady()) {
+			return;
+		}
+
+		final Map<Long, Map<Long, VariantKeys>> keys;
+		try {
+			keys = computeKeys(loadForms(getSession(), null, langID));
+		} catch (Exception e) {
+			LOG.error("Refreshing the phonetic index failed for language " + langID, e);
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			data.removeLanguage(langID);
+			keys.forEach(data::add);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		LOG.info("The phonetic index was refreshed for language {}", langID);
+	}
+
+	private LanguageRules getRules(final int langID) throws CodeException
+	{
+		final LanguageRules rules = languageRules.get(langID);
+		if (rules != null) {
+			return rules;
+		}
+		final Language language = languagesController.get(langID);
+		if (language == null) {
+			return new LanguageRules(null, null, PhoneticEncoder.COLOGNE);
+		}
+		final String phoneticRules = language.getPhoneticRules();
+		PhoneticEncoder encoder = PhoneticEncoder.COLOGNE;
+		if (phoneticRules != null && !phoneticRules.isBlank()) {
+			try {
+				encoder = PhoneticEncoder.parse(phoneticRules);
+			} catch (IllegalArgumentException e) {
+				LOG.warn("The phonetic rules of language {} are invalid, the Cologne phonetics are used instead: {}",
+					langID, e.getMessage());
+			}
+		}
+		final LanguageRules newRules = new LanguageRules(language.getSearchFoldFrom(), language.getSearchFoldTo(),
+			encoder);
+		languageRules.put(langID, newRules);
+		return newRules;
+	}
+
+	/**
+	 * <p>Loads the lexeme forms of the active variants of active lexemes and computes their phonetic keys.</p>
+	 *
+	 * @param lexemeIDs the lexemes to load, or null to load all lexemes
+	 * @return <lexemeID, <variantID, keys>>
+	 */
+	@Override
+	protected Map<Long, Map<Long, VariantKeys>> load(final Session session, final Collection<Long> lexemeIDs)
+		throws CodeException
+	{
+		return computeKeys(loadForms(session, lexemeIDs, null));
+	}
+
+	/**
+	 * @param lexemeIDs the lexemes to load, or null to load the lexemes of all languages or the given language
+	 * @param langID the language to load the lexemes of, or null
+	 * @return the lexeme forms of the active variants of active lexemes
+	 */
+	List<FormRow> loadForms(final Session session, final Collection<Long> lexemeIDs, final Integer langID)
+	{
+		// Q640
+		final NativeQuery<FormRow> query = session.createNativeQuery(
+				"select l.id as lexemeID, lf.variantID, l.langID, lf.text\n"
+					+ "from LexemeForms lf inner join Variants v on lf.variantID = v.id\n"
+					+ "\tinner join Lexemes l on v.lexemeID = l.id\n"
+					+ "where l.active = true and v.active = true\n"
+					+ (lexemeIDs == null ? "" : "\tand l.id in (:lexemeIDs)\n")
+					+ (langID == null ? "" : "\tand l.langID = :langID\n"), FormRow.class)
+			.addScalar("lexemeID", StandardBasicTypes.LONG)
+			.addScalar("variantID", StandardBasicTypes.LONG)
+			.addScalar("langID", StandardBasicTypes.INTEGER)
+			.addScalar("text", StandardBasicTypes.STRING);
+		if (lexemeIDs != null) {
+			query.setParameterList("lexemeIDs", lexemeIDs);
+		}
+		if (langID != null) {
+			query.setParameter("langID", langID);
+		}
+		return query.list();
+	}
+
+	/**
+	 * @return <lexemeID, <variantID, keys>>
+	 */
+	private Map<Long, Map<Long, VariantKeys>> computeKeys(final List<FormRow> rows) throws CodeException
+	{
+		// <lexemeID, <variantID, keys>>
+		final Map<Long, Map<Long, Set<String>>> lexemeKeys = new HashMap<>();
+		final Map<Long, Integer> lexemeLangs = new HashMap<>();
+		for (FormRow row : rows) {
+			lexemeLangs.put(row.lexemeID(), row.langID());
+			lexemeKeys.computeIfAbsent(row.lexemeID(), k -> new LinkedHashMap<>())
+				.computeIfAbsent(row.variantID(), k -> new LinkedHashSet<>())
+				.addAll(getRules(row.langID()).encode(row.text()));
+		}
+
+		final Map<Long, Map<Long, VariantKeys>> result = new HashMap<>(lexemeKeys.size());
+		lexemeKeys.forEach((lexemeID, variants) -> {
+			final int langID = lexemeLangs.get(lexemeID);
+			final Map<Long, VariantKeys> variantKeys = new LinkedHashMap<>();
+			variants.forEach((variantID, keys) -> variantKeys.put(variantID,
+				new VariantKeys(langID, keys.toArray(new String[0]))));
+			result.put(lexemeID, variantKeys);
+		});
+		return result;
+	}
+}
@@ -0,0 +1,271 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.spelling;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import dk.ule.oapenwb.base.AppConfig;
+import dk.ule.oapenwb.base.error.CodeException;
+import dk.ule.oapenwb.logic.admin.lexeme.LexemesController;
+import dk.ule.oapenwb.logic.search.SearchKeyFolder;
+import dk.ule.oapenwb.logic.search.index.LexemeIndex;
+import dk.ule.oapenwb.logic.search.index.TranslationGraph;
+import dk.ule.oapenwb.util.collections.LongObjectMap;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
+
+import java.util.*;
+
+/**
+ * <p>The SpellingIndex suggests corrections for search terms that did not find anything, e.g. because of a typo.
+ * It is enabled by the configuration property <i>useSpellingSuggestions</i>.</p>
+ * <p>For each language a {@link SymSpell} dictionary is held of the tokens of all lexeme forms of the active
+ * lexemes, so that the words within an edit distance of up to {@link #MAX_DISTANCE} are found without querying the
+ * database. It is built and refreshed as described for the {@link LexemeIndex}.</p>
+ * <p>The tokens are folded by the {@link SearchKeyFolder} like the search keys. So a word that differs from a known
+ * one only in case or diacritics is not corrected, and the suggestions are folded words.</p>
+ */
+@Singleton
+public class SpellingIndex extends LexemeIndex<SpellingIndex.Data, Map<Long, SpellingIndex.LexemeTokens>>
+{
+	public static final int MAX_DISTANCE = 2;
+	// Deletes are only stored for this number of leading characters, typos at the end are found nevertheless
+	private static final int PREFIX_LENGTH = 7;
+
+	private record FormRow(Long lexemeID, Integer langID, String text) {}
+
+	record LexemeTokens(int langID, String[] tokens) {}
+
+	static class Data
+	{
+		// <langID, dictionary>
+		final Map<Integer, SymSpell> dictionaries = new HashMap<>();
+		// <lexemeID, tokens>
+		final LongObjectMap<LexemeTokens> lexemeTokens = new LongObjectMap<>();
+		int tokenCount = 0;
+
+		void add(long lexemeID, LexemeTokens tokens)
+		{
+			lexemeTokens.put(lexemeID, tokens);
+			final SymSpell dictionary = dictionaries.computeIfAbsent(tokens.langID(),
+				k -> new SymSpell(MAX_DISTANCE, PREFIX_LENGTH));
+			for (String token : tokens.tokens()) {
+				dictionary.add(token);
+			}
+			tokenCount += tokens.tokens().length;
+		}
+
+		void removeLexeme(long lexemeID)
+		{
+			final LexemeTokens tokens = lexemeTokens.remove(lexemeID);
+			final SymSpell dictionary = tokens == null ? null : dictionaries.get(tokens.langID());
+			if (dictionary == null) {
+				return;
+			}
+			for (String token : tokens.tokens()) {
+				dictionary.remove(token);
+			}
+			tokenCount -= tokens.tokens().length;
+		}
+	}
+
+	@Inject
+	public SpellingIndex(AppConfig appConfig, LexemesController lexemesController)
+	{
+		super(appConfig);
+		lexemesController.addChangeListener(this);
+	}
+
+	@Override
+	public boolean isEnabled()
+	{
+		return appConfig.isUseSpellingSuggestions();
+	}
+
+	@Override
+	public String getName()
+	{
+		return "spelling index";
+	}
+
+	@Override
+	public String getFallback()
+	{
+		return "no spelling corrections will be suggested";
+	}
+
+	/**
+	 * <p>Creates corrected search terms for the given term. Each word of the term that consists of a single token
+	 * unknown in all of the given languages is replaced by a similar word. Words starting with '-' or '!' and
+	 * phrases are kept as they are.</p>
+	 * <p>The first suggestion replaces each unknown word by its most similar word (smallest distance, then most
+	 * frequent). The further ones replace the first unknown word by its next candidates.</p>
+	 *
+	 * @param langIDs the languages to search in
+	 * @param term the search term
+	 * @param maxResults the maximum number of suggestions
+	 * @return the suggested terms, empty if the index is not available or no word could be corrected
+	 */
+	public List<String> suggest(final Set<Integer> langIDs, final String term, final int maxResults)
+	{
+		if (!isEnabled() || !isReady() || term == null || term.indexOf('"') >= 0) {
+			return List.of();
+		}
+		final String[] words = term.trim().split("\\s+");
+		// <index of the word, its candidates>
+		final Map<Integer, List<String>> corrections = new LinkedHashMap<>();
+		lock.readLock().lock();
+		try {
+			for (int i = 0; i < words.length; i++) {
+				final String word = words[i];
+				if (word.startsWith("-") || word.startsWith("!")) {
+					continue;
+				}
+				final List<String> tokens = TranslationGraph.tokenize(SearchKeyFolder.fold(word));
+				if (tokens.size() != 1 || isKnown(langIDs, tokens.get(0))) {
+					continue;
+				}
+				final List<String> candidates = lookup(langIDs, tokens.get(0), maxResults);
+				if (!candidates.isEmpty()) {
+					corrections.put(i, candidates);
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		if (corrections.isEmpty()) {
+			return List.of();
+		}
+
+		final Map.Entry<Integer, List<String>> first = corrections.entrySet().iterator().next();
+		final List<String> result = new ArrayList<>(first.getValue().size());
+		for (String candidate : first.getValue()) {
+			final String[] corrected = words.clone();
+			corrections.forEach((index, candidates) -> corrected[index] = candidates.get(0));
+			corrected[first.getKey()] = candidate;
+			result.add(String.join(" ", corrected));
+		}
+		return result;
+	}
+
+	private boolean isKnown(final Set<Integer> langIDs, final String token)
+	{
+		for (Integer langID : langIDs) {
+			final SymSpell dictionary = data.dictionaries.get(langID);
+			if (dictionary != null && dictionary.contains(token)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the words similar to the token in any of the languages, the most similar first
+	 */
+	private List<String> lookup(final Set<Integer> langIDs, final String token, final int maxResults)
+	{
+		final int distance = getMaxDistance(token);
+		if (distance == 0) {
+			return List.of();
+		}
+		final List<SymSpell.Suggestion> suggestions = new ArrayList<>();
+		for (Integer langID : langIDs) {
+			final SymSpell dictionary = data.dictionaries.get(langID);
+			if (dictionary != null) {
+				suggestions.addAll(dictionary.lookup(token, distance, maxResults));
+			}
+		}
+		// The same word may be found in several languages
+		final Map<String, SymSpell.Suggestion> merged = new HashMap<>();
+		for (SymSpell.Suggestion suggestion : suggestions) {
+			merged.merge(suggestion.word(), suggestion, (a, b) -> new SymSpell.Suggestion(a.word(),
+				Math.min(a.distance(), b.distance()), a.count() + b.count()));
+		}
+		return merged.values().stream()
+			.sorted(Comparator.comparingInt(SymSpell.Suggestion::distance)
+				.thenComparing(Comparator.comparingInt(SymSpell.Suggestion::count).reversed())
+				.thenComparing(SymSpell.Suggestion::word))
+			.limit(maxResults)
+			.map(SymSpell.Suggestion::word)
+			.toList();
+	}
+
+	/**
+	 * Short words are corrected with fewer edits since almost any short word is close to some other word.
+	 */
+	static int getMaxDistance(final String token)
+	{
+		if (token.length() <= 2) {
+			return 0;
+		}
+		return token.length() <= 4 ? 1 : MAX_DISTANCE;
+	}
+
+	@Override
+	protected Data createData(final Map<Long, LexemeTokens> tokens)
+	{
+		final Data newData = new Data();
+		tokens.forEach(newData::add);
+		return newData;
+	}
+
+	@Override
+	protected void replaceLexemes(final Data data, final Collection<Long> lexemeIDs,
+		final Map<Long, LexemeTokens> tokens)
+	{
+		for (Long lexemeID : lexemeIDs) {
+			data.removeLexeme(lexemeID);
+		}
+		tokens.forEach(data::add);
+	}
+
+	@Override
+	protected String describe(final Data data)
+	{
+		return data.tokenCount + " tokens of " + data.lexemeTokens.size() + " lexemes";
+	}
+
+	/**
+	 * <p>Loads the distinct tokens of the lexeme forms of the active variants of active lexemes.</p>
+	 *
+	 * @param lexemeIDs the lexemes to load, or null to load all lexemes
+	 * @return <lexemeID, tokens>
+	 */
+	@Override
+	protected Map<Long, LexemeTokens> load(final Session session, final Collection<Long> lexemeIDs)
+		throws CodeException
+	{
+		final boolean all = lexemeIDs == null;
+
+		// Q620
+		final NativeQuery<FormRow> query = session.createNativeQuery(
+				"select l.id as lexemeID, l.langID, lf.text\n"
+					+ "from LexemeForms lf inner join Variants v on lf.variantID = v.id\n"
+					+ "\tinner join Lexemes l on v.lexemeID = l.id\n"
+					+ "where l.active = true and v.active = true\n"
+					+ (all ? "" : "\tand l.id in (:lexemeIDs)\n"), FormRow.class)
+			.addScalar("lexemeID", StandardBasicTypes.LONG)
+			.addScalar("langID", StandardBasicTypes.INTEGER)
+			.addScalar("text", StandardBasicTypes.STRING);
+		if (!all) {
+			query.setParameterList("lexemeIDs", lexemeIDs);
+		}
+
+		final Map<Long, Integer> lexemeLangs = new HashMap<>();
+		final Map<Long, Set<String>> lexemeTokens = new HashMap<>();
+		for (FormRow row : query.list()) {
+			lexemeLangs.put(row.lexemeID(), row.langID());
+			lexemeTokens.computeIfAbsent(row.lexemeID(), k -> new LinkedHashSet<>())
+				.addAll(TranslationGraph.tokenize(SearchKeyFolder.fold(row.text())));
+		}
+
+		final Map<Long, LexemeTokens> result = new HashMap<>(lexemeTokens.size());
+		lexemeTokens.forEach((lexemeID, tokens) -> {
+			if (!tokens.isEmpty()) {
+				result.put(lexemeID, new LexemeTokens(lexemeLangs.get(lexemeID), tokens.toArray(new String[0])));
+			}
+		});
+		return result;
+	}
+}
@@ -0,0 +1,226 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.spelling;
+
+import java.util.*;
+
+/**
+ * <p>A dictionary for finding the words within a small edit distance of a (misspelled) term by the symmetric delete
+ * algorithm of SymSpell: for each word all strings are precomputed that result from deleting up to
+ * {@link #getMaxDistance()} characters of its prefix. A lookup generates the deletes of the term and only compares
+ * the term with the words sharing one of them, so the time does not depend on the number of words.</p>
+ * <p>The distance is the optimal string alignment distance, i.e. the Levenshtein distance where the transposition
+ * of two adjacent characters counts as one edit. Words are counted, so a word added several times (e.g. by several
+ * lexemes) is removed once it was removed as often. The dictionary is not thread-safe.</p>
+ */
+public class SymSpell
+{
+	/**
+	 * @param count how often the word was added
+	 */
+	public record Suggestion(String word, int distance, int count) {}
+
+	private static final String[] NO_WORDS = new String[0];
+
+	private final int maxDistance;
+	private final int prefixLength;
+
+	// <word, count>
+	private final Map<String, Integer> words = new HashMap<>();
+	// <delete, words having that delete>
+	private final Map<String, String[]> deletes = new HashMap<>();
+	private int maxWordLength = 0;
+
+	/**
+	 * @param maxDistance the maximum edit distance a lookup can be done with
+	 * @param prefixLength only the deletes of this number of leading characters are stored to save memory, it must
+	 *   be greater than maxDistance
+	 */
+	public SymSpell(final int maxDistance, final int prefixLength)
+	{
+		if (maxDistance < 0 || prefixLength <= maxDistance) {
+			throw new IllegalArgumentException("The prefix length must be greater than the maximum distance");
+		}
+		this.maxDistance = maxDistance;
+		this.prefixLength = prefixLength;
+	}
+
+	public int getMaxDistance()
+	{
+		return maxDistance;
+	}
+
+	public int getWordCount()
+	{
+		return words.size();
+	}
+
+	public boolean contains(final String word)
+	{
+		return words.containsKey(word);
+	}
+
+	public void add(final String word)
+	{
+		if (word == null || word.isEmpty()) {
+			return;
+		}
+		if (words.merge(word, 1, Integer::sum) > 1) {
+			return;
+		}
+		maxWordLength = Math.max(maxWordLength, word.length());
+		for (String delete : createDeletes(word)) {
+			final String[] entries = deletes.getOrDefault(delete, NO_WORDS);
+			final String[] newEntries = Arrays.copyOf(entries, entries.length + 1);
+			newEntries[entries.length] = word;
+			deletes.put(delete, newEntries);
+		}
+	}
+
+	public void remove(final String word)
+	{
+		final Integer count = words.get(word);
+		if (count == null) {
+			return;
+		}
+		if (count > 1) {
+			words.put(word, count - 1);
+			return;
+		}
+		words.remove(word);
+		for (String delete : createDeletes(word)) {
+			final String[] entries = deletes.get(delete);
+			if (entries == null) {
+				continue;
+			}
+			final String[] newEntries = Arrays.stream(entries).filter(entry -> !entry.equals(word))
+				.toArray(String[]::new);
+			if (newEntries.length == 0) {
+				deletes.remove(delete);
+			} else {
+				deletes.put(delete, newEntries);
+			}
+		}
+	}
+
+	/**
+	 * <p>Finds the words within the given edit distance of the term, ordered by their distance, then by their count
+	 * (descending) and then alphabetically.</p>
+	 *
+	 * @param term the term to look up, it is expected to be normalized in the same way as the added words
+	 * @param distance the maximum edit distance, at most {@link #getMaxDistance()}
+	 * @param maxResults the maximum number of suggestions
+	 */
+	public List<Suggestion> lookup(final String term, final int distance, final int maxResults)
+	{
+		final int maxEdits = Math.min(distance, maxDistance);
+		if (term == null || term.isEmpty() || term.length() - maxEdits > maxWordLength || maxResults < 1) {
+			return List.of();
+		}
+
+		final Map<String, Suggestion> suggestions = new HashMap<>();
+		final Integer termCount = words.get(term);
+		if (termCount != null) {
+			suggestions.put(term, new Suggestion(term, 0, termCount));
+		}
+
+		// Breadth-first over the deletes of the term's prefix, i.e. by increasing number of deletes
+		final String termPrefix = term.length() > prefixLength ? term.substring(0, prefixLength) : term;
+		final Set<String> visited = new HashSet<>();
+		final ArrayDeque<String> candidates = new ArrayDeque<>();
+		candidates.add(termPrefix);
+		visited.add(termPrefix);
+		while (!candidates.isEmpty()) {
+			final String candidate = candidates.poll();
+			final int deleted = termPrefix.length() - candidate.length();
+			for (String word : deletes.getOrDefault(candidate, NO_WORDS)) {
+				if (suggestions.containsKey(word) || Math.abs(word.length() - term.length()) > maxEdits) {
+					continue;
+				}
+				final int wordDistance = distance(term, word, maxEdits);
+				if (wordDistance <= maxEdits) {
+					suggestions.put(word, new Suggestion(word, wordDistance, words.get(word)));
+				}
+			}
+			if (deleted < maxEdits && !candidate.isEmpty()) {
+				for (int i = 0; i < candidate.length(); i++) {
+					final String delete = candidate.substring(0, i) + candidate.substring(i + 1);
+					if (visited.add(delete)) {
+						candidates.add(delete);
+					}
+				}
+			}
+		}
+
+		return suggestions.values().stream()
+			.sorted(Comparator.comparingInt(Suggestion::distance)
+				.thenComparing(Comparator.comparingInt(Suggestion::count).reversed())
+				.thenComparing(Suggestion::word))
+			.limit(maxResults)
+			.toList();
+	}
+
+	/**
+	 * @return the deletes of the word's prefix including the prefix itself
+	 */
+	private Set<String> createDeletes(final String word)
+	{
+		final String prefix = word.length() > prefixLength ? word.substring(0, prefixLength) : word;
+		final Set<String> result = new HashSet<>();
+		result.add(prefix);
+		Set<String> current = Set.of(prefix);
+		for (int d = 0; d < maxDistance; d++) {
+			final Set<String> next = new HashSet<>();
+			for (String s : current) {
+				if (s.isEmpty()) {
+					continue;
+				}
+				for (int i = 0; i < s.length(); i++) {
+					final String delete = s.substring(0, i) + s.substring(i + 1);
+					if (result.add(delete)) {
+						next.add(delete);
+					}
+				}
+			}
+			current = next;
+		}
+		return result;
+	}
+
+	/**
+	 * @return the optimal string alignment distance of a and b, or max + 1 if it exceeds max
+	 */
+	static int distance(final String a, final String b, final int max)
+	{
+		if (Math.abs(a.length() - b.length()) > max) {
+			return max + 1;
+		}
+		int[] previous2 = new int[b.length() + 1];
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) {
+			previous[j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			int rowMin = current[0];
+			for (int j = 1; j <= b.length(); j++) {
+				final int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+				int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+				if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+					value = Math.min(value, previous2[j - 2] + 1);
+				}
+				current[j] = value;
+				rowMin = Math.min(rowMin, value);
+			}
+			if (rowMin > max) {
+				return max + 1;
+			}
+			final int[] tmp = previous2;
+			previous2 = previous;
+			previous = current;
+			current = tmp;
+		}
+		return Math.min(previous[b.length()], max + 1);
+	}
+}
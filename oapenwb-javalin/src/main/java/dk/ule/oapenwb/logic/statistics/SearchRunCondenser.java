@@ -0,0 +1,290 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.statistics;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import dk.ule.oapenwb.base.AppConfig;
+import dk.ule.oapenwb.entity.statistics.CondenseType;
+import dk.ule.oapenwb.entity.statistics.CondensedData;
+import dk.ule.oapenwb.entity.statistics.SearchRun;
+import dk.ule.oapenwb.util.HibernateUtil;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The SearchRunCondenser is a scheduled job that condenses the raw {@link SearchRun}s of each past day (UTC) into
+ * one {@link CondensedData} row of type {@link CondenseType#Day} and deletes the raw runs of that day afterwards.
+ * Both happens in one transaction, i.e. a run is either still raw or part of the condensed data.</p>
+ * <p>A day is only condensed when it ended more than {@link #GRACE_PERIOD} ago, so that the runs still buffered by
+ * the {@link SearchRunRecorder} have been persisted. If runs of an already condensed day show up anyway they are
+ * merged into the existing row. The percentiles of a merged row are weighted averages and thus approximations.</p>
+ * <p>The number of users is always 0 since users are not tracked in the search runs.</p>
+ */
+@Singleton
+public class SearchRunCondenser
+{
+	private static final Logger LOG = LoggerFactory.getLogger(SearchRunCondenser.class);
+
+	static final Duration GRACE_PERIOD = Duration.ofHours(1);
+	static final int TOP_SEARCHES_COUNT = 10;
+
+	/**
+	 * Count and latency of the runs of one day as computed by query Q700.
+	 */
+	record StatsRow(Long searches, Integer millisMin, Integer millisMax, Double millisAvg,
+		Double millisMedian, Double millisP95) {}
+
+	private record TopSearchRow(String searchText, Long searches) {}
+
+	private final AppConfig.SearchStatisticsConfig config;
+
+	private ScheduledExecutorService executor = null;
+
+	@Inject
+	public SearchRunCondenser(AppConfig appConfig)
+	{
+		this.config = appConfig.getSearchStatisticsConfig();
+	}
+
+	public synchronized void start()
+	{
+		if (executor != null) {
+			return;
+		}
+		executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "search-run-condenser");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(this::condenseSafely, 1, Math.max(1, config.getCondenseIntervalMinutes()),
+			TimeUnit.MINUTES);
+	}
+
+	public synchronized void shutdown()
+	{
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	private void condenseSafely()
+	{
+		try {
+			condense(Instant.now());
+		} catch (Exception e) {
+			LOG.error("Condensing the search runs failed", e);
+		} finally {
+			HibernateUtil.closeSession();
+		}
+	}
+
+	/**
+	 * <p>Condenses all days that ended before {@code now} minus the grace period.</p>
+	 *
+	 * @return the number of condensed days
+	 */
+	public int condense(final Instant now)
+	{
+		final LocalDate firstOpenDay = LocalDate.ofInstant(now.minus(GRACE_PERIOD), ZoneOffset.UTC);
+		final Instant before = firstOpenDay.atStartOfDay(ZoneOffset.UTC).toInstant();
+		final Session session = HibernateUtil.getSession();
+
+		int days = 0;
+		Instant oldest;
+		while ((oldest = findOldestRun(session, before)) != null) {
+			condenseDay(session, LocalDate.ofInstant(oldest, ZoneOffset.UTC));
+			days++;
+		}
+		if (days > 0) {
+			LOG.info("Condensed the search runs of {} day(s)", days);
+		}
+		return days;
+	}
+
+	private Instant findOldestRun(final Session session, final Instant before)
+	{
+		return session.createQuery("SELECT MIN(R.whenTS) FROM SearchRun R WHERE R.whenTS < :before", Instant.class)
+			.setParameter("before", before)
+			.getSingleResult();
+	}
+
+	private void condenseDay(final Session session, final LocalDate day)
+	{
+		final Instant from = day.atStartOfDay(ZoneOffset.UTC).toInstant();
+		final Instant to = day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+
+		Transaction t = session.beginTransaction();
+		try {
+			// Count and latency of the runs of the day (Q700)
+			final NativeQuery<StatsRow> statsQuery = session.createNativeQuery(
+					"select count(*) as searches, min(millis) as millisMin, max(millis) as millisMax,\n"
+						+ "  cast(avg(millis) as float8) as millisAvg,\n"
+						+ "  percentile_cont(0.5) within group (order by millis) as millisMedian,\n"
+						+ "  percentile_cont(0.95) within group (order by millis) as millisP95\n"
+						+ "from SearchRuns where whenTS >= :from and whenTS < :to", StatsRow.class)
+				.addScalar("searches", StandardBasicTypes.LONG)
+				.addScalar("millisMin", StandardBasicTypes.INTEGER)
+				.addScalar("millisMax", StandardBasicTypes.INTEGER)
+				.addScalar("millisAvg", StandardBasicTypes.DOUBLE)
+				.addScalar("millisMedian", StandardBasicTypes.DOUBLE)
+				.addScalar("millisP95", StandardBasicTypes.DOUBLE);
+			statsQuery.setParameter("from", from);
+			statsQuery.setParameter("to", to);
+			final StatsRow stats = statsQuery.getSingleResult();
+
+			// The most frequent search texts of the day (Q701)
+			final NativeQuery<TopSearchRow> topQuery = session.createNativeQuery(
+					"select searchText, count(*) as searches from SearchRuns\n"
+						+ "where whenTS >= :from and whenTS < :to\n"
+						+ "group by searchText order by searches desc, searchText limit " + TOP_SEARCHES_COUNT,
+					TopSearchRow.class)
+				.addScalar("searchText", StandardBasicTypes.STRING)
+				.addScalar("searches", StandardBasicTypes.LONG);
+			topQuery.setParameter("from", from);
+			topQuery.setParameter("to", to);
+			final Map<String, Long> topSearches = new LinkedHashMap<>();
+			for (TopSearchRow row : topQuery.list()) {
+				topSearches.put(row.searchText(), row.searches());
+			}
+
+			final String id = day.toString();
+			final CondensedData existing = session.get(CondensedData.class, id);
+			final CondensedData data = condense(id, existing, stats, topSearches);
+			if (existing == null) {
+				session.persist(data);
+			}
+
+			// Prune the condensed runs (Q702)
+			session.createNativeMutationQuery("delete from SearchRuns where whenTS >= :from and whenTS < :to")
+				.setParameter("from", from)
+				.setParameter("to", to)
+				.executeUpdate();
+			t.commit();
+		} catch (Exception e) {
+			if (t.isActive()) {
+				t.rollback();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * <p>Condenses the runs of a day into a new row, or merges them into the existing row of the day.</p>
+	 *
+	 * @param id the ID of the day
+	 * @param existing the existing row of the day, or null
+	 * @param stats count and latency of the runs
+	 * @param topSearches the most frequent search texts of the runs with their counts
+	 * @return the new or merged row
+	 */
+	static CondensedData condense(final String id, final CondensedData existing, final StatsRow stats,
+		final Map<String, Long> topSearches)
+	{
+		if (existing != null) {
+			merge(existing, stats, topSearches);
+			return existing;
+		}
+		final CondensedData data = new CondensedData();
+		data.setId(id);
+		data.setConType(CondenseType.Day);
+		data.setNumberOfSearches(stats.searches().intValue());
+		data.setMillisMin(valueOf(stats.millisMin()));
+		data.setMillisMax(valueOf(stats.millisMax()));
+		data.setMillisAvg(round(stats.millisAvg()));
+		data.setMillisMedian(round(stats.millisMedian()));
+		data.setMillisP95(round(stats.millisP95()));
+		data.setTopTenSearches(formatTopSearches(topSearches));
+		return data;
+	}
+
+	private static void merge(final CondensedData data, final StatsRow stats, final Map<String, Long> topSearches)
+	{
+		final long oldCount = data.getNumberOfSearches();
+		final long newCount = stats.searches();
+		final long count = oldCount + newCount;
+		if (newCount == 0) {
+			return;
+		}
+		data.setNumberOfSearches((int) count);
+		data.setMillisMin(oldCount == 0 ? valueOf(stats.millisMin())
+			: Math.min(data.getMillisMin(), valueOf(stats.millisMin())));
+		data.setMillisMax(Math.max(data.getMillisMax(), valueOf(stats.millisMax())));
+		data.setMillisAvg(weighted(data.getMillisAvg(), oldCount, stats.millisAvg(), newCount));
+		data.setMillisMedian(weighted(data.getMillisMedian(), oldCount, stats.millisMedian(), newCount));
+		data.setMillisP95(weighted(data.getMillisP95(), oldCount, stats.millisP95(), newCount));
+
+		final Map<String, Long> merged = parseTopSearches(data.getTopTenSearches());
+		topSearches.forEach((text, searches) -> merged.merge(text, searches, Long::sum));
+		final Map<String, Long> top = new LinkedHashMap<>();
+		merged.entrySet().stream()
+			.sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+			.limit(TOP_SEARCHES_COUNT)
+			.forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+		data.setTopTenSearches(formatTopSearches(top));
+	}
+
+	/**
+	 * @return the top searches as rows of [search string]:[search count]
+	 */
+	static String formatTopSearches(final Map<String, Long> topSearches)
+	{
+		final StringBuilder sb = new StringBuilder();
+		topSearches.forEach((text, searches) -> {
+			if (!sb.isEmpty()) {
+				sb.append('\n');
+			}
+			// Line breaks would break the format
+			sb.append(text.replace('\n', ' ').replace('\r', ' ')).append(':').append(searches);
+		});
+		return sb.toString();
+	}
+
+	static Map<String, Long> parseTopSearches(final String topSearches)
+	{
+		final Map<String, Long> result = new LinkedHashMap<>();
+		if (topSearches == null || topSearches.isEmpty()) {
+			return result;
+		}
+		for (String row : topSearches.split("\n")) {
+			// The search string itself may contain colons
+			final int index = row.lastIndexOf(':');
+			if (index < 0) {
+				continue;
+			}
+			try {
+				result.merge(row.substring(0, index), Long.parseLong(row.substring(index + 1)), Long::sum);
+			} catch (NumberFormatException e) {
+				// skip the malformed row
+			}
+		}
+		return result;
+	}
+
+	private static int valueOf(final Integer value)
+	{
+		return value == null ? 0 : value;
+	}
+
+	private static int round(final Double value)
+	{
+		return value == null ? 0 : (int) Math.round(value);
+	}
+
+	private static int weighted(final int oldValue, final long oldCount, final Double newValue, final long newCount)
+	{
+		return (int) Math.round((oldValue * (double) oldCount + (newValue == null ? 0 : newValue) * newCount)
+			/ (oldCount + newCount));
+	}
+}
@@ -0,0 +1,158 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.statistics;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import dk.ule.oapenwb.base.AppConfig;
+import dk.ule.oapenwb.entity.statistics.SearchRun;
+import dk.ule.oapenwb.util.HibernateUtil;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>The SearchRunRecorder takes the {@link SearchRun}s of the search requests and persists them in batches on a
+ * background thread, i.e. a search request neither waits for a connection nor for a commit to log its run.</p>
+ * <p>The runs are held in a bounded buffer. If the buffer is full (e.g. because the database is not reachable)
+ * further runs are dropped and counted instead of blocking the search. A flush is triggered in a fixed interval and
+ * as soon as a batch is full.</p>
+ */
+@Singleton
+public class SearchRunRecorder
+{
+	private static final Logger LOG = LoggerFactory.getLogger(SearchRunRecorder.class);
+
+	private final AppConfig.SearchStatisticsConfig config;
+	private final BlockingQueue<SearchRun> buffer;
+	private final AtomicLong droppedRuns = new AtomicLong();
+	// Not the monitor of this since shutdown() waits for the executor while holding it
+	private final ReentrantLock flushLock = new ReentrantLock();
+
+	private ScheduledExecutorService executor = null;
+
+	@Inject
+	public SearchRunRecorder(AppConfig appConfig)
+	{
+		this.config = appConfig.getSearchStatisticsConfig();
+		this.buffer = new ArrayBlockingQueue<>(Math.max(1, config.getBufferSize()));
+	}
+
+	public synchronized void start()
+	{
+		if (executor != null) {
+			return;
+		}
+		executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "search-run-recorder");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.scheduleWithFixedDelay(this::flush, config.getFlushIntervalMillis(),
+			config.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * <p>Stops the background thread and persists the runs that are still buffered.</p>
+	 */
+	public synchronized void shutdown()
+	{
+		if (executor == null) {
+			return;
+		}
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+				executor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		executor = null;
+		flush();
+	}
+
+	/**
+	 * <p>Records the given run. This method never blocks.</p>
+	 *
+	 * @return false if the run was dropped since the buffer is full
+	 */
+	public boolean record(final SearchRun run)
+	{
+		if (!buffer.offer(run)) {
+			long dropped = droppedRuns.incrementAndGet();
+			// Don't flood the log
+			if (Long.bitCount(dropped) == 1) {
+				LOG.warn("Search run buffer is full, {} runs were dropped so far", dropped);
+			}
+			return false;
+		}
+		if (buffer.size() >= config.getBatchSize()) {
+			final ScheduledExecutorService executor = this.executor;
+			if (executor != null) {
+				try {
+					executor.execute(this::flush);
+				} catch (RejectedExecutionException e) {
+					// shutting down, the final flush will persist the run
+				}
+			}
+		}
+		return true;
+	}
+
+	public long getDroppedRuns()
+	{
+		return droppedRuns.get();
+	}
+
+	public int getBufferedRuns()
+	{
+		return buffer.size();
+	}
+
+	/**
+	 * <p>Persists all buffered runs batch by batch. A batch that could not be persisted is dropped.</p>
+	 */
+	void flush()
+	{
+		final int batchSize = Math.max(1, config.getBatchSize());
+		final List<SearchRun> batch = new ArrayList<>(batchSize);
+		flushLock.lock();
+		try {
+			while (buffer.drainTo(batch, batchSize) > 0) {
+				persist(batch);
+				batch.clear();
+			}
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	private void persist(final List<SearchRun> batch)
+	{
+		final Session session = HibernateUtil.getSession();
+		session.setJdbcBatchSize(batch.size());
+		Transaction t = session.beginTransaction();
+		try {
+			for (SearchRun run : batch) {
+				session.persist(run);
+			}
+			t.commit();
+		} catch (Exception e) {
+			LOG.error(String.format("Persisting a batch of %d search runs failed", batch.size()), e);
+			if (t.isActive()) {
+				t.rollback();
+			}
+		} finally {
+			HibernateUtil.closeSession();
+		}
+	}
+}
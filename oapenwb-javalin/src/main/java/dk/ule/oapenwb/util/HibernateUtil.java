@@ -2,6 +2,8 @@
 // SPDX-License-Identifier: AGPL-3.0-only
 package dk.ule.oapenwb.util;
 
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import dk.ule.oapenwb.data.UserRevisionListener;
 import jakarta.persistence.Table;
 import org.hibernate.Session;
@@ -9,6 +11,8 @@ import org.hibernate.SessionFactory;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,8 +39,8 @@ public class HibernateUtil
 	private static final ThreadLocal<Session> SESSIONS = new ThreadLocal<>();
 	private static final ThreadLocal<String> REVISION_COMMENTS = new ThreadLocal<>();
 
-	// Temporary here for as long as mass inserts of lexemes are slow due to reflection.
-	// Lets disable the JSON ID checks for the thread a big import job is run on.
+	// Allows to disable the ID checks of the LexemeDetailDTOChecker for a thread. Since the checks are done
+	// set-based and mostly on cached base data the importers don't need it anymore.
 	private static final ThreadLocal<Boolean> DISABLE_JSON_ID_CHECKS = new ThreadLocal<>();
 
 	public static Session getSession() {
@@ -81,6 +85,22 @@ public class HibernateUtil
 		DISABLE_JSON_ID_CHECKS.set(disable);
 	}
 
+	/**
+	 * @return the IDs in the Postgres array format, e.g. {1,2,3}, to be bound as a string and cast to bigint[] in the
+	 *   query. Unlike a parameter list it keeps the number of bind parameters and thus the statement constant.
+	 */
+	public static String toArrayLiteral(final long[] ids)
+	{
+		final StringBuilder sb = new StringBuilder(ids.length * 8 + 2).append('{');
+		for (int i = 0; i < ids.length; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append(ids[i]);
+		}
+		return sb.append('}').toString();
+	}
+
 	public static void initialize(HibernateConfigurator configurator)
 	{
 		if (configurator == null) {
@@ -89,6 +109,22 @@ public class HibernateUtil
 		SESSION_FACTORY = createSessionFactory(configurator, false);
 	}
 
+	/**
+	 * @return the MXBean of the HikariCP connection pool, or null if the pool is not used or not started yet
+	 */
+	public static HikariPoolMXBean getPoolMXBean()
+	{
+		if (SESSION_FACTORY == null) {
+			return null;
+		}
+		final ConnectionProvider provider = SESSION_FACTORY.unwrap(SessionFactoryImplementor.class)
+			.getServiceRegistry().getService(ConnectionProvider.class);
+		if (provider == null || !provider.isUnwrappableAs(HikariDataSource.class)) {
+			return null;
+		}
+		return provider.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+	}
+
 	/**
 	 * Helper method to avoid an unchecked warning when using {@link org.hibernate.query.NativeQuery}s
 	 * (as in NativeQuery<?> and the resulting list of type List<Object[]>).
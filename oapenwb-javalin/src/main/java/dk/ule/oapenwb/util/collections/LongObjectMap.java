@@ -0,0 +1,161 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.collections;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>A small open addressing hash map with primitive long keys. It avoids the boxing of keys that a
+ * {@link java.util.HashMap} would do and is used for the in-memory read models that hold the IDs of
+ * several hundred thousand entities.</p>
+ * <p>The map is not thread-safe. Removal uses backward shift deletion, i.e. no tombstones are left behind.</p>
+ *
+ * @param <V> type of the values
+ */
+public class LongObjectMap<V>
+{
+	private static final float LOAD_FACTOR = 0.6f;
+
+	private long[] keys;
+	private Object[] values;
+	private int size = 0;
+	private int threshold;
+
+	public LongObjectMap()
+	{
+		this(16);
+	}
+
+	public LongObjectMap(int expectedSize)
+	{
+		int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+		allocate(capacity);
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	public boolean containsKey(long key)
+	{
+		return values[indexOf(key)] != null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V get(long key)
+	{
+		return (V) values[indexOf(key)];
+	}
+
+	/**
+	 * @param key the key
+	 * @param value the value which must not be null
+	 * @return the previous value or null
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value)
+	{
+		if (value == null) {
+			throw new IllegalArgumentException("Null values are not supported");
+		}
+		int index = indexOf(key);
+		Object old = values[index];
+		keys[index] = key;
+		values[index] = value;
+		if (old == null && ++size > threshold) {
+			rehash(keys.length << 1);
+		}
+		return (V) old;
+	}
+
+	@SuppressWarnings("unchecked")
+	public V remove(long key)
+	{
+		int index = indexOf(key);
+		Object old = values[index];
+		if (old == null) {
+			return null;
+		}
+		// Backward shift deletion
+		final int mask = keys.length - 1;
+		int gap = index;
+		int next = (gap + 1) & mask;
+		while (values[next] != null) {
+			int home = mix(keys[next]) & mask;
+			// Move the entry if its home slot is not within (gap, next]
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				keys[gap] = keys[next];
+				values[gap] = values[next];
+				gap = next;
+			}
+			next = (next + 1) & mask;
+		}
+		values[gap] = null;
+		size--;
+		return (V) old;
+	}
+
+	public void clear()
+	{
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	public void forEach(BiConsumer<Long, V> consumer)
+	{
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null) {
+				consumer.accept(keys[i], (V) values[i]);
+			}
+		}
+	}
+
+	private int indexOf(long key)
+	{
+		final int mask = keys.length - 1;
+		int index = mix(key) & mask;
+		while (values[index] != null && keys[index] != key) {
+			index = (index + 1) & mask;
+		}
+		return index;
+	}
+
+	private void rehash(int capacity)
+	{
+		final long[] oldKeys = keys;
+		final Object[] oldValues = values;
+		allocate(capacity);
+		final int mask = capacity - 1;
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != null) {
+				int index = mix(oldKeys[i]) & mask;
+				while (values[index] != null) {
+					index = (index + 1) & mask;
+				}
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity)
+	{
+		keys = new long[capacity];
+		values = new Object[capacity];
+		threshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	private static int mix(long key)
+	{
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -0,0 +1,194 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.collections;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>A bounded cache with W-TinyLFU-like admission. New entries enter a small LRU window. An entry evicted from the
+ * window is only admitted to the main LRU segment if it was accessed more frequently than the entry it would evict
+ * there. The frequencies are estimated by a count-min sketch with 4 bit counters that are halved periodically, so
+ * that the cache adapts to a changing popularity of its keys.</p>
+ * <p>This keeps the frequently requested head of the keys in the cache, while a burst of one-time keys can only
+ * replace the window.</p>
+ * <p>The cache is not thread-safe.</p>
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ */
+public class TinyLfuCache<K, V>
+{
+	private final int windowCapacity;
+	private final int mainCapacity;
+	private final LinkedHashMap<K, V> window;
+	private final LinkedHashMap<K, V> main;
+	private final FrequencySketch sketch;
+
+	/**
+	 * @param capacity maximum number of entries, at least 2
+	 */
+	public TinyLfuCache(int capacity)
+	{
+		if (capacity < 2) {
+			throw new IllegalArgumentException("Capacity must be at least 2");
+		}
+		this.windowCapacity = Math.max(1, capacity / 100);
+		this.mainCapacity = capacity - windowCapacity;
+		this.window = new LinkedHashMap<>(16, 0.75f, true);
+		this.main = new LinkedHashMap<>(16, 0.75f, true);
+		this.sketch = new FrequencySketch(capacity);
+	}
+
+	public int size()
+	{
+		return window.size() + main.size();
+	}
+
+	/**
+	 * <p>Returns the value for the key. Each call counts as an access to the key, also if it is not cached.</p>
+	 */
+	public V get(K key)
+	{
+		sketch.increment(key);
+		final V value = window.get(key);
+		return value != null ? value : main.get(key);
+	}
+
+	/**
+	 * @param key the key
+	 * @param value the value which must not be null
+	 */
+	public void put(K key, V value)
+	{
+		if (main.containsKey(key)) {
+			main.put(key, value);
+			return;
+		}
+		window.put(key, value);
+		if (window.size() <= windowCapacity) {
+			return;
+		}
+
+		// The eldest entry of the window competes with the eldest entry of the main segment
+		final Iterator<Map.Entry<K, V>> windowIterator = window.entrySet().iterator();
+		final Map.Entry<K, V> candidate = windowIterator.next();
+		windowIterator.remove();
+		if (main.size() < mainCapacity) {
+			main.put(candidate.getKey(), candidate.getValue());
+			return;
+		}
+		final Iterator<Map.Entry<K, V>> mainIterator = main.entrySet().iterator();
+		final K victim = mainIterator.next().getKey();
+		if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim)) {
+			mainIterator.remove();
+			main.put(candidate.getKey(), candidate.getValue());
+		}
+	}
+
+	public V remove(K key)
+	{
+		final V value = window.remove(key);
+		return value != null ? value : main.remove(key);
+	}
+
+	/**
+	 * <p>Removes all entries. The frequencies are kept since they describe the popularity of the keys, not the
+	 * validity of the values.</p>
+	 */
+	public void clear()
+	{
+		window.clear();
+		main.clear();
+	}
+
+	/**
+	 * <p>Count-min sketch with four rows of 4 bit counters. Sixteen counters are packed into one long, each row
+	 * uses four of them.</p>
+	 */
+	static class FrequencySketch
+	{
+		private static final long[] SEEDS = {
+			0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L };
+		private static final long RESET_MASK = 0x7777777777777777L;
+
+		private final long[] table;
+		private final int tableMask;
+		private final int sampleSize;
+		private int additions = 0;
+
+		FrequencySketch(int capacity)
+		{
+			// One long per cached entry, i.e. each row has about four counters per entry
+			this.table = new long[Integer.highestOneBit(Math.max(16, capacity) - 1) << 1];
+			this.tableMask = table.length - 1;
+			this.sampleSize = 10 * Math.max(capacity, 16);
+		}
+
+		int frequency(Object key)
+		{
+			final int hash = spread(key.hashCode());
+			int frequency = Integer.MAX_VALUE;
+			for (int row = 0; row < 4; row++) {
+				frequency = Math.min(frequency, counter(hash, row));
+			}
+			return frequency;
+		}
+
+		void increment(Object key)
+		{
+			final int hash = spread(key.hashCode());
+			boolean added = false;
+			for (int row = 0; row < 4; row++) {
+				final int index = indexOf(hash, row);
+				final int offset = offsetOf(hash, row);
+				if (((table[index] >>> offset) & 0xFL) != 0xFL) {
+					table[index] += 1L << offset;
+					added = true;
+				}
+			}
+			if (added && ++additions >= sampleSize) {
+				reset();
+			}
+		}
+
+		/**
+		 * Halves all counters, i.e. old accesses age out.
+		 */
+		private void reset()
+		{
+			for (int i = 0; i < table.length; i++) {
+				table[i] = (table[i] >>> 1) & RESET_MASK;
+			}
+			additions /= 2;
+		}
+
+		private int counter(int hash, int row)
+		{
+			return (int) ((table[indexOf(hash, row)] >>> offsetOf(hash, row)) & 0xFL);
+		}
+
+		private int indexOf(int hash, int row)
+		{
+			long h = (hash + SEEDS[row]) * SEEDS[row];
+			h += h >>> 32;
+			return ((int) h) & tableMask;
+		}
+
+		/**
+		 * Each row uses its own four of the sixteen counters in a long.
+		 */
+		private int offsetOf(int hash, int row)
+		{
+			return ((row << 2) + ((hash >>> (row << 3)) & 3)) << 2;
+		}
+
+		private static int spread(int hash)
+		{
+			hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+			hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+			return (hash >>> 16) ^ hash;
+		}
+	}
+}
@@ -0,0 +1,109 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.concurrent;
+
+import dk.ule.oapenwb.base.error.CodeException;
+import dk.ule.oapenwb.util.functional.CheckSupplier;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Coalesces concurrent executions of the same operation: the first caller for a key (the leader) executes the
+ * operation, and all callers for the same key arriving while it is running (the followers) wait for and share its
+ * result or exception. Once the leader is done the key is free again, i.e. results are not cached.</p>
+ * <p>A follower waits at most the configured timeout. Then it executes the operation itself, so a slow leader
+ * can't hold up its followers forever.</p>
+ * <p>The shared result must not be modified by the callers.</p>
+ *
+ * @param <K> type of the keys, must implement equals() and hashCode()
+ * @param <V> type of the results
+ */
+public class SingleFlight<K, V>
+{
+	/**
+	 * @param leaders number of executions by leaders
+	 * @param followers number of calls answered by the execution of a leader
+	 * @param timeouts number of followers that gave up waiting and executed the operation themselves
+	 */
+	public record Statistics(long leaders, long followers, long timeouts)
+	{
+		/**
+		 * @return the share of calls that did not execute the operation themselves
+		 */
+		public double coalescingRatio()
+		{
+			final long calls = leaders + followers + timeouts;
+			return calls == 0 ? 0.0 : (double) followers / calls;
+		}
+	}
+
+	private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final long timeoutMillis;
+	private final LongAdder leaders = new LongAdder();
+	private final LongAdder followers = new LongAdder();
+	private final LongAdder timeouts = new LongAdder();
+
+	/**
+	 * @param timeoutMillis maximum number of milliseconds a follower waits for the leader
+	 */
+	public SingleFlight(long timeoutMillis)
+	{
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	public V execute(final K key, final CheckSupplier<V> operation) throws CodeException
+	{
+		final CompletableFuture<V> future = new CompletableFuture<>();
+		final CompletableFuture<V> running = inFlight.putIfAbsent(key, future);
+		if (running == null) {
+			leaders.increment();
+			try {
+				final V result = operation.get();
+				future.complete(result);
+				return result;
+			} catch (CodeException | RuntimeException | Error e) {
+				future.completeExceptionally(e);
+				throw e;
+			} finally {
+				inFlight.remove(key, future);
+			}
+		}
+
+		try {
+			final V result = running.get(timeoutMillis, TimeUnit.MILLISECONDS);
+			followers.increment();
+			return result;
+		} catch (TimeoutException e) {
+			timeouts.increment();
+			return operation.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while waiting for the result of a concurrent call");
+		} catch (ExecutionException e) {
+			followers.increment();
+			final Throwable cause = e.getCause();
+			if (cause instanceof CodeException codeException) {
+				throw codeException;
+			} else if (cause instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			} else if (cause instanceof Error error) {
+				throw error;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	public Statistics getStatistics()
+	{
+		return new Statistics(leaders.sum(), followers.sum(), timeouts.sum());
+	}
+
+	/**
+	 * @return number of keys currently being executed
+	 */
+	public int getInFlightCount()
+	{
+		return inFlight.size();
+	}
+}
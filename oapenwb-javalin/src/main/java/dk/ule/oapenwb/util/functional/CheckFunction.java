@@ -0,0 +1,17 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.functional;
+
+import dk.ule.oapenwb.base.error.CodeException;
+
+/**
+ * <p>Can compute a result depending on one parameter. The operation should throw a {@link CodeException} on
+ * fail.</p>
+ *
+ * @param <T> type of the param
+ * @param <R> type of the result
+ */
+@FunctionalInterface
+public interface CheckFunction<T, R> {
+	R apply(T t) throws CodeException;
+}
@@ -0,0 +1,15 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.functional;
+
+import dk.ule.oapenwb.base.error.CodeException;
+
+/**
+ * <p>Can supply a result. The operation should throw a {@link CodeException} on fail.</p>
+ *
+ * @param <T> type of the result
+ */
+@FunctionalInterface
+public interface CheckSupplier<T> {
+	T get() throws CodeException;
+}
@@ -0,0 +1,28 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * <p>JFR event of an autocompletion by the
+ * {@link dk.ule.oapenwb.logic.search.autocomplete.AutocompleteController}.</p>
+ */
+@Name("oapenwb.Autocomplete")
+@Label("Autocomplete")
+@Category({ "oapenwb", "Search" })
+@StackTrace(false)
+public class AutocompleteEvent extends Event
+{
+	@Label("Term")
+	public String term;
+
+	@Label("Language Pair")
+	public String pair;
+
+	@Label("Direction")
+	public String direction;
+
+	@Label("Result Count")
+	public int resultCount;
+}
@@ -0,0 +1,23 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * <p>JFR event of the (re)load of a cache, e.g. the entities of a
+ * {@link dk.ule.oapenwb.logic.admin.generic.CEntityController} or the payloads of the
+ * {@link dk.ule.oapenwb.logic.l10n.L10nController}.</p>
+ */
+@Name("oapenwb.CacheReload")
+@Label("Cache Reload")
+@Category({ "oapenwb", "Cache" })
+@StackTrace(false)
+public class CacheReloadEvent extends Event
+{
+	@Label("Cache")
+	public String cache;
+
+	@Label("Entry Count")
+	public int entryCount;
+}
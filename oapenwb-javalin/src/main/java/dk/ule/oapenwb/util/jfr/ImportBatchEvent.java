@@ -0,0 +1,25 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * <p>JFR event of the commit of a transaction of an importer.</p>
+ */
+@Name("oapenwb.ImportBatch")
+@Label("Import Batch Commit")
+@Category({ "oapenwb", "Import" })
+@StackTrace(false)
+public class ImportBatchEvent extends Event
+{
+	@Label("Importer")
+	public String importer;
+
+	@Label("Transaction Number")
+	public int transactionNumber;
+
+	@Label("Lexeme Count")
+	@Description("Number of lexemes created within the transaction")
+	public int lexemeCount;
+}
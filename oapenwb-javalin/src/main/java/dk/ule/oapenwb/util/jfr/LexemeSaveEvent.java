@@ -0,0 +1,27 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * <p>JFR event of a lexeme created or updated by the {@link dk.ule.oapenwb.logic.admin.lexeme.LexemesController},
+ * including the refresh of the search projection and the commit.</p>
+ */
+@Name("oapenwb.LexemeSave")
+@Label("Lexeme Save")
+@Category({ "oapenwb", "Lexemes" })
+@StackTrace(false)
+public class LexemeSaveEvent extends Event
+{
+	@Label("Operation")
+	@Description("CREATE or UPDATE")
+	public String operation;
+
+	@Label("Lexeme ID")
+	public long lexemeID;
+
+	@Label("Transactional")
+	@Description("Was the transaction committed by the save, or is it the outer transaction of an import?")
+	public boolean transactional;
+}
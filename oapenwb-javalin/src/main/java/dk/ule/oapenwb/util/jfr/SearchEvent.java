@@ -0,0 +1,45 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * <p>JFR event of a search executed by the {@link dk.ule.oapenwb.logic.search.SearchController}. The durations of
+ * the stages are summed up over all LangPairs of the search, and they are 0 if the result came from the cache or
+ * from a concurrent identical search.</p>
+ */
+@Name("oapenwb.Search")
+@Label("Search")
+@Category({ "oapenwb", "Search" })
+@StackTrace(false)
+public class SearchEvent extends Event
+{
+	@Label("Term")
+	public String term;
+
+	@Label("Language Pair")
+	public String pair;
+
+	@Label("Direction")
+	public String direction;
+
+	@Label("Hit Count")
+	@Description("Number of all mappings found, not only of the returned page")
+	public long hitCount;
+
+	@Label("Cached")
+	public boolean cached;
+
+	@Label("Mappings Duration")
+	@Timespan
+	public long mappingsDuration;
+
+	@Label("Load Duration")
+	@Timespan
+	public long loadDuration;
+
+	@Label("Lemmas Duration")
+	@Timespan
+	public long lemmasDuration;
+}
@@ -14,4 +14,8 @@ public class Pagination
 	private int offset = 0;
 	private int limit = 50;
 	private int total = -1;
+	// true if the total is an estimation
+	private boolean estimated = false;
+	// Continuation token for the next page, or null if there is no next page
+	private String next = null;
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.json;
+
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+import io.javalin.http.HttpStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <p>An immutable response body that is serialized and compressed only once, e.g. the translations of the
+ * {@link dk.ule.oapenwb.logic.l10n.L10nController} or the base config of the
+ * {@link dk.ule.oapenwb.logic.config.ConfigController}. The payload is held in identity and gzip encoding, each with
+ * a strong ETag derived from the SHA-256 hash of the content.</p>
+ * <p>{@link #send(Context, String)} answers a matching <i>If-None-Match</i> header with 304 and else picks the
+ * encoding by the <i>Accept-Encoding</i> header.</p>
+ */
+public final class PrecompressedPayload
+{
+	public static final String CONTENT_TYPE_JSON = "application/json";
+
+	private static final String GZIP = "gzip";
+
+	private final byte[] identity;
+	private final byte[] gzip;
+	private final String eTag;
+	private final String gzipETag;
+
+	private PrecompressedPayload(final byte[] identity)
+	{
+		this.identity = identity;
+		this.gzip = gzip(identity);
+		final String hash = hash(identity);
+		// Different encodings are different representations and thus need different strong ETags
+		this.eTag = "\"" + hash + "\"";
+		this.gzipETag = "\"" + hash + "-gz\"";
+	}
+
+	public static PrecompressedPayload of(final String content)
+	{
+		return new PrecompressedPayload(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public String getETag()
+	{
+		return eTag;
+	}
+
+	public String getGzipETag()
+	{
+		return gzipETag;
+	}
+
+	public String asString()
+	{
+		return new String(identity, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * <p>Sends the payload or a 304 response if the client already has it.</p>
+	 */
+	public void send(final Context ctx, final String contentType)
+	{
+		final boolean useGzip = acceptsGzip(ctx.header(Header.ACCEPT_ENCODING)) && gzip.length < identity.length;
+		ctx.header(Header.VARY, Header.ACCEPT_ENCODING);
+		// The client may cache the payload but has to revalidate it each time
+		ctx.header(Header.CACHE_CONTROL, "no-cache");
+		ctx.header(Header.ETAG, useGzip ? gzipETag : eTag);
+		if (matches(ctx.header(Header.IF_NONE_MATCH))) {
+			ctx.status(HttpStatus.NOT_MODIFIED);
+			return;
+		}
+		// The payload is already compressed
+		ctx.disableCompression();
+		ctx.contentType(contentType);
+		if (useGzip) {
+			ctx.header(Header.CONTENT_ENCODING, GZIP);
+			ctx.result(gzip);
+		} else {
+			ctx.result(identity);
+		}
+	}
+
+	/**
+	 * <p>If-None-Match uses the weak comparison, i.e. W/ prefixes are ignored and both encodings match since they
+	 * represent the same content.</p>
+	 */
+	boolean matches(final String ifNoneMatch)
+	{
+		if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+			return false;
+		}
+		for (String tag : ifNoneMatch.split(",")) {
+			tag = tag.trim();
+			if (tag.startsWith("W/")) {
+				tag = tag.substring(2);
+			}
+			if (tag.equals("*") || tag.equals(eTag) || tag.equals(gzipETag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static boolean acceptsGzip(final String acceptEncoding)
+	{
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (String coding : acceptEncoding.split(",")) {
+			final String[] parts = coding.split(";");
+			final String name = parts[0].trim();
+			if (!name.equalsIgnoreCase(GZIP) && !name.equals("*")) {
+				continue;
+			}
+			double quality = 1.0;
+			for (int i = 1; i < parts.length; i++) {
+				final String parameter = parts[i].trim();
+				if (parameter.startsWith("q=")) {
+					try {
+						quality = Double.parseDouble(parameter.substring(2));
+					} catch (NumberFormatException e) {
+						quality = 0.0;
+					}
+				}
+			}
+			return quality > 0.0;
+		}
+		return false;
+	}
+
+	private static byte[] gzip(final byte[] data)
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 4 + 64);
+		// Compressed only once, so the best compression is worth it
+		try (GZIPOutputStream out = new GZIPOutputStream(bytes) {{ def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+			out.write(data);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static String hash(final byte[] data)
+	{
+		try {
+			final byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+			// 128 bits are more than enough for an ETag
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+}
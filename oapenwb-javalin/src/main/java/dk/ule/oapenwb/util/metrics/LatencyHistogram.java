@@ -0,0 +1,78 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>A latency histogram based on an HDR histogram. Recording is wait-free, so it can be used on the hot paths. The
+ * recorded values are collected into a cumulative histogram whenever a {@link #snapshot()} is taken.</p>
+ * <p>The latencies are tracked in microseconds with two significant digits up to {@link #HIGHEST_TRACKABLE_MICROS},
+ * larger values are recorded as that maximum.</p>
+ */
+public class LatencyHistogram
+{
+	/**
+	 * Upper bounds of the buckets in seconds that are exported.
+	 */
+	public static final double[] BUCKETS = {
+		0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0 };
+
+	static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+	/**
+	 * @param count number of recorded values
+	 * @param sumSeconds sum of the recorded values
+	 * @param bucketCounts number of values less than or equal to each of the {@link #BUCKETS}
+	 */
+	public record Snapshot(long count, double sumSeconds, long[] bucketCounts) {}
+
+	private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 2);
+	private final LongAdder sumNanos = new LongAdder();
+
+	// Guards the cumulative histograms
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 2);
+	private Histogram interval = null;
+
+	public void record(final long nanos)
+	{
+		if (nanos < 0) {
+			return;
+		}
+		recorder.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS));
+		sumNanos.add(nanos);
+	}
+
+	/**
+	 * @param startNanos start of the measurement as returned by {@link System#nanoTime()}
+	 * @return the recorded duration in nanoseconds
+	 */
+	public long recordSince(final long startNanos)
+	{
+		final long nanos = System.nanoTime() - startNanos;
+		record(nanos);
+		return nanos;
+	}
+
+	public Snapshot snapshot()
+	{
+		lock.lock();
+		try {
+			interval = recorder.getIntervalHistogram(interval);
+			total.add(interval);
+			final long[] bucketCounts = new long[BUCKETS.length];
+			for (int i = 0; i < BUCKETS.length; i++) {
+				bucketCounts[i] = total.getCountBetweenValues(0, (long) (BUCKETS[i] * 1_000_000));
+			}
+			return new Snapshot(total.getTotalCount(), sumNanos.sum() / 1e9, bucketCounts);
+		} finally {
+			lock.unlock();
+		}
+	}
+}
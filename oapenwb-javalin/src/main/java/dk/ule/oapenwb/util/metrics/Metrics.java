@@ -0,0 +1,175 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoubleSupplier;
+
+/**
+ * <p>Holds the metrics of the application and writes them in the Prometheus text format (version 0.0.4):</p>
+ * <ul>
+ *   <li>the latency of each route per HTTP method and status,</li>
+ *   <li>the latency of named stages within a request, e.g. <i>search.mappings</i>, recorded via
+ *     {@link #stage(String)},</li>
+ *   <li>gauges whose values are read when the metrics are scraped.</li>
+ * </ul>
+ * <p>Just as {@link dk.ule.oapenwb.util.CurrentUser} it is used via its {@link #INSTANCE}, so that also classes
+ * not created by Guice (e.g. the LexemeUpdater) can record stages.</p>
+ */
+public class Metrics
+{
+	public static final Metrics INSTANCE = new Metrics();
+
+	static final String ROUTE_METRIC = "oapenwb_http_request_duration_seconds";
+	static final String STAGE_METRIC = "oapenwb_stage_duration_seconds";
+
+	private record RouteKey(String method, String route, int status) {}
+
+	private record Gauge(String labels, DoubleSupplier value) {}
+
+	private record GaugeFamily(String help, List<Gauge> gauges) {}
+
+	private final Map<RouteKey, LatencyHistogram> routes = new ConcurrentHashMap<>();
+	private final Map<String, LatencyHistogram> stages = new ConcurrentHashMap<>();
+	private final Map<String, GaugeFamily> gauges = new ConcurrentHashMap<>();
+
+	/**
+	 * @param route the route as configured, e.g. <i>admin/lexemes/{id}</i>, and not the requested path so that the
+	 *   number of histograms stays bounded
+	 */
+	public LatencyHistogram route(final String method, final String route, final int status)
+	{
+		return routes.computeIfAbsent(new RouteKey(method, route, status), key -> new LatencyHistogram());
+	}
+
+	/**
+	 * @param name name of the stage, e.g. <i>search.mappings</i>
+	 */
+	public LatencyHistogram stage(final String name)
+	{
+		// get() first since computeIfAbsent() may lock even if the key is present
+		final LatencyHistogram histogram = stages.get(name);
+		return histogram != null ? histogram : stages.computeIfAbsent(name, key -> new LatencyHistogram());
+	}
+
+	/**
+	 * <p>Registers a gauge. The value is read on each scrape and must thus be cheap to get.</p>
+	 *
+	 * @param name name of the metric, e.g. <i>oapenwb_db_pool_connections</i>
+	 * @param help description of the metric, it is taken from the first registered gauge of the metric
+	 * @param value supplier of the value
+	 * @param labels pairs of label names and values, e.g. "state", "active"
+	 */
+	public void gauge(final String name, final String help, final DoubleSupplier value, final String... labels)
+	{
+		if (labels.length % 2 != 0) {
+			throw new IllegalArgumentException("Labels must be given as pairs of names and values");
+		}
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < labels.length; i += 2) {
+			appendLabel(sb, labels[i], labels[i + 1]);
+		}
+		gauges.computeIfAbsent(name, key -> new GaugeFamily(help, new CopyOnWriteArrayList<>()))
+			.gauges().add(new Gauge(sb.toString(), value));
+	}
+
+	/**
+	 * @return all metrics in the Prometheus text format
+	 */
+	public String scrape()
+	{
+		final StringBuilder sb = new StringBuilder(8192);
+
+		final Map<String, LatencyHistogram> sortedRoutes = new TreeMap<>();
+		routes.forEach((key, histogram) -> {
+			final StringBuilder labels = new StringBuilder();
+			appendLabel(labels, "method", key.method());
+			appendLabel(labels, "route", key.route());
+			appendLabel(labels, "status", String.valueOf(key.status()));
+			sortedRoutes.put(labels.toString(), histogram);
+		});
+		writeHistograms(sb, ROUTE_METRIC, "Latency of the HTTP requests per route", sortedRoutes);
+
+		final Map<String, LatencyHistogram> sortedStages = new TreeMap<>();
+		stages.forEach((name, histogram) -> {
+			final StringBuilder labels = new StringBuilder();
+			appendLabel(labels, "stage", name);
+			sortedStages.put(labels.toString(), histogram);
+		});
+		writeHistograms(sb, STAGE_METRIC, "Latency of the stages within the requests", sortedStages);
+
+		for (Map.Entry<String, GaugeFamily> family : new TreeMap<>(gauges).entrySet()) {
+			writeHeader(sb, family.getKey(), family.getValue().help(), "gauge");
+			for (Gauge gauge : family.getValue().gauges()) {
+				double value;
+				try {
+					value = gauge.value().getAsDouble();
+				} catch (RuntimeException e) {
+					// e.g. the connection pool is not initialized yet
+					value = Double.NaN;
+				}
+				writeSample(sb, family.getKey(), gauge.labels(), value);
+			}
+		}
+		return sb.toString();
+	}
+
+	private static void writeHistograms(final StringBuilder sb, final String name, final String help,
+		final Map<String, LatencyHistogram> histograms)
+	{
+		if (histograms.isEmpty()) {
+			return;
+		}
+		writeHeader(sb, name, help, "histogram");
+		for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+			final LatencyHistogram.Snapshot snapshot = entry.getValue().snapshot();
+			final String labels = entry.getKey();
+			final String separator = labels.isEmpty() ? "" : ",";
+			for (int i = 0; i < LatencyHistogram.BUCKETS.length; i++) {
+				writeSample(sb, name + "_bucket", labels + separator + "le=\"" + LatencyHistogram.BUCKETS[i] + '"',
+					snapshot.bucketCounts()[i]);
+			}
+			writeSample(sb, name + "_bucket", labels + separator + "le=\"+Inf\"", snapshot.count());
+			writeSample(sb, name + "_sum", labels, snapshot.sumSeconds());
+			writeSample(sb, name + "_count", labels, snapshot.count());
+		}
+	}
+
+	private static void writeHeader(final StringBuilder sb, final String name, final String help, final String type)
+	{
+		sb.append("# HELP ").append(name).append(' ').append(help.replace("\\", "\\\\").replace("\n", "\\n"))
+			.append('\n');
+		sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	private static void writeSample(final StringBuilder sb, final String name, final String labels, final double value)
+	{
+		sb.append(name);
+		if (!labels.isEmpty()) {
+			sb.append('{').append(labels).append('}');
+		}
+		sb.append(' ');
+		if (Double.isNaN(value)) {
+			sb.append("NaN");
+		} else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			sb.append((long) value);
+		} else {
+			sb.append(value);
+		}
+		sb.append('\n');
+	}
+
+	private static void appendLabel(final StringBuilder sb, final String name, final String value)
+	{
+		if (!sb.isEmpty()) {
+			sb.append(',');
+		}
+		sb.append(name).append("=\"")
+			.append(value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+			.append('"');
+	}
+}
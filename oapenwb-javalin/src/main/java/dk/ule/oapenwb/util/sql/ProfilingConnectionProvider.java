@@ -0,0 +1,110 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.sql;
+
+import org.hibernate.hikaricp.internal.HikariCPConnectionProvider;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * <p>A HikariCP connection provider whose connections time each execution of their statements and report it
+ * together with the bind parameters to the {@link SlowQueryLog}. It is set as the connection provider of Hibernate
+ * if the slow query log is enabled, so all queries are covered, the native ones as well as the generated ones.</p>
+ * <p>The time of an execution is the time until the statement returns, i.e. for a query until the first rows are
+ * available, but without reading all rows of the ResultSet.</p>
+ */
+public class ProfilingConnectionProvider extends HikariCPConnectionProvider
+{
+	private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+		"executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+	@Override
+	public Connection getConnection() throws SQLException
+	{
+		final Connection connection = super.getConnection();
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+			new Class<?>[] { Connection.class }, new ConnectionHandler(connection));
+	}
+
+	@Override
+	public void closeConnection(Connection connection) throws SQLException
+	{
+		if (Proxy.isProxyClass(connection.getClass())
+			&& Proxy.getInvocationHandler(connection) instanceof ConnectionHandler handler) {
+			connection = handler.connection;
+		}
+		super.closeConnection(connection);
+	}
+
+	private static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable
+	{
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private record ConnectionHandler(Connection connection) implements InvocationHandler
+	{
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable
+		{
+			final Object result = ProfilingConnectionProvider.invoke(connection, method, args);
+			if (result instanceof Statement statement && !method.getName().equals("unwrap")) {
+				// prepareStatement(sql, …) and prepareCall(sql, …) pass the statement, createStatement() doesn't
+				final String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+				final Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+					: statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+				return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] { type },
+					new StatementHandler(statement, sql));
+			}
+			return result;
+		}
+	}
+
+	private static final class StatementHandler implements InvocationHandler
+	{
+		private final Statement statement;
+		private final String sql;
+		// <parameter index, bind> of a PreparedStatement
+		private final TreeMap<Integer, SlowQueryLog.Bind> binds = new TreeMap<>();
+
+		private StatementHandler(final Statement statement, final String sql)
+		{
+			this.statement = statement;
+			this.sql = sql;
+		}
+
+		@Override
+		public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable
+		{
+			final String name = method.getName();
+			if (EXECUTE_METHODS.contains(name)) {
+				final String executed = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+				final List<SlowQueryLog.Bind> executedBinds = new ArrayList<>(binds.values());
+				final long start = System.nanoTime();
+				try {
+					return ProfilingConnectionProvider.invoke(statement, method, args);
+				} finally {
+					SlowQueryLog.INSTANCE.record(executed, System.nanoTime() - start, executedBinds);
+				}
+			}
+			if (name.startsWith("set") && args != null && args.length >= 2
+				&& method.getParameterTypes()[0] == int.class) {
+				binds.put((Integer) args[0], new SlowQueryLog.Bind(method, args.clone()));
+			} else if (name.equals("clearParameters")) {
+				binds.clear();
+			}
+			return ProfilingConnectionProvider.invoke(statement, method, args);
+		}
+	}
+}
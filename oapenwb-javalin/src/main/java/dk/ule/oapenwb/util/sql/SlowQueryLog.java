@@ -0,0 +1,279 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.sql;
+
+import dk.ule.oapenwb.base.ErrorCode;
+import dk.ule.oapenwb.base.error.CodeException;
+import dk.ule.oapenwb.util.HibernateUtil;
+import dk.ule.oapenwb.util.Pair;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * <p>The SlowQueryLog collects the execution times of all SQL statements per {@link SqlFingerprint}. The times are
+ * reported by the {@link ProfilingConnectionProvider}, which is used if the slow query log is enabled in the
+ * configuration (<i>slowQueryConfig</i>).</p>
+ * <ul>
+ *   <li>Executions slower than the threshold are logged. Their bind parameters may contain the search terms of the
+ *     users, thus they are only logged on level DEBUG.</li>
+ *   <li>For each fingerprint the count, the total and the maximum time are kept, together with the statement and
+ *     the binds of its slowest execution as a sample. Only the fingerprints with the most total time are kept.</li>
+ *   <li>{@link #explain(String)} runs EXPLAIN (ANALYZE, BUFFERS) for the sample of a fingerprint within a read-only
+ *     transaction.</li>
+ * </ul>
+ * <p>Just as the {@link dk.ule.oapenwb.util.metrics.Metrics} it is used via its {@link #INSTANCE} since the
+ * connection provider is created by Hibernate.</p>
+ */
+public class SlowQueryLog
+{
+	private static final Logger LOG = LoggerFactory.getLogger(SlowQueryLog.class);
+
+	public static final SlowQueryLog INSTANCE = new SlowQueryLog();
+
+	// Maximum length of a bind value in the log and the report
+	private static final int MAX_BIND_LENGTH = 200;
+
+	private static final Pattern EXPLAINABLE = Pattern.compile("(?is)^\\s*(select|with)\\b.*");
+
+	/**
+	 * A bind parameter as it was set on the PreparedStatement, so that it can be set again for EXPLAIN.
+	 *
+	 * @param method the setter that was called, e.g. setLong
+	 * @param args the arguments of the setter, the first one being the parameter index
+	 */
+	record Bind(Method method, Object[] args)
+	{
+		String display()
+		{
+			if (method.getName().equals("setNull") || args.length < 2 || args[1] == null) {
+				return "null";
+			}
+			final String value = args[1] instanceof byte[] bytes ? "<" + bytes.length + " bytes>"
+				: String.valueOf(args[1]);
+			return value.length() > MAX_BIND_LENGTH ? value.substring(0, MAX_BIND_LENGTH) + "…" : value;
+		}
+	}
+
+	private record Sample(String sql, List<Bind> binds) {}
+
+	private static final class Entry
+	{
+		private final String id;
+		private final String fingerprint;
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalNanos = new LongAdder();
+		private final AtomicLong maxNanos = new AtomicLong();
+		private volatile Sample slowest;
+
+		private Entry(final String id, final String fingerprint)
+		{
+			this.id = id;
+			this.fingerprint = fingerprint;
+		}
+	}
+
+	/**
+	 * Statistics of one fingerprint.
+	 *
+	 * @param id ID of the fingerprint to be used for {@link #explain(String)}
+	 * @param sampleSql the statement of the slowest execution
+	 * @param sampleBinds the bind parameters of the slowest execution
+	 */
+	public record FingerprintStatistics(String id, String fingerprint, long count, double totalMillis,
+		double meanMillis, double maxMillis, String sampleSql, List<String> sampleBinds) {}
+
+	/**
+	 * The top fingerprints by maximum time, by count and by total time.
+	 *
+	 * @param enabled false if the statements are not measured, see {@link ProfilingConnectionProvider}
+	 */
+	public record Report(boolean enabled, int thresholdMillis, List<FingerprintStatistics> slowest,
+		List<FingerprintStatistics> mostFrequent, List<FingerprintStatistics> mostTime) {}
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	// The IDs of the entries, they are not reused after an entry was evicted
+	private final AtomicLong lastID = new AtomicLong();
+	// Guards the insertion and eviction of entries
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private volatile boolean enabled = false;
+	private volatile long thresholdNanos = TimeUnit.MILLISECONDS.toNanos(250);
+	private volatile int maxFingerprints = 1000;
+
+	public void configure(final int thresholdMillis, final int maxFingerprints)
+	{
+		this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+		this.maxFingerprints = Math.max(1, maxFingerprints);
+		this.enabled = true;
+	}
+
+	/**
+	 * @param sql the executed statement
+	 * @param nanos duration of the execution
+	 * @param binds bind parameters of a PreparedStatement or an empty list
+	 */
+	void record(final String sql, final long nanos, final List<Bind> binds)
+	{
+		final String fingerprint = SqlFingerprint.of(sql);
+		Entry entry = entries.get(fingerprint);
+		if (entry == null) {
+			entry = insert(fingerprint);
+		}
+		entry.count.increment();
+		entry.totalNanos.add(nanos);
+		if (nanos > entry.maxNanos.getAndAccumulate(nanos, Math::max)) {
+			entry.slowest = new Sample(sql, List.copyOf(binds));
+		}
+
+		if (nanos >= thresholdNanos) {
+			LOG.warn("Slow query took {} ms: {}", TimeUnit.NANOSECONDS.toMillis(nanos), sql);
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Binds of the slow query: {}", displayBinds(binds));
+			}
+		}
+	}
+
+	private Entry insert(final String fingerprint)
+	{
+		lock.lock();
+		try {
+			Entry entry = entries.get(fingerprint);
+			if (entry == null) {
+				if (entries.size() >= maxFingerprints) {
+					// Evict the fingerprint with the least total time
+					entries.values().stream()
+						.min(Comparator.comparingLong(e -> e.totalNanos.sum()))
+						.ifPresent(e -> entries.remove(e.fingerprint));
+				}
+				entry = new Entry(Long.toString(lastID.incrementAndGet()), fingerprint);
+				entries.put(fingerprint, entry);
+			}
+			return entry;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param limit number of fingerprints per list
+	 */
+	public Report report(final int limit)
+	{
+		final List<Entry> all = new ArrayList<>(entries.values());
+		return new Report(enabled, (int) TimeUnit.NANOSECONDS.toMillis(thresholdNanos),
+			top(all, Comparator.comparingLong(e -> e.maxNanos.get()), limit),
+			top(all, Comparator.comparingLong(e -> e.count.sum()), limit),
+			top(all, Comparator.comparingLong(e -> e.totalNanos.sum()), limit));
+	}
+
+	public void reset()
+	{
+		lock.lock();
+		try {
+			entries.clear();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * <p>Runs EXPLAIN (ANALYZE, BUFFERS) for the sample of the given fingerprint. The sample is executed for this,
+	 * thus only queries (SELECT or WITH) are explained. The transaction is read-only, so functions called by the
+	 * query can't change any data either, and it is rolled back in any case.</p>
+	 *
+	 * @param id ID of the fingerprint as given in the {@link Report}
+	 * @return the lines of the query plan
+	 */
+	public List<String> explain(final String id) throws CodeException
+	{
+		final Sample sample = entries.values().stream()
+			.filter(entry -> entry.id.equals(id))
+			.map(entry -> entry.slowest)
+			.filter(Objects::nonNull)
+			.findFirst()
+			.orElseThrow(() -> new CodeException(ErrorCode.Admin_EntityNotFound,
+				Arrays.asList(new Pair<>("type", "SlowQuery"), new Pair<>("id", id))));
+		if (!EXPLAINABLE.matcher(sample.sql()).matches()) {
+			throw new CodeException(ErrorCode.Admin_EntityOperation_NotSupported,
+				Arrays.asList(new Pair<>("operation", "EXPLAIN"), new Pair<>("entity", "SlowQuery")));
+		}
+
+		final Session session = HibernateUtil.getSession();
+		final Transaction t = session.beginTransaction();
+		try {
+			return session.doReturningWork(connection -> {
+				// Must be the first statement of the transaction
+				try (Statement readOnly = connection.createStatement()) {
+					readOnly.execute("SET TRANSACTION READ ONLY");
+				}
+				try (PreparedStatement statement = connection.prepareStatement(
+					"EXPLAIN (ANALYZE, BUFFERS) " + sample.sql())) {
+					for (Bind bind : sample.binds()) {
+						bind.method().invoke(statement, bind.args());
+					}
+					final List<String> plan = new ArrayList<>();
+					try (ResultSet resultSet = statement.executeQuery()) {
+						while (resultSet.next()) {
+							plan.add(resultSet.getString(1));
+						}
+					}
+					return plan;
+				} catch (IllegalAccessException | InvocationTargetException e) {
+					throw new IllegalStateException("Setting the bind parameters failed", e);
+				}
+			});
+		} catch (Exception e) {
+			LOG.error("Explaining the query failed: " + sample.sql(), e);
+			throw new CodeException(ErrorCode.Admin_EntityOperation,
+				Arrays.asList(new Pair<>("operation", "EXPLAIN"), new Pair<>("entity", "SlowQuery")));
+		} finally {
+			if (t.isActive()) {
+				t.rollback();
+			}
+		}
+	}
+
+	private static List<FingerprintStatistics> top(final List<Entry> entries, final Comparator<Entry> comparator,
+		final int limit)
+	{
+		return entries.stream()
+			.sorted(comparator.reversed())
+			.limit(limit)
+			.map(SlowQueryLog::toStatistics)
+			.toList();
+	}
+
+	private static FingerprintStatistics toStatistics(final Entry entry)
+	{
+		final long count = entry.count.sum();
+		final double totalMillis = entry.totalNanos.sum() / 1e6;
+		final Sample sample = entry.slowest;
+		return new FingerprintStatistics(entry.id, entry.fingerprint, count, totalMillis,
+			count > 0 ? totalMillis / count : 0.0, entry.maxNanos.get() / 1e6,
+			sample != null ? sample.sql() : null, sample != null ? displayBinds(sample.binds()) : List.of());
+	}
+
+	private static List<String> displayBinds(final List<Bind> binds)
+	{
+		final List<String> result = new ArrayList<>(binds.size());
+		for (Bind bind : binds) {
+			result.add(bind.display());
+		}
+		return result;
+	}
+}
@@ -0,0 +1,39 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.sql;
+
+import java.util.regex.Pattern;
+
+/**
+ * <p>Builds the fingerprint of an SQL statement, i.e. the statement without its comments, literals and the length
+ * of its IN lists, so that all executions of the same query share one fingerprint:</p>
+ * <pre>select * from Lexemes where id in (?, ?, ?) and langID = 4 -> select * from Lexemes where id in (?...) and langID = ?</pre>
+ */
+public final class SqlFingerprint
+{
+	private static final Pattern BLOCK_COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+	private static final Pattern LINE_COMMENT = Pattern.compile("--[^\\n]*");
+	private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+	// Numbers that are not part of an identifier like l1_0 (the aliases of Hibernate)
+	private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$.])-?\\d+(?:\\.\\d+)?(?![\\w$])");
+	private static final Pattern IN_LIST = Pattern.compile(
+		"(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private SqlFingerprint()
+	{
+	}
+
+	public static String of(final String sql)
+	{
+		if (sql == null) {
+			return "";
+		}
+		String result = BLOCK_COMMENT.matcher(sql).replaceAll(" ");
+		result = LINE_COMMENT.matcher(result).replaceAll(" ");
+		result = STRING_LITERAL.matcher(result).replaceAll("?");
+		result = NUMBER_LITERAL.matcher(result).replaceAll("?");
+		result = IN_LIST.matcher(result).replaceAll("in (?...)");
+		return WHITESPACE.matcher(result).replaceAll(" ").trim();
+	}
+}
@@ -0,0 +1,29 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.entity.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * <p>Tests for class {@link SearchRun}.</p>
+ */
+public class SearchRunTest
+{
+	@Test
+	public void testTruncateSearchText()
+	{
+		assertNull(SearchRun.truncateSearchText(null));
+		assertEquals("huus", SearchRun.truncateSearchText("huus"));
+
+		final String max = "a".repeat(SearchRun.SEARCH_TEXT_LENGTH);
+		assertEquals(max, SearchRun.truncateSearchText(max));
+		assertEquals(max, SearchRun.truncateSearchText(max + "b"));
+
+		// A surrogate pair at the end is removed completely
+		final String emoji = "a".repeat(SearchRun.SEARCH_TEXT_LENGTH - 1) + "😀";
+		assertEquals("a".repeat(SearchRun.SEARCH_TEXT_LENGTH - 1), SearchRun.truncateSearchText(emoji));
+	}
+}
@@ -0,0 +1,156 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search;
+
+import dk.ule.oapenwb.logic.admin.LanguagesController;
+import dk.ule.oapenwb.logic.admin.generic.CEntityController;
+import dk.ule.oapenwb.persistency.entity.content.basedata.Orthography;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * <p>Tests for the locking of {@link SearchEntriesProjection#refresh(Session, Collection)}. The table SearchEntries
+ * and the advisory locks of the database are simulated in memory.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+public class SearchEntriesProjectionTest
+{
+	/**
+	 * A row of the projection, the first four components are its primary key.
+	 */
+	private record Row(long mappingID, int side, long variantID, int formTypeID, long lexemeID, long partnerLexemeID)
+	{
+		List<Long> key()
+		{
+			return List.of(mappingID, (long) side, variantID, (long) formTypeID);
+		}
+	}
+
+	// Mapping 1 connects lexeme 1 (variant 11) and lexeme 2 (variant 21), each variant has two forms
+	private static final List<Row> PROJECTION = List.of(
+		new Row(1L, 1, 11L, 1, 1L, 2L),
+		new Row(1L, 1, 11L, 2, 1L, 2L),
+		new Row(1L, 2, 21L, 1, 2L, 1L),
+		new Row(1L, 2, 21L, 2, 2L, 1L));
+
+	// <primary key, row>
+	private final Map<List<Long>, Row> table = new HashMap<>();
+	// <lexemeID, advisory lock>
+	private final Map<Long, ReentrantLock> locks = new ConcurrentHashMap<>();
+	// The advisory locks taken by the transaction of a thread
+	private final ThreadLocal<List<ReentrantLock>> heldLocks = ThreadLocal.withInitial(ArrayList::new);
+	private final List<Long> lockOrder = Collections.synchronizedList(new ArrayList<>());
+	// Gives a concurrent transaction the chance to delete the rows, too
+	private final CountDownLatch deleted = new CountDownLatch(2);
+
+	@Mock
+	private Session session;
+	@Mock
+	private LanguagesController languagesController;
+	@Mock
+	private CEntityController<Orthography, Integer> orthographiesController;
+
+	private SearchEntriesProjection projection;
+
+	@BeforeEach
+	public void initProjection()
+	{
+		PROJECTION.forEach(row -> table.put(row.key(), row));
+		projection = new SearchEntriesProjection(() -> null, languagesController, orthographiesController) {
+			@Override
+			List<Long> findPartnerLexemes(Session session, Collection<Long> lexemeIDs)
+			{
+				return PROJECTION.stream()
+					.filter(row -> lexemeIDs.contains(row.lexemeID()))
+					.map(Row::partnerLexemeID)
+					.distinct()
+					.toList();
+			}
+
+			@Override
+			void lock(Session session, long lexemeID)
+			{
+				final ReentrantLock lock = locks.computeIfAbsent(lexemeID, k -> new ReentrantLock());
+				lock.lock();
+				heldLocks.get().add(lock);
+				lockOrder.add(lexemeID);
+			}
+
+			@Override
+			void deleteRows(Session session, Collection<Long> lexemeIDs)
+			{
+				synchronized (table) {
+					table.values().removeIf(
+						row -> lexemeIDs.contains(row.lexemeID()) || lexemeIDs.contains(row.partnerLexemeID()));
+				}
+				deleted.countDown();
+				try {
+					deleted.await(200, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+
+			@Override
+			void insertRows(Session session, Collection<Long> lexemeIDs)
+			{
+				for (Row row : PROJECTION) {
+					if (lexemeIDs.contains(row.lexemeID()) || lexemeIDs.contains(row.partnerLexemeID())) {
+						synchronized (table) {
+							if (table.putIfAbsent(row.key(), row) != null) {
+								throw new IllegalStateException("Duplicate key " + row.key());
+							}
+						}
+					}
+				}
+			}
+		};
+	}
+
+	/**
+	 * Saves the lexeme within a simulated transaction, the advisory locks are released on its commit.
+	 */
+	private Void save(final long lexemeID) throws Exception
+	{
+		try {
+			projection.refresh(session, List.of(lexemeID));
+			return null;
+		} finally {
+			heldLocks.get().forEach(ReentrantLock::unlock);
+			heldLocks.remove();
+		}
+	}
+
+	@Test
+	public void testLockOrder() throws Exception
+	{
+		save(2L);
+		assertEquals(List.of(1L, 2L), lockOrder, "The partner has to be locked, too, in ascending order");
+	}
+
+	@Test
+	public void testConcurrentSaveOfBothSides() throws Exception
+	{
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			final Future<Void> saveOne = executor.submit(() -> save(1L));
+			final Future<Void> saveTwo = executor.submit(() -> save(2L));
+			// Fails with the duplicate key if both transactions deleted before inserting
+			saveOne.get(5, TimeUnit.SECONDS);
+			saveTwo.get(5, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(new HashSet<>(PROJECTION), new HashSet<>(table.values()));
+	}
+}
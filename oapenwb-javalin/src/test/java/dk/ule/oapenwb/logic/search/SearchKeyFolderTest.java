@@ -0,0 +1,34 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>Tests for class {@link SearchKeyFolder}.</p>
+ */
+public class SearchKeyFolderTest
+{
+	@Test
+	public void testFold()
+	{
+		assertEquals("door", SearchKeyFolder.fold("Döör"));
+		assertEquals("dor", SearchKeyFolder.fold("DÖR"));
+		assertEquals("strasse", SearchKeyFolder.fold("Straße"));
+		assertEquals("sondag", SearchKeyFolder.fold("Søndag"));
+		assertEquals("huus-door", SearchKeyFolder.fold("Huus-Döör"));
+		assertNull(SearchKeyFolder.fold(null));
+	}
+
+	@Test
+	public void testFoldWithEquivalences()
+	{
+		assertEquals("bliven", SearchKeyFolder.fold("blyven", "y", "i"));
+		// Characters without a replacement are removed
+		assertEquals("snaken", SearchKeyFolder.fold("snacken", "c", ""));
+		// The equivalences are applied before the diacritics are removed
+		assertEquals("ae", SearchKeyFolder.fold("Ä", "ä", "æ"));
+	}
+}
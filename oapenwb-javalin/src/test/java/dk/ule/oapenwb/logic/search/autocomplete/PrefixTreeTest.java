@@ -0,0 +1,57 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.autocomplete;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <p>Tests for class {@link PrefixTree}.</p>
+ */
+public class PrefixTreeTest
+{
+	@Test
+	public void testVisitPrefixInOrder()
+	{
+		PrefixTree tree = new PrefixTree();
+		tree.add("huusdöär", 3L);
+		tree.add("huus", 2L);
+		tree.add("hund", 1L);
+		tree.add("huus", 4L);
+		tree.add("kat", 5L);
+
+		assertEquals(4, tree.getKeyCount());
+		assertEquals(List.of("hund:1", "huus:2", "huus:4", "huusdöär:3"), visit(tree, "h", 10));
+		assertEquals(List.of("huus:2", "huus:4", "huusdöär:3"), visit(tree, "huus", 10));
+		assertEquals(List.of("hund:1", "huus:2"), visit(tree, "hu", 2));
+		assertTrue(visit(tree, "x", 10).isEmpty());
+	}
+
+	@Test
+	public void testRemove()
+	{
+		PrefixTree tree = new PrefixTree();
+		tree.add("huus", 2L);
+		tree.add("huus", 4L);
+		tree.remove("huus", 2L);
+		assertEquals(List.of("huus:4"), visit(tree, "hu", 10));
+		tree.remove("huus", 4L);
+		assertEquals(0, tree.getKeyCount());
+		assertTrue(visit(tree, "hu", 10).isEmpty());
+	}
+
+	private List<String> visit(PrefixTree tree, String prefix, int limit)
+	{
+		final List<String> result = new ArrayList<>();
+		tree.visitPrefix(prefix, (key, value) -> {
+			result.add(key + ":" + value);
+			return result.size() < limit;
+		});
+		return result;
+	}
+}
@@ -0,0 +1,168 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.index;
+
+import dk.ule.oapenwb.base.AppConfig;
+import dk.ule.oapenwb.base.error.CodeException;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <p>Tests for the build and refresh of the class {@link LexemeIndex} with an index of one text per lexeme that is
+ * loaded from a map instead of the database.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+public class LexemeIndexTest
+{
+	private static class TextIndex extends LexemeIndex<Map<Long, String>, Map<Long, String>>
+	{
+		// <lexemeID, text> as it is in the database
+		final Map<Long, String> texts = new ConcurrentHashMap<>();
+
+		TextIndex(AppConfig appConfig)
+		{
+			super(appConfig);
+		}
+
+		String getText(long lexemeID)
+		{
+			return data.get(lexemeID);
+		}
+
+		@Override
+		public boolean isEnabled()
+		{
+			return true;
+		}
+
+		@Override
+		public String getName()
+		{
+			return "text index";
+		}
+
+		@Override
+		public String getFallback()
+		{
+			return "nothing will be found";
+		}
+
+		@Override
+		protected Session getSession()
+		{
+			return null;
+		}
+
+		@Override
+		protected Map<Long, String> load(Session session, Collection<Long> lexemeIDs) throws CodeException
+		{
+			final Map<Long, String> result = new HashMap<>();
+			texts.forEach((lexemeID, text) -> {
+				if (lexemeIDs == null || lexemeIDs.contains(lexemeID)) {
+					result.put(lexemeID, text);
+				}
+			});
+			return result;
+		}
+
+		@Override
+		protected Map<Long, String> createData(Map<Long, String> loaded)
+		{
+			return new HashMap<>(loaded);
+		}
+
+		@Override
+		protected void replaceLexemes(Map<Long, String> data, Collection<Long> lexemeIDs, Map<Long, String> loaded)
+		{
+			lexemeIDs.forEach(data::remove);
+			data.putAll(loaded);
+		}
+
+		@Override
+		protected String describe(Map<Long, String> data)
+		{
+			return data.size() + " texts";
+		}
+	}
+
+	@Mock
+	private AppConfig appConfig;
+
+	@Test
+	public void testChangeDuringBuild() throws CodeException
+	{
+		final TextIndex index = new TextIndex(appConfig) {
+			@Override
+			protected Map<Long, String> load(Session session, Collection<Long> lexemeIDs) throws CodeException
+			{
+				final Map<Long, String> result = super.load(session, lexemeIDs);
+				if (lexemeIDs == null) {
+					// Lexeme 1 is changed and lexeme 3 is created after the build read the data
+					texts.put(1L, "Huus");
+					texts.put(3L, "Boom");
+					lexemesChanged(List.of(1L, 3L));
+				}
+				return result;
+			}
+		};
+		index.texts.put(1L, "Hus");
+		index.texts.put(2L, "Dack");
+		index.build();
+
+		assertEquals("Huus", index.getText(1L));
+		assertEquals("Dack", index.getText(2L));
+		assertEquals("Boom", index.getText(3L));
+	}
+
+	@Test
+	public void testChangesAppliedInOrder() throws Exception
+	{
+		final CountDownLatch firstLoaded = new CountDownLatch(1);
+		final CountDownLatch releaseFirst = new CountDownLatch(1);
+		final TextIndex index = new TextIndex(appConfig) {
+			@Override
+			protected Map<Long, String> load(Session session, Collection<Long> lexemeIDs) throws CodeException
+			{
+				final Map<Long, String> result = super.load(session, lexemeIDs);
+				if (lexemeIDs != null && firstLoaded.getCount() > 0) {
+					// The first refresh is slow and applies its data last if it is not serialized
+					firstLoaded.countDown();
+					try {
+						releaseFirst.await(5, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return result;
+			}
+		};
+		index.texts.put(1L, "Hus");
+		index.build();
+
+		index.texts.put(1L, "Huus");
+		final Thread first = new Thread(() -> index.lexemesChanged(List.of(1L)));
+		first.start();
+		assertTrue(firstLoaded.await(5, TimeUnit.SECONDS));
+
+		index.texts.put(1L, "Huis");
+		final Thread second = new Thread(() -> index.lexemesChanged(List.of(1L)));
+		second.start();
+		second.join(200);
+		releaseFirst.countDown();
+		first.join(5_000);
+		second.join(5_000);
+
+		assertEquals("Huis", index.getText(1L));
+	}
+}
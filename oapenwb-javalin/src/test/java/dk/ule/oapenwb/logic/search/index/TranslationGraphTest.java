@@ -0,0 +1,122 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.index;
+
+import dk.ule.oapenwb.logic.search.Direction;
+import dk.ule.oapenwb.logic.search.SearchKeyFolder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <p>Tests for class {@link TranslationGraph}.</p>
+ */
+public class TranslationGraphTest
+{
+	private static final int LANG_NDS = 1;
+	private static final int LANG_DE = 2;
+	private static final String PAIR = "nds-de";
+
+	private TranslationGraph graph;
+
+	@BeforeEach
+	public void buildGraph()
+	{
+		graph = new TranslationGraph();
+		// nds: huus (lexeme 1, variant 10, sememe 100), huusdöär (lexeme 2, variant 20, sememe 200)
+		graph.addLexeme(1L, List.of(100L),
+			List.of(new TranslationGraph.SememeNode(100L, 1L, LANG_NDS, 1, new long[] { 10L })),
+			Map.of(10L, List.of("Huus", "Huuses")));
+		graph.addLexeme(2L, List.of(200L),
+			List.of(new TranslationGraph.SememeNode(200L, 2L, LANG_NDS, 1, new long[] { 20L })),
+			Map.of(20L, List.of("Huus-döär")));
+		// de: Haus (lexeme 3, variant 30, sememe 300)
+		graph.addLexeme(3L, List.of(300L),
+			List.of(new TranslationGraph.SememeNode(300L, 3L, LANG_DE, 1, new long[] { 30L })),
+			Map.of(30L, List.of("Haus")));
+
+		graph.addMapping(new TranslationGraph.MappingEdge(1000L, PAIR, 100L, 300L, (short) 5));
+		graph.addMapping(new TranslationGraph.MappingEdge(1001L, PAIR, 200L, 300L, (short) 9));
+	}
+
+	@Test
+	public void testTokenize()
+	{
+		assertEquals(List.of("huus", "döär", "huus-döär"), TranslationGraph.tokenize("Huus-döär"));
+		assertEquals(List.of("dat", "huus"), TranslationGraph.tokenize("dat Huus!"));
+		assertTrue(TranslationGraph.tokenize("  ").isEmpty());
+	}
+
+	@Test
+	public void testFindInBothDirections()
+	{
+		List<TranslationGraph.MappingEdge> result = find("huus", Direction.Both);
+		assertEquals(2, result.size());
+		// Ordered by weight descending
+		assertEquals(1001L, result.get(0).id());
+		assertEquals(1000L, result.get(1).id());
+
+		result = find("haus", Direction.Both);
+		assertEquals(2, result.size());
+
+		// The German sememe is on the right side and thus not found from left to right
+		assertTrue(find("haus", Direction.Right).isEmpty());
+		assertEquals(2, find("haus", Direction.Left).size());
+	}
+
+	@Test
+	public void testFindWithMultipleTokens()
+	{
+		List<TranslationGraph.MappingEdge> result = find("huus döär", Direction.Both);
+		assertEquals(1, result.size());
+		assertEquals(1001L, result.get(0).id());
+	}
+
+	@Test
+	public void testFindWithTokensOfDifferentForms()
+	{
+		// nds: döär (lexeme 4, variant 40, sememe 400) with the forms 'Döär' and 'Huus' (for the test)
+		graph.addLexeme(4L, List.of(400L),
+			List.of(new TranslationGraph.SememeNode(400L, 4L, LANG_NDS, 1, new long[] { 40L })),
+			Map.of(40L, List.of("Döär", "Huus")));
+		graph.addMapping(new TranslationGraph.MappingEdge(1002L, PAIR, 400L, 300L, (short) 1));
+
+		// All tokens must be found in one lexeme form, as in the database
+		List<TranslationGraph.MappingEdge> result = find("huus döär", Direction.Both);
+		assertEquals(1, result.size());
+		assertEquals(1001L, result.get(0).id());
+		assertEquals(3, find("huus", Direction.Right).size());
+
+		graph.removeLexeme(4L);
+		assertEquals(1, find("döär", Direction.Right).size());
+	}
+
+	@Test
+	public void testRemoveAndReAddLexeme()
+	{
+		graph.removeLexeme(2L);
+		assertTrue(find("döär", Direction.Both).isEmpty());
+		// The mapping to the removed sememe must be gone on the German side, too
+		assertEquals(1, find("haus", Direction.Both).size());
+
+		graph.addLexeme(2L, List.of(200L),
+			List.of(new TranslationGraph.SememeNode(200L, 2L, LANG_NDS, 1, new long[] { 20L })),
+			Map.of(20L, List.of("Döär")));
+		graph.addMapping(new TranslationGraph.MappingEdge(1001L, PAIR, 200L, 300L, (short) 9));
+		assertEquals(1, find("döär", Direction.Both).size());
+		assertEquals(2, find("haus", Direction.Both).size());
+	}
+
+	private List<TranslationGraph.MappingEdge> find(String term, Direction direction)
+	{
+		// The TranslationIndex folds the term just like the lexeme forms
+		return graph.find(TranslationGraph.tokenize(SearchKeyFolder.fold(term)), Set.of(PAIR), Set.of(LANG_NDS),
+			Set.of(LANG_DE), direction);
+	}
+}
@@ -0,0 +1,68 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.infix;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>Tests for the classes {@link WildcardPattern} and {@link SuffixArray}.</p>
+ */
+public class WildcardPatternTest
+{
+	@Test
+	public void testMatches()
+	{
+		final WildcardPattern infix = WildcardPattern.parse("Hus");
+		assertEquals("*hus*", infix.getPattern());
+		assertTrue(infix.matches("hus"));
+		assertTrue(infix.matches("rathus"));
+		assertTrue(infix.matches("husdöör"));
+		assertFalse(infix.matches("huus"));
+
+		final WildcardPattern prefix = WildcardPattern.parse("hus*");
+		assertTrue(prefix.matches("husdöör"));
+		assertFalse(prefix.matches("rathus"));
+
+		final WildcardPattern single = WildcardPattern.parse("h?s");
+		assertTrue(single.matches("hus"));
+		assertTrue(single.matches("has"));
+		assertFalse(single.matches("huus"));
+
+		final WildcardPattern backtracking = WildcardPattern.parse("*a*b?");
+		assertTrue(backtracking.matches("aaabbx"));
+		assertTrue(backtracking.matches("abx"));
+		assertFalse(backtracking.matches("aab"));
+
+		assertTrue(WildcardPattern.parse("*").matches(""));
+	}
+
+	@Test
+	public void testLikePattern()
+	{
+		assertEquals("%hus%", WildcardPattern.parse("hus").toLikePattern());
+		assertEquals("h_s%", WildcardPattern.parse("h?s*").toLikePattern());
+		assertEquals("%10\\%\\_a\\\\%", WildcardPattern.parse("10%_a\\").toLikePattern());
+		assertEquals("dör", WildcardPattern.parse("*d?r*dör").getLongestLiteral());
+		assertEquals("", WildcardPattern.parse("*?*").getLongestLiteral());
+	}
+
+	@Test
+	public void testSuffixArray()
+	{
+		final SuffixArray suffixArray = new SuffixArray(List.of("hus", "huus", "rathus", "döör", "a"));
+		assertArrayEquals(new int[] { 0, 2 }, suffixArray.findContaining("hus"));
+		assertArrayEquals(new int[] { 0, 1, 2 }, suffixArray.findContaining("u"));
+		assertArrayEquals(new int[] { 1 }, suffixArray.findContaining("uu"));
+		assertArrayEquals(new int[] { 2, 4 }, suffixArray.findContaining("a"));
+		assertArrayEquals(new int[] { 3 }, suffixArray.findContaining("öö"));
+		// Matches must not span two texts
+		assertArrayEquals(new int[0], suffixArray.findContaining("sh"));
+		assertArrayEquals(new int[0], suffixArray.findContaining("rathusd"));
+		assertArrayEquals(new int[] { 0, 1, 2, 3, 4 }, suffixArray.findContaining(""));
+		assertEquals("rathus", suffixArray.getText(2));
+	}
+}
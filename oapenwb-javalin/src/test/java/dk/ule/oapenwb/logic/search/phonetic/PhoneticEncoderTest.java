@@ -0,0 +1,56 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.phonetic;
+
+import dk.ule.oapenwb.logic.search.SearchKeyFolder;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>Tests for class {@link PhoneticEncoder}.</p>
+ */
+public class PhoneticEncoderTest
+{
+	private static String encode(final String word)
+	{
+		return PhoneticEncoder.COLOGNE.encode(SearchKeyFolder.fold(word));
+	}
+
+	@Test
+	public void testCologne()
+	{
+		assertEquals("3412", encode("Wikipedia"));
+		assertEquals("65752682", encode("Müller-Lüdenscheidt"));
+		assertEquals("17863", encode("Breschnew"));
+		assertEquals("862", encode("Schmidt"));
+		assertEquals("862", encode("Schmitt"));
+		assertEquals("67", encode("Meyer"));
+		assertEquals("67", encode("Maier"));
+		// Initial c and x after c, k or q
+		assertEquals("4782", encode("Christ"));
+		assertEquals("862", encode("Cent"));
+		assertEquals("0485", encode("Axel"));
+		assertEquals("548", encode("Lachs"));
+		assertEquals("", encode("h"));
+	}
+
+	@Test
+	public void testDialectSpellings()
+	{
+		assertEquals(encode("Water"), encode("Waater"));
+		assertEquals(encode("Huus"), encode("Hus"));
+		assertEquals(encode("snacken"), encode("snakken"));
+	}
+
+	@Test
+	public void testCustomRules()
+	{
+		// 'sk' and 'sch' sound alike in this language
+		final PhoneticEncoder encoder = PhoneticEncoder.parse("sch=8;sk=8;" + PhoneticEncoder.COLOGNE_RULES);
+		assertEquals(encoder.encode("schip"), encoder.encode("skip"));
+		assertNotEquals(PhoneticEncoder.COLOGNE.encode("schip"), PhoneticEncoder.COLOGNE.encode("skip"));
+		assertThrows(IllegalArgumentException.class, () -> PhoneticEncoder.parse("a"));
+		assertThrows(IllegalArgumentException.class, () -> PhoneticEncoder.parse("[a=0"));
+	}
+}
@@ -0,0 +1,169 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.phonetic;
+
+import dk.ule.oapenwb.base.AppConfig;
+import dk.ule.oapenwb.base.error.CodeException;
+import dk.ule.oapenwb.logic.admin.LanguagesController;
+import dk.ule.oapenwb.logic.admin.generic.IEntityChangeListener;
+import dk.ule.oapenwb.logic.admin.lexeme.LexemesController;
+import dk.ule.oapenwb.logic.search.phonetic.PhoneticIndex.FormRow;
+import dk.ule.oapenwb.persistency.entity.content.basedata.Language;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * <p>Tests for class {@link PhoneticIndex}. The lexeme forms are taken from a list instead of the database.</p>
+ */
+@ExtendWith(MockitoExtension.class)
+public class PhoneticIndexTest
+{
+	private static final long[] NONE = new long[0];
+
+	private final Language lSaxon = new Language(1, null, "nds", "Neddersassisk", "l:nds", "l:nds_a", 1);
+	private final Language lGerman = new Language(2, null, "de", "Deutsch", "l:de", "l:de_a", 2);
+
+	// The lexeme forms of the active variants as they are in the database
+	private final List<FormRow> forms = new ArrayList<>();
+
+	@Mock
+	private AppConfig appConfig;
+	@Mock
+	private LanguagesController languagesController;
+	@Mock
+	private LexemesController lexemesController;
+	@Captor
+	private ArgumentCaptor<IEntityChangeListener<Language>> languageListener;
+
+	private PhoneticIndex index;
+
+	@BeforeEach
+	public void initIndex() throws CodeException
+	{
+		Mockito.lenient().when(appConfig.isUsePhoneticIndex()).thenReturn(true);
+		Mockito.lenient().when(languagesController.get(lSaxon.getId())).thenReturn(lSaxon);
+		Mockito.lenient().when(languagesController.get(lGerman.getId())).thenReturn(lGerman);
+
+		forms.add(new FormRow(1L, 11L, lGerman.getId(), "Meyer"));
+		forms.add(new FormRow(2L, 21L, lGerman.getId(), "Müller"));
+		forms.add(new FormRow(2L, 21L, lGerman.getId(), "Müllers"));
+		forms.add(new FormRow(3L, 31L, lSaxon.getId(), "Moier"));
+		forms.add(new FormRow(3L, 32L, lSaxon.getId(), "Meier"));
+
+		index = new PhoneticIndex(appConfig, languagesController, lexemesController) {
+			@Override
+			protected Session getSession()
+			{
+				return null;
+			}
+
+			@Override
+			List<FormRow> loadForms(Session session, Collection<Long> lexemeIDs, Integer langID)
+			{
+				return forms.stream()
+					.filter(row -> lexemeIDs == null || lexemeIDs.contains(row.lexemeID()))
+					.filter(row -> langID == null || langID.equals(row.langID()))
+					.toList();
+			}
+		};
+		Mockito.verify(lexemesController).addChangeListener(index);
+		Mockito.verify(languagesController).addChangeListener(languageListener.capture());
+	}
+
+	@Test
+	public void testBuild() throws CodeException
+	{
+		assertFalse(index.isReady());
+		assertNull(index.findVariants(Set.of(lGerman.getId()), "Maier"), "Index is not built yet");
+
+		index.build();
+		assertArrayEquals(new long[] { 11L }, index.findVariants(Set.of(lGerman.getId()), "Maier"));
+		assertArrayEquals(new long[] { 31L, 32L }, index.findVariants(Set.of(lSaxon.getId()), "Maier"));
+		assertArrayEquals(new long[] { 11L, 31L, 32L },
+			index.findVariants(Set.of(lGerman.getId(), lSaxon.getId()), "Mayer"));
+		assertArrayEquals(new long[] { 21L }, index.findVariants(Set.of(lGerman.getId()), "Miller"));
+	}
+
+	@Test
+	public void testFind() throws CodeException
+	{
+		index.build();
+		// All words must match
+		assertArrayEquals(NONE, index.findVariants(Set.of(lGerman.getId()), "Maier Miller"));
+		assertArrayEquals(new long[] { 21L }, index.findVariants(Set.of(lGerman.getId()), "\"Miller Millers\""));
+		// Excluded words are ignored
+		assertArrayEquals(new long[] { 11L }, index.findVariants(Set.of(lGerman.getId()), "Maier -Miller"));
+		assertArrayEquals(NONE, index.findVariants(Set.of(lGerman.getId()), "Schmidt"));
+		assertArrayEquals(NONE, index.findVariants(Set.of(3), "Maier"));
+	}
+
+	@Test
+	public void testLexemesChanged() throws CodeException
+	{
+		index.build();
+
+		// Lexeme 1 was changed, lexeme 2 deactivated and lexeme 4 created
+		forms.removeIf(row -> row.lexemeID() == 1L || row.lexemeID() == 2L);
+		forms.add(new FormRow(1L, 11L, lGerman.getId(), "Schmidt"));
+		forms.add(new FormRow(4L, 41L, lGerman.getId(), "Mayr"));
+		index.lexemesChanged(List.of(1L, 2L, 4L));
+
+		assertArrayEquals(new long[] { 41L }, index.findVariants(Set.of(lGerman.getId()), "Maier"));
+		assertArrayEquals(new long[] { 11L }, index.findVariants(Set.of(lGerman.getId()), "Schmitt"));
+		assertArrayEquals(NONE, index.findVariants(Set.of(lGerman.getId()), "Müller"));
+		assertArrayEquals(new long[] { 31L, 32L }, index.findVariants(Set.of(lSaxon.getId()), "Maier"));
+	}
+
+	@Test
+	public void testLanguageFolding() throws CodeException
+	{
+		lSaxon.setSearchFoldFrom("b");
+		lSaxon.setSearchFoldTo("m");
+		index.build();
+
+		// The forms and the term are folded with the equivalences of their language only
+		forms.add(new FormRow(5L, 51L, lGerman.getId(), "Bayer"));
+		forms.add(new FormRow(6L, 61L, lSaxon.getId(), "Boier"));
+		index.lexemesChanged(List.of(5L, 6L));
+		assertArrayEquals(new long[] { 31L, 32L, 61L }, index.findVariants(Set.of(lSaxon.getId()), "Maier"));
+		assertArrayEquals(new long[] { 31L, 32L, 61L }, index.findVariants(Set.of(lSaxon.getId()), "Baier"));
+		assertArrayEquals(new long[] { 51L }, index.findVariants(Set.of(lGerman.getId()), "Baier"));
+	}
+
+	@Test
+	public void testLanguageChanged() throws CodeException
+	{
+		index.build();
+		forms.add(new FormRow(6L, 61L, lSaxon.getId(), "Boier"));
+		index.lexemesChanged(List.of(6L));
+		assertArrayEquals(new long[] { 61L }, index.findVariants(Set.of(lSaxon.getId()), "Baier"));
+
+		// 'b' and 'm' sound alike in the changed rules, vowels are ignored
+		final Language lSaxonChanged = new Language(1, null, "nds", "Neddersassisk", "l:nds", "l:nds_a", 1);
+		lSaxonChanged.setPhoneticRules("[bm]=1;r=7");
+		Mockito.lenient().when(languagesController.get(lSaxon.getId())).thenReturn(lSaxonChanged);
+		languageListener.getValue().entityChanged(lSaxon, lSaxonChanged);
+
+		assertArrayEquals(new long[] { 31L, 32L, 61L }, index.findVariants(Set.of(lSaxon.getId()), "Baier"));
+		assertArrayEquals(new long[] { 31L, 32L, 61L }, index.findVariants(Set.of(lSaxon.getId()), "Moor"));
+		// The other languages keep their keys
+		assertArrayEquals(new long[] { 11L }, index.findVariants(Set.of(lGerman.getId()), "Maier"));
+		assertArrayEquals(NONE, index.findVariants(Set.of(lGerman.getId()), "Baier"));
+	}
+}
@@ -0,0 +1,64 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.search.spelling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>Tests for class {@link SymSpell}.</p>
+ */
+public class SymSpellTest
+{
+	@Test
+	public void testDistance()
+	{
+		assertEquals(0, SymSpell.distance("huus", "huus", 2));
+		assertEquals(1, SymSpell.distance("huus", "hus", 2));
+		assertEquals(1, SymSpell.distance("huus", "haus", 2));
+		// Transposition counts as one edit
+		assertEquals(1, SymSpell.distance("huus", "husu", 2));
+		assertEquals(1, SymSpell.distance("snacken", "sancken", 2));
+		assertEquals(3, SymSpell.distance("huus", "boom", 2));
+	}
+
+	@Test
+	public void testLookup()
+	{
+		final SymSpell symSpell = new SymSpell(2, 7);
+		for (String word : List.of("huus", "hus", "haus", "huse", "maus", "snacken", "snakken", "plattdüütsch")) {
+			symSpell.add(word);
+		}
+		// 'huus' is used by two lexemes
+		symSpell.add("huus");
+
+		final List<SymSpell.Suggestion> suggestions = symSpell.lookup("huis", 2, 10);
+		// Ordered by distance, then by count
+		assertEquals(List.of("huus", "hus", "haus", "huse"),
+			suggestions.stream().map(SymSpell.Suggestion::word).toList());
+		assertEquals(2, suggestions.getFirst().count());
+
+		// Words longer than the prefix length
+		assertEquals("plattdüütsch", symSpell.lookup("plattdütsch", 2, 1).getFirst().word());
+		assertEquals("snacken", symSpell.lookup("sancken", 1, 1).getFirst().word());
+		assertTrue(symSpell.lookup("boom", 2, 10).isEmpty());
+	}
+
+	@Test
+	public void testRemove()
+	{
+		final SymSpell symSpell = new SymSpell(2, 7);
+		symSpell.add("huus");
+		symSpell.add("huus");
+		symSpell.add("hus");
+
+		symSpell.remove("huus");
+		assertTrue(symSpell.contains("huus"));
+		symSpell.remove("huus");
+		assertFalse(symSpell.contains("huus"));
+		assertEquals(List.of("hus"), symSpell.lookup("huis", 2, 10).stream().map(SymSpell.Suggestion::word).toList());
+	}
+}
@@ -0,0 +1,124 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.logic.statistics;
+
+import dk.ule.oapenwb.entity.statistics.CondenseType;
+import dk.ule.oapenwb.entity.statistics.CondensedData;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>Tests for the condensing and the format of the top searches in class {@link SearchRunCondenser}.</p>
+ */
+public class SearchRunCondenserTest
+{
+	/**
+	 * Computes the statistics of runs with the given durations just as query Q700 does (percentile_cont
+	 * interpolates linearly between the two nearest values).
+	 */
+	private static SearchRunCondenser.StatsRow stats(final int... millis)
+	{
+		final int[] sorted = millis.clone();
+		Arrays.sort(sorted);
+		return new SearchRunCondenser.StatsRow((long) sorted.length, sorted[0], sorted[sorted.length - 1],
+			Arrays.stream(sorted).average().orElse(0), percentile(sorted, 0.5), percentile(sorted, 0.95));
+	}
+
+	private static double percentile(final int[] sorted, final double fraction)
+	{
+		final double position = fraction * (sorted.length - 1);
+		final int lower = (int) Math.floor(position);
+		final int upper = (int) Math.ceil(position);
+		return sorted[lower] + (sorted[upper] - sorted[lower]) * (position - lower);
+	}
+
+	@Test
+	public void testCondenseAndMerge()
+	{
+		// First batch: 4 runs, 'huus' searched 3 times and 'water' once
+		final CondensedData data = SearchRunCondenser.condense("2026-10-16", null, stats(10, 20, 30, 40),
+			new LinkedHashMap<>(Map.of("huus", 3L, "water", 1L)));
+		assertEquals("2026-10-16", data.getId());
+		assertEquals(CondenseType.Day, data.getConType());
+		assertEquals(4, data.getNumberOfSearches());
+		assertEquals(10, data.getMillisMin());
+		assertEquals(40, data.getMillisMax());
+		assertEquals(25, data.getMillisAvg());
+		assertEquals(25, data.getMillisMedian());
+		assertEquals(39, data.getMillisP95());	// 38.5 rounded
+		assertEquals(Map.of("huus", 3L, "water", 1L), SearchRunCondenser.parseTopSearches(data.getTopTenSearches()));
+
+		// Late runs of the same day are merged: 2 runs of 'water'
+		final CondensedData merged = SearchRunCondenser.condense("2026-10-16", data, stats(50, 70),
+			Map.of("water", 2L));
+		assertSame(data, merged);
+		assertEquals(6, merged.getNumberOfSearches());
+		assertEquals(10, merged.getMillisMin());
+		assertEquals(70, merged.getMillisMax());
+		assertEquals(37, merged.getMillisAvg());		// (25 * 4 + 60 * 2) / 6
+		assertEquals(37, merged.getMillisMedian());	// (25 * 4 + 60 * 2) / 6, an approximation
+		assertEquals(49, merged.getMillisP95());		// (39 * 4 + 69 * 2) / 6
+		// Equal counts are ordered by the search text
+		assertEquals("huus:3\nwater:3", merged.getTopTenSearches());
+	}
+
+	@Test
+	public void testMergeNoRuns()
+	{
+		final CondensedData data = SearchRunCondenser.condense("2026-10-16", null, stats(10, 20), Map.of("huus", 2L));
+		SearchRunCondenser.condense("2026-10-16", data,
+			new SearchRunCondenser.StatsRow(0L, null, null, null, null, null), Map.of());
+		assertEquals(2, data.getNumberOfSearches());
+		assertEquals(10, data.getMillisMin());
+		assertEquals(20, data.getMillisMax());
+		assertEquals(15, data.getMillisAvg());
+		assertEquals("huus:2", data.getTopTenSearches());
+	}
+
+	@Test
+	public void testTopSearchesAreLimited()
+	{
+		final Map<String, Long> first = new LinkedHashMap<>();
+		final Map<String, Long> second = new LinkedHashMap<>();
+		for (int i = 0; i < SearchRunCondenser.TOP_SEARCHES_COUNT; i++) {
+			first.put("a" + i, 1L);
+			second.put("b" + i, 2L);
+		}
+		final CondensedData data = SearchRunCondenser.condense("2026-10-16", null, stats(1), first);
+		SearchRunCondenser.condense("2026-10-16", data, stats(1), second);
+		final Map<String, Long> top = SearchRunCondenser.parseTopSearches(data.getTopTenSearches());
+		assertEquals(SearchRunCondenser.TOP_SEARCHES_COUNT, top.size());
+		assertTrue(top.keySet().stream().allMatch(text -> text.startsWith("b")));
+	}
+
+	@Test
+	public void testFormatAndParseTopSearches()
+	{
+		final Map<String, Long> topSearches = new LinkedHashMap<>();
+		topSearches.put("huus", 12L);
+		topSearches.put("a:b", 3L);
+		topSearches.put("twee\nregen", 1L);
+
+		final String formatted = SearchRunCondenser.formatTopSearches(topSearches);
+		assertEquals("huus:12\na:b:3\ntwee regen:1", formatted);
+
+		final Map<String, Long> parsed = SearchRunCondenser.parseTopSearches(formatted);
+		assertEquals(3, parsed.size());
+		assertEquals(12L, parsed.get("huus"));
+		assertEquals(3L, parsed.get("a:b"));
+		assertEquals(1L, parsed.get("twee regen"));
+	}
+
+	@Test
+	public void testParseMalformedTopSearches()
+	{
+		assertTrue(SearchRunCondenser.parseTopSearches("").isEmpty());
+		assertTrue(SearchRunCondenser.parseTopSearches(null).isEmpty());
+		assertEquals(Map.of("huus", 2L), SearchRunCondenser.parseTopSearches("huus:2\nno count\nhuus:x"));
+	}
+}
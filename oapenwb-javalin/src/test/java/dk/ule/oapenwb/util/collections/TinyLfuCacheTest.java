@@ -0,0 +1,75 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.collections;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>Tests for class {@link TinyLfuCache}.</p>
+ */
+public class TinyLfuCacheTest
+{
+	@Test
+	public void testBounded()
+	{
+		TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(100);
+		for (int i = 0; i < 1000; i++) {
+			cache.get(i);
+			cache.put(i, "v" + i);
+			assertTrue(cache.size() <= 100);
+		}
+		assertEquals(100, cache.size());
+	}
+
+	@Test
+	public void testFrequentKeysSurviveScan()
+	{
+		TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(100);
+		// A head of frequently requested keys mixed with a scan of keys requested only once
+		for (int i = 0; i < 2000; i++) {
+			request(cache, i % 50);
+			request(cache, 1000 + i);
+		}
+		for (int i = 0; i < 50; i++) {
+			assertEquals("v" + i, cache.get(i));
+		}
+	}
+
+	private static void request(TinyLfuCache<Integer, String> cache, int key)
+	{
+		if (cache.get(key) == null) {
+			cache.put(key, "v" + key);
+		}
+	}
+
+	@Test
+	public void testRemoveAndClear()
+	{
+		TinyLfuCache<String, String> cache = new TinyLfuCache<>(10);
+		cache.put("huus", "hus");
+		cache.put("hund", "hund");
+		assertEquals("hus", cache.remove("huus"));
+		assertNull(cache.get("huus"));
+		assertEquals(1, cache.size());
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertNull(cache.get("hund"));
+	}
+
+	@Test
+	public void testSketchSaturatesAndAges()
+	{
+		TinyLfuCache.FrequencySketch sketch = new TinyLfuCache.FrequencySketch(16);
+		for (int i = 0; i < 20; i++) {
+			sketch.increment("huus");
+		}
+		assertEquals(15, sketch.frequency("huus"));
+		// Enough other additions to trigger a reset
+		for (int i = 0; i < 200; i++) {
+			sketch.increment("key" + i);
+		}
+		assertTrue(sketch.frequency("huus") < 15);
+	}
+}
@@ -0,0 +1,108 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>Tests for class {@link SingleFlight}.</p>
+ */
+public class SingleFlightTest
+{
+	@Test
+	public void testConcurrentCallsShareOneExecution() throws Exception
+	{
+		final SingleFlight<String, String> flight = new SingleFlight<>(10_000);
+		final AtomicInteger executions = new AtomicInteger();
+		final CountDownLatch leaderStarted = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			final Future<String> leader = executor.submit(() -> flight.execute("huus", () -> {
+				executions.incrementAndGet();
+				leaderStarted.countDown();
+				await(release);
+				return "hus";
+			}));
+			assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+			final CountDownLatch followersStarted = new CountDownLatch(10);
+			final List<Future<String>> followers = new ArrayList<>();
+			for (int i = 0; i < 10; i++) {
+				followers.add(executor.submit(() -> {
+					followersStarted.countDown();
+					return flight.execute("huus", () -> {
+						executions.incrementAndGet();
+						return "other";
+					});
+				}));
+			}
+			assertTrue(followersStarted.await(5, TimeUnit.SECONDS));
+			// Give the followers the chance to start waiting
+			Thread.sleep(200);
+			release.countDown();
+
+			assertEquals("hus", leader.get());
+			for (Future<String> follower : followers) {
+				assertEquals("hus", follower.get());
+			}
+		}
+		assertEquals(1, executions.get());
+		assertEquals(1, flight.getStatistics().leaders());
+		assertEquals(10, flight.getStatistics().followers());
+		assertEquals(0, flight.getInFlightCount());
+	}
+
+	@Test
+	public void testFollowerExecutesAfterTimeout() throws Exception
+	{
+		final SingleFlight<String, String> flight = new SingleFlight<>(50);
+		final CountDownLatch leaderStarted = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			final Future<String> leader = executor.submit(() -> flight.execute("huus", () -> {
+				leaderStarted.countDown();
+				await(release);
+				return "slow";
+			}));
+			assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+			assertEquals("fast", flight.execute("huus", () -> "fast"));
+			assertEquals(1, flight.getStatistics().timeouts());
+
+			release.countDown();
+			assertEquals("slow", leader.get());
+		}
+	}
+
+	@Test
+	public void testSequentialCallsAreNotCoalesced() throws Exception
+	{
+		final SingleFlight<String, String> flight = new SingleFlight<>(1_000);
+		final AtomicInteger executions = new AtomicInteger();
+		assertEquals("run 1", flight.execute("huus", () -> "run " + executions.incrementAndGet()));
+		assertEquals("run 2", flight.execute("huus", () -> "run " + executions.incrementAndGet()));
+		assertEquals(0.0, flight.getStatistics().coalescingRatio());
+	}
+
+	private static void await(CountDownLatch latch)
+	{
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,40 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.json;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>Tests for class {@link PrecompressedPayload}.</p>
+ */
+public class PrecompressedPayloadTest
+{
+	@Test
+	public void testETags()
+	{
+		final PrecompressedPayload payload = PrecompressedPayload.of("{\"key\":\"Wöörbook\"}");
+		assertEquals("{\"key\":\"Wöörbook\"}", payload.asString());
+		assertNotEquals(payload.getETag(), payload.getGzipETag());
+		assertEquals(payload.getETag(), PrecompressedPayload.of("{\"key\":\"Wöörbook\"}").getETag());
+		assertNotEquals(payload.getETag(), PrecompressedPayload.of("{}").getETag());
+
+		assertTrue(payload.matches(payload.getETag()));
+		assertTrue(payload.matches("\"other\", W/" + payload.getGzipETag()));
+		assertTrue(payload.matches("*"));
+		assertFalse(payload.matches("\"other\""));
+		assertFalse(payload.matches(null));
+	}
+
+	@Test
+	public void testAcceptsGzip()
+	{
+		assertTrue(PrecompressedPayload.acceptsGzip("gzip, deflate, br"));
+		assertTrue(PrecompressedPayload.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+		assertTrue(PrecompressedPayload.acceptsGzip("*"));
+		assertFalse(PrecompressedPayload.acceptsGzip("gzip;q=0"));
+		assertFalse(PrecompressedPayload.acceptsGzip("br, deflate"));
+		assertFalse(PrecompressedPayload.acceptsGzip(null));
+	}
+}
@@ -0,0 +1,78 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>Tests for the classes {@link Metrics} and {@link LatencyHistogram}.</p>
+ */
+public class MetricsTest
+{
+	@Test
+	public void testHistogramBuckets()
+	{
+		final LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(TimeUnit.MICROSECONDS.toNanos(500));
+		histogram.record(TimeUnit.MILLISECONDS.toNanos(20));
+		histogram.record(TimeUnit.MILLISECONDS.toNanos(20));
+		histogram.record(TimeUnit.SECONDS.toNanos(30));
+		// Negative durations are ignored
+		histogram.record(-1);
+
+		final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertEquals(4, snapshot.count());
+		assertEquals(30.0405, snapshot.sumSeconds(), 1e-9);
+		// <= 1 ms
+		assertEquals(1, snapshot.bucketCounts()[0]);
+		// <= 10 ms
+		assertEquals(1, snapshot.bucketCounts()[3]);
+		// <= 25 ms
+		assertEquals(3, snapshot.bucketCounts()[4]);
+		// <= 10 s
+		assertEquals(3, snapshot.bucketCounts()[LatencyHistogram.BUCKETS.length - 1]);
+
+		// Snapshots are cumulative
+		histogram.record(TimeUnit.MILLISECONDS.toNanos(2));
+		assertEquals(5, histogram.snapshot().count());
+	}
+
+	@Test
+	public void testScrape()
+	{
+		final Metrics metrics = new Metrics();
+		metrics.route("POST", "searchResults", 200).record(TimeUnit.MILLISECONDS.toNanos(3));
+		metrics.stage("search.mappings.db").record(TimeUnit.MILLISECONDS.toNanos(1));
+		metrics.gauge("oapenwb_db_pool_connections", "Connections per state", () -> 4, "state", "active");
+		metrics.gauge("oapenwb_db_pool_connections", "Connections per state", () -> {
+			throw new IllegalStateException("Pool not started");
+		}, "state", "idle");
+
+		final String text = metrics.scrape();
+		assertTrue(text.contains("# TYPE " + Metrics.ROUTE_METRIC + " histogram\n"));
+		assertTrue(text.contains(Metrics.ROUTE_METRIC
+			+ "_bucket{method=\"POST\",route=\"searchResults\",status=\"200\",le=\"0.0025\"} 0\n"));
+		assertTrue(text.contains(Metrics.ROUTE_METRIC
+			+ "_bucket{method=\"POST\",route=\"searchResults\",status=\"200\",le=\"0.005\"} 1\n"));
+		assertTrue(text.contains(Metrics.ROUTE_METRIC
+			+ "_bucket{method=\"POST\",route=\"searchResults\",status=\"200\",le=\"+Inf\"} 1\n"));
+		assertTrue(text.contains(Metrics.ROUTE_METRIC
+			+ "_count{method=\"POST\",route=\"searchResults\",status=\"200\"} 1\n"));
+		assertTrue(text.contains(Metrics.STAGE_METRIC + "_sum{stage=\"search.mappings.db\"} 0.001\n"));
+		assertTrue(text.contains("# TYPE oapenwb_db_pool_connections gauge\n"));
+		assertTrue(text.contains("oapenwb_db_pool_connections{state=\"active\"} 4\n"));
+		assertTrue(text.contains("oapenwb_db_pool_connections{state=\"idle\"} NaN\n"));
+	}
+
+	@Test
+	public void testLabelsAreEscaped()
+	{
+		final Metrics metrics = new Metrics();
+		metrics.gauge("oapenwb_test", "Test", () -> 1, "name", "a \"quoted\" \\ value");
+		assertTrue(metrics.scrape().contains("oapenwb_test{name=\"a \\\"quoted\\\" \\\\ value\"} 1\n"));
+	}
+}
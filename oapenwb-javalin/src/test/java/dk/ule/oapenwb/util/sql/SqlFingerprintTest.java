@@ -0,0 +1,45 @@
+// SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+// SPDX-License-Identifier: AGPL-3.0-only
+package dk.ule.oapenwb.util.sql;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * <p>Tests for class {@link SqlFingerprint}.</p>
+ */
+public class SqlFingerprintTest
+{
+	@Test
+	public void testLiteralsAreReplaced()
+	{
+		assertEquals("select * from Lexemes where langID = ? and parserID = ? and weight > ?",
+			SqlFingerprint.of("select * from Lexemes where langID = 4 and parserID = 'huus' and weight > -1.5"));
+		// Escaped quotes within a string literal
+		assertEquals("select ? from Tags where tag = ?", SqlFingerprint.of("select 1 from Tags where tag = 'it''s'"));
+	}
+
+	@Test
+	public void testIdentifiersAreKept()
+	{
+		assertEquals("select l1_0.id from Lexemes l1_0 where l1_0.version=?",
+			SqlFingerprint.of("select l1_0.id from Lexemes l1_0 where l1_0.version=3"));
+	}
+
+	@Test
+	public void testInListsAreCollapsed()
+	{
+		final String fingerprint = SqlFingerprint.of("delete from SememeLemmas where lexemeID in (?, ?, ?)");
+		assertEquals("delete from SememeLemmas where lexemeID in (?...)", fingerprint);
+		assertEquals(fingerprint, SqlFingerprint.of("delete from SememeLemmas where lexemeID IN (?)"));
+		assertEquals(fingerprint, SqlFingerprint.of("delete from SememeLemmas where lexemeID in (1,2, 3)"));
+	}
+
+	@Test
+	public void testCommentsAndWhitespaceAreRemoved()
+	{
+		assertEquals("select id from Mappings where langPair = ?", SqlFingerprint.of(
+			"/* Q501 */ select id\n\tfrom Mappings -- all of them\n\twhere langPair = ?"));
+	}
+}
@@ -96,6 +96,27 @@ public class Language implements IEntity<Integer>
 	@JsonView({Views.BaseConfig.class, Views.REST.class})
 	private String importAbbreviation;
 
+	/*
+	 * Character equivalences for the search: each character of searchFoldFrom is treated as the character at the
+	 * same position of searchFoldTo (or removed if searchFoldTo is shorter), e.g. 'y' as 'i'. The search keys of
+	 * existing lexemes are updated by rebuilding the SearchEntries.
+	 */
+	@Column(length = 64)
+	@JsonView(Views.REST.class)
+	private String searchFoldFrom;
+
+	@Column(length = 64)
+	@JsonView(Views.REST.class)
+	private String searchFoldTo;
+
+	/*
+	 * Rules of the phonetic search as 'pattern=code' pairs separated by ';', see PhoneticEncoder in the backend. If
+	 * not set the Cologne phonetics are used. Changed rules are taken over when the phonetic index is rebuilt.
+	 */
+	@Column(length = 2048)
+	@JsonView(Views.REST.class)
+	private String phoneticRules;
+
 	/*
 	 * If this Language is a dialect (Language with a parent), then orthographies for it are optionally.
 	 * If no orthographies are set the orthographies from the highest parent will be taken.
@@ -89,4 +89,14 @@ public class Orthography implements IEntity<Integer>
 	@JsonView(Views.REST.class)
 	@Column
 	private boolean publicly = true;
+
+	/**
+	 * Rules that transliterate a lowercased text of this orthography into the common spelling of all orthographies
+	 * of its languages, as 'from=to' pairs separated by ';', e.g. 'sch=sk;oe=u'. They are applied in their order.
+	 * Texts are then found by the search whatever orthography they are typed in. The keys of existing lexemes are
+	 * updated by rebuilding the SearchEntries.
+	 */
+	@JsonView(Views.REST.class)
+	@Column(length = 2048)
+	private String transliterationRules;
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+-- SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+-- SPDX-License-Identifier: AGPL-3.0-only
+
+-- liquibase formatted sql
+
+-- changeset mikoet:search-statistics-1
+
+-- SearchRuns get a generated ID since runs in the same instant collided on the timestamp as primary key.
+-- The increment must match the allocationSize of the entity.
+create sequence searchrun_seq start 1 increment 50;
+alter table SearchRuns drop constraint searchruns_pkey;
+alter table SearchRuns add column id int8;
+update SearchRuns set id = nextval('searchrun_seq');
+alter table SearchRuns alter column id set not null;
+alter table SearchRuns add primary key (id);
+create index IDX_SearchRuns_whenTS on SearchRuns (whenTS);
+
+-- CondensedData is filled by the SearchRunCondenser
+alter table CondensedData alter column id type varchar(16);
+alter table CondensedData alter column topTenSearches type text;
+alter table CondensedData add column millisMin int4 not null default 0;
+alter table CondensedData add column millisMax int4 not null default 0;
+alter table CondensedData add column millisAvg int4 not null default 0;
+alter table CondensedData add column millisMedian int4 not null default 0;
+alter table CondensedData add column millisP95 int4 not null default 0;
@@ -0,0 +1,9 @@
+-- SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+-- SPDX-License-Identifier: AGPL-3.0-only
+
+-- liquibase formatted sql
+
+-- changeset mikoet:lexeme-list-keyset-1
+
+-- Keyset paging of the lexemes in the administration interface orders by the main variant's main and the lexeme ID
+create index IDX_Variants_main_lexemeID_mainVariant on Variants (main, lexemeID) where mainVariant = true;
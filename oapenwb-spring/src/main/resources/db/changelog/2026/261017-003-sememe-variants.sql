@@ -0,0 +1,24 @@
+-- SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+-- SPDX-License-Identifier: AGPL-3.0-only
+
+-- liquibase formatted sql
+
+-- changeset mikoet:sememe-variants-1
+
+-- Normalized form of Sememes.variantIDs so that the search queries (Q500) can join the variants of a sememe
+-- via btree indexes instead of unnesting the jsonb array of each sememe. It is maintained by the application
+-- whenever a sememe is saved (see SememesController.syncVariants()).
+create table SememeVariants (
+	sememeID int8 not null,
+	variantID int8 not null,
+	primary key (sememeID, variantID)
+);
+alter table if exists SememeVariants add constraint FK_SememeVariants_sememeID foreign key (sememeID) references Sememes on delete cascade;
+alter table if exists SememeVariants add constraint FK_SememeVariants_variantID foreign key (variantID) references Variants on delete cascade;
+create index IDX_SememeVariants_variantID_sememeID on SememeVariants (variantID, sememeID);
+
+-- Backfill from the existing sememes
+insert into SememeVariants (sememeID, variantID)
+select distinct s.id, v.id
+from Sememes s cross join lateral jsonb_array_elements_text(s.variantIDs) va(variantID)
+	inner join Variants v on v.id = cast(va.variantID as int8);
@@ -0,0 +1,53 @@
+-- SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+-- SPDX-License-Identifier: AGPL-3.0-only
+
+-- liquibase formatted sql
+
+-- changeset mikoet:search-entries-1
+
+-- Flattened projection of LexemeForms, Variants, Sememes, Lexemes and Mappings for the search query (Q502).
+-- Each row is a lexeme form of a variant of a sememe on one side of a mapping, together with everything the
+-- search filters on, so that both search directions are answered without joins. It is maintained by the
+-- application within the transaction that saves a lexeme (see SearchEntriesProjection) and can be rebuilt in bulk.
+create table SearchEntries (
+	mappingID int8 not null,
+	langPair varchar(32) not null,
+	sememeOneID int8 not null,
+	sememeTwoID int8 not null,
+	weight int2 not null,
+	side int2 not null,				-- 1: the entry belongs to sememeOne, 2: it belongs to sememeTwo
+	sememeID int8 not null,
+	variantID int8 not null,
+	formTypeID int4 not null,
+	lexemeID int8 not null,
+	langID int4 not null,
+	typeID int4 not null,
+	partnerLexemeID int8 not null,	-- lexeme of the sememe on the other side of the mapping
+	oneTypeID int4 not null,		-- lexeme type of sememeOne, it decides the result category
+	active boolean not null,		-- sememe and lexeme of this side are active
+	searchableText tsvector not null,
+	primary key (mappingID, side, variantID, formTypeID),
+	constraint check_side check (side in (1, 2))
+);
+alter table if exists SearchEntries add constraint FK_SearchEntries_mappingID foreign key (mappingID) references Mappings on delete cascade;
+alter table if exists SearchEntries add constraint FK_SearchEntries_sememeID foreign key (sememeID) references Sememes on delete cascade;
+alter table if exists SearchEntries add constraint FK_SearchEntries_variantID foreign key (variantID) references Variants on delete cascade;
+create index IDX_SearchEntries_searchableText on SearchEntries using GIN (searchableText) where active = true;
+create index IDX_SearchEntries_lexemeID on SearchEntries (lexemeID);
+create index IDX_SearchEntries_partnerLexemeID on SearchEntries (partnerLexemeID);
+
+-- Initial fill, the same statement as SearchEntriesProjection.rebuild()
+insert into SearchEntries (mappingID, langPair, sememeOneID, sememeTwoID, weight, side, sememeID, variantID,
+	formTypeID, lexemeID, langID, typeID, partnerLexemeID, oneTypeID, active, searchableText)
+select m.id, m.langPair, m.sememeOneID, m.sememeTwoID, m.weight, sd.side, s.id, sv.variantID,
+	lf.formTypeID, l.id, l.langID, l.typeID, pl.id, case when sd.side = 1 then l.typeID else pl.typeID end,
+	(s.active and l.active), lf.searchableText
+from Mappings m
+	cross join (values (1), (2)) sd(side)
+	inner join Sememes s on s.id = case when sd.side = 1 then m.sememeOneID else m.sememeTwoID end
+	inner join Lexemes l on l.id = s.lexemeID
+	inner join Sememes ps on ps.id = case when sd.side = 1 then m.sememeTwoID else m.sememeOneID end
+	inner join Lexemes pl on pl.id = ps.lexemeID
+	inner join SememeVariants sv on sv.sememeID = s.id
+	inner join LexemeForms lf on lf.variantID = sv.variantID
+where lf.searchableText is not null;
@@ -0,0 +1,19 @@
+-- SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+-- SPDX-License-Identifier: AGPL-3.0-only
+
+-- liquibase formatted sql
+
+-- changeset mikoet:sememe-lemmas-1
+
+-- The rendered lemma of each sememe per presentation profile, maintained in the background by the SememeLemmaStore
+-- so that the search doesn't need to build them.
+create table SememeLemmas (
+	sememeID int8 not null,
+	profile varchar(32) not null,
+	lexemeID int8 not null,
+	lemma text not null,
+	builtAt timestamp not null,
+	primary key (sememeID, profile)
+);
+alter table if exists SememeLemmas add constraint FK_SememeLemmas_sememeID foreign key (sememeID) references Sememes on delete cascade;
+create index IDX_SememeLemmas_lexemeID on SememeLemmas (lexemeID);
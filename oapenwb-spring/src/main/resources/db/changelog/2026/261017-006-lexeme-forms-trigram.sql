@@ -0,0 +1,12 @@
+-- SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+-- SPDX-License-Identifier: AGPL-3.0-only
+
+-- liquibase formatted sql
+
+-- changeset mikoet:lexeme-forms-trigram-1
+
+-- The Wildcard text search of the administration interface filters the lexeme forms via ILIKE, e.g. '%hus%'. The
+-- trigram index answers such patterns if they contain at least three literal characters in a row. Creating the
+-- extension needs the privilege to do so (e.g. a superuser or the owner of the database since PostgreSQL 13).
+create extension if not exists pg_trgm;
+create index IDX_LexemeForms_text_trgm on LexemeForms using GIN (text gin_trgm_ops);
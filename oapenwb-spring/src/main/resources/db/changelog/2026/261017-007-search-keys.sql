@@ -0,0 +1,39 @@
+-- SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+-- SPDX-License-Identifier: AGPL-3.0-only
+
+-- liquibase formatted sql
+
+-- changeset mikoet:search-keys-1 splitStatements:false
+
+-- Folds a text for the search: it is lowercased, the characters of the language's equivalence table are replaced
+-- as by translate(text, foldFrom, foldTo), and the diacritics are removed. unaccent() itself is only stable since
+-- its dictionary could be changed, thus the dictionary is fixed here to use the function in generated columns.
+-- Keep it in line with dk.ule.oapenwb.logic.search.SearchKeyFolder.
+create extension if not exists unaccent;
+create or replace function fold_search_text(input text, foldFrom varchar, foldTo varchar) returns text as $$
+	select public.unaccent('public.unaccent'::regdictionary,
+		translate(lower(input), coalesce(foldFrom, ''), coalesce(foldTo, '')))
+$$ language sql immutable parallel safe;
+
+-- changeset mikoet:search-keys-2
+
+-- The character equivalences of a language, e.g. 'y' in searchFoldFrom and 'i' in searchFoldTo
+alter table Languages add column searchFoldFrom varchar(64);
+alter table Languages add column searchFoldTo varchar(64);
+alter table Languages_AUD add column searchFoldFrom varchar(64);
+alter table Languages_AUD add column searchFoldTo varchar(64);
+
+-- Case- and diacritic-folded search key of each lexeme form, e.g. 'Döör' and 'dor' have the same key. It is used
+-- by the autocompletion (Q550). The lexeme forms don't know their language, so the equivalences are not applied.
+alter table LexemeForms add column searchKey tsvector
+	generated always as (to_tsvector('simple', fold_search_text(text, null, null))) stored;
+create index IDX_LexemeForms_searchKey on LexemeForms using GIN (searchKey);
+
+-- The search (Q502) probes the search key of the projection, which also applies the equivalences of the entry's
+-- language. No language has equivalences yet, so the initial keys are the ones of the lexeme forms.
+alter table SearchEntries add column searchKey tsvector;
+update SearchEntries e set searchKey = lf.searchKey
+	from LexemeForms lf where lf.variantID = e.variantID and lf.formTypeID = e.formTypeID;
+alter table SearchEntries alter column searchKey set not null;
+create index IDX_SearchEntries_searchKey on SearchEntries using GIN (searchKey) where active = true;
+drop index IDX_SearchEntries_searchableText;
@@ -0,0 +1,41 @@
+-- SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+-- SPDX-License-Identifier: AGPL-3.0-only
+
+-- liquibase formatted sql
+
+-- changeset mikoet:transliteration-keys-1 splitStatements:false
+
+-- Transliterates a lowercased text into the common spelling of a language's orthographies. The rules are given as
+-- 'from=to' pairs separated by ';', e.g. 'sch=sk;oe=u', and are applied in their order, each one replacing all
+-- occurrences in the result of the previous ones. Pairs without '=' are ignored. The rules come from
+-- Orthographies.transliterationRules.
+create or replace function transliterate_search_text(input text, rules varchar) returns text as $$
+declare
+	rule text;
+	pos int;
+begin
+	if input is null or rules is null or rules = '' then
+		return input;
+	end if;
+	foreach rule in array string_to_array(rules, ';') loop
+		pos := strpos(rule, '=');
+		if pos > 1 then
+			input := replace(input, substr(rule, 1, pos - 1), substr(rule, pos + 1));
+		end if;
+	end loop;
+	return input;
+end
+$$ language plpgsql immutable parallel safe;
+
+-- changeset mikoet:transliteration-keys-2
+
+alter table Orthographies add column transliterationRules varchar(2048);
+alter table Orthographies_AUD add column transliterationRules varchar(2048);
+
+-- Cross-orthography search key of the entry: its lexeme form transliterated with the rules of the variant's
+-- orthography, then folded as the searchKey. It is probed by the search (Q502) once any searched language has an
+-- orthography with rules. No orthography has rules yet, so the initial keys are the search keys.
+alter table SearchEntries add column translitKey tsvector;
+update SearchEntries set translitKey = searchKey;
+alter table SearchEntries alter column translitKey set not null;
+create index IDX_SearchEntries_translitKey on SearchEntries using GIN (translitKey) where active = true;
@@ -0,0 +1,13 @@
+-- SPDX-FileCopyrightText: © 2022 Michael Köther <mkoether38@gmail.com>
+-- SPDX-License-Identifier: AGPL-3.0-only
+
+-- liquibase formatted sql
+
+-- changeset mikoet:phonetic-search-1
+
+-- The rules of the phonetic search of a language (see PhoneticEncoder), the Cologne phonetics if null
+alter table Languages add column phoneticRules varchar(2048);
+alter table Languages_AUD add column phoneticRules varchar(2048);
+
+-- The phonetic search (Q502) probes the variants found by the PhoneticIndex
+create index IDX_SearchEntries_variantID on SearchEntries (variantID);